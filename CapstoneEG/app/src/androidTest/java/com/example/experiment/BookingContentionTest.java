@@ -0,0 +1,211 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Many students booking the same slots at once. Every slot ends up with exactly one
+ * appointment, every other attempt learns the slot was taken, and the throughput of the
+ * direct and the queued booking paths is logged.
+ */
+@RunWith(AndroidJUnit4.class)
+public class BookingContentionTest {
+    private static final String TAG = "BookingContentionTest";
+    private static final String TEST_DB = "booking-contention-test.db";
+    private static final String DATE = "2025-07-01";
+    private static final int ADMIN_ID = 1;
+    private static final int THREADS = 8;
+    private static final int SLOTS = 250;
+
+    private Context context;
+    private DatabaseManager dbManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void results_tellTheCasesApart() {
+        List<Integer> ids = addSlots(2);
+
+        assertEquals(BookingResult.BOOKED, dbManager.bookTimeSlot("alice", ids.get(0), "Advising"));
+        assertEquals(BookingResult.ALREADY_TAKEN, dbManager.bookTimeSlot("bob", ids.get(0), "Advising"));
+        assertEquals(BookingResult.SLOT_MISSING, dbManager.bookTimeSlot("bob", 9999, "Advising"));
+
+        // The text lookup goes through the same engine
+        assertTrue(dbManager.bookAppointment("bob", ADMIN_ID, DATE, "Slot 1", "Advising"));
+        assertFalse(dbManager.bookAppointment("carol", ADMIN_ID, DATE, "Slot 1", "Advising"));
+        assertFalse(dbManager.bookAppointment("carol", ADMIN_ID, DATE, "No such slot", "Advising"));
+
+        assertEquals(2, countAppointments());
+        assertEquals(0, countOpenSlots());
+    }
+
+    @Test
+    public void directBookings_neverDoubleBook() throws Exception {
+        final List<Integer> ids = addSlots(SLOTS);
+
+        long start = System.nanoTime();
+        Map<BookingResult, Integer> results = race(ids, (student, slotId) ->
+                CompletableFuture.completedFuture(dbManager.bookTimeSlot(student, slotId, "Advising")));
+        report("direct", results, System.nanoTime() - start);
+
+        assertBookedOnce(results);
+    }
+
+    @Test
+    public void queuedBookings_neverDoubleBook() throws Exception {
+        final List<Integer> ids = addSlots(SLOTS);
+
+        long start = System.nanoTime();
+        Map<BookingResult, Integer> results = race(ids, (student, slotId) ->
+                dbManager.bookTimeSlotQueued(student, slotId, "Advising"));
+        report("queued", results, System.nanoTime() - start);
+
+        assertBookedOnce(results);
+    }
+
+    private interface Booker {
+        CompletableFuture<BookingResult> book(String student, int slotId);
+    }
+
+    // Every thread tries every slot, each in its own shuffled order, all starting together
+    private Map<BookingResult, Integer> race(final List<Integer> ids, final Booker booker) throws Exception {
+        final Map<BookingResult, Integer> tally = new EnumMap<>(BookingResult.class);
+        for (BookingResult result : BookingResult.values()) {
+            tally.put(result, 0);
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final String student = "student" + t;
+            final List<Integer> order = new ArrayList<>(ids);
+            Collections.shuffle(order, new Random(t));
+            Thread runner = new Thread(() -> {
+                try {
+                    start.await();
+                    List<CompletableFuture<BookingResult>> attempts = new ArrayList<>();
+                    for (int slotId : order) {
+                        attempts.add(booker.book(student, slotId));
+                    }
+                    for (CompletableFuture<BookingResult> attempt : attempts) {
+                        BookingResult result = attempt.get(60, TimeUnit.SECONDS);
+                        synchronized (tally) {
+                            tally.put(result, tally.get(result) + 1);
+                        }
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            runner.start();
+            threads.add(runner);
+        }
+        start.countDown();
+        for (Thread runner : threads) {
+            runner.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+        return tally;
+    }
+
+    private void assertBookedOnce(Map<BookingResult, Integer> results) {
+        assertEquals(SLOTS, (int) results.get(BookingResult.BOOKED));
+        assertEquals(SLOTS * (THREADS - 1), (int) results.get(BookingResult.ALREADY_TAKEN));
+        assertEquals(0, (int) results.get(BookingResult.SLOT_MISSING));
+        assertEquals(0, (int) results.get(BookingResult.FAILED));
+
+        Set<String> bookedSlots = new HashSet<>();
+        Cursor cursor = dbManager.getAppointmentsForAdmin(ADMIN_ID);
+        try {
+            int timeSlot = cursor.getColumnIndexOrThrow("time_slot");
+            while (cursor.moveToNext()) {
+                assertTrue("double booked " + cursor.getString(timeSlot), bookedSlots.add(cursor.getString(timeSlot)));
+            }
+        } finally {
+            cursor.close();
+        }
+        assertEquals(SLOTS, bookedSlots.size());
+        assertEquals(0, countOpenSlots());
+    }
+
+    private void report(String path, Map<BookingResult, Integer> results, long nanos) {
+        int attempts = 0;
+        for (int count : results.values()) {
+            attempts += count;
+        }
+        Log.i(TAG, path + ": " + attempts + " attempts on " + SLOTS + " slots from " + THREADS + " threads in "
+                + nanos / 1000000 + " ms (" + attempts * 1000000000L / nanos + " attempts/s, "
+                + results.get(BookingResult.BOOKED) * 1000000000L / nanos + " bookings/s)");
+    }
+
+    private List<Integer> addSlots(int count) {
+        for (int i = 0; i < count; i++) {
+            assertEquals(WriteOutcome.ADDED, dbManager.addTimeSlot(ADMIN_ID, DATE, "Slot " + i));
+        }
+        List<Integer> ids = new ArrayList<>();
+        Cursor cursor = dbManager.getAdminTimeSlots(ADMIN_ID, DATE);
+        try {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getInt(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        assertEquals(count, ids.size());
+        return ids;
+    }
+
+    private int countAppointments() {
+        Cursor cursor = dbManager.getAppointmentsForAdmin(ADMIN_ID);
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private int countOpenSlots() {
+        Cursor cursor = dbManager.getAvailableTimeSlots(ADMIN_ID, DATE);
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.experiment;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Careers are filed under their fields when they are written, so getCareersInField only
+ * reads career_fields back, and the rows follow the careers through updates and deletes.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CareerFieldsTest {
+    private static final String TEST_DB = "career-fields-test.db";
+    private static final String CAREER_HEADER = "title\tcode\temployment\tchange\twage\teducation\n";
+
+    private Context context;
+    private DatabaseManager dbManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void csvImport_filesEachCareerUnderItsFields() {
+        assertTrue(dbManager.importCareersFromCSV(new String[]{
+                CAREER_HEADER.trim(),
+                "Web and digital interface designers\t15-1255\t1\t1\t1\tBachelor's degree",
+                "Registered nurses\t29-1141\t1\t1\t1\tBachelor's degree",
+                "Construction laborers\t47-2061\t1\t1\t1\tNo formal credential"}));
+
+        assertEquals(Collections.singletonList("Web and digital interface designers"),
+                titles(FieldClassifier.ARTS));
+        assertEquals(Collections.singletonList("Web and digital interface designers"),
+                titles(FieldClassifier.STEM));
+        assertEquals(Collections.singletonList("Registered nurses"), titles(FieldClassifier.HEALTH_SCIENCE));
+        assertTrue(titles(FieldClassifier.EDUCATION).isEmpty());
+        // Unclassified careers are still listed under All Fields
+        assertEquals(3, dbManager.getCareerIdTitlePairs().size());
+    }
+
+    @Test
+    public void addCareer_isClassifiedRightAway() {
+        assertTrue(titles(FieldClassifier.EDUCATION).isEmpty());
+
+        assertTrue(dbManager.addCareer("Special education teachers", "25-2050", 1, 1f, 1f, "Bachelor's degree"));
+        assertTrue(dbManager.addCareer("High school teachers", "25-2031", 1, 1f, 1f, "Bachelor's degree"));
+
+        // Cached before the insert, yet the write drops the stale result
+        assertEquals(Arrays.asList("High school teachers", "Special education teachers"),
+                titles(FieldClassifier.EDUCATION));
+    }
+
+    @Test
+    public void deltaImport_reclassifiesRenamedCareers() throws Exception {
+        importCareers(CAREER_HEADER + "Actuaries\t15-2011\t1\t1\t1\tBachelor's degree\n"
+                + "Art directors\t27-1011\t1\t1\t1\tBachelor's degree\n");
+        assertEquals(Collections.singletonList("Actuaries"), titles(FieldClassifier.STEM));
+
+        importCareers(CAREER_HEADER + "Financial managers\t15-2011\t1\t1\t1\tBachelor's degree\n");
+
+        assertTrue(titles(FieldClassifier.STEM).isEmpty());
+        assertEquals(Collections.singletonList("Financial managers"), titles(FieldClassifier.BUSINESS));
+        // The deleted career left every field
+        assertTrue(titles(FieldClassifier.ARTS).isEmpty());
+    }
+
+    @Test
+    public void clearingCareers_emptiesEveryField() {
+        assertTrue(dbManager.addCareer("Software developers", "15-1252", 1, 1f, 1f, "Bachelor's degree"));
+        assertFalse(titles(FieldClassifier.STEM).isEmpty());
+
+        dbManager.clearCareersTable();
+
+        assertTrue(titles(FieldClassifier.STEM).isEmpty());
+    }
+
+    private List<String> titles(String field) {
+        List<String> titles = new ArrayList<>();
+        for (DatabaseManager.CareerIdPair career : dbManager.getCareersInField(field)) {
+            titles.add(career.title);
+        }
+        return titles;
+    }
+
+    private void importCareers(String csv) throws Exception {
+        final byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        dbManager.importCareersDelta("careers.csv", () -> new ByteArrayInputStream(bytes), null);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Career search over careers_fts (prefix, token and occupation-code matching with
+ * ranked results) and the single-query id and title lookups.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CareerSearchTest {
+    private static final String TEST_DB = "career-search-test.db";
+
+    private Context context;
+    private DatabaseManager dbManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+
+        assertTrue(dbManager.importCareersFromCSV(new String[]{
+                "occupation_title\toccupation_code\temployment_2023\temployment_percent_change_23_33\tmedian_annual_wage\teducation_work_experience",
+                "Software developers\t15-1252\t1692.1\t17.9\t132270\tBachelor's degree",
+                "Computer programmers\t15-1251\t139.4\t-9.6\t99700\tBachelor's degree",
+                "Data scientists\t15-2051\t202.9\t36\t108020\tBachelor's degree",
+                "Database administrators\t15-1242\t79.4\t8.8\t101510\tBachelor's degree",
+                "Actuaries\t15-2011\t30.2\t21.8\t120000\tBachelor's degree"
+        }));
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void search_matchesPartialOccupationCodes() {
+        assertEquals(Arrays.asList("Computer programmers", "Database administrators", "Software developers"),
+                titles(dbManager.searchCareers("15-12")));
+        assertEquals(Arrays.asList("Actuaries", "Data scientists"), titles(dbManager.searchCareers("15-20")));
+        assertEquals(Arrays.asList("Software developers"), titles(dbManager.searchCareers("15-1252")));
+    }
+
+    @Test
+    public void search_matchesTitlePrefixesAndTokens() {
+        assertEquals(Arrays.asList("Software developers"), titles(dbManager.searchCareers("soft dev")));
+        assertEquals(Arrays.asList("Computer programmers"), titles(dbManager.searchCareers("programmers")));
+        assertEquals(Arrays.asList("Data scientists", "Database administrators"), titles(dbManager.searchCareers("data")));
+        assertTrue(titles(dbManager.searchCareers("nursing")).isEmpty());
+    }
+
+    @Test
+    public void search_ranksCodeHitsBeforeTitleHits() {
+        assertTrue(dbManager.addCareer("Top 15 analysts", "99-0001", 1, 0f, 0f, "None"));
+
+        // The five 15-xxxx careers match on their code; the new row only matches on its title
+        assertEquals(Arrays.asList("Actuaries", "Computer programmers", "Data scientists",
+                "Database administrators", "Software developers", "Top 15 analysts"),
+                titles(dbManager.searchCareers("15")));
+    }
+
+    @Test
+    public void search_followsCareerChanges() {
+        dbManager.clearCareersTable();
+        assertTrue(titles(dbManager.searchCareers("software")).isEmpty());
+    }
+
+    @Test
+    public void emptySearch_listsAllCareers() {
+        assertEquals(5, titles(dbManager.searchCareers("  ")).size());
+    }
+
+    @Test
+    public void getCareerById_returnsOneRow() {
+        Cursor search = dbManager.searchCareers("actuaries");
+        assertTrue(search.moveToFirst());
+        int id = search.getInt(search.getColumnIndexOrThrow("_id"));
+        search.close();
+
+        Cursor cursor = dbManager.getCareerById(id);
+        try {
+            assertEquals(1, cursor.getCount());
+            assertTrue(cursor.moveToFirst());
+            assertEquals("Actuaries", cursor.getString(cursor.getColumnIndexOrThrow("occupation_title")));
+            assertEquals(120000f, cursor.getFloat(cursor.getColumnIndexOrThrow("median_annual_wage")), 0.01f);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void getCareerDetailsByTitle_isExactAndCaseInsensitive() {
+        assertEquals(Arrays.asList("Data scientists"), titles(dbManager.getCareerDetailsByTitle("data SCIENTISTS")));
+        // No substring fallback any more
+        assertTrue(titles(dbManager.getCareerDetailsByTitle("scientists")).isEmpty());
+    }
+
+    private static List<String> titles(Cursor cursor) {
+        List<String> titles = new ArrayList<>();
+        try {
+            while (cursor.moveToNext()) {
+                titles.add(cursor.getString(cursor.getColumnIndexOrThrow("occupation_title")));
+            }
+        } finally {
+            cursor.close();
+        }
+        return titles;
+    }
+}
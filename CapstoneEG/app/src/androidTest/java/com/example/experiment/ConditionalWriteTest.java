@@ -0,0 +1,178 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Recommendation and time slot writes decide in one statement whether they insert,
+ * update or delete, so threads racing on the same rows never lose or duplicate one,
+ * and every caller learns exactly what its own write did.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ConditionalWriteTest {
+    private static final String TEST_DB = "conditional-write-test.db";
+    private static final int THREADS = 6;
+    private static final int KEYS = 40;
+
+    private Context context;
+    private DatabaseManager dbManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void outcomes_tellTheCasesApart() {
+        assertEquals(WriteOutcome.ADDED, dbManager.putRecommendation(1, 1, 5));
+        assertEquals(WriteOutcome.UPDATED, dbManager.putRecommendation(1, 1, 8));
+
+        assertEquals(WriteOutcome.ADDED, dbManager.addTimeSlot(1, "2025-05-01", "9:00 AM"));
+        assertEquals(WriteOutcome.ALREADY_EXISTS, dbManager.addTimeSlot(1, "2025-05-01", "9:00 AM"));
+        assertEquals(WriteOutcome.ADDED, dbManager.addTimeSlot(1, "2025-05-01", "9:30 AM"));
+
+        assertTrue(dbManager.bookAppointment("student", 1, "2025-05-01", "9:00 AM", "Advising"));
+        int booked = slotId("2025-05-01", "9:00 AM");
+        int open = slotId("2025-05-01", "9:30 AM");
+        assertEquals(WriteOutcome.BOOKED, dbManager.removeTimeSlot(booked));
+        assertEquals(WriteOutcome.DELETED, dbManager.removeTimeSlot(open));
+        assertEquals(WriteOutcome.NOT_FOUND, dbManager.removeTimeSlot(open));
+        assertEquals(1, countSlots("2025-05-01"));
+    }
+
+    @Test
+    public void racingRecommendationWrites_addEachPairOnce() throws Exception {
+        Map<WriteOutcome, Integer> outcomes = race(thread -> {
+            List<WriteOutcome> results = new ArrayList<>();
+            for (int key = 0; key < KEYS; key++) {
+                results.add(dbManager.putRecommendation(1 + key % 4, 1 + key, thread + 1));
+            }
+            return results;
+        });
+
+        assertEquals(KEYS, (int) outcomes.get(WriteOutcome.ADDED));
+        assertEquals(KEYS * (THREADS - 1), (int) outcomes.get(WriteOutcome.UPDATED));
+        assertEquals(KEYS, dbManager.getRecommendationCount());
+    }
+
+    @Test
+    public void racingSlotWrites_neitherLoseNorDuplicate() throws Exception {
+        Map<WriteOutcome, Integer> added = race(thread -> {
+            List<WriteOutcome> results = new ArrayList<>();
+            for (int key = 0; key < KEYS; key++) {
+                results.add(dbManager.addTimeSlot(1, "2025-06-01", "Slot " + key));
+            }
+            return results;
+        });
+        assertEquals(KEYS, (int) added.get(WriteOutcome.ADDED));
+        assertEquals(KEYS * (THREADS - 1), (int) added.get(WriteOutcome.ALREADY_EXISTS));
+        assertEquals(KEYS, countSlots("2025-06-01"));
+
+        final List<Integer> ids = new ArrayList<>();
+        Cursor cursor = dbManager.getAdminTimeSlots(1, "2025-06-01");
+        while (cursor.moveToNext()) {
+            ids.add(cursor.getInt(0));
+        }
+        cursor.close();
+
+        Map<WriteOutcome, Integer> removed = race(thread -> {
+            List<WriteOutcome> results = new ArrayList<>();
+            for (int id : ids) {
+                results.add(dbManager.removeTimeSlot(id));
+            }
+            return results;
+        });
+        assertEquals(KEYS, (int) removed.get(WriteOutcome.DELETED));
+        assertEquals(KEYS * (THREADS - 1), (int) removed.get(WriteOutcome.NOT_FOUND));
+        assertEquals(0, countSlots("2025-06-01"));
+    }
+
+    private interface Worker {
+        List<WriteOutcome> run(int thread);
+    }
+
+    // Runs the worker on THREADS threads at once and tallies every outcome
+    private Map<WriteOutcome, Integer> race(final Worker worker) throws InterruptedException {
+        final Map<WriteOutcome, Integer> tally = new EnumMap<>(WriteOutcome.class);
+        for (WriteOutcome outcome : WriteOutcome.values()) {
+            tally.put(outcome, 0);
+        }
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> failures = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            Thread runner = new Thread(() -> {
+                try {
+                    start.await();
+                    List<WriteOutcome> results = worker.run(thread);
+                    synchronized (tally) {
+                        for (WriteOutcome outcome : results) {
+                            tally.put(outcome, tally.get(outcome) + 1);
+                        }
+                    }
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            runner.start();
+            threads.add(runner);
+        }
+        start.countDown();
+        for (Thread runner : threads) {
+            runner.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+        return tally;
+    }
+
+    private int slotId(String date, String timeSlot) {
+        Cursor cursor = dbManager.getAdminTimeSlots(1, date);
+        try {
+            while (cursor.moveToNext()) {
+                if (timeSlot.equals(cursor.getString(cursor.getColumnIndexOrThrow("time_slot")))) {
+                    return cursor.getInt(0);
+                }
+            }
+            fail("no slot " + timeSlot);
+            return -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private int countSlots(String date) {
+        Cursor cursor = dbManager.getAdminTimeSlots(1, date);
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+}
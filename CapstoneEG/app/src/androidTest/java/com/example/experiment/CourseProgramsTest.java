@@ -0,0 +1,129 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * setCoursePrograms applies the difference between the stored and the wanted program
+ * set in one transaction, so a failure part way leaves the old set in place. Program
+ * labels for the course list come from one aggregated query.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CourseProgramsTest {
+    private static final String TEST_DB = "course-programs-test.db";
+
+    private Context context;
+    private DatabaseManager dbManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+        assertTrue(dbManager.importAcademicProgramsFromCSV(new String[]{"Biology,Chemistry,Physics,Art"}));
+        assertTrue(dbManager.addCourse("Intro to Biology", "BIO101", "3", "Cells"));
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void setCoursePrograms_appliesTheDiff() {
+        assertTrue(dbManager.setCoursePrograms(1, Arrays.asList(1, 2, 3)));
+        assertEquals(set(1, 2, 3), dbManager.getProgramIdsForCourse(1));
+
+        assertTrue(dbManager.setCoursePrograms(1, Arrays.asList(2, 4)));
+        assertEquals(set(2, 4), dbManager.getProgramIdsForCourse(1));
+        assertTrue(dbManager.isCourseInProgram(1, 4));
+        assertFalse(dbManager.isCourseInProgram(1, 1));
+
+        assertTrue(dbManager.setCoursePrograms(1, Collections.<Integer>emptySet()));
+        assertTrue(dbManager.getProgramIdsForCourse(1).isEmpty());
+    }
+
+    @Test
+    public void setCoursePrograms_keepsCatalogInStep() {
+        dbManager.reloadCourseCatalog();
+
+        assertTrue(dbManager.setCoursePrograms(1, Arrays.asList(1, 3)));
+        assertEquals(1, dbManager.getCourseCatalog().getForProgram(3).size());
+
+        assertTrue(dbManager.setCoursePrograms(1, Collections.singletonList(1)));
+        assertTrue(dbManager.getCourseCatalog().getForProgram(3).isEmpty());
+        assertTrue(dbManager.getCourseCatalog().isInProgram(1, 1));
+    }
+
+    @Test
+    public void setCoursePrograms_failureChangesNothing() {
+        assertTrue(dbManager.setCoursePrograms(1, Arrays.asList(1, 2)));
+
+        // A second connection installs a trigger that rejects one of the new rows
+        SQLiteDatabase other = SQLiteDatabase.openDatabase(
+                context.getDatabasePath(TEST_DB).getPath(), null, SQLiteDatabase.OPEN_READWRITE);
+        try {
+            other.execSQL("CREATE TRIGGER reject_program_4 BEFORE INSERT ON course_programs "
+                    + "WHEN NEW.program_id = 4 BEGIN SELECT RAISE(ABORT, 'rejected'); END");
+        } finally {
+            other.close();
+        }
+
+        // Removing 1 and adding 3 would succeed on their own; adding 4 fails
+        assertFalse(dbManager.setCoursePrograms(1, Arrays.asList(2, 3, 4)));
+        assertEquals(set(1, 2), dbManager.getProgramIdsForCourse(1));
+    }
+
+    @Test
+    public void programLabels_comeFromOneQueryAndFollowWrites() {
+        assertTrue(dbManager.addCourse("Painting", "ART101", "3", "Color"));
+        assertTrue(dbManager.setCoursePrograms(1, Arrays.asList(3, 2, 1)));
+
+        Map<Integer, String> labels = dbManager.getProgramLabelsByCourse();
+        assertEquals("Biology, Chemistry, Physics", labels.get(1));
+        // Courses without programs are left out
+        assertFalse(labels.containsKey(2));
+
+        // The cached labels are dropped by the membership write
+        assertTrue(dbManager.setCoursePrograms(2, Collections.singletonList(4)));
+        labels = dbManager.getProgramLabelsByCourse();
+        assertEquals("Art", labels.get(2));
+        assertEquals("Biology, Chemistry, Physics", labels.get(1));
+    }
+
+    @Test
+    public void programLabels_forOnePage() {
+        assertTrue(dbManager.addCourse("Painting", "ART101", "3", "Color"));
+        assertTrue(dbManager.setCoursePrograms(1, Arrays.asList(3, 1)));
+        assertTrue(dbManager.setCoursePrograms(2, Collections.singletonList(4)));
+
+        List<Course> page = dbManager.getCoursesPage(null, DatabaseManager.DEFAULT_PAGE_SIZE);
+        Map<Integer, String> labels = dbManager.getProgramLabelsForCourses(page.subList(0, 1));
+
+        assertEquals(1, labels.size());
+        assertEquals("Biology, Physics", labels.get(page.get(0).getId()));
+        assertTrue(dbManager.getProgramLabelsForCourses(Collections.<Course>emptyList()).isEmpty());
+    }
+
+    private static Set<Integer> set(Integer... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Full-text course search: trigger sync, prefix matching, tiered ranking,
+ * snippets, and latency as the catalog grows.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CourseSearchTest {
+    private static final String TAG = "CourseSearchTest";
+    private static final String TEST_DB = "course-search-test.db";
+    private static final String[] TOPICS = {"biology", "chemistry", "physics", "history", "design",
+            "music", "business", "accounting", "nursing", "teaching", "calculus", "writing"};
+
+    private Context context;
+    private DatabaseManager dbManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void index_followsAddUpdateAndDelete() {
+        assertTrue(dbManager.addCourse("Marine Science", "SCI200", "3", "Ocean ecosystems"));
+        int id = idOf("Marine Science");
+        assertEquals(Arrays.asList("Marine Science"), titles(dbManager.searchCourses("ocean")));
+
+        assertTrue(dbManager.updateCourse(id, "Marine Science", "SCI200", "3", "Coral reefs"));
+        assertTrue(titles(dbManager.searchCourses("ocean")).isEmpty());
+        assertEquals(Arrays.asList("Marine Science"), titles(dbManager.searchCourses("coral")));
+
+        assertTrue(dbManager.deleteCourse(id));
+        assertTrue(titles(dbManager.searchCourses("coral")).isEmpty());
+    }
+
+    @Test
+    public void index_coversImportedCourses() {
+        assertTrue(dbManager.importCoursesFromCSV(csv(1, 20)));
+        assertEquals(20, titles(dbManager.searchCourses("course")).size());
+    }
+
+    @Test
+    public void search_matchesPrefixesAndRanksTitleHitsFirst() {
+        assertTrue(dbManager.addCourse("Ocean Life", "SCI210", "3", "An introduction to biology at sea"));
+        assertTrue(dbManager.addCourse("Biology Lab", "SCI101", "4", "Hands-on experiments"));
+
+        List<String> results = titles(dbManager.searchCourses("bio"));
+        assertEquals(Arrays.asList("Biology Lab", "Ocean Life"), results);
+
+        // Every term must match, each as a prefix
+        assertEquals(Arrays.asList("Ocean Life"), titles(dbManager.searchCourses("intro sea")));
+        assertTrue(titles(dbManager.searchCourses("   ")).isEmpty());
+    }
+
+    @Test
+    public void search_returnsHighlightedSnippet() {
+        assertTrue(dbManager.addCourse("Ocean Life", "SCI210", "3", "An introduction to marine biology"));
+
+        Cursor cursor = dbManager.searchCourses("marine");
+        try {
+            assertTrue(cursor.moveToFirst());
+            String snippet = cursor.getString(cursor.getColumnIndexOrThrow("snippet"));
+            assertTrue(snippet, snippet.contains("<b>marine</b>"));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void searchInProgram_onlyReturnsProgramCourses() {
+        assertTrue(dbManager.importAcademicProgramsFromCSV(new String[]{"Science, Arts"}));
+        assertTrue(dbManager.addCourse("Biology Lab", "SCI101", "4", "Hands-on experiments"));
+        assertTrue(dbManager.addCourse("Biology Art", "ART150", "3", "Drawing living things"));
+        assertTrue(dbManager.addCourseToProgram(idOf("Biology Lab"), 1));
+
+        assertEquals(Arrays.asList("Biology Lab"), titles(dbManager.searchCoursesInProgram(1, "bio")));
+    }
+
+    @Test
+    public void searchLatency_staysFlatAsCatalogGrows() {
+        long small = medianSearchMicros(1000);
+        dbManager.clearCoursesTable();
+        long large = medianSearchMicros(100000);
+
+        Log.i(TAG, "median search latency: 1k courses=" + small + "us, 100k courses=" + large + "us");
+        // Results are capped, so the large catalog should cost a small multiple, not 100x
+        assertTrue("search slowed from " + small + "us to " + large + "us", large < Math.max(small * 10, 50000));
+    }
+
+    private long medianSearchMicros(int courses) {
+        assertTrue(dbManager.importCoursesFromCSV(csv(1, courses)));
+        String[] queries = {"bio", "chem", "cal", "course 5", "hist", "nurs", "wri", "des", "acc"};
+        List<Long> timings = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            for (String query : queries) {
+                long start = System.nanoTime();
+                Cursor cursor = dbManager.searchCourses(query);
+                cursor.getCount();
+                cursor.close();
+                timings.add((System.nanoTime() - start) / 1000);
+            }
+        }
+        Collections.sort(timings);
+        return timings.get(timings.size() / 2);
+    }
+
+    private String[] csv(int first, int count) {
+        String[] lines = new String[count + 1];
+        lines[0] = "course\treference\tcredits\tsession\tdescription\tstart_date\tend_date\tinstructor";
+        for (int i = 0; i < count; i++) {
+            int n = first + i;
+            String topic = TOPICS[n % TOPICS.length];
+            lines[i + 1] = "Course " + n + " " + topic + "\tREF" + n + "\t3\tFall\tAn overview of "
+                    + TOPICS[(n * 7) % TOPICS.length] + " for students\t2025-01-01\t2025-05-01\tInstructor " + (n % 50);
+        }
+        return lines;
+    }
+
+    private int idOf(String title) {
+        Cursor cursor = dbManager.getCourseByTitle(title);
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getInt(cursor.getColumnIndexOrThrow("_id"));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static List<String> titles(Cursor cursor) {
+        List<String> titles = new ArrayList<>();
+        try {
+            while (cursor.moveToNext()) {
+                titles.add(cursor.getString(cursor.getColumnIndexOrThrow("course")));
+            }
+        } finally {
+            cursor.close();
+        }
+        return titles;
+    }
+}
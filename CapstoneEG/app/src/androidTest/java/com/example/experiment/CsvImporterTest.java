@@ -0,0 +1,174 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Streaming imports commit in batches, report progress and every rejected line, and read a
+ * large file without ever holding it in memory.
+ */
+@RunWith(AndroidJUnit4.class)
+public class CsvImporterTest {
+    private static final String TAG = "CsvImporterTest";
+    private static final String TEST_DB = "csv-importer-test.db";
+    private static final String COURSE_HEADER =
+            "Course\tReference\tCredits\tSession\tDescription\tStartDate\tEndDate\tInstructor\n";
+
+    private Context context;
+    private DatabaseManager dbManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void rejects_reportLineAndReason() throws Exception {
+        String csv = COURSE_HEADER
+                + courseLine(1)
+                + "TOO\tSHORT\n"
+                + "\n"
+                + courseLine(1)
+                + courseLine(2);
+        RecordingListener listener = new RecordingListener();
+
+        CsvImporter.Result result = dbManager.importCourses(CsvImporter.lines(stream(csv)), 2, listener);
+
+        assertEquals(4, result.read);
+        assertEquals(2, result.imported);
+        assertEquals(2, result.rejected);
+        assertEquals(2, dbManager.getCourseCount());
+        assertEquals(2, listener.rejects.size());
+        assertTrue(listener.rejects.get(0), listener.rejects.get(0).startsWith("3: expected 8 columns"));
+        assertEquals("5: duplicate", listener.rejects.get(1));
+        // Batches of two rows: [course, short] [blank, duplicate] [course]
+        assertEquals(3, listener.progress.size());
+    }
+
+    @Test
+    public void careers_parseFiguresAndRejectRepeats() throws Exception {
+        String csv = "title\tcode\temployment\tchange\twage\teducation\n"
+                + "Actuaries\t15-2011\t30.2\t21.8\t120000\tBachelor's degree\n"
+                + "Statisticians\t15-2041\tn/a\t11.8\t104110\tMaster's degree\n";
+
+        CsvImporter.Result first = dbManager.importCareers(CsvImporter.lines(stream(csv)),
+                CsvImporter.DEFAULT_BATCH_SIZE, null);
+        CsvImporter.Result again = dbManager.importCareers(CsvImporter.lines(stream(csv)),
+                CsvImporter.DEFAULT_BATCH_SIZE, null);
+
+        assertEquals(2, first.imported);
+        assertEquals(0, again.imported);
+        assertEquals(2, again.rejected);
+        assertEquals(2, dbManager.getCareerCount());
+    }
+
+    @Test
+    public void largeFile_streamsInBatches() throws Exception {
+        final int rows = 100000;
+        final int batchSize = 1000;
+        RecordingListener listener = new RecordingListener();
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        CsvImporter.Result result = dbManager.importCourses(CsvImporter.lines(generatedCourses(rows)),
+                batchSize, listener);
+
+        long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+        Log.i(TAG, "Streamed " + result + " (" + result.imported * 1000000000L / result.elapsedNanos
+                + " rows/s), heap grew " + (usedAfter - usedBefore) / 1024 + " KB");
+
+        assertEquals(rows, result.imported);
+        assertEquals(0, result.rejected);
+        assertEquals(rows / batchSize, listener.progress.size());
+        assertEquals(rows, dbManager.getCourseCount());
+    }
+
+    @Test
+    public void catalog_neverLagsCommittedBatches() throws Exception {
+        dbManager.reloadCourseCatalog();
+        final List<Boolean> catalogDropped = new ArrayList<>();
+        RecordingListener listener = new RecordingListener() {
+            @Override
+            public void onProgress(int rowsRead, int rowsImported) {
+                catalogDropped.add(dbManager.getCourseCatalog() == null);
+            }
+        };
+
+        dbManager.importCourses(CsvImporter.lines(stream(COURSE_HEADER + courseLine(1) + courseLine(2)
+                + courseLine(3))), 2, listener);
+
+        // Between batches reads go to SQLite; the snapshot is back once the import ends
+        assertEquals(Arrays.asList(true, true), catalogDropped);
+        assertEquals(3, dbManager.getCourseCatalog().size());
+    }
+
+    private static String courseLine(int i) {
+        return "GEN" + i + "\t2253-" + i + "\t3\t1\tGenerated course " + i + "\t1/6/2025\t5/2/2025\tStaff\n";
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Produces the file a line at a time, so the test itself never holds it either
+    private static InputStream generatedCourses(final int rows) {
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            private int next = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return next < rows;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                String line = next < 0 ? COURSE_HEADER : courseLine(next);
+                next++;
+                return stream(line);
+            }
+        });
+    }
+
+    private static class RecordingListener implements CsvImporter.Listener {
+        final List<Integer> progress = new ArrayList<>();
+        final List<String> rejects = new ArrayList<>();
+
+        @Override
+        public void onProgress(int rowsRead, int rowsImported) {
+            progress.add(rowsImported);
+        }
+
+        @Override
+        public void onReject(int lineNumber, String line, String reason) {
+            rejects.add(lineNumber + ": " + reason);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.CursorWrapper;
+import android.database.MatrixCursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * DataRepository maps rows into immutable models off the calling thread, and row
+ * mappers look up column indices once per query.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DataRepositoryTest {
+    private static final String TEST_DB = "data-repository-test.db";
+
+    private Context context;
+    private DatabaseManager dbManager;
+    private DataRepository repository;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+        repository = new DataRepository(dbManager);
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void courses_mapEveryColumn() throws Exception {
+        assertTrue(dbManager.importCoursesFromCSV(new String[]{
+                "course\treference\tcredits\tsession\tdescription\tstart_date\tend_date\tinstructor",
+                "Intro to Biology\tBIO101\t3\tFall\tCells and organisms\t2025-01-01\t2025-05-01\tDr. Smith"
+        }));
+
+        List<Course> courses = get(repository.getAllCourses());
+        assertEquals(1, courses.size());
+        Course course = courses.get(0);
+        assertEquals("Intro to Biology", course.getTitle());
+        assertEquals("BIO101", course.getReference());
+        assertEquals("3", course.getCredits());
+        assertEquals("Fall", course.getSession());
+        assertEquals("2025-05-01", course.getEndDate());
+        assertEquals("Dr. Smith", course.getInstructor());
+
+        // getCourseById selects *, so the key comes back as id rather than _id
+        Course byId = get(repository.getCourse(course.getId()));
+        assertEquals("Cells and organisms", byId.getDescription());
+        assertEquals("STEM", byId.getMajor());
+        assertNull(get(repository.getCourse(course.getId() + 1000)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void results_areUnmodifiable() throws Exception {
+        get(repository.getAllCourses()).add(null);
+    }
+
+    @Test
+    public void careers_mapAndLookUpById() throws Exception {
+        assertTrue(dbManager.addCareer("Actuaries", "15-2011", 30, 21.8f, 120000f, "Bachelor's degree"));
+
+        List<Career> careers = get(repository.searchCareers("actu"));
+        assertEquals(1, careers.size());
+        Career career = get(repository.getCareer(careers.get(0).getId()));
+        assertEquals("15-2011", career.getCode());
+        assertEquals(120000f, career.getMedianAnnualWage(), 0.01f);
+        assertEquals("Bachelor's degree", career.getEducationWorkExperience());
+    }
+
+    @Test
+    public void timeSlotsAndAppointments_followBookings() throws Exception {
+        assertTrue(dbManager.importAdministratorsFromCSV(new String[]{
+                "name\ttitle\temail\tphone\tdepartment",
+                "Jane Doe\tAdvisor\tjane@example.edu\t555-0100\tAdvising"
+        }));
+        Administrator admin = get(repository.getAllAdministrators()).get(0);
+        assertEquals("Jane Doe", admin.getName());
+        assertEquals("Advising", admin.getDepartment());
+        assertEquals("jane@example.edu", get(repository.getAdministrator(admin.getId())).getEmail());
+
+        assertTrue(get(repository.addAdminAvailability(admin.getId(), "2025-03-03", "10:00 AM")));
+        assertTrue(get(repository.addAdminAvailability(admin.getId(), "2025-03-03", "10:30 AM")));
+        assertTrue(dbManager.bookAppointment("student", admin.getId(), "2025-03-03", "10:00 AM", "Planning"));
+
+        List<TimeSlot> slots = get(repository.getAdminTimeSlots(admin.getId(), "2025-03-03"));
+        assertEquals(2, slots.size());
+        assertEquals("Booked", slots.get(0).getStatus());
+        assertTrue(slots.get(1).isAvailable());
+
+        List<TimeSlot> open = get(repository.getAvailableTimeSlots(admin.getId(), "2025-03-03"));
+        assertEquals(1, open.size());
+        assertEquals("10:30 AM", open.get(0).getTime());
+
+        List<Appointment> appointments = get(repository.getAppointmentsForAdmin(admin.getId()));
+        assertEquals(1, appointments.size());
+        assertEquals("student", appointments.get(0).getStudentUsername());
+        assertEquals("Planning", appointments.get(0).getReason());
+
+        assertFalse(get(repository.deleteTimeSlot(slots.get(0).getId())));
+        assertTrue(get(repository.deleteTimeSlot(slots.get(1).getId())));
+    }
+
+    @Test
+    public void mapper_resolvesColumnsOncePerQuery() {
+        MatrixCursor rows = new MatrixCursor(new String[]{"_id", "course", "reference", "description"});
+        for (int i = 0; i < 500; i++) {
+            rows.addRow(new Object[]{i, "Course " + i, "REF" + i, "Description " + i});
+        }
+        CountingCursor cursor = new CountingCursor(rows);
+
+        List<Course> courses = RowMapper.mapAll(cursor, Course.MAPPER);
+
+        assertEquals(500, courses.size());
+        assertEquals("REF499", courses.get(499).getReference());
+        // Columns the projection left out come back as null
+        assertNull(courses.get(0).getInstructor());
+        assertTrue("looked up columns " + cursor.lookups + " times", cursor.lookups <= 12);
+        assertTrue(cursor.isClosed());
+    }
+
+    private static <T> T get(Future<T> future) throws Exception {
+        return future.get(10, TimeUnit.SECONDS);
+    }
+
+    private static final class CountingCursor extends CursorWrapper {
+        int lookups;
+
+        CountingCursor(Cursor cursor) {
+            super(cursor);
+        }
+
+        @Override
+        public int getColumnIndex(String columnName) {
+            lookups++;
+            return super.getColumnIndex(columnName);
+        }
+
+        @Override
+        public int getColumnIndexOrThrow(String columnName) {
+            lookups++;
+            return super.getColumnIndexOrThrow(columnName);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs a scripted workload against DatabaseManager and checks that the shared
+ * connection is opened once and never closed by individual operations.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseConnectionLifecycleTest {
+    private static final String TEST_DB = "lifecycle-test.db";
+
+    private Context context;
+    private DatabaseManager dbManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void scriptedWorkload_opensConnectionOnce() {
+        for (int i = 0; i < 50; i++) {
+            String username = "student" + i;
+            String slot = "slot " + i;
+
+            assertTrue(dbManager.registerUser(username, "pw", "Student"));
+            assertEquals("Student", dbManager.authenticateUser(username, "pw"));
+            assertTrue(dbManager.checkUserExists(username));
+
+            dbManager.addCareer("Career " + i, "15-" + (1000 + i), 10, 1.5f, 50000f, "Bachelor's degree");
+            assertEquals(i + 1, dbManager.getCareerCount());
+
+            assertTrue(dbManager.addAdminAvailability(1, "2025-01-01", slot));
+            assertTrue(dbManager.getExistingTimeSlots(1, "2025-01-01").contains(slot));
+            assertTrue(dbManager.bookAppointment(username, 1, "2025-01-01", slot, "advising"));
+        }
+
+        assertEquals(1, dbManager.getConnectionOpenCount());
+        assertEquals(0, dbManager.getConnectionCloseCount());
+    }
+
+    @Test
+    public void cursorHeldByCaller_survivesLaterOperations() {
+        dbManager.addCourse("COP2800", "2253-10247", "4", "Java Programming");
+
+        Cursor cursor = dbManager.getAllCourses();
+        try {
+            // Other operations used to close the shared connection underneath this cursor
+            dbManager.getCareerCount();
+            dbManager.addAdminAvailability(1, "2025-01-02", "10:00 AM");
+
+            assertTrue(cursor.moveToFirst());
+            assertEquals("COP2800", cursor.getString(cursor.getColumnIndexOrThrow("course")));
+        } finally {
+            cursor.close();
+        }
+
+        assertEquals(1, dbManager.getConnectionOpenCount());
+    }
+
+    @Test
+    public void close_isCountedAndConnectionReopensLazily() {
+        dbManager.getCourseCount();
+        dbManager.close();
+        dbManager.getCourseCount();
+
+        assertEquals(2, dbManager.getConnectionOpenCount());
+        assertEquals(1, dbManager.getConnectionCloseCount());
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.experiment;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Upgrades a large seeded version 53 database through every migration step and
+ * checks that the data survives and the schema matches a fresh install.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseMigrationTest {
+    private static final String TAG = "DatabaseMigrationTest";
+    private static final String UPGRADE_DB = "migration-upgrade-test.db";
+    private static final String FRESH_DB = "migration-fresh-test.db";
+    private static final int COURSES = 20000;
+    private static final int CAREERS = 2000;
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(UPGRADE_DB);
+        context.deleteDatabase(FRESH_DB);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(UPGRADE_DB);
+        context.deleteDatabase(FRESH_DB);
+    }
+
+    @Test
+    public void upgradeFromBaseline_keepsDataAndReportsTime() {
+        seedBaseline(false);
+
+        DatabaseHelper helper = new DatabaseHelper(context, UPGRADE_DB);
+        long start = System.nanoTime();
+        SQLiteDatabase db = helper.getWritableDatabase();
+        long elapsedMs = (System.nanoTime() - start) / 1000000;
+        Log.i(TAG, "Upgraded " + COURSES + " courses / " + CAREERS + " careers from v"
+                + DatabaseMigrations.BASELINE_VERSION + " to v" + DatabaseHelper.DATABASE_VERSION
+                + " in " + elapsedMs + " ms");
+
+        try {
+            assertEquals(DatabaseHelper.DATABASE_VERSION, db.getVersion());
+            assertEquals(COURSES, count(db, DatabaseHelper.TABLE_COURSES, null));
+            assertEquals(CAREERS, count(db, DatabaseHelper.TABLE_CAREERS, null));
+            assertEquals(0, count(db, DatabaseHelper.TABLE_COURSES, "major IS NULL OR major = ''"));
+            assertEquals(0, count(db, DatabaseHelper.TABLE_CAREER_COURSES, null));
+            assertEquals(0, count(db, DatabaseHelper.TABLE_APPOINTMENTS, null));
+        } finally {
+            helper.close();
+        }
+    }
+
+    @Test
+    public void upgradeFromBaseline_toleratesTablesCreatedByOldLazyCode() {
+        seedBaseline(true);
+
+        DatabaseHelper helper = new DatabaseHelper(context, UPGRADE_DB);
+        try {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            assertEquals(DatabaseHelper.DATABASE_VERSION, db.getVersion());
+            assertEquals(1, count(db, DatabaseHelper.TABLE_CAREER_COURSES, null));
+            assertEquals(COURSES, count(db, DatabaseHelper.TABLE_COURSES, null));
+        } finally {
+            helper.close();
+        }
+    }
+
+    @Test
+    public void upgradedSchema_matchesFreshInstall() {
+        seedBaseline(false);
+
+        DatabaseHelper upgraded = new DatabaseHelper(context, UPGRADE_DB);
+        DatabaseHelper fresh = new DatabaseHelper(context, FRESH_DB);
+        try {
+            assertEquals(schemaOf(fresh.getReadableDatabase()), schemaOf(upgraded.getReadableDatabase()));
+        } finally {
+            upgraded.close();
+            fresh.close();
+        }
+    }
+
+    // Builds a version 53 database, optionally with what the old runtime DDL used to add
+    private void seedBaseline(final boolean withLazyTables) {
+        SQLiteOpenHelper baseline = new SQLiteOpenHelper(context, UPGRADE_DB, null, DatabaseMigrations.BASELINE_VERSION) {
+            @Override
+            public void onCreate(SQLiteDatabase db) {
+                DatabaseHelper.createBaselineSchema(db);
+            }
+
+            @Override
+            public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            }
+        };
+
+        SQLiteDatabase db = baseline.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            for (int i = 0; i < COURSES; i++) {
+                values.clear();
+                values.put("course", "Course " + i);
+                values.put("reference", "REF" + i);
+                values.put("credits", "3");
+                values.put("session", "Fall");
+                values.put("description", "Description for course " + i);
+                values.put("start_date", "2025-01-01");
+                values.put("end_date", "2025-05-01");
+                values.put("instructor", "Instructor " + (i % 100));
+                db.insertOrThrow(DatabaseHelper.TABLE_COURSES, null, values);
+            }
+            for (int i = 0; i < CAREERS; i++) {
+                values.clear();
+                values.put("occupation_title", "Occupation " + i);
+                values.put("occupation_code", "11-" + i);
+                values.put("employment_2023", i * 10f);
+                values.put("employment_percent_change", 1.5f);
+                values.put("median_annual_wage", 50000f + i);
+                values.put("education_work_experience", "Bachelor's degree");
+                db.insertOrThrow(DatabaseHelper.TABLE_CAREERS, null, values);
+            }
+            if (withLazyTables) {
+                db.execSQL("ALTER TABLE " + DatabaseHelper.TABLE_COURSES + " ADD COLUMN major TEXT DEFAULT 'STEM'");
+                db.execSQL("CREATE TABLE career_courses (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                        + "career_id INTEGER, course_id INTEGER, relevance INTEGER, UNIQUE(career_id, course_id))");
+                db.execSQL("INSERT INTO career_courses (career_id, course_id, relevance) VALUES (1, 1, 8)");
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        baseline.close();
+    }
+
+    private static int count(SQLiteDatabase db, String table, String where) {
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + table + (where != null ? " WHERE " + where : ""), null);
+        try {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Table and column names, ignoring the exact DDL text
+    private static List<String> schemaOf(SQLiteDatabase db) {
+        List<String> schema = new ArrayList<>();
+        Cursor tables = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'table' "
+                + "AND name NOT LIKE 'sqlite_%' AND name != 'android_metadata' ORDER BY name", null);
+        try {
+            while (tables.moveToNext()) {
+                String table = tables.getString(0);
+                Cursor columns = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+                try {
+                    while (columns.moveToNext()) {
+                        schema.add(table + "." + columns.getString(columns.getColumnIndex("name")));
+                    }
+                } finally {
+                    columns.close();
+                }
+            }
+        } finally {
+            tables.close();
+        }
+        return schema;
+    }
+}
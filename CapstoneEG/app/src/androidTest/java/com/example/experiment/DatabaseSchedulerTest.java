@@ -0,0 +1,112 @@
+package com.example.experiment;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Each lane has its own threads and bounded queue: a busy import lane never delays a
+ * read, a full queue rejects instead of growing, and queue depth and wait are recorded.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseSchedulerTest {
+    private DatabaseScheduler scheduler;
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Before
+    public void setUp() {
+        scheduler = new DatabaseScheduler();
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void read_runsWhileImportLaneIsBusy() throws InterruptedException {
+        CountDownLatch importStarted = new CountDownLatch(1);
+        scheduler.bulkImport(() -> {
+            importStarted.countDown();
+            await(release);
+        });
+        assertTrue(importStarted.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch readDone = new CountDownLatch(1);
+        scheduler.read(readDone::countDown);
+        assertTrue("read waited behind the import", readDone.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void fullQueue_rejectsAndIsCounted() throws InterruptedException {
+        CountDownLatch writerStarted = new CountDownLatch(1);
+        scheduler.write(() -> {
+            writerStarted.countDown();
+            await(release);
+        });
+        assertTrue(writerStarted.await(5, TimeUnit.SECONDS));
+
+        int capacity = DatabaseScheduler.Lane.WRITE.queueCapacity;
+        for (int i = 0; i < capacity; i++) {
+            scheduler.write(() -> { });
+        }
+        assertEquals(capacity, scheduler.getQueueDepth(DatabaseScheduler.Lane.WRITE));
+
+        // The bound holds, without throwing into the caller
+        assertFalse(scheduler.write(() -> { }));
+        // The Executor view follows the Executor contract instead
+        try {
+            scheduler.writes().execute(() -> { });
+            fail("expected the full write queue to reject");
+        } catch (RejectedExecutionException expected) {
+            // DataRepository and PagedListLoader handle this
+        }
+
+        DatabaseScheduler.Stats stats = scheduler.getStats(DatabaseScheduler.Lane.WRITE);
+        assertEquals(2, stats.getRejected());
+        assertEquals(capacity, stats.getMaxDepth());
+    }
+
+    @Test
+    public void waitTime_isRecordedPerLane() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(2);
+        scheduler.write(() -> {
+            sleep(50);
+            done.countDown();
+        });
+        // Queued behind the first write for about 50 ms
+        scheduler.write(done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        DatabaseScheduler.Stats stats = scheduler.getStats(DatabaseScheduler.Lane.WRITE);
+        assertEquals(2, stats.getStarted());
+        assertTrue(stats.getMaxWaitMicros() >= 40000);
+        assertEquals(0, scheduler.getStats(DatabaseScheduler.Lane.READ).getStarted());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Delta imports apply only what changed in a source file, keep the ids of updated rows
+ * and the links that point at them, and skip an unchanged file after one hash comparison.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DeltaImportTest {
+    private static final String TEST_DB = "delta-import-test.db";
+    private static final String COURSE_HEADER =
+            "Course\tReference\tCredits\tSession\tDescription\tStartDate\tEndDate\tInstructor\n";
+    private static final String CAREER_HEADER = "title\tcode\temployment\tchange\twage\teducation\n";
+
+    private Context context;
+    private DatabaseManager dbManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void unchangedFile_isSkipped() throws Exception {
+        String csv = COURSE_HEADER + courseLine("CGS1060C", "2253-1591", "Sergio Cobo");
+
+        DeltaImporter.Result first = importCourses(csv);
+        DeltaImporter.Result again = importCourses(csv);
+
+        assertFalse(first.unchanged);
+        assertEquals(1, first.inserted);
+        assertTrue(again.unchanged);
+        assertFalse(again.changedRows());
+        assertEquals(1, dbManager.getCourseCount());
+    }
+
+    @Test
+    public void changedFile_appliesOnlyTheDifference() throws Exception {
+        importCourses(COURSE_HEADER
+                + courseLine("CGS1060C", "2253-1591", "Sergio Cobo")
+                + courseLine("CTS1134", "2253-4749", "Sahir Imam")
+                + courseLine("ART1000", "2253-1", "Staff"));
+        assertTrue(dbManager.importAcademicProgramsFromCSV(new String[]{"Computing,Art"}));
+        int kept = courseId("CGS1060C");
+        int dropped = courseId("ART1000");
+        assertTrue(dbManager.addCourseToProgram(kept, 1));
+        assertTrue(dbManager.addCourseToProgram(dropped, 2));
+        assertTrue(dbManager.addCourse("Hand added", "HAND1", "3", "Not from the file"));
+
+        DeltaImporter.Result result = importCourses(COURSE_HEADER
+                + courseLine("CGS1060C", "2253-1591", "New Instructor")
+                + courseLine("CTS1134", "2253-4749", "Sahir Imam")
+                + courseLine("NUR2000", "2253-7", "Staff"));
+
+        assertEquals(1, result.inserted);
+        assertEquals(1, result.updated);
+        assertEquals(1, result.deleted);
+        // Updated in place: same id, program link intact
+        assertEquals(kept, courseId("CGS1060C"));
+        assertEquals(Collections.singleton(1), dbManager.getProgramIdsForCourse(kept));
+        assertEquals(-1, courseId("ART1000"));
+        assertTrue(dbManager.getProgramIdsForCourse(dropped).isEmpty());
+        // Only rows the file imported are deleted
+        assertNotEquals(-1, courseId("Hand added"));
+        assertEquals(4, dbManager.getCourseCount());
+    }
+
+    @Test
+    public void newReference_updatesTheCourseInPlace() throws Exception {
+        importCourses(COURSE_HEADER + courseLine("CTS1134", "2253-4749", "Sahir Imam"));
+        assertTrue(dbManager.importAcademicProgramsFromCSV(new String[]{"Computing"}));
+        int id = courseId("CTS1134");
+        assertTrue(dbManager.addCourseToProgram(id, 1));
+        // reference() then reads the catalog, which the delta rebuilds before releasing its lease
+        dbManager.reloadCourseCatalog();
+
+        DeltaImporter.Result result = importCourses(COURSE_HEADER + courseLine("CTS1134", "2253-9999", "Sahir Imam"));
+
+        assertEquals(0, result.inserted);
+        assertEquals(1, result.updated);
+        assertEquals(0, result.deleted);
+        assertEquals(0, result.rejected);
+        assertEquals(id, courseId("CTS1134"));
+        assertEquals("2253-9999", reference(id));
+        assertEquals(Collections.singleton(1), dbManager.getProgramIdsForCourse(id));
+        assertEquals(1, dbManager.getCourseCount());
+    }
+
+    @Test
+    public void careers_matchOnOccupationCode() throws Exception {
+        DeltaImporter.Result first = importCareers(CAREER_HEADER
+                + "Actuaries\t15-2011\t30.2\t21.8\t120000\tBachelor's degree\n"
+                + "Statisticians\t15-2041\t33.3\t11.8\t104110\tMaster's degree\n");
+        DeltaImporter.Result renamed = importCareers(CAREER_HEADER
+                + "Actuarial scientists\t15-2011\t30.2\t21.8\t125000\tBachelor's degree\n"
+                + "Statisticians\t15-2041\t33.3\t11.8\t104110\tMaster's degree\n");
+
+        assertEquals(2, first.inserted);
+        assertEquals(0, renamed.inserted);
+        assertEquals(1, renamed.updated);
+        assertEquals(2, dbManager.getCareerCount());
+    }
+
+    @Test
+    public void careers_titleMovesFromARemovedCode() throws Exception {
+        importCareers(CAREER_HEADER
+                + "Actuaries\t15-2011\t30.2\t21.8\t120000\tBachelor's degree\n"
+                + "Actuarial analysts\t15-2019\t5.1\t9.0\t98000\tBachelor's degree\n");
+        int kept = careerId("Actuarial analysts");
+
+        // A merge: 15-2011 goes away and 15-2019 takes its title, which is UNIQUE
+        DeltaImporter.Result merged = importCareers(CAREER_HEADER
+                + "Actuaries\t15-2019\t35.3\t21.8\t120000\tBachelor's degree\n");
+
+        assertEquals(0, merged.inserted);
+        assertEquals(1, merged.updated);
+        assertEquals(1, merged.deleted);
+        assertEquals(0, merged.rejected);
+        assertEquals(1, dbManager.getCareerCount());
+        assertEquals(kept, careerId("Actuaries"));
+        assertTrue(importCareers(CAREER_HEADER
+                + "Actuaries\t15-2019\t35.3\t21.8\t120000\tBachelor's degree\n").unchanged);
+    }
+
+    private DeltaImporter.Result importCourses(String csv) throws Exception {
+        final byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        return dbManager.importCoursesDelta("courses.csv", () -> new ByteArrayInputStream(bytes), null);
+    }
+
+    private DeltaImporter.Result importCareers(String csv) throws Exception {
+        final byte[] bytes = csv.getBytes(StandardCharsets.UTF_8);
+        return dbManager.importCareersDelta("careers.csv", () -> new ByteArrayInputStream(bytes), null);
+    }
+
+    private int courseId(String course) {
+        Cursor cursor = dbManager.getCourseByTitle(course);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(0) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private int careerId(String title) {
+        Cursor cursor = dbManager.getCareerDetailsByTitle(title);
+        try {
+            return cursor.moveToFirst() ? cursor.getInt(cursor.getColumnIndexOrThrow("_id")) : -1;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private String reference(int courseId) {
+        Cursor cursor = dbManager.getCourseById(courseId);
+        try {
+            return cursor.moveToFirst() ? cursor.getString(cursor.getColumnIndexOrThrow("reference")) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static String courseLine(String course, String reference, String instructor) {
+        return course + "\t" + reference + "\t3\t1\tGenerated course\t1/6/2025\t5/2/2025\t" + instructor + "\n";
+    }
+}
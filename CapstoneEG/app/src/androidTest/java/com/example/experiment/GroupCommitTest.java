@@ -0,0 +1,175 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Queued writes share commits, report their own results, complete in submission order,
+ * a write that throws only fails itself, and close() commits whatever is still queued.
+ * The benchmark compares a burst of queued writes with the same writes made one
+ * implicit transaction at a time.
+ */
+@RunWith(AndroidJUnit4.class)
+public class GroupCommitTest {
+    private static final String TAG = "GroupCommitTest";
+    private static final String TEST_DB = "group-commit-test.db";
+    private static final int BENCHMARK_WRITES = 500;
+
+    private Context context;
+    private DatabaseManager dbManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void burst_sharesCommitsAndCompletesInOrder() throws Exception {
+        final List<Integer> completed = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final int index = i;
+            CompletableFuture<Boolean> future = dbManager.addAdminAvailabilityQueued(1, "2025-03-03", "Slot " + i);
+            future.thenRun(() -> completed.add(index));
+            futures.add(future);
+        }
+        for (CompletableFuture<Boolean> future : futures) {
+            assertTrue(future.get(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(100, countSlots("2025-03-03"));
+        GroupCommitQueue queue = dbManager.getGroupCommitQueue();
+        assertEquals(100, queue.getWriteCount());
+        assertTrue("expected shared commits, got " + queue.getBatchCount(), queue.getBatchCount() < 100);
+        for (int i = 0; i < completed.size(); i++) {
+            assertEquals(i, (int) completed.get(i));
+        }
+    }
+
+    @Test
+    public void eachWriteGetsItsOwnResult() throws Exception {
+        assertTrue(dbManager.importAcademicProgramsFromCSV(new String[]{"Biology"}));
+        assertTrue(dbManager.addCourse("Intro to Biology", "BIO101", "3", "Cells"));
+        dbManager.reloadCourseCatalog();
+
+        // The second insert hits UNIQUE(course_id, program_id); only it fails
+        CompletableFuture<Boolean> first = dbManager.addCourseToProgramQueued(1, 1);
+        CompletableFuture<Boolean> duplicate = dbManager.addCourseToProgramQueued(1, 1);
+        CompletableFuture<Boolean> missing = dbManager.deleteRecommendationQueued(42);
+
+        assertTrue(first.get(10, TimeUnit.SECONDS));
+        assertFalse(duplicate.get(10, TimeUnit.SECONDS));
+        assertFalse(missing.get(10, TimeUnit.SECONDS));
+        assertTrue(dbManager.getCourseCatalog().isInProgram(1, 1));
+    }
+
+    @Test
+    public void throwingWrite_failsAloneAfterRetry() throws Exception {
+        GroupCommitQueue queue = dbManager.getGroupCommitQueue();
+        CompletableFuture<Boolean> before = dbManager.addAdminAvailabilityQueued(1, "2025-03-04", "9:00 AM");
+        CompletableFuture<Boolean> broken = queue.submit("broken", new String[]{DatabaseManager.TABLE_AVAILABILITY},
+                db -> {
+                    db.execSQL("INSERT INTO no_such_table VALUES (1)");
+                    return true;
+                }, null);
+        CompletableFuture<Boolean> after = dbManager.addAdminAvailabilityQueued(1, "2025-03-04", "9:30 AM");
+
+        assertTrue(before.get(10, TimeUnit.SECONDS));
+        assertTrue(after.get(10, TimeUnit.SECONDS));
+        try {
+            broken.get(10, TimeUnit.SECONDS);
+            fail("expected the broken write to fail");
+        } catch (ExecutionException expected) {
+            // Only the write that threw reports the failure
+        }
+        assertEquals(2, countSlots("2025-03-04"));
+    }
+
+    @Test
+    public void close_commitsQueuedWritesAndStopsTheFlusher() throws Exception {
+        GroupCommitQueue queue = dbManager.getGroupCommitQueue();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(dbManager.addAdminAvailabilityQueued(1, "2025-03-05", "Slot " + i));
+        }
+
+        dbManager.close();
+
+        for (CompletableFuture<Boolean> future : futures) {
+            assertTrue(future.isDone());
+            assertTrue(future.get());
+        }
+        assertFalse(queue.isRunning());
+        try {
+            queue.submit("late", new String[]{DatabaseManager.TABLE_AVAILABILITY}, db -> true, null).get();
+            fail("expected a write after shutdown to fail");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalStateException);
+        }
+        // Reopens the connection; tearDown closes it again
+        assertEquals(20, countSlots("2025-03-05"));
+    }
+
+    @Test
+    public void benchmark_queuedVersusOneCommitPerWrite() throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < BENCHMARK_WRITES; i++) {
+            assertTrue(dbManager.addAdminAvailability(1, "2025-04-01", "Slot " + i));
+        }
+        long directNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < BENCHMARK_WRITES; i++) {
+            futures.add(dbManager.addAdminAvailabilityQueued(1, "2025-04-02", "Slot " + i));
+        }
+        for (CompletableFuture<Boolean> future : futures) {
+            assertTrue(future.get(30, TimeUnit.SECONDS));
+        }
+        long queuedNanos = System.nanoTime() - start;
+
+        long directPerSecond = BENCHMARK_WRITES * 1000000000L / directNanos;
+        long queuedPerSecond = BENCHMARK_WRITES * 1000000000L / queuedNanos;
+        Log.i(TAG, BENCHMARK_WRITES + " writes: one commit each " + directNanos / 1000000 + " ms ("
+                + directPerSecond + "/s), queued " + queuedNanos / 1000000 + " ms (" + queuedPerSecond
+                + "/s) in " + dbManager.getGroupCommitQueue().getBatchCount() + " commits");
+
+        assertEquals(BENCHMARK_WRITES, countSlots("2025-04-02"));
+        assertTrue("queued writes were not faster", queuedNanos < directNanos);
+    }
+
+    private int countSlots(String date) {
+        Cursor cursor = dbManager.getAdminTimeSlots(1, date);
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+/**
+ * The parallel import pipeline writes the same rows in the same order as the serial
+ * importer, stops cleanly when cancelled, and is benchmarked against importCoursesFromCSV
+ * on a generated 500k-row course file.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ImportPipelineTest {
+    private static final String TAG = "ImportPipelineTest";
+    private static final String[] DATABASES = {"pipeline-array.db", "pipeline-serial.db", "pipeline-parallel.db"};
+    private static final int BENCHMARK_ROWS = 500000;
+
+    private Context context;
+    private File csv;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        for (String name : DATABASES) {
+            context.deleteDatabase(name);
+        }
+        csv = new File(context.getCacheDir(), "pipeline-courses.csv");
+    }
+
+    @After
+    public void tearDown() {
+        for (String name : DATABASES) {
+            context.deleteDatabase(name);
+        }
+        csv.delete();
+    }
+
+    @Test
+    public void parallel_matchesSerialRowForRow() throws Exception {
+        writeCourses(20000);
+
+        DatabaseManager serial = new DatabaseManager(context, DATABASES[1]);
+        DatabaseManager parallel = new DatabaseManager(context, DATABASES[2]);
+        try {
+            try (InputStream in = new FileInputStream(csv)) {
+                serial.importCourses(CsvImporter.lines(in), 700, 1, null);
+            }
+            try (InputStream in = new FileInputStream(csv)) {
+                parallel.importCourses(CsvImporter.lines(in), 700, 4, null);
+            }
+            assertEquals(courseRows(serial), courseRows(parallel));
+        } finally {
+            serial.close();
+            parallel.close();
+        }
+    }
+
+    @Test
+    public void cancel_keepsCommittedBatchesOnly() throws Exception {
+        writeCourses(50000);
+        DatabaseManager dbManager = new DatabaseManager(context, DATABASES[2]);
+        final int[] committed = {0};
+        try (InputStream in = new FileInputStream(csv)) {
+            // Batches line up with chunks, so the check between chunks falls just after a commit
+            dbManager.importCourses(CsvImporter.lines(in), CsvImporter.CHUNK_LINES, 4, new CsvImporter.Listener() {
+                @Override
+                public void onProgress(int rowsRead, int rowsImported) {
+                    committed[0] = rowsImported;
+                }
+
+                @Override
+                public void onReject(int lineNumber, String line, String reason) {
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return committed[0] >= 5000;
+                }
+            });
+            fail("expected the import to be cancelled");
+        } catch (CancellationException expected) {
+            assertEquals(5000, dbManager.getCourseCount());
+        } finally {
+            dbManager.close();
+        }
+    }
+
+    @Test
+    public void benchmark_500kCourses() throws Exception {
+        writeCourses(BENCHMARK_ROWS);
+
+        // importCoursesFromCSV takes the whole file as an array, as the activities used to build it
+        DatabaseManager array = new DatabaseManager(context, DATABASES[0]);
+        long start = System.nanoTime();
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(csv), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        assertTrue(array.importCoursesFromCSV(lines.toArray(new String[0])));
+        long arrayNanos = System.nanoTime() - start;
+        lines = null;
+        assertEquals(BENCHMARK_ROWS, array.getCourseCount());
+        array.close();
+
+        CsvImporter.Result serial = timedImport(DATABASES[1], 1);
+        CsvImporter.Result parallel = timedImport(DATABASES[2], CsvImporter.defaultParseThreads());
+
+        Log.i(TAG, BENCHMARK_ROWS + " courses: importCoursesFromCSV " + arrayNanos / 1000000 + " ms ("
+                + rowsPerSecond(BENCHMARK_ROWS, arrayNanos) + " rows/s), streaming "
+                + serial.elapsedNanos / 1000000 + " ms (" + rowsPerSecond(serial.imported, serial.elapsedNanos)
+                + " rows/s), parallel x" + CsvImporter.defaultParseThreads() + " "
+                + parallel.elapsedNanos / 1000000 + " ms (" + rowsPerSecond(parallel.imported, parallel.elapsedNanos)
+                + " rows/s)");
+        assertEquals(BENCHMARK_ROWS, serial.imported);
+        assertEquals(BENCHMARK_ROWS, parallel.imported);
+    }
+
+    private CsvImporter.Result timedImport(String name, int parseThreads) throws Exception {
+        DatabaseManager dbManager = new DatabaseManager(context, name);
+        try (InputStream in = new FileInputStream(csv)) {
+            return dbManager.importCourses(CsvImporter.lines(in), CsvImporter.DEFAULT_BATCH_SIZE * 4,
+                    parseThreads, null);
+        } finally {
+            dbManager.close();
+        }
+    }
+
+    private static long rowsPerSecond(int rows, long nanos) {
+        return rows * 1000000000L / Math.max(1, nanos);
+    }
+
+    // Course names mix the words the major classifier looks for, so every row exercises it
+    private void writeCourses(int rows) throws Exception {
+        String[] words = {"Art", "Biology", "Accounting", "Teaching", "Nursing", "History"};
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(csv), StandardCharsets.UTF_8))) {
+            writer.write("Course\tReference\tCredits\tSession\tDescription\tStartDate\tEndDate\tInstructor\n");
+            for (int i = 0; i < rows; i++) {
+                writer.write(words[i % words.length] + " " + i + "\t2253-" + i + "\t3\t1\tGenerated course "
+                        + i + "\t1/6/2025\t5/2/2025\tStaff " + (i % 97) + "\n");
+            }
+        }
+    }
+
+    private static List<String> courseRows(DatabaseManager dbManager) {
+        List<String> rows = new ArrayList<>();
+        Cursor cursor = dbManager.getAllCourses();
+        try {
+            while (cursor.moveToNext()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 0; i < cursor.getColumnCount(); i++) {
+                    row.append(cursor.getString(i)).append('|');
+                }
+                rows.add(row.toString());
+            }
+        } finally {
+            cursor.close();
+        }
+        return rows;
+    }
+}
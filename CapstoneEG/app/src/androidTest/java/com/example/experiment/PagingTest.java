@@ -0,0 +1,136 @@
+package com.example.experiment;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Keyset pages walk the full list in order with no gaps or repeats, including across
+ * duplicate titles, and the catalog and SQL paths page identically.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PagingTest {
+    private static final String TEST_DB = "paging-test.db";
+    private static final int PAGE_SIZE = 4;
+
+    private Context context;
+    private DatabaseManager dbManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+
+        // Repeated titles make the id tie-break matter at page boundaries
+        String[] titles = {"Chemistry", "Algebra", "Biology", "Algebra", "Drawing", "Biology", "Algebra"};
+        for (int i = 0; i < 21; i++) {
+            assertTrue(dbManager.addCourse(titles[i % titles.length], "REF" + i, "3", "Course " + i));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void coursePages_walkTheWholeListInOrder() {
+        assertNull(dbManager.getCourseCatalog());
+        List<Course> fromDatabase = walkCourses(-1);
+        assertEquals(21, fromDatabase.size());
+        assertEquals(21, new HashSet<>(ids(fromDatabase)).size());
+        for (int i = 1; i < fromDatabase.size(); i++) {
+            assertTrue(CourseCatalog.BY_TITLE.compare(fromDatabase.get(i - 1), fromDatabase.get(i)) < 0);
+        }
+
+        dbManager.reloadCourseCatalog();
+        assertEquals(ids(fromDatabase), ids(walkCourses(-1)));
+    }
+
+    @Test
+    public void programPages_matchBetweenDatabaseAndCatalog() {
+        assertTrue(dbManager.importAcademicProgramsFromCSV(new String[]{"Science"}));
+        for (int id = 1; id <= 21; id += 2) {
+            assertTrue(dbManager.setCoursePrograms(id, Arrays.asList(1)));
+        }
+
+        List<Integer> fromDatabase = ids(walkCourses(1));
+        assertEquals(11, fromDatabase.size());
+
+        dbManager.reloadCourseCatalog();
+        assertEquals(fromDatabase, ids(walkCourses(1)));
+    }
+
+    @Test
+    public void recommendationPages_followTitleThenRelevance() {
+        String[] careers = {"Data analyst", "actuary", "Biologist", "chemist"};
+        for (String career : careers) {
+            assertTrue(dbManager.addCareer(career, "00-0000", 100, 1.0f, 50000f, "Bachelor's degree"));
+        }
+        int expected = 0;
+        for (int career = 1; career <= careers.length; career++) {
+            for (int course = 1; course <= 5; course++) {
+                assertTrue(dbManager.updateOrAddRecommendedCourse(career, course, (career * course) % 4 + 1));
+                expected++;
+            }
+        }
+
+        List<DatabaseManager.Recommendation> all = new ArrayList<>();
+        DatabaseManager.Recommendation after = null;
+        while (true) {
+            List<DatabaseManager.Recommendation> page = dbManager.getRecommendationsPage(after, PAGE_SIZE);
+            all.addAll(page);
+            if (page.size() < PAGE_SIZE) break;
+            after = page.get(page.size() - 1);
+        }
+
+        assertEquals(expected, all.size());
+        HashSet<Integer> seen = new HashSet<>();
+        for (int i = 0; i < all.size(); i++) {
+            DatabaseManager.Recommendation r = all.get(i);
+            assertTrue(seen.add(r.id));
+            if (i == 0) continue;
+            DatabaseManager.Recommendation previous = all.get(i - 1);
+            int byTitle = String.CASE_INSENSITIVE_ORDER.compare(previous.occupationTitle, r.occupationTitle);
+            assertTrue(byTitle < 0 || (byTitle == 0 && (previous.relevance > r.relevance
+                    || (previous.relevance == r.relevance && previous.id < r.id))));
+        }
+        assertEquals("actuary", all.get(0).occupationTitle);
+    }
+
+    private List<Course> walkCourses(int programId) {
+        List<Course> all = new ArrayList<>();
+        Course after = null;
+        while (true) {
+            List<Course> page = programId == -1
+                    ? dbManager.getCoursesPage(after, PAGE_SIZE)
+                    : dbManager.getCoursesForProgramPage(programId, after, PAGE_SIZE);
+            all.addAll(page);
+            if (page.size() < PAGE_SIZE) return all;
+            after = page.get(page.size() - 1);
+        }
+    }
+
+    private static List<Integer> ids(List<Course> courses) {
+        List<Integer> ids = new ArrayList<>();
+        for (Course course : courses) {
+            ids.add(course.getId());
+        }
+        return ids;
+    }
+}
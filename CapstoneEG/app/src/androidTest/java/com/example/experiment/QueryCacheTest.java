@@ -0,0 +1,132 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Repeated list queries are served from the cache until a write touches one of the
+ * tables they read; unrelated entries survive the write.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryCacheTest {
+    private static final String TEST_DB = "query-cache-test.db";
+
+    private Context context;
+    private DatabaseManager dbManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void repeatedQuery_isServedFromCache() {
+        assertTrue(dbManager.addCourse("Intro to Biology", "BIO101", "3", "Cells"));
+
+        assertEquals(1, count(dbManager.getAllCourses()));
+        QueryCache.Stats first = dbManager.getQueryCacheStats();
+        assertEquals(1, count(dbManager.getAllCourses()));
+        QueryCache.Stats second = dbManager.getQueryCacheStats();
+
+        assertEquals(first.getMisses(), second.getMisses());
+        assertEquals(first.getHits() + 1, second.getHits());
+        assertTrue(second.getSizeBytes() > 0);
+    }
+
+    @Test
+    public void write_dropsOnlyDependentEntries() {
+        assertTrue(dbManager.importAdministratorsFromCSV(new String[]{
+                "name\ttitle\temail\tphone\tdepartment",
+                "Jane Doe\tAdvisor\tjane@example.edu\t555-0100\tAdvising"
+        }));
+        assertEquals(0, count(dbManager.getAllCourses()));
+        assertEquals(1, count(dbManager.getAllAdministrators()));
+        long invalidations = dbManager.getQueryCacheStats().getInvalidations();
+
+        // The new course must show up, which means the cached empty list was dropped
+        assertTrue(dbManager.addCourse("Intro to Biology", "BIO101", "3", "Cells"));
+        assertEquals(invalidations + 1, dbManager.getQueryCacheStats().getInvalidations());
+        assertEquals(1, count(dbManager.getAllCourses()));
+
+        long hits = dbManager.getQueryCacheStats().getHits();
+        assertEquals(1, count(dbManager.getAllAdministrators()));
+        assertEquals(hits + 1, dbManager.getQueryCacheStats().getHits());
+    }
+
+    @Test
+    public void recommendations_followEveryJoinedTable() {
+        assertTrue(dbManager.addCareer("Actuaries", "15-2011", 30, 21.8f, 120000f, "Bachelor's degree"));
+        assertTrue(dbManager.addCourse("Statistics", "MAT201", "3", "Probability"));
+        int careerId = dbManager.getCareerIdTitlePairs().get(0).id;
+        Cursor courses = dbManager.getAllCourses();
+        assertTrue(courses.moveToFirst());
+        int courseId = courses.getInt(courses.getColumnIndexOrThrow("_id"));
+        courses.close();
+
+        assertTrue(dbManager.getAllRecommendationsSafe().isEmpty());
+        assertTrue(dbManager.addRecommendedCourse(careerId, courseId, 8));
+        assertEquals(1, dbManager.getAllRecommendationsSafe().size());
+
+        // Renaming the course changes the joined label
+        assertTrue(dbManager.updateCourse(courseId, "Applied Statistics", "MAT201", "3", "Probability"));
+        assertTrue(dbManager.getAllRecommendationsSafe().get(0).recommendationInfo
+                .endsWith("Applied Statistics"));
+    }
+
+    @Test
+    public void lru_evictsOldestEntryOverBudget() {
+        SQLiteDatabase db = SQLiteDatabase.create(null);
+        try {
+            db.execSQL("CREATE TABLE items (id INTEGER PRIMARY KEY, name TEXT)");
+            for (int i = 0; i < 20; i++) {
+                db.execSQL("INSERT INTO items (name) VALUES (?)", new Object[]{"item number " + i});
+            }
+            // Each single-row entry weighs a few hundred bytes, so only a handful fit
+            QueryCache cache = new QueryCache(1024);
+            for (int i = 1; i <= 20; i++) {
+                count(cache.query(db, "SELECT name FROM items WHERE id = ?",
+                        new String[]{String.valueOf(i)}, "items"));
+            }
+
+            QueryCache.Stats stats = cache.getStats();
+            assertEquals(20, stats.getMisses());
+            assertTrue(stats.getEvictions() > 0);
+            assertTrue(stats.getSizeBytes() <= stats.getMaxBytes());
+
+            // The most recent entry is still there, the first one is gone
+            count(cache.query(db, "SELECT name FROM items WHERE id = ?", new String[]{"20"}, "items"));
+            assertEquals(1, cache.getStats().getHits());
+            count(cache.query(db, "SELECT name FROM items WHERE id = ?", new String[]{"1"}, "items"));
+            assertEquals(21, cache.getStats().getMisses());
+        } finally {
+            db.close();
+        }
+    }
+
+    private static int count(Cursor cursor) {
+        try {
+            return cursor.getCount();
+        } finally {
+            cursor.close();
+        }
+    }
+}
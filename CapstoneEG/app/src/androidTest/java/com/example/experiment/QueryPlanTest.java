@@ -0,0 +1,144 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs EXPLAIN QUERY PLAN over every *_SQL constant in DatabaseManager and fails
+ * if a query falls back to a full table scan. New queries are picked up
+ * automatically as long as they follow the *_SQL naming.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryPlanTest {
+    private static final String TAG = "QueryPlanTest";
+    private static final String TEST_DB = "query-plan-test.db";
+
+    // Queries that are allowed to scan, with the reason they have to
+    private static final Map<String, String> FULL_SCAN_ALLOWED = new HashMap<>();
+
+    static {
+        FULL_SCAN_ALLOWED.put("ALL_RECOMMENDATIONS_SQL", "lists every recommendation");
+        FULL_SCAN_ALLOWED.put("CATALOG_COURSES_SQL", "loads every course into CourseCatalog");
+        FULL_SCAN_ALLOWED.put("CATALOG_MEMBERSHIPS_SQL", "loads every program membership into CourseCatalog");
+    }
+
+    private Context context;
+    private DatabaseHelper helper;
+    private SQLiteDatabase db;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        helper = new DatabaseHelper(context, TEST_DB);
+        db = helper.getReadableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void everyQuery_usesAnIndex() throws Exception {
+        Map<String, String> queries = managerQueries();
+        assertFalse("no *_SQL constants found in DatabaseManager", queries.isEmpty());
+
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            List<String> plan = explain(query.getValue());
+            Log.i(TAG, query.getKey() + " -> " + plan);
+
+            if (FULL_SCAN_ALLOWED.containsKey(query.getKey())) {
+                continue;
+            }
+            Set<String> subqueries = subqueryNames(plan);
+            for (String step : plan) {
+                if (isFullTableScan(step, subqueries)) {
+                    failures.add(query.getKey() + ": " + step);
+                }
+            }
+        }
+
+        assertTrue("Full table scans:\n" + failures, failures.isEmpty());
+    }
+
+    @Test
+    public void allowList_onlyNamesExistingQueries() throws Exception {
+        Map<String, String> queries = managerQueries();
+        for (String name : FULL_SCAN_ALLOWED.keySet()) {
+            assertTrue("stale allow-list entry " + name, queries.containsKey(name));
+        }
+    }
+
+    // A SCAN step with no index behind it. Virtual tables do their own lookups, and
+    // scanning a subquery's already-limited result is not a table scan.
+    private static boolean isFullTableScan(String step, Set<String> subqueries) {
+        return step.startsWith("SCAN")
+                && !step.contains(" USING ")
+                && !step.contains("VIRTUAL TABLE")
+                && !step.toLowerCase().contains("subquery")
+                && !subqueries.contains(step.substring("SCAN".length()).trim());
+    }
+
+    // Newer SQLite names a materialized subquery by its alias ("SCAN ranked")
+    private static Set<String> subqueryNames(List<String> plan) {
+        Set<String> names = new HashSet<>();
+        for (String step : plan) {
+            if (step.startsWith("MATERIALIZE ") || step.startsWith("CO-ROUTINE ")) {
+                names.add(step.substring(step.indexOf(' ') + 1).trim());
+            }
+        }
+        return names;
+    }
+
+    private List<String> explain(String sql) {
+        List<String> plan = new ArrayList<>();
+        // Unbound parameters are NULL, which is enough for the planner
+        Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, null);
+        try {
+            int detail = cursor.getColumnIndex("detail");
+            while (cursor.moveToNext()) {
+                plan.add(cursor.getString(detail));
+            }
+        } finally {
+            cursor.close();
+        }
+        return plan;
+    }
+
+    private static Map<String, String> managerQueries() throws IllegalAccessException {
+        Map<String, String> queries = new HashMap<>();
+        for (Field field : DatabaseManager.class.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)
+                    && field.getType() == String.class && field.getName().endsWith("_SQL")) {
+                field.setAccessible(true);
+                queries.put(field.getName(), (String) field.get(null));
+            }
+        }
+        return queries;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * With tracing on, each lease is an operation charged with the queries and statements it
+ * ran; a cursor handed back to the caller is counted when the caller closes it.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QueryTracingTest {
+    private static final String TEST_DB = "query-tracing-test.db";
+
+    private Context context;
+    private DatabaseManager dbManager;
+    private QueryTracer tracer;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        dbManager = new DatabaseManager(context, TEST_DB);
+        tracer = dbManager.getQueryTracer();
+    }
+
+    @After
+    public void tearDown() {
+        dbManager.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void disabled_recordsNothing() {
+        assertTrue(dbManager.addCourse("CGS1060", "1234", "3", "Intro to computers"));
+        assertEquals(1, dbManager.getCourseCount());
+
+        assertTrue(tracer.getOperations().isEmpty());
+        assertTrue(tracer.getSlowQueries().isEmpty());
+    }
+
+    @Test
+    public void returnedCursor_isRecordedWithRowsAndArgumentsOnClose() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(dbManager.addCourse("CGS10" + i, "123" + i, "3", "Intro to computers"));
+        }
+        tracer.setEnabled(true);
+        tracer.setSlowQueryMillis(0);
+
+        Cursor cursor = dbManager.searchCourses("cgs");
+        assertEquals(1, stats("searchCourses").getCalls());
+        assertEquals(0, stats("searchCourses").queries.get());
+        while (cursor.moveToNext()) {
+            // visit every row
+        }
+        cursor.close();
+
+        QueryTracer.OperationStats search = stats("searchCourses");
+        assertEquals(1, search.queries.get());
+        assertEquals(3, search.rows.get());
+        QueryTracer.SlowQuery slow = tracer.getSlowQueries().get(0);
+        assertEquals("searchCourses", slow.operation);
+        assertTrue(slow.sql, slow.sql.contains("SELECT"));
+        assertTrue(slow.args, slow.args.contains("cgs"));
+    }
+
+    @Test
+    public void statements_areChargedToTheirOperation() {
+        assertTrue(dbManager.addCourse("CGS1060", "1234", "3", "Intro to computers"));
+        assertTrue(dbManager.addCareer("Software developers", "15-1252", 1, 1f, 1f, "Bachelor's degree"));
+        tracer.setEnabled(true);
+
+        assertEquals(WriteOutcome.ADDED, dbManager.putRecommendation(1, 1, 5));
+
+        // The update that found nothing, then the insert
+        QueryTracer.OperationStats put = stats("putRecommendation");
+        assertEquals(1, put.getCalls());
+        assertEquals(2, put.queries.get());
+        assertEquals(1, put.rows.get());
+    }
+
+    private QueryTracer.OperationStats stats(String operation) {
+        List<QueryTracer.OperationStats> operations = tracer.getOperations();
+        for (QueryTracer.OperationStats stats : operations) {
+            if (stats.operation.equals(operation)) {
+                return stats;
+            }
+        }
+        fail(operation + " not recorded in " + operations);
+        return null;
+    }
+}
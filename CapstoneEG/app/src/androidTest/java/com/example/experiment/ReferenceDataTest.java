@@ -0,0 +1,132 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Seeding from the prebuilt reference database yields the same rows as the CSV imports it
+ * replaces and leaves tables that already have data alone. Both paths are timed.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ReferenceDataTest {
+    private static final String TAG = "ReferenceDataTest";
+    private static final String CSV_DB = "reference-csv-test.db";
+    private static final String SEEDED_DB = "reference-seeded-test.db";
+
+    private Context context;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(CSV_DB);
+        context.deleteDatabase(SEEDED_DB);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(CSV_DB);
+        context.deleteDatabase(SEEDED_DB);
+    }
+
+    @Test
+    public void seed_matchesTheCsvImport() throws Exception {
+        DatabaseManager imported = new DatabaseManager(context, CSV_DB);
+        long start = System.nanoTime();
+        assertTrue(imported.importAcademicProgramsFromCSV(readAsset("academic_programs.csv")));
+        assertTrue(imported.importCoursesFromCSV(readAsset("mdc_courses.csv")));
+        assertTrue(imported.importCareersFromCSV(readAsset("occupation_15_filtered.csv")));
+        assertTrue(imported.importAdministratorsFromCSV(readAsset("administration.csv")));
+        long csvNanos = System.nanoTime() - start;
+        imported.close();
+
+        DatabaseManager seeded = new DatabaseManager(context, SEEDED_DB);
+        start = System.nanoTime();
+        File reference = ReferenceData.extract(context);
+        int copied = seeded.seedReferenceData(reference);
+        long seedNanos = System.nanoTime() - start;
+        assertEquals(0, seeded.seedReferenceData(reference));
+        seeded.close();
+
+        Log.i(TAG, "CSV import " + csvNanos / 1000 + " us, reference seed " + seedNanos / 1000
+                + " us for " + copied + " rows");
+
+        assertEquals(dump(CSV_DB), dump(SEEDED_DB));
+        assertTrue(copied > 0);
+    }
+
+    @Test
+    public void seed_leavesTablesWithRowsAlone() throws Exception {
+        DatabaseManager dbManager = new DatabaseManager(context, SEEDED_DB);
+        try {
+            assertTrue(dbManager.addCourse("Admin Added", "9999-0001", "3", "Added by hand"));
+
+            dbManager.seedReferenceData(ReferenceData.extract(context));
+
+            assertEquals(1, dbManager.getCourseCount());
+            Cursor careers = dbManager.getAllCareers();
+            try {
+                assertTrue(careers.getCount() > 0);
+            } finally {
+                careers.close();
+            }
+        } finally {
+            dbManager.close();
+        }
+    }
+
+    // Every reference row, in id order, as text
+    private List<String> dump(String name) {
+        DatabaseHelper helper = new DatabaseHelper(context, name);
+        try {
+            SQLiteDatabase db = helper.getReadableDatabase();
+            List<String> rows = new ArrayList<>();
+            for (String table : ReferenceData.TABLES) {
+                Cursor cursor = db.rawQuery("SELECT * FROM " + table + " ORDER BY id", null);
+                try {
+                    while (cursor.moveToNext()) {
+                        StringBuilder row = new StringBuilder(table);
+                        for (int i = 0; i < cursor.getColumnCount(); i++) {
+                            row.append('|').append(cursor.getString(i));
+                        }
+                        rows.add(row.toString());
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+            return rows;
+        } finally {
+            helper.close();
+        }
+    }
+
+    private String[] readAsset(String name) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(context.getAssets().open(name)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines.toArray(new String[0]);
+    }
+}
@@ -14,28 +14,36 @@ import android.widget.Button;
 import android.widget.ProgressBar;
 import android.widget.Toast;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
 public class AdminDashboardActivity extends Activity {
+    static final String COURSES_ASSET = "mdc_courses.csv";
+    static final String CAREERS_ASSET = "occupation_15_filtered.csv";
+    static final String ADMINISTRATORS_ASSET = "administration.csv";
+
     private DatabaseManager dbManager;
-    private ExecutorService executorService;
+    private DatabaseScheduler scheduler;
     private Handler mainThreadHandler;
     private ProgressBar progressBar;
 
+    // The progress bar is indeterminate, so import progress and rejected rows go to the log
+    private final CsvImporter.Listener importListener = new CsvImporter.Listener() {
+        @Override
+        public void onProgress(int rowsRead, int rowsImported) {
+            Log.d("AdminDashboard", "Imported " + rowsImported + " of " + rowsRead + " rows");
+        }
+
+        @Override
+        public void onReject(int lineNumber, String line, String reason) {
+            Log.w("AdminDashboard", "Line " + lineNumber + " rejected (" + reason + "): " + line);
+        }
+    };
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_admin_dashboard);
 
         // Initialize thread management
-        executorService = Executors.newFixedThreadPool(4);
+        scheduler = ExperimentApplication.scheduler(this);
         mainThreadHandler = new Handler(Looper.getMainLooper());
 
         // Initialize DatabaseManager
@@ -77,7 +85,7 @@ public class AdminDashboardActivity extends Activity {
                     progressBar.setVisibility(View.VISIBLE);
                 }
 
-                executorService.execute(new Runnable() {
+                boolean queued = scheduler.read(new Runnable() {
                     @Override
                     public void run() {
                         try {
@@ -121,6 +129,12 @@ public class AdminDashboardActivity extends Activity {
                         }
                     }
                 });
+                if (!queued) {
+                    if (progressBar != null) {
+                        progressBar.setVisibility(View.GONE);
+                    }
+                    Toast.makeText(AdminDashboardActivity.this, "The database is busy, please try again", Toast.LENGTH_SHORT).show();
+                }
             }
         });
 
@@ -151,6 +165,17 @@ public class AdminDashboardActivity extends Activity {
                 importAdministratorsFromAssets(true);
             }
         });
+
+        // Find the diagnostics button
+        Button btnDiagnostics = (Button) findViewById(R.id.btnDiagnostics);
+        // Set click listener for diagnostics button
+        btnDiagnostics.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                Intent intent = new Intent(AdminDashboardActivity.this, DiagnosticsActivity.class);
+                startActivity(intent);
+            }
+        });
 }
     public void logout(View view) {
         SharedPreferences prefs = getSharedPreferences("UserPrefs", MODE_PRIVATE);
@@ -167,25 +192,14 @@ public class AdminDashboardActivity extends Activity {
     private void importCareersFromAssets() {
         progressBar.setVisibility(View.VISIBLE);
 
-        executorService.execute(new Runnable() {
+        boolean queued = scheduler.bulkImport(new Runnable() {
             @Override
             public void run() {
                 try {
-                    // Open CSV file
-                    InputStream is = getAssets().open("occupation_15_filtered.csv");
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-
-                    // Read all lines
-                    final List<String> lines = new ArrayList<>();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        lines.add(line);
-                    }
-                    reader.close();
-
-                    // Import data
-                    final String[] linesArray = lines.toArray(new String[0]);
-                    final boolean success = dbManager.importCareersFromCSV(linesArray);
+                    // Apply only what changed since the asset was last imported
+                    final DeltaImporter.Result result = dbManager.importCareersDelta(CAREERS_ASSET,
+                            () -> getAssets().open(CAREERS_ASSET), importListener);
+                    final boolean success = result.rejected == 0;
 
                     // Check results
                     final int recordCount = dbManager.getCareerCount();
@@ -198,7 +212,8 @@ public class AdminDashboardActivity extends Activity {
                             if (success) {
                                 Toast.makeText(AdminDashboardActivity.this, "Successfully imported " + recordCount + " careers", Toast.LENGTH_LONG).show();
                             } else {
-                                Toast.makeText(AdminDashboardActivity.this, "Error during import. Records found: " + recordCount, Toast.LENGTH_LONG).show();
+                                Toast.makeText(AdminDashboardActivity.this, "Imported " + (result.inserted + result.updated) + " careers, skipped " + result.rejected
+                                        + " rows. Records found: " + recordCount, Toast.LENGTH_LONG).show();
                             }
                         }
                     });
@@ -215,38 +230,25 @@ public class AdminDashboardActivity extends Activity {
                 }
             }
         });
+        if (!queued) {
+            progressBar.setVisibility(View.GONE);
+            Toast.makeText(AdminDashboardActivity.this, "The database is busy, please try again", Toast.LENGTH_SHORT).show();
+        }
     }
 
     private void importAdministratorsFromAssets(final boolean launchActivityAfterImport) {
         progressBar.setVisibility(View.VISIBLE);
 
-        executorService.execute(new Runnable() {
+        boolean queued = scheduler.bulkImport(new Runnable() {
             @Override
             public void run() {
                 try {
-                    // Open CSV file
-                    InputStream is = getAssets().open("administration.csv");
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-
-                    // Read all lines
-                    final List<String> lines = new ArrayList<>();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        lines.add(line);
-                    }
-                    reader.close();
-
-                    mainThreadHandler.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            Toast.makeText(AdminDashboardActivity.this, "Read " + lines.size() + " lines from CSV", Toast.LENGTH_SHORT).show();
-                        }
-                    });
-
-                    // Import data
-                    final String[] linesArray = lines.toArray(new String[0]);
-                    final boolean success = dbManager.importAdministratorsFromCSV(linesArray);
+                    // Apply only what changed since the asset was last imported
+                    dbManager.importAdministratorsDelta(ADMINISTRATORS_ASSET,
+                            () -> getAssets().open(ADMINISTRATORS_ASSET), importListener);
                     final int recordCount = dbManager.getAdministratorCount();
+                    // Rejected rows are logged; the import failed only if it left the table empty
+                    final boolean success = recordCount > 0;
 
                     mainThreadHandler.post(new Runnable() {
                         @Override
@@ -280,38 +282,24 @@ public class AdminDashboardActivity extends Activity {
                 }
             }
         });
+        if (!queued) {
+            progressBar.setVisibility(View.GONE);
+            Toast.makeText(AdminDashboardActivity.this, "The database is busy, please try again", Toast.LENGTH_SHORT).show();
+        }
     }
 
     private void importCoursesFromAssets() {
         progressBar.setVisibility(View.VISIBLE);
 
-        executorService.execute(new Runnable() {
+        boolean queued = scheduler.bulkImport(new Runnable() {
             @Override
             public void run() {
                 try {
-                    // Open CSV file
-                    InputStream is = getAssets().open("mdc_courses.csv");
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-
-                    // Read all lines
-                    final List<String> lines = new ArrayList<>();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        lines.add(line);
-                    }
-                    reader.close();
-
-                    mainThreadHandler.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            Toast.makeText(AdminDashboardActivity.this, "Read " + lines.size() + " lines from courses CSV", Toast.LENGTH_SHORT).show();
-                        }
-                    });
-
-                    // Import data
-                    final String[] linesArray = lines.toArray(new String[0]);
-                    final boolean success = dbManager.importCoursesFromCSV(linesArray);
+                    // Apply only what changed since the asset was last imported
+                    dbManager.importCoursesDelta(COURSES_ASSET, () -> getAssets().open(COURSES_ASSET), importListener);
                     final int recordCount = dbManager.getCourseCount();
+                    // Rejected rows are logged; the import failed only if it left the table empty
+                    final boolean success = recordCount > 0;
 
                     mainThreadHandler.post(new Runnable() {
                         @Override
@@ -323,22 +311,9 @@ public class AdminDashboardActivity extends Activity {
 
                                 // Check if we need to open the ManageRecommendationsActivity
                                 if (recordCount > 0) {
-                                    // Create the career_courses table if needed
-                                    executorService.execute(new Runnable() {
-                                        @Override
-                                        public void run() {
-                                            dbManager.createCareerCoursesTable();
-
-                                            mainThreadHandler.post(new Runnable() {
-                                                @Override
-                                                public void run() {
-                                                    // Navigate to the ManageRecommendationsActivity
-                                                    Intent intent = new Intent(AdminDashboardActivity.this, ManageRecommendationsActivity.class);
-                                                    startActivity(intent);
-                                                }
-                                            });
-                                        }
-                                    });
+                                    // Navigate to the ManageRecommendationsActivity
+                                    Intent intent = new Intent(AdminDashboardActivity.this, ManageRecommendationsActivity.class);
+                                    startActivity(intent);
                                 }
                             } else {
                                 Toast.makeText(AdminDashboardActivity.this, "Error during import", Toast.LENGTH_LONG).show();
@@ -358,18 +333,9 @@ public class AdminDashboardActivity extends Activity {
                 }
             }
         });
-    }
-
-    @Override
-    protected void onDestroy() {
-        // Shutdown executor service
-        if (executorService != null) {
-            executorService.shutdown();
+        if (!queued) {
+            progressBar.setVisibility(View.GONE);
+            Toast.makeText(AdminDashboardActivity.this, "The database is busy, please try again", Toast.LENGTH_SHORT).show();
         }
-
-        // Don't close the database manager, just release the reference
-        dbManager = null;
-
-        super.onDestroy();
     }
 }
\ No newline at end of file
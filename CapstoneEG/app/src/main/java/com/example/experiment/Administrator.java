@@ -0,0 +1,85 @@
+package com.example.experiment;
+
+import android.database.Cursor;
+
+/**
+ * Immutable administrator (advisor) row.
+ */
+public final class Administrator {
+    private final int id;
+    private final String name;
+    private final String title;
+    private final String department;
+    private final String email;
+    private final String phone;
+
+    Administrator(int id, String name, String title, String department, String email, String phone) {
+        this.id = id;
+        this.name = name;
+        this.title = title;
+        this.department = department;
+        this.email = email;
+        this.phone = phone;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    // Spinners show the name
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    static final RowMapper.Factory<Administrator> MAPPER = Mapper::new;
+
+    private static final class Mapper implements RowMapper<Administrator> {
+        private final int id;
+        private final int name;
+        private final int title;
+        private final int department;
+        private final int email;
+        private final int phone;
+
+        Mapper(Cursor cursor) {
+            id = RowMapper.idColumn(cursor);
+            name = cursor.getColumnIndexOrThrow("name");
+            title = cursor.getColumnIndexOrThrow("title");
+            department = cursor.getColumnIndexOrThrow("department");
+            email = cursor.getColumnIndexOrThrow("email");
+            phone = cursor.getColumnIndexOrThrow("phone");
+        }
+
+        @Override
+        public Administrator map(Cursor cursor) {
+            return new Administrator(
+                    cursor.getInt(id),
+                    cursor.getString(name),
+                    cursor.getString(title),
+                    cursor.getString(department),
+                    cursor.getString(email),
+                    cursor.getString(phone));
+        }
+    }
+}
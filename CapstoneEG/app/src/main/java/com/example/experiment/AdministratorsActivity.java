@@ -2,43 +2,47 @@ package com.example.experiment;
 
 import android.app.Activity;
 import android.content.Intent;
-import android.database.Cursor;
 import android.os.Bundle;
+import android.util.Log;
+import android.view.LayoutInflater;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
 import android.widget.ListView;
-import android.widget.SimpleCursorAdapter;
+import android.widget.TextView;
+import android.widget.Toast;
 
 public class AdministratorsActivity extends Activity {
-    private DatabaseManager dbManager;
+    private static final String TAG = "AdministratorsActivity";
+    private DataRepository repository;
     private ListView listViewAdmins;
+    private ArrayAdapter<Administrator> adapter;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_administrators);
 
-        dbManager = DatabaseManager.getInstance(this);
+        repository = DataRepository.getInstance(this);
         listViewAdmins = (ListView) findViewById(R.id.listViewAdmins);
 
-        // Get cursor of administrators
-        Cursor cursor = dbManager.getAllAdministrators();
-
         // Create adapter with custom layout
-        SimpleCursorAdapter adapter = new SimpleCursorAdapter(
-                this,
-                R.layout.item_administrator, // Custom item layout
-                cursor,
-                new String[]{"name", "title", "department", "email", "phone"}, // Columns to display
-                new int[]{
-                        R.id.tvAdminName,
-                        R.id.tvAdminTitle,
-                        R.id.tvAdminDepartment,
-                        R.id.tvAdminEmail,
-                        R.id.tvAdminPhone
-                }, // Views to put the data
-                0
-        );
+        adapter = new ArrayAdapter<Administrator>(this, R.layout.item_administrator) {
+            @Override
+            public View getView(int position, View convertView, ViewGroup parent) {
+                View view = convertView != null ? convertView
+                        : LayoutInflater.from(getContext()).inflate(R.layout.item_administrator, parent, false);
+                Administrator admin = getItem(position);
+
+                ((TextView) view.findViewById(R.id.tvAdminName)).setText(admin.getName());
+                ((TextView) view.findViewById(R.id.tvAdminTitle)).setText(admin.getTitle());
+                ((TextView) view.findViewById(R.id.tvAdminDepartment)).setText(admin.getDepartment());
+                ((TextView) view.findViewById(R.id.tvAdminEmail)).setText(admin.getEmail());
+                ((TextView) view.findViewById(R.id.tvAdminPhone)).setText(admin.getPhone());
+                return view;
+            }
+        };
 
         // Set the adapter
         listViewAdmins.setAdapter(adapter);
@@ -49,11 +53,22 @@ public class AdministratorsActivity extends Activity {
             public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
                 // Pass the admin ID to the appointment scheduling activity
                 Intent intent = new Intent(AdministratorsActivity.this, ScheduleAppointmentActivity.class);
-                intent.putExtra("ADMIN_ID", (int) id);
+                intent.putExtra("ADMIN_ID", adapter.getItem(position).getId());
                 startActivity(intent);
             }
         });
-    }
 
-
-}
\ No newline at end of file
+        // Load administrators off the UI thread
+        repository.getAllAdministrators().whenCompleteAsync((admins, error) -> {
+            if (isFinishing()) {
+                return;
+            }
+            if (error != null) {
+                Log.e(TAG, "Error loading administrators", error);
+                Toast.makeText(this, "Error loading administrators", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            adapter.addAll(admins);
+        }, repository.mainThread());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.experiment;
+
+import android.database.Cursor;
+
+/**
+ * Immutable booked appointment between a student and an administrator.
+ */
+public final class Appointment {
+    private final int id;
+    private final String studentUsername;
+    private final int adminId;
+    private final String date;
+    private final String timeSlot;
+    private final String reason;
+
+    Appointment(int id, String studentUsername, int adminId, String date, String timeSlot, String reason) {
+        this.id = id;
+        this.studentUsername = studentUsername;
+        this.adminId = adminId;
+        this.date = date;
+        this.timeSlot = timeSlot;
+        this.reason = reason;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getStudentUsername() {
+        return studentUsername;
+    }
+
+    public int getAdminId() {
+        return adminId;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public String getTimeSlot() {
+        return timeSlot;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return date + " " + timeSlot + " - " + studentUsername;
+    }
+
+    static final RowMapper.Factory<Appointment> MAPPER = Mapper::new;
+
+    private static final class Mapper implements RowMapper<Appointment> {
+        private final int id;
+        private final int studentUsername;
+        private final int adminId;
+        private final int date;
+        private final int timeSlot;
+        private final int reason;
+
+        Mapper(Cursor cursor) {
+            id = RowMapper.idColumn(cursor);
+            studentUsername = cursor.getColumnIndexOrThrow("student_username");
+            adminId = cursor.getColumnIndexOrThrow("admin_id");
+            date = cursor.getColumnIndexOrThrow("date");
+            timeSlot = cursor.getColumnIndexOrThrow("time_slot");
+            reason = cursor.getColumnIndexOrThrow("reason");
+        }
+
+        @Override
+        public Appointment map(Cursor cursor) {
+            return new Appointment(
+                    cursor.getInt(id),
+                    cursor.getString(studentUsername),
+                    cursor.getInt(adminId),
+                    cursor.getString(date),
+                    cursor.getString(timeSlot),
+                    cursor.getString(reason));
+        }
+    }
+}
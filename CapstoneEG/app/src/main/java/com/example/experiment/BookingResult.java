@@ -0,0 +1,13 @@
+package com.example.experiment;
+
+/**
+ * What an attempt to book a time slot did.
+ */
+public enum BookingResult {
+    BOOKED,
+    // Someone else's appointment holds the slot
+    ALREADY_TAKEN,
+    // The slot was deleted, or never existed
+    SLOT_MISSING,
+    FAILED
+}
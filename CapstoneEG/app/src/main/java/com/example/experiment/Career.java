@@ -0,0 +1,94 @@
+package com.example.experiment;
+
+import android.database.Cursor;
+
+/**
+ * Immutable career (occupation) row.
+ */
+public final class Career {
+    private final int id;
+    private final String title;
+    private final String code;
+    private final float employment2023;
+    private final float employmentPercentChange;
+    private final float medianAnnualWage;
+    private final String educationWorkExperience;
+
+    Career(int id, String title, String code, float employment2023, float employmentPercentChange,
+           float medianAnnualWage, String educationWorkExperience) {
+        this.id = id;
+        this.title = title;
+        this.code = code;
+        this.employment2023 = employment2023;
+        this.employmentPercentChange = employmentPercentChange;
+        this.medianAnnualWage = medianAnnualWage;
+        this.educationWorkExperience = educationWorkExperience;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public float getEmployment2023() {
+        return employment2023;
+    }
+
+    public float getEmploymentPercentChange() {
+        return employmentPercentChange;
+    }
+
+    public float getMedianAnnualWage() {
+        return medianAnnualWage;
+    }
+
+    public String getEducationWorkExperience() {
+        return educationWorkExperience;
+    }
+
+    @Override
+    public String toString() {
+        return title;
+    }
+
+    static final RowMapper.Factory<Career> MAPPER = Mapper::new;
+
+    private static final class Mapper implements RowMapper<Career> {
+        private final int id;
+        private final int title;
+        private final int code;
+        private final int employment2023;
+        private final int employmentPercentChange;
+        private final int medianAnnualWage;
+        private final int educationWorkExperience;
+
+        Mapper(Cursor cursor) {
+            id = RowMapper.idColumn(cursor);
+            title = cursor.getColumnIndexOrThrow("occupation_title");
+            code = cursor.getColumnIndexOrThrow("occupation_code");
+            employment2023 = cursor.getColumnIndexOrThrow("employment_2023");
+            employmentPercentChange = cursor.getColumnIndexOrThrow("employment_percent_change");
+            medianAnnualWage = cursor.getColumnIndexOrThrow("median_annual_wage");
+            educationWorkExperience = cursor.getColumnIndexOrThrow("education_work_experience");
+        }
+
+        @Override
+        public Career map(Cursor cursor) {
+            return new Career(
+                    cursor.getInt(id),
+                    cursor.getString(title),
+                    cursor.getString(code),
+                    cursor.getFloat(employment2023),
+                    cursor.getFloat(employmentPercentChange),
+                    cursor.getFloat(medianAnnualWage),
+                    cursor.getString(educationWorkExperience));
+        }
+    }
+}
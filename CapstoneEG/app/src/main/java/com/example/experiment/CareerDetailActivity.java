@@ -22,10 +22,11 @@ public class CareerDetailActivity extends Activity {
         setContentView(R.layout.activity_career_detail);
 
         // Initialize DatabaseManager
-        dbManager = new DatabaseManager(this);
+        dbManager = DatabaseManager.getInstance(this);
 
         try {
-            // Get the career title passed from the previous activity
+            // The career list passes an id; a title is only sent before careers are imported
+            int careerId = getIntent().getIntExtra("CAREER_ID", -1);
             String careerTitle = getIntent().getStringExtra("CAREER_TITLE");
 
             // Initialize all TextViews
@@ -37,7 +38,9 @@ public class CareerDetailActivity extends Activity {
             ImageView ivCareerImage = (ImageView) findViewById(R.id.ivCareerImage);
 
             // Retrieve career details from database
-            Cursor cursor = dbManager.getCareerDetailsByTitle(careerTitle);
+            Cursor cursor = careerId > 0
+                    ? dbManager.getCareerById(careerId)
+                    : dbManager.getCareerDetailsByTitle(careerTitle);
 
             if (cursor != null && cursor.moveToFirst()) {
                 // Extract details from cursor
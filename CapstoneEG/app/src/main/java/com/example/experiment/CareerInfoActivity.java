@@ -2,47 +2,52 @@ package com.example.experiment;
 
 import android.app.Activity;
 import android.content.Intent;
+import android.database.Cursor;
+import android.database.MatrixCursor;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.View;
 import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
+import android.widget.EditText;
 import android.widget.ListView;
+import android.widget.SimpleCursorAdapter;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.List;
 
 public class CareerInfoActivity extends Activity {
-    private List<String[]> careerDataList = new ArrayList<>();
+    private static final String TAG = "CareerInfoActivity";
+
+    private DatabaseManager dbManager;
+    private SimpleCursorAdapter adapter;
+    private DatabaseScheduler scheduler;
+    private Handler mainThreadHandler;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_career_info_simple);
 
-        // Read careers from CSV
-        readCareersFromCSV();
-
-        // Create a list of just occupation names
-        final List<String> occupationNames = new ArrayList<>();
-        for (String[] careerData : careerDataList) {
-            // Ensure we have at least one column and add only the first column (occupation name)
-            if (careerData.length > 0) {
-                occupationNames.add(careerData[0]);
-            }
-        }
+        dbManager = DatabaseManager.getInstance(this);
+        scheduler = ExperimentApplication.scheduler(this);
+        mainThreadHandler = new Handler(Looper.getMainLooper());
 
         // Find ListView
         ListView listView = (ListView) findViewById(R.id.lvCareers);
 
-        // Set up adapter to show only first column
-        ArrayAdapter<String> adapter = new ArrayAdapter<>(
+        // Show only the occupation name
+        adapter = new SimpleCursorAdapter(
                 this,
                 android.R.layout.simple_list_item_1,
-                occupationNames);
+                null,
+                new String[]{"occupation_title"},
+                new int[]{android.R.id.text1},
+                0);
         listView.setAdapter(adapter);
 
         // Handle item clicks to show detailed information
@@ -52,22 +57,65 @@ public class CareerInfoActivity extends Activity {
                 // Create intent to start CareerDetailActivity
                 Intent intent = new Intent(CareerInfoActivity.this, CareerDetailActivity.class);
 
-                // Use the full career title
-                String careerTitle = careerDataList.get(position)[0];
+                Log.d(TAG, "Selected career id: " + id);
 
-                // Add logging
-                Log.d("CareerInfoActivity", "Selected career title: " + careerTitle);
-
-                intent.putExtra("CAREER_TITLE", careerTitle);
+                if (id > 0) {
+                    intent.putExtra("CAREER_ID", (int) id);
+                } else {
+                    // Careers not imported yet; the list came from the bundled CSV
+                    Cursor cursor = (Cursor) adapter.getItem(position);
+                    intent.putExtra("CAREER_TITLE", cursor.getString(cursor.getColumnIndexOrThrow("occupation_title")));
+                }
 
                 startActivity(intent);
             }
         });
+
+        // Filter as the user types; matches titles, words and occupation codes like 15-12
+        EditText etCareerSearch = (EditText) findViewById(R.id.etCareerSearch);
+        etCareerSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                loadCareers(s.toString().trim());
+            }
+        });
+
+        loadCareers("");
+    }
+
+    private void loadCareers(final String query) {
+        scheduler.read(new Runnable() {
+            @Override
+            public void run() {
+                final Cursor cursor = dbManager.getCareerCount() > 0
+                        ? dbManager.searchCareers(query)
+                        : readCareersFromCSV(query);
+
+                mainThreadHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (isFinishing()) {
+                            cursor.close();
+                            return;
+                        }
+                        adapter.changeCursor(cursor);
+                    }
+                });
+            }
+        });
     }
 
-    // Read careers from CSV
-    private void readCareersFromCSV() {
-        careerDataList.clear(); // Clear any existing data
+    // Read careers from CSV; rows get negative ids since they are not in the database
+    private Cursor readCareersFromCSV(String query) {
+        MatrixCursor careers = new MatrixCursor(new String[]{"_id", "occupation_title"});
         try {
             // Open the CSV file from the assets folder
             InputStream inputStream = getAssets().open("occupation_15_filtered.csv");
@@ -77,6 +125,7 @@ public class CareerInfoActivity extends Activity {
             // Skip header if exists
             reader.readLine();
 
+            int row = 0;
             // Read careers from CSV
             while ((line = reader.readLine()) != null) {
                 // Trim the line and split by tab
@@ -84,9 +133,6 @@ public class CareerInfoActivity extends Activity {
 
                 // Ensure we have at least the occupation title
                 if (allColumns.length > 0) {
-                    // Create a new array to store only the meaningful columns
-                    String[] columns = new String[1];
-
                     // Use the full first column as the occupation name
                     // Handle cases where the full title might span multiple columns
                     StringBuilder fullTitle = new StringBuilder(allColumns[0]);
@@ -100,16 +146,26 @@ public class CareerInfoActivity extends Activity {
                         fullTitle.append(" ").append(allColumns[i]);
                     }
 
-                    columns[0] = fullTitle.toString().trim();
-
-                    // Add parsed line to career data list
-                    careerDataList.add(columns);
+                    String title = fullTitle.toString().trim();
+                    row--;
+                    if (title.toLowerCase().contains(query.toLowerCase())) {
+                        careers.addRow(new Object[]{row, title});
+                    }
                 }
             }
 
             reader.close();
         } catch (IOException e) {
-            Log.e("CareerInfoActivity", "Error reading CSV", e);
+            Log.e(TAG, "Error reading CSV", e);
+        }
+        return careers;
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (adapter != null && adapter.getCursor() != null) {
+            adapter.getCursor().close();
         }
     }
 }
@@ -0,0 +1,121 @@
+package com.example.experiment;
+
+import android.database.Cursor;
+
+/**
+ * Immutable course row. Columns a query did not select are null.
+ */
+public final class Course {
+    private final int id;
+    private final String title;
+    private final String reference;
+    private final String credits;
+    private final String description;
+    private final String session;
+    private final String startDate;
+    private final String endDate;
+    private final String instructor;
+    private final String major;
+
+    Course(int id, String title, String reference, String credits, String description,
+           String session, String startDate, String endDate, String instructor, String major) {
+        this.id = id;
+        this.title = title;
+        this.reference = reference;
+        this.credits = credits;
+        this.description = description;
+        this.session = session;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.instructor = instructor;
+        this.major = major;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getReference() {
+        return reference;
+    }
+
+    public String getCredits() {
+        return credits;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getSession() {
+        return session;
+    }
+
+    public String getStartDate() {
+        return startDate;
+    }
+
+    public String getEndDate() {
+        return endDate;
+    }
+
+    public String getInstructor() {
+        return instructor;
+    }
+
+    public String getMajor() {
+        return major;
+    }
+
+    @Override
+    public String toString() {
+        return title;
+    }
+
+    static final RowMapper.Factory<Course> MAPPER = Mapper::new;
+
+    private static final class Mapper implements RowMapper<Course> {
+        private final int id;
+        private final int title;
+        private final int reference;
+        private final int credits;
+        private final int description;
+        private final int session;
+        private final int startDate;
+        private final int endDate;
+        private final int instructor;
+        private final int major;
+
+        Mapper(Cursor cursor) {
+            id = RowMapper.idColumn(cursor);
+            title = cursor.getColumnIndexOrThrow("course");
+            reference = cursor.getColumnIndex("reference");
+            credits = cursor.getColumnIndex("credits");
+            description = cursor.getColumnIndex("description");
+            session = cursor.getColumnIndex("session");
+            startDate = cursor.getColumnIndex("start_date");
+            endDate = cursor.getColumnIndex("end_date");
+            instructor = cursor.getColumnIndex("instructor");
+            major = cursor.getColumnIndex("major");
+        }
+
+        @Override
+        public Course map(Cursor cursor) {
+            return new Course(
+                    cursor.getInt(id),
+                    cursor.getString(title),
+                    RowMapper.getString(cursor, reference),
+                    RowMapper.getString(cursor, credits),
+                    RowMapper.getString(cursor, description),
+                    RowMapper.getString(cursor, session),
+                    RowMapper.getString(cursor, startDate),
+                    RowMapper.getString(cursor, endDate),
+                    RowMapper.getString(cursor, instructor),
+                    RowMapper.getString(cursor, major));
+        }
+    }
+}
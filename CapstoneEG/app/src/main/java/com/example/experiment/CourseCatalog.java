@@ -0,0 +1,376 @@
+package com.example.experiment;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of every course and its program memberships.
+ *
+ * Courses are keyed by id in a sorted int[] (binary search, no boxing), and the
+ * title-ordered lists per major and per program are built once, so reads are plain
+ * array and map lookups that never touch SQLite or a lock. Every with/without method
+ * returns a new snapshot and leaves this one untouched. Indexes that a change does not
+ * affect are shared with the new snapshot rather than copied.
+ *
+ * Lists returned here are unmodifiable and ordered like ORDER BY course: null titles
+ * first, then by title, with id as the tie-breaker.
+ */
+final class CourseCatalog {
+    static final CourseCatalog EMPTY = new Builder().build();
+
+    static final Comparator<Course> BY_TITLE = new Comparator<Course>() {
+        @Override
+        public int compare(Course a, Course b) {
+            String left = a.getTitle();
+            String right = b.getTitle();
+            if (left == null || right == null) {
+                if (left != right) {
+                    return left == null ? -1 : 1;
+                }
+            } else {
+                int byTitle = left.compareTo(right);
+                if (byTitle != 0) {
+                    return byTitle;
+                }
+            }
+            return Integer.compare(a.getId(), b.getId());
+        }
+    };
+
+    // ids[i] is the key of courses[i]; both sorted by id
+    private final int[] ids;
+    private final Course[] courses;
+    private final List<Course> byTitle;
+    private final Map<String, List<Course>> byMajor;
+    // programCourseIds[i] holds the sorted course ids of programIds[i]
+    private final int[] programIds;
+    private final int[][] programCourseIds;
+    private final List<List<Course>> programCourses;
+
+    private CourseCatalog(int[] ids, Course[] courses, List<Course> byTitle, Map<String, List<Course>> byMajor,
+                          int[] programIds, int[][] programCourseIds, List<List<Course>> programCourses) {
+        this.ids = ids;
+        this.courses = courses;
+        this.byTitle = byTitle;
+        this.byMajor = byMajor;
+        this.programIds = programIds;
+        this.programCourseIds = programCourseIds;
+        this.programCourses = programCourses;
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    // Returns null when there is no course with this id
+    Course get(int courseId) {
+        int index = Arrays.binarySearch(ids, courseId);
+        return index >= 0 ? courses[index] : null;
+    }
+
+    List<Course> getAll() {
+        return byTitle;
+    }
+
+    List<Course> getByMajor(String major) {
+        List<Course> result = byMajor.get(major);
+        return result != null ? result : Collections.<Course>emptyList();
+    }
+
+    List<Course> getForProgram(int programId) {
+        int index = Arrays.binarySearch(programIds, programId);
+        return index >= 0 ? programCourses.get(index) : Collections.<Course>emptyList();
+    }
+
+    boolean isInProgram(int courseId, int programId) {
+        int index = Arrays.binarySearch(programIds, programId);
+        return index >= 0 && Arrays.binarySearch(programCourseIds[index], courseId) >= 0;
+    }
+
+    /**
+     * Up to pageSize courses of a title-ordered list that sort after the given course, or
+     * from the start when after is null. The result is a view of the list, not a copy.
+     */
+    static List<Course> pageAfter(List<Course> sorted, Course after, int pageSize) {
+        int from = 0;
+        if (after != null) {
+            int at = Collections.binarySearch(sorted, after, BY_TITLE);
+            from = at >= 0 ? at + 1 : -at - 1;
+        }
+        return sorted.subList(from, Math.min(from + pageSize, sorted.size()));
+    }
+
+    // Adds the course, or replaces the one with the same id
+    CourseCatalog withCourse(Course course) {
+        int index = Arrays.binarySearch(ids, course.getId());
+        Course previous = index >= 0 ? courses[index] : null;
+
+        int[] newIds;
+        Course[] newCourses;
+        if (previous != null) {
+            newIds = ids;
+            newCourses = courses.clone();
+            newCourses[index] = course;
+        } else {
+            int at = -index - 1;
+            newIds = insert(ids, at, course.getId());
+            newCourses = new Course[courses.length + 1];
+            System.arraycopy(courses, 0, newCourses, 0, at);
+            newCourses[at] = course;
+            System.arraycopy(courses, at, newCourses, at + 1, courses.length - at);
+        }
+
+        List<Course> newByTitle = sortedInsert(previous != null ? remove(byTitle, previous) : byTitle, course);
+
+        Map<String, List<Course>> newByMajor = new HashMap<>(byMajor);
+        if (previous != null) {
+            putOrRemove(newByMajor, previous.getMajor(), remove(getByMajor(previous.getMajor()), previous));
+        }
+        newByMajor.put(course.getMajor(), sortedInsert(getByMajor(course.getMajor()), course));
+
+        // Memberships are unchanged, but lists holding the old row must pick up the new one
+        List<List<Course>> newProgramCourses = programCourses;
+        if (previous != null) {
+            newProgramCourses = new ArrayList<>(programCourses);
+            for (int i = 0; i < programIds.length; i++) {
+                if (Arrays.binarySearch(programCourseIds[i], course.getId()) >= 0) {
+                    newProgramCourses.set(i, sortedInsert(remove(programCourses.get(i), previous), course));
+                }
+            }
+        }
+
+        return new CourseCatalog(newIds, newCourses, newByTitle, Collections.unmodifiableMap(newByMajor),
+                programIds, programCourseIds, newProgramCourses);
+    }
+
+    // Removes the course and its program memberships
+    CourseCatalog withoutCourse(int courseId) {
+        int index = Arrays.binarySearch(ids, courseId);
+        if (index < 0) {
+            return this;
+        }
+        Course previous = courses[index];
+
+        Course[] newCourses = new Course[courses.length - 1];
+        System.arraycopy(courses, 0, newCourses, 0, index);
+        System.arraycopy(courses, index + 1, newCourses, index, courses.length - index - 1);
+
+        Map<String, List<Course>> newByMajor = new HashMap<>(byMajor);
+        putOrRemove(newByMajor, previous.getMajor(), remove(getByMajor(previous.getMajor()), previous));
+
+        int[][] newProgramCourseIds = programCourseIds.clone();
+        List<List<Course>> newProgramCourses = new ArrayList<>(programCourses);
+        for (int i = 0; i < programIds.length; i++) {
+            int member = Arrays.binarySearch(programCourseIds[i], courseId);
+            if (member >= 0) {
+                newProgramCourseIds[i] = delete(programCourseIds[i], member);
+                newProgramCourses.set(i, remove(programCourses.get(i), previous));
+            }
+        }
+
+        return new CourseCatalog(delete(ids, index), newCourses, remove(byTitle, previous),
+                Collections.unmodifiableMap(newByMajor), programIds, newProgramCourseIds, newProgramCourses);
+    }
+
+    CourseCatalog withProgramCourse(int programId, int courseId) {
+        Course course = get(courseId);
+        if (course == null || isInProgram(courseId, programId)) {
+            return this;
+        }
+
+        int index = Arrays.binarySearch(programIds, programId);
+        int[] newProgramIds = programIds;
+        int[][] newProgramCourseIds;
+        List<List<Course>> newProgramCourses = new ArrayList<>(programCourses);
+        if (index >= 0) {
+            int[] members = programCourseIds[index];
+            newProgramCourseIds = programCourseIds.clone();
+            newProgramCourseIds[index] = insert(members, -Arrays.binarySearch(members, courseId) - 1, courseId);
+            newProgramCourses.set(index, sortedInsert(programCourses.get(index), course));
+        } else {
+            int at = -index - 1;
+            newProgramIds = insert(programIds, at, programId);
+            newProgramCourseIds = new int[programCourseIds.length + 1][];
+            System.arraycopy(programCourseIds, 0, newProgramCourseIds, 0, at);
+            newProgramCourseIds[at] = new int[]{courseId};
+            System.arraycopy(programCourseIds, at, newProgramCourseIds, at + 1, programCourseIds.length - at);
+            newProgramCourses.add(at, Collections.singletonList(course));
+        }
+
+        return new CourseCatalog(ids, courses, byTitle, byMajor, newProgramIds, newProgramCourseIds, newProgramCourses);
+    }
+
+    CourseCatalog withoutProgramCourse(int programId, int courseId) {
+        int index = Arrays.binarySearch(programIds, programId);
+        int member = index >= 0 ? Arrays.binarySearch(programCourseIds[index], courseId) : -1;
+        if (member < 0) {
+            return this;
+        }
+
+        int[][] newProgramCourseIds = programCourseIds.clone();
+        newProgramCourseIds[index] = delete(programCourseIds[index], member);
+        List<List<Course>> newProgramCourses = new ArrayList<>(programCourses);
+        newProgramCourses.set(index, remove(programCourses.get(index), get(courseId)));
+
+        return new CourseCatalog(ids, courses, byTitle, byMajor, programIds, newProgramCourseIds, newProgramCourses);
+    }
+
+    private static void putOrRemove(Map<String, List<Course>> map, String key, List<Course> value) {
+        if (value.isEmpty()) {
+            map.remove(key);
+        } else {
+            map.put(key, value);
+        }
+    }
+
+    // Copy of a title-ordered list with course added in order
+    private static List<Course> sortedInsert(List<Course> list, Course course) {
+        int at = Collections.binarySearch(list, course, BY_TITLE);
+        Course[] result = new Course[list.size() + 1];
+        int position = at >= 0 ? at : -at - 1;
+        for (int i = 0; i < position; i++) {
+            result[i] = list.get(i);
+        }
+        result[position] = course;
+        for (int i = position; i < list.size(); i++) {
+            result[i + 1] = list.get(i);
+        }
+        return Collections.unmodifiableList(Arrays.asList(result));
+    }
+
+    // Copy of a title-ordered list without course; the list is returned as is if it is missing
+    private static List<Course> remove(List<Course> list, Course course) {
+        int at = Collections.binarySearch(list, course, BY_TITLE);
+        if (at < 0) {
+            return list;
+        }
+        Course[] result = new Course[list.size() - 1];
+        for (int i = 0, j = 0; i < list.size(); i++) {
+            if (i != at) {
+                result[j++] = list.get(i);
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(result));
+    }
+
+    private static int[] insert(int[] array, int at, int value) {
+        int[] result = new int[array.length + 1];
+        System.arraycopy(array, 0, result, 0, at);
+        result[at] = value;
+        System.arraycopy(array, at, result, at + 1, array.length - at);
+        return result;
+    }
+
+    private static int[] delete(int[] array, int at) {
+        int[] result = new int[array.length - 1];
+        System.arraycopy(array, 0, result, 0, at);
+        System.arraycopy(array, at + 1, result, at, array.length - at - 1);
+        return result;
+    }
+
+    /**
+     * Collects rows for a full rebuild. Memberships that name an unknown course are
+     * dropped, as the JOIN in getCoursesForProgram would.
+     */
+    static final class Builder {
+        private final List<Course> courses = new ArrayList<>();
+        private final Map<Integer, List<Integer>> memberships = new HashMap<>();
+
+        Builder addCourse(Course course) {
+            courses.add(course);
+            return this;
+        }
+
+        Builder addProgramCourse(int programId, int courseId) {
+            List<Integer> members = memberships.get(programId);
+            if (members == null) {
+                members = new ArrayList<>();
+                memberships.put(programId, members);
+            }
+            members.add(courseId);
+            return this;
+        }
+
+        CourseCatalog build() {
+            Course[] sorted = courses.toArray(new Course[0]);
+            Arrays.sort(sorted, new Comparator<Course>() {
+                @Override
+                public int compare(Course a, Course b) {
+                    return Integer.compare(a.getId(), b.getId());
+                }
+            });
+            // A later row for the same id wins, matching withCourse
+            int count = 0;
+            for (Course course : sorted) {
+                if (count > 0 && sorted[count - 1].getId() == course.getId()) {
+                    sorted[count - 1] = course;
+                } else {
+                    sorted[count++] = course;
+                }
+            }
+            Course[] byId = Arrays.copyOf(sorted, count);
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = byId[i].getId();
+            }
+
+            Course[] titled = byId.clone();
+            Arrays.sort(titled, BY_TITLE);
+            Map<String, List<Course>> majors = new HashMap<>();
+            for (Course course : titled) {
+                List<Course> list = majors.get(course.getMajor());
+                if (list == null) {
+                    list = new ArrayList<>();
+                    majors.put(course.getMajor(), list);
+                }
+                list.add(course);
+            }
+            for (Map.Entry<String, List<Course>> entry : majors.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+
+            int[] programIds = new int[memberships.size()];
+            int p = 0;
+            for (int programId : memberships.keySet()) {
+                programIds[p++] = programId;
+            }
+            Arrays.sort(programIds);
+            int[][] programCourseIds = new int[programIds.length][];
+            List<List<Course>> programCourses = new ArrayList<>(programIds.length);
+            for (int i = 0; i < programIds.length; i++) {
+                List<Integer> listed = memberships.get(programIds[i]);
+                int[] memberIds = new int[listed.size()];
+                int known = 0;
+                for (int courseId : listed) {
+                    if (Arrays.binarySearch(ids, courseId) >= 0) {
+                        memberIds[known++] = courseId;
+                    }
+                }
+                Arrays.sort(memberIds, 0, known);
+                int unique = 0;
+                for (int m = 0; m < known; m++) {
+                    if (unique == 0 || memberIds[unique - 1] != memberIds[m]) {
+                        memberIds[unique++] = memberIds[m];
+                    }
+                }
+                memberIds = Arrays.copyOf(memberIds, unique);
+
+                Course[] members = new Course[unique];
+                for (int m = 0; m < unique; m++) {
+                    members[m] = byId[Arrays.binarySearch(ids, memberIds[m])];
+                }
+                Arrays.sort(members, BY_TITLE);
+                programCourseIds[i] = memberIds;
+                programCourses.add(Collections.unmodifiableList(Arrays.asList(members)));
+            }
+
+            return new CourseCatalog(ids, byId, Collections.unmodifiableList(Arrays.asList(titled)),
+                    Collections.unmodifiableMap(majors), programIds, programCourseIds, programCourses);
+        }
+    }
+}
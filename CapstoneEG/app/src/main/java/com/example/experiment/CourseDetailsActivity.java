@@ -16,8 +16,6 @@ import android.widget.Toast;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class CourseDetailsActivity extends Activity {
     private static final String TAG = "CourseDetails";
@@ -35,7 +33,7 @@ public class CourseDetailsActivity extends Activity {
     private Button btnBack;
 
     private DatabaseManager dbManager;
-    private ExecutorService executorService;
+    private DatabaseScheduler scheduler;
     private Handler mainThreadHandler;
 
     private int courseId;
@@ -49,7 +47,7 @@ public class CourseDetailsActivity extends Activity {
         setContentView(R.layout.activity_course_details);
 
         // Initialize thread management
-        executorService = Executors.newSingleThreadExecutor();
+        scheduler = ExperimentApplication.scheduler(this);
         mainThreadHandler = new Handler(Looper.getMainLooper());
 
         // Initialize database manager
@@ -119,7 +117,7 @@ public class CourseDetailsActivity extends Activity {
     }
 
     private void loadCourseData(final int courseId) {
-        executorService.execute(new Runnable() {
+        scheduler.read(new Runnable() {
             @Override
             public void run() {
                 final Cursor cursor = dbManager.getCourseById(courseId);
@@ -310,12 +308,4 @@ public class CourseDetailsActivity extends Activity {
         Log.d(TAG, "User " + username + " unsaved course " + courseId +
                 ": " + courseName + " (" + courseReference + ")");
     }
-
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (executorService != null) {
-            executorService.shutdown();
-        }
-    }
 }
\ No newline at end of file
@@ -0,0 +1,375 @@
+package com.example.experiment;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Streams a tab-separated file into one table.
+ *
+ * Lines are read one at a time and bound into a single compiled insert, so memory stays
+ * flat however large the file is. Rows are committed every batchSize rows, each batch in
+ * its own transaction under its own write lease, so reads get in between the batches of
+ * a long import. If a batch throws, that batch is rolled back and the import stops;
+ * batches already committed stay.
+ *
+ * With more than one parse thread the work becomes a pipeline: a reader thread cuts the
+ * file into chunks of CHUNK_LINES lines, a pool parses and classifies chunks in parallel,
+ * and the calling thread stays the only writer, taking parsed chunks in file order. At
+ * most two chunks per parse thread are in flight, so a slow writer holds the reader back
+ * rather than letting parsed rows pile up in memory.
+ */
+final class CsvImporter {
+    static final int DEFAULT_BATCH_SIZE = 500;
+    static final int CHUNK_LINES = 1000;
+
+    // Called on the importing thread
+    interface Listener {
+        // After each committed batch
+        void onProgress(int rowsRead, int rowsImported);
+
+        // lineNumber counts from 1, header included
+        void onReject(int lineNumber, String line, String reason);
+
+        // Polled between chunks; the batch in progress is rolled back
+        default boolean isCancelled() {
+            return false;
+        }
+    }
+
+    /**
+     * How the rows of one table are checked and converted. parse may run on any thread.
+     */
+    interface RowFormat {
+        String table();
+
+        // An OR IGNORE insert with columns() parameters turns a duplicate into a reject
+        String insertSql();
+
+        int columns();
+
+        // Fills row with Strings, Numbers or nulls, or returns why the line was rejected
+        String parse(String[] values, Object[] row);
+    }
+
+    interface Lines {
+        // Next line, or null at the end
+        String next() throws IOException;
+    }
+
+    static final class Result {
+        final int read;
+        final int imported;
+        final int rejected;
+        final long elapsedNanos;
+
+        Result(int read, int imported, int rejected, long elapsedNanos) {
+            this.read = read;
+            this.imported = imported;
+            this.rejected = rejected;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return read + " read, " + imported + " imported, " + rejected + " rejected in "
+                    + elapsedNanos / 1000000 + " ms";
+        }
+    }
+
+    private final Supplier<SQLiteDatabase> database;
+    private final GroupCommitQueue.LeaseFactory leases;
+
+    CsvImporter(Supplier<SQLiteDatabase> database, GroupCommitQueue.LeaseFactory leases) {
+        this.database = database;
+        this.leases = leases;
+    }
+
+    static Lines lines(InputStream in) {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        return reader::readLine;
+    }
+
+    static Lines lines(final String[] lines) {
+        return new Lines() {
+            private int next;
+
+            @Override
+            public String next() {
+                return next < lines.length ? lines[next++] : null;
+            }
+        };
+    }
+
+    // Leaves a core for the writer
+    static int defaultParseThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * Imports every line after the header on the calling thread. listener may be null.
+     */
+    Result run(Lines lines, RowFormat format, int batchSize, Listener listener) throws IOException {
+        return run(lines, format, batchSize, 1, listener);
+    }
+
+    /**
+     * Imports every line after the header, parsing on parseThreads threads when that is more
+     * than one. Rows land in file order either way. listener may be null.
+     */
+    Result run(final Lines lines, final RowFormat format, int batchSize, int parseThreads, Listener listener)
+            throws IOException {
+        if (batchSize < 1 || parseThreads < 1) {
+            throw new IllegalArgumentException("batchSize and parseThreads must be at least 1");
+        }
+        long start = System.nanoTime();
+        if (lines.next() == null) {
+            return new Result(0, 0, 0, System.nanoTime() - start);
+        }
+
+        if (parseThreads == 1) {
+            final int[] nextLine = {2};
+            return write(() -> {
+                Chunk chunk = readChunk(lines, nextLine[0]);
+                if (chunk != null) {
+                    nextLine[0] += chunk.lines.size();
+                    chunk.parse(format);
+                }
+                return chunk;
+            }, format, batchSize, listener, start);
+        }
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService parsers = Executors.newFixedThreadPool(parseThreads, task -> {
+            Thread thread = new Thread(task, "csv-parse-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final BlockingQueue<Future<Chunk>> parsed = new ArrayBlockingQueue<>(parseThreads * 2);
+        Thread reader = new Thread(() -> readChunks(lines, format, parsers, parsed), "csv-read");
+        reader.setDaemon(true);
+        reader.start();
+        try {
+            return write(() -> {
+                try {
+                    return parsed.take().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Import interrupted");
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+            }, format, batchSize, listener, start);
+        } finally {
+            // Unblocks a reader waiting on a full queue when the writer stops early
+            reader.interrupt();
+            parsers.shutdownNow();
+        }
+    }
+
+    private interface ChunkSource {
+        // Next chunk in file order, or null at the end
+        Chunk next() throws IOException;
+    }
+
+    // The single writer: commits every batchSize lines, each batch under its own lease
+    private Result write(ChunkSource source, RowFormat format, int batchSize, Listener listener, long start)
+            throws IOException {
+        int read = 0;
+        int imported = 0;
+        int rejected = 0;
+        Batch batch = null;
+        try {
+            Chunk chunk;
+            while ((chunk = source.next()) != null) {
+                if (listener != null && listener.isCancelled()) {
+                    throw new CancellationException("Import of " + format.table() + " cancelled");
+                }
+                for (int i = 0; i < chunk.lines.size(); i++) {
+                    if (batch == null) {
+                        batch = new Batch(format);
+                    }
+                    if (chunk.rows[i] != null || chunk.rejects[i] != null) {
+                        read++;
+                        String reason = chunk.rejects[i];
+                        if (reason == null && !batch.insert(chunk.rows[i])) {
+                            reason = "duplicate";
+                        }
+                        if (reason == null) {
+                            imported++;
+                        } else {
+                            rejected++;
+                            if (listener != null) {
+                                listener.onReject(chunk.firstLine + i, chunk.lines.get(i), reason);
+                            }
+                        }
+                    }
+                    if (++batch.lines == batchSize) {
+                        batch.commit();
+                        batch = null;
+                        if (listener != null) {
+                            listener.onProgress(read, imported);
+                        }
+                    }
+                }
+            }
+            if (batch != null) {
+                batch.commit();
+                batch = null;
+                if (listener != null) {
+                    listener.onProgress(read, imported);
+                }
+            }
+        } finally {
+            if (batch != null) {
+                batch.rollBack();
+            }
+        }
+        return new Result(read, imported, rejected, System.nanoTime() - start);
+    }
+
+    // Reader thread: hands chunks to the parse pool, in order, until the file or the queue ends
+    private static void readChunks(Lines lines, final RowFormat format, ExecutorService parsers,
+                                   BlockingQueue<Future<Chunk>> parsed) {
+        int nextLine = 2;
+        try {
+            try {
+                Chunk chunk;
+                while ((chunk = readChunk(lines, nextLine)) != null) {
+                    nextLine += chunk.lines.size();
+                    final Chunk toParse = chunk;
+                    parsed.put(parsers.submit(() -> {
+                        toParse.parse(format);
+                        return toParse;
+                    }));
+                }
+                parsed.put(CompletableFuture.completedFuture(null));
+            } catch (IOException | RuntimeException e) {
+                CompletableFuture<Chunk> failed = new CompletableFuture<>();
+                failed.completeExceptionally(e);
+                parsed.put(failed);
+            }
+        } catch (InterruptedException e) {
+            // The writer has stopped; nobody is waiting for more chunks
+        }
+    }
+
+    private static Chunk readChunk(Lines lines, int firstLine) throws IOException {
+        List<String> text = new ArrayList<>(CHUNK_LINES);
+        String line;
+        while (text.size() < CHUNK_LINES && (line = lines.next()) != null) {
+            text.add(line);
+        }
+        return text.isEmpty() ? null : new Chunk(firstLine, text);
+    }
+
+    private static final class Chunk {
+        final int firstLine;
+        final List<String> lines;
+        // Per line: the parsed row, or the reason it was rejected; both null for a blank line
+        final Object[][] rows;
+        final String[] rejects;
+
+        Chunk(int firstLine, List<String> lines) {
+            this.firstLine = firstLine;
+            this.lines = lines;
+            this.rows = new Object[lines.size()][];
+            this.rejects = new String[lines.size()];
+        }
+
+        void parse(RowFormat format) {
+            for (int i = 0; i < lines.size(); i++) {
+                String trimmed = lines.get(i).trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                Object[] row = new Object[format.columns()];
+                String reason = format.parse(trimmed.split("\t"), row);
+                if (reason == null) {
+                    rows[i] = row;
+                } else {
+                    rejects[i] = reason;
+                }
+            }
+        }
+    }
+
+    private final class Batch {
+        final DatabaseLocks.Lease lease;
+        final SQLiteDatabase db;
+        final SQLiteStatement insert;
+        int lines;
+
+        Batch(RowFormat format) {
+            lease = leases.writeLease("import " + format.table(), format.table());
+            SQLiteStatement statement = null;
+            try {
+                db = database.get();
+                statement = db.compileStatement(format.insertSql());
+                db.beginTransaction();
+            } catch (RuntimeException e) {
+                if (statement != null) {
+                    statement.close();
+                }
+                lease.close();
+                throw e;
+            }
+            insert = statement;
+        }
+
+        boolean insert(Object[] row) {
+            insert.clearBindings();
+            for (int i = 0; i < row.length; i++) {
+                Object value = row[i];
+                if (value == null) {
+                    insert.bindNull(i + 1);
+                } else if (value instanceof Double || value instanceof Float) {
+                    insert.bindDouble(i + 1, ((Number) value).doubleValue());
+                } else if (value instanceof Number) {
+                    insert.bindLong(i + 1, ((Number) value).longValue());
+                } else {
+                    insert.bindString(i + 1, value.toString());
+                }
+            }
+            return insert.executeInsert() != -1;
+        }
+
+        void commit() {
+            db.setTransactionSuccessful();
+            end();
+        }
+
+        void rollBack() {
+            end();
+        }
+
+        private void end() {
+            try {
+                db.endTransaction();
+            } finally {
+                insert.close();
+                lease.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Typed, asynchronous reads over DatabaseManager.
+ *
+ * Every call runs its query on a lane of the application's DatabaseScheduler, maps the
+ * rows into immutable models and closes the cursor there, so activities never hold a
+ * Cursor. Results complete on the background thread; chain UI work with
+ * thenAcceptAsync(..., mainThread()).
+ * Lookups by id complete with null when the row does not exist.
+ *
+ * Course reads are answered from DatabaseManager's in-memory CourseCatalog once it has
+ * loaded; those futures are already complete and share the snapshot's immutable lists.
+ */
+public class DataRepository {
+    private static final String TAG = "DataRepository";
+
+    private static DataRepository instance;
+
+    private final DatabaseManager dbManager;
+    private final Executor reads;
+    private final Executor writes;
+    private final Executor mainThread;
+
+    public static synchronized DataRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new DataRepository(DatabaseManager.getInstance(context),
+                    ExperimentApplication.scheduler(context));
+        }
+        return instance;
+    }
+
+    DataRepository(DatabaseManager dbManager) {
+        this(dbManager, new DatabaseScheduler());
+    }
+
+    DataRepository(DatabaseManager dbManager, DatabaseScheduler scheduler) {
+        this.dbManager = dbManager;
+        this.reads = scheduler.reads();
+        this.writes = scheduler.writes();
+        final Handler handler = new Handler(Looper.getMainLooper());
+        this.mainThread = handler::post;
+    }
+
+    // Executor for the UI half of a chain
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    // COURSES
+
+    public CompletableFuture<List<Course>> getAllCourses() {
+        CourseCatalog catalog = dbManager.getCourseCatalog();
+        if (catalog != null) {
+            return CompletableFuture.completedFuture(catalog.getAll());
+        }
+        return async(() -> RowMapper.mapAll(dbManager.getAllCourses(), Course.MAPPER));
+    }
+
+    public CompletableFuture<List<Course>> searchCourses(String query) {
+        return async(() -> RowMapper.mapAll(dbManager.searchCourses(query), Course.MAPPER));
+    }
+
+    public CompletableFuture<Course> getCourse(int courseId) {
+        CourseCatalog catalog = dbManager.getCourseCatalog();
+        if (catalog != null) {
+            return CompletableFuture.completedFuture(catalog.get(courseId));
+        }
+        return async(() -> RowMapper.mapFirst(dbManager.getCourseById(courseId), Course.MAPPER));
+    }
+
+    public CompletableFuture<List<Course>> getCoursesForProgram(int programId) {
+        CourseCatalog catalog = dbManager.getCourseCatalog();
+        if (catalog != null) {
+            return CompletableFuture.completedFuture(catalog.getForProgram(programId));
+        }
+        return async(() -> RowMapper.mapAll(dbManager.getCoursesForProgram(programId), Course.MAPPER));
+    }
+
+    // CAREERS
+
+    public CompletableFuture<List<Career>> getAllCareers() {
+        return async(() -> RowMapper.mapAll(dbManager.getAllCareers(), Career.MAPPER));
+    }
+
+    public CompletableFuture<List<Career>> searchCareers(String query) {
+        return async(() -> RowMapper.mapAll(dbManager.searchCareers(query), Career.MAPPER));
+    }
+
+    public CompletableFuture<Career> getCareer(int careerId) {
+        return async(() -> RowMapper.mapFirst(dbManager.getCareerById(careerId), Career.MAPPER));
+    }
+
+    // ADMINISTRATORS AND APPOINTMENTS
+
+    public CompletableFuture<List<Administrator>> getAllAdministrators() {
+        return async(() -> RowMapper.mapAll(dbManager.getAllAdministrators(), Administrator.MAPPER));
+    }
+
+    public CompletableFuture<Administrator> getAdministrator(int adminId) {
+        return async(() -> RowMapper.mapFirst(dbManager.getAdministratorById(adminId), Administrator.MAPPER));
+    }
+
+    public CompletableFuture<List<TimeSlot>> getAdminTimeSlots(int adminId, String date) {
+        return async(() -> RowMapper.mapAll(dbManager.getAdminTimeSlots(adminId, date), TimeSlot.MAPPER));
+    }
+
+    public CompletableFuture<List<TimeSlot>> getAvailableTimeSlots(int adminId, String date) {
+        return async(() -> RowMapper.mapAll(dbManager.getAvailableTimeSlots(adminId, date), TimeSlot.MAPPER));
+    }
+
+    public CompletableFuture<List<Appointment>> getAppointmentsForAdmin(int adminId) {
+        return async(() -> RowMapper.mapAll(dbManager.getAppointmentsForAdmin(adminId), Appointment.MAPPER));
+    }
+
+    // Goes through the group commit queue, so adding several slots in a row shares commits
+    public CompletableFuture<Boolean> addAdminAvailability(int adminId, String date, String timeSlot) {
+        return logged(dbManager.addAdminAvailabilityQueued(adminId, date, timeSlot));
+    }
+
+    // Same as addAdminAvailability, telling a new slot apart from one that already existed
+    public CompletableFuture<WriteOutcome> addTimeSlot(int adminId, String date, String timeSlot) {
+        return logged(dbManager.addTimeSlotQueued(adminId, date, timeSlot));
+    }
+
+    public CompletableFuture<Boolean> deleteTimeSlot(int timeSlotId) {
+        return async(() -> dbManager.deleteTimeSlot(timeSlotId), writes);
+    }
+
+    // DELETED, BOOKED or NOT_FOUND
+    public CompletableFuture<WriteOutcome> removeTimeSlot(int timeSlotId) {
+        return async(() -> dbManager.removeTimeSlot(timeSlotId), writes);
+    }
+
+    // BOOKED, ALREADY_TAKEN or SLOT_MISSING; queued so a burst of bookings shares commits
+    public CompletableFuture<BookingResult> bookTimeSlot(String studentUsername, int timeSlotId, String reason) {
+        return logged(dbManager.bookTimeSlotQueued(studentUsername, timeSlotId, reason));
+    }
+
+    private <T> CompletableFuture<T> async(Supplier<T> query) {
+        return async(query, reads);
+    }
+
+    // A full lane fails the future instead of throwing into the caller, usually the UI thread
+    private <T> CompletableFuture<T> async(Supplier<T> query, Executor executor) {
+        try {
+            return logged(CompletableFuture.supplyAsync(query, executor));
+        } catch (RejectedExecutionException e) {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return logged(rejected);
+        }
+    }
+
+    private static <T> CompletableFuture<T> logged(CompletableFuture<T> future) {
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Repository call failed", error);
+            }
+        });
+        return future;
+    }
+}
@@ -6,8 +6,9 @@ import android.database.sqlite.SQLiteOpenHelper;
 import android.util.Log;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
-    private static final String DATABASE_NAME = "EntecDB";
-    private static final int DATABASE_VERSION = 53;
+    static final String DATABASE_NAME = "EntecDB";
+    // Bump together with a new step in DatabaseMigrations
+    static final int DATABASE_VERSION = 63;
     public static final String TABLE_USERS = "users";
     public static final String TABLE_COURSES = "courses";
 
@@ -19,12 +20,38 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
     public static final String TABLE_ADMINISTRATORS = "administrators";
     public static final String TABLE_AVAILABILITY = "availability";
+    public static final String TABLE_CAREER_COURSES = "career_courses";
+    public static final String TABLE_APPOINTMENTS = "appointments";
+    // FTS4 index over courses; external content, kept in sync by triggers
+    public static final String TABLE_COURSES_FTS = "courses_fts";
+    // FTS4 index over career titles and occupation codes, kept in sync by triggers
+    public static final String TABLE_CAREERS_FTS = "careers_fts";
+    // Delta import fingerprints, per source file and per row
+    public static final String TABLE_IMPORT_SOURCES = "import_sources";
+    public static final String TABLE_IMPORT_ROWS = "import_rows";
+    // Fields each career is listed under, classified when the career is written
+    public static final String TABLE_CAREER_FIELDS = "career_fields";
+
     public DatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME);
+    }
+
+    DatabaseHelper(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        // Readers get their own pooled connections and never wait on the writer
+        setWriteAheadLoggingEnabled(true);
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
+        // Fresh installs build the baseline and then run the same steps as upgrades,
+        // so both paths always end with an identical schema
+        createBaselineSchema(db);
+        DatabaseMigrations.migrate(db, DatabaseMigrations.BASELINE_VERSION, DATABASE_VERSION);
+    }
+
+    // Schema as of version 53; never edit this, add a step to DatabaseMigrations instead
+    static void createBaselineSchema(SQLiteDatabase db) {
         try {
             // Create users table
             String CREATE_USERS_TABLE = "CREATE TABLE IF NOT EXISTS " + TABLE_USERS + " ("
@@ -120,7 +147,13 @@ public class DatabaseHelper extends SQLiteOpenHelper {
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Instead of dropping all tables, check if they exist first
+        if (oldVersion >= DatabaseMigrations.BASELINE_VERSION) {
+            // Let a failing step throw so the upgrade transaction rolls back and keeps the data
+            DatabaseMigrations.migrate(db, oldVersion, newVersion);
+            return;
+        }
+
+        // Versions before the baseline have no migration path; rebuild them
         try {
             // Drop tables if they exist
             db.execSQL("DROP TABLE IF EXISTS " + TABLE_USERS);
@@ -130,6 +163,8 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             db.execSQL("DROP TABLE IF EXISTS " + TABLE_AVAILABILITY);
             db.execSQL("DROP TABLE IF EXISTS " + TABLE_ACADEMIC_PROGRAMS);
             db.execSQL("DROP TABLE IF EXISTS " + TABLE_COURSE_PROGRAMS);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_CAREER_COURSES);
+            db.execSQL("DROP TABLE IF EXISTS " + TABLE_APPOINTMENTS);
 
             // Recreate tables
             onCreate(db);
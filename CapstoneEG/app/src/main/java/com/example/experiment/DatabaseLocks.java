@@ -0,0 +1,238 @@
+package com.example.experiment;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Concurrency model for DatabaseManager.
+ *
+ * READ leases share the schema lock, so any number of readers run together.
+ * WRITE leases also share the schema lock but serialize on a single writer lock,
+ * so a write never blocks readers (WAL lets them keep reading the last commit).
+ * SCHEMA leases take the schema lock exclusively and wait for everyone else.
+ *
+ * Every lease records how long it waited for its locks and how long it held them,
+ * keyed by the operation name passed in by the caller. With a QueryTracer attached,
+ * each lease is also a traced operation while tracing is on.
+ */
+final class DatabaseLocks {
+    private static final String TAG = "DatabaseLocks";
+
+    enum Mode { READ, WRITE, SCHEMA }
+
+    private final ReentrantReadWriteLock schemaLock = new ReentrantReadWriteLock();
+    private final ReentrantLock writerLock = new ReentrantLock();
+    private final ConcurrentHashMap<String, Stats> stats = new ConcurrentHashMap<>();
+    private final QueryTracer tracer;
+
+    DatabaseLocks() {
+        this(null);
+    }
+
+    DatabaseLocks(QueryTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    Lease read(String operation) {
+        return acquire(operation, Mode.READ, null);
+    }
+
+    Lease write(String operation) {
+        return acquire(operation, Mode.WRITE, null);
+    }
+
+    // beforeRelease runs while the writer lock is still held, after the write committed
+    Lease write(String operation, Runnable beforeRelease) {
+        return acquire(operation, Mode.WRITE, beforeRelease);
+    }
+
+    Lease schema(String operation) {
+        return acquire(operation, Mode.SCHEMA, null);
+    }
+
+    private Lease acquire(String operation, Mode mode, Runnable beforeRelease) {
+        long start = System.nanoTime();
+        Lock first;
+        Lock second = null;
+        switch (mode) {
+            case SCHEMA:
+                // A thread holding a read/write lease cannot upgrade; fail fast instead of deadlocking
+                if (schemaLock.getReadHoldCount() > 0) {
+                    throw new IllegalStateException(operation + " needs a schema lease while holding a shared one");
+                }
+                first = schemaLock.writeLock();
+                break;
+            case WRITE:
+                first = schemaLock.readLock();
+                second = writerLock;
+                break;
+            default:
+                first = schemaLock.readLock();
+                break;
+        }
+
+        first.lock();
+        if (second != null) {
+            try {
+                second.lock();
+            } catch (RuntimeException e) {
+                first.unlock();
+                throw e;
+            }
+        }
+        long acquired = System.nanoTime();
+        QueryTracer.Span span = tracer != null ? tracer.begin(operation) : null;
+        return new Lease(statsFor(operation, mode), first, second, beforeRelease, span, start, acquired);
+    }
+
+    private Stats statsFor(String operation, Mode mode) {
+        Stats existing = stats.get(operation);
+        if (existing != null) {
+            return existing;
+        }
+        Stats created = new Stats(operation, mode);
+        existing = stats.putIfAbsent(operation, created);
+        return existing != null ? existing : created;
+    }
+
+    /**
+     * Held locks for one database operation. Use with try-with-resources so the
+     * locks are released on every exit path.
+     */
+    static final class Lease implements AutoCloseable {
+        private final Stats stats;
+        private final Lock first;
+        private final Lock second;
+        private final Runnable beforeRelease;
+        private final QueryTracer.Span span;
+        private final long waitNanos;
+        private final long acquiredAt;
+        private boolean released;
+
+        private Lease(Stats stats, Lock first, Lock second, Runnable beforeRelease, QueryTracer.Span span,
+                      long requestedAt, long acquiredAt) {
+            this.stats = stats;
+            this.first = first;
+            this.second = second;
+            this.beforeRelease = beforeRelease;
+            this.span = span;
+            this.waitNanos = acquiredAt - requestedAt;
+            this.acquiredAt = acquiredAt;
+            stats.recordWait(waitNanos);
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            try {
+                if (beforeRelease != null) {
+                    beforeRelease.run();
+                }
+            } finally {
+                long held = System.nanoTime() - acquiredAt;
+                stats.recordHold(held);
+                if (span != null) {
+                    span.tracer.end(span, waitNanos, held);
+                }
+                if (second != null) {
+                    second.unlock();
+                }
+                first.unlock();
+            }
+        }
+    }
+
+    /**
+     * Wait/hold totals for one operation name. Values are nanoseconds.
+     */
+    static final class Stats {
+        final String operation;
+        final Mode mode;
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+        final AtomicLong totalHoldNanos = new AtomicLong();
+        final AtomicLong maxHoldNanos = new AtomicLong();
+
+        Stats(String operation, Mode mode) {
+            this.operation = operation;
+            this.mode = mode;
+        }
+
+        void recordWait(long nanos) {
+            count.incrementAndGet();
+            totalWaitNanos.addAndGet(nanos);
+            updateMax(maxWaitNanos, nanos);
+        }
+
+        void recordHold(long nanos) {
+            totalHoldNanos.addAndGet(nanos);
+            updateMax(maxHoldNanos, nanos);
+        }
+
+        private static void updateMax(AtomicLong max, long value) {
+            long current = max.get();
+            while (value > current && !max.compareAndSet(current, value)) {
+                current = max.get();
+            }
+        }
+
+        long getCount() {
+            return count.get();
+        }
+
+        long getAverageWaitMicros() {
+            long n = count.get();
+            return n == 0 ? 0 : totalWaitNanos.get() / n / 1000;
+        }
+
+        long getMaxWaitMicros() {
+            return maxWaitNanos.get() / 1000;
+        }
+
+        long getAverageHoldMicros() {
+            long n = count.get();
+            return n == 0 ? 0 : totalHoldNanos.get() / n / 1000;
+        }
+
+        long getMaxHoldMicros() {
+            return maxHoldNanos.get() / 1000;
+        }
+
+        @Override
+        public String toString() {
+            return operation + " [" + mode + "] n=" + count.get()
+                    + " wait(avg/max us)=" + getAverageWaitMicros() + "/" + getMaxWaitMicros()
+                    + " hold(avg/max us)=" + getAverageHoldMicros() + "/" + getMaxHoldMicros();
+        }
+    }
+
+    Map<String, Stats> getStats() {
+        return Collections.unmodifiableMap(stats);
+    }
+
+    void resetStats() {
+        stats.clear();
+    }
+
+    // Dumps every operation, worst average wait first
+    void logStats() {
+        List<Stats> sorted = new ArrayList<>(stats.values());
+        Collections.sort(sorted, (a, b) -> Long.compare(b.getAverageWaitMicros(), a.getAverageWaitMicros()));
+        for (Stats s : sorted) {
+            Log.i(TAG, s.toString());
+        }
+    }
+}
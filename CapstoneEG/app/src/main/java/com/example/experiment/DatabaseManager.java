@@ -1,317 +1,576 @@
 package com.example.experiment;
 
+import static com.example.experiment.DatabaseHelper.TABLE_ACADEMIC_PROGRAMS;
 import static com.example.experiment.DatabaseHelper.TABLE_CAREERS;
+import static com.example.experiment.DatabaseHelper.TABLE_CAREER_COURSES;
+import static com.example.experiment.DatabaseHelper.TABLE_CAREER_FIELDS;
 import static com.example.experiment.DatabaseHelper.TABLE_COURSES;
+import static com.example.experiment.DatabaseHelper.TABLE_COURSE_PROGRAMS;
+import static com.example.experiment.DatabaseHelper.TABLE_USERS;
 
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.content.ContentValues;
 import android.database.MatrixCursor;
 import android.database.sqlite.SQLiteDatabase;
-import android.database.sqlite.SQLiteDatabaseLockedException;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 import android.text.TextUtils;
 import android.app.ProgressDialog;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
 
 
 public class DatabaseManager {
     private static DatabaseManager instance;
+    // Guards opening/closing the connection only; operations use the leases in locks
     private final Object dbLock = new Object();
-    private DatabaseHelper dbHelper;
-    private Context context;
-    private SQLiteDatabase readableDb;
-    private SQLiteDatabase writableDb;
+    // Off until DiagnosticsActivity turns it on; the leases below are its operations
+    private final QueryTracer tracer = new QueryTracer();
+    private final DatabaseLocks locks = new DatabaseLocks(tracer);
+    // Repeated list queries; every write below drops the entries that read its tables
+    static final int QUERY_CACHE_BYTES = 1024 * 1024;
+    private final QueryCache queryCache = new QueryCache(QUERY_CACHE_BYTES);
+    // Small interactive writes that arrive within this window share one commit
+    static final long GROUP_COMMIT_WINDOW_MILLIS = 4;
+    static final int GROUP_COMMIT_MAX_BATCH = 64;
+    private GroupCommitQueue groupCommit;
+    private final DatabaseHelper dbHelper;
+    private final Context context;
+
+    // One long-lived WAL connection owned by the application. Reads outside a
+    // transaction are served from the connection pool's read-only connections,
+    // so they run concurrently with the single writer.
+    private volatile SQLiteDatabase database;
+
+    // Connection lifecycle counters, used to confirm that reopen churn is gone
+    private final AtomicInteger openCount = new AtomicInteger();
+    private final AtomicInteger closeCount = new AtomicInteger();
 
     // Private constructor to enforce singleton pattern
     DatabaseManager(Context context) {
+        this(context, DatabaseHelper.DATABASE_NAME);
+    }
+
+    // Allows tests to run against a separate database file
+    DatabaseManager(Context context, String databaseName) {
         this.context = context.getApplicationContext(); // Use application context to avoid leaks
-        this.dbHelper = new DatabaseHelper(this.context);
+        this.dbHelper = new DatabaseHelper(this.context, databaseName);
     }
 
     // Singleton accessor
     public static synchronized DatabaseManager getInstance(Context context) {
         if (instance == null) {
             instance = new DatabaseManager(context);
-        } else if (instance.dbHelper == null) {
-            // Reinitialize the helper if it was closed
-            instance.context = context.getApplicationContext();
-            instance.dbHelper = new DatabaseHelper(instance.context);
         }
         return instance;
     }
 
-    // Make sure dbHelper is initialized before use
-    private void ensureDbHelperExists() {
+    // Returns the shared connection, opening it on first use only
+    private SQLiteDatabase getDatabase() {
+        SQLiteDatabase db = database;
+        if (db != null && db.isOpen()) {
+            return db;
+        }
         synchronized (dbLock) {
-            if (dbHelper == null) {
-                dbHelper = new DatabaseHelper(context);
+            if (database == null || !database.isOpen()) {
+                database = dbHelper.getWritableDatabase();
+                int opens = openCount.incrementAndGet();
+                Log.i("DatabaseManager", "Opened database connection (opens=" + opens
+                        + ", closes=" + closeCount.get() + ", wal=" + database.isWriteAheadLoggingEnabled() + ")");
             }
+            return database;
         }
     }
 
+    // Kept for the existing call sites; both return the shared connection
     private SQLiteDatabase getReadableDatabase() {
-        synchronized (dbLock) {
-            Log.d("DatabaseManager", "getReadableDatabase called");
-            ensureDbHelperExists();
-
-            try {
-                if (readableDb == null || !readableDb.isOpen()) {
-                    if (dbHelper == null) {
-                        Log.e("DatabaseManager", "dbHelper is null in getReadableDatabase!");
-                        dbHelper = new DatabaseHelper(context);
-                    }
-
-                    Log.d("DatabaseManager", "Creating new readable database connection");
-                    readableDb = dbHelper.getReadableDatabase();
-                } else {
-                    Log.d("DatabaseManager", "Reusing existing readable database connection");
-                }
+        return getDatabase();
+    }
 
-                return readableDb;
-            } catch (Exception e) {
-                Log.e("DatabaseManager", "Error getting readable database", e);
+    private SQLiteDatabase getWritableDatabase() {
+        return getDatabase();
+    }
 
-                // Try to recover
+    /**
+     * Closes the shared connection. Only ExperimentApplication should call this;
+     * individual operations and activities must never close the database.
+     */
+    public void close() {
+        // Queued writes commit before the connection goes; a later one starts a new queue
+        GroupCommitQueue queue;
+        synchronized (this) {
+            queue = groupCommit;
+            groupCommit = null;
+        }
+        if (queue != null) {
+            queue.shutdown();
+        }
+        // Schema lease waits for in-flight reads and writes to finish first
+        try (DatabaseLocks.Lease lease = locks.schema("close")) {
+            synchronized (dbLock) {
                 try {
-                    Log.d("DatabaseManager", "Attempting database recovery");
-                    closeInternal();
-                    ensureDbHelperExists();
-                    readableDb = dbHelper.getReadableDatabase();
-                    return readableDb;
-                } catch (Exception ex) {
-                    Log.e("DatabaseManager", "Recovery failed", ex);
-                    throw ex;
+                    if (database != null && database.isOpen()) {
+                        dbHelper.close();
+                        closeCount.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    Log.e("DatabaseManager", "Error closing database", e);
+                } finally {
+                    database = null;
                 }
             }
         }
-    } // Add this closing brace to end the getReadableDatabase method
+    }
 
+    // Per-operation lock wait/hold statistics
+    public Map<String, DatabaseLocks.Stats> getLockStats() {
+        return locks.getStats();
+    }
 
-    // Modify the close method to not null out dbHelper
-    public void close() {
-        synchronized (dbLock) {
-            closeInternal();
+    public void resetLockStats() {
+        locks.resetStats();
+    }
 
-            // Don't set dbHelper to null
-            // dbHelper = null; // Remove this line
+    public void logLockStats() {
+        locks.logStats();
+    }
 
-            // Don't clear the singleton instance
-            // instance = null; // Remove this line
-        }
+    // Hit/miss/eviction counters for the list query cache
+    public QueryCache.Stats getQueryCacheStats() {
+        return queryCache.getStats();
     }
 
-    // Internal method to close all connections
-    private void closeInternal() {
-        try {
-            if (readableDb != null && readableDb.isOpen()) {
-                readableDb.close();
-                readableDb = null;
-            }
-        } catch (Exception e) {
-            Log.e("DatabaseManager", "Error closing readable database", e);
-        }
+    public void logQueryCacheStats() {
+        queryCache.logStats();
+    }
 
-        try {
-            if (writableDb != null && writableDb.isOpen()) {
-                writableDb.close();
-                writableDb = null;
-            }
-        } catch (Exception e) {
-            Log.e("DatabaseManager", "Error closing writable database", e);
+    // Per-operation latency and the slow query log, for DiagnosticsActivity
+    QueryTracer getQueryTracer() {
+        return tracer;
+    }
+
+    // Write lease that drops cached reads of the written tables before other threads can read
+    private DatabaseLocks.Lease writeLease(String operation, String... tables) {
+        return locks.write(operation, () -> queryCache.invalidate(tables));
+    }
+
+    // Started on first use, so instances that never queue a write never start its thread
+    synchronized GroupCommitQueue getGroupCommitQueue() {
+        if (groupCommit == null) {
+            groupCommit = new GroupCommitQueue(this::getWritableDatabase, this::writeLease,
+                    GROUP_COMMIT_WINDOW_MILLIS, GROUP_COMMIT_MAX_BATCH);
         }
+        return groupCommit;
+    }
+
+    public int getConnectionOpenCount() {
+        return openCount.get();
+    }
+
+    public int getConnectionCloseCount() {
+        return closeCount.get();
     }
 
 
     // USER OPERATIONS
 
+    // Usernames are matched case-insensitively through idx_users_username_nocase
+    private static final String AUTHENTICATE_USER_SQL =
+            "SELECT role FROM users WHERE username = ? COLLATE NOCASE AND password = ?";
+    private static final String USER_ID_BY_USERNAME_SQL =
+            "SELECT id FROM users WHERE username = ? COLLATE NOCASE";
+
     public String authenticateUser(String username, String password) {
-        SQLiteDatabase db = getReadableDatabase();
-        String role = null;
+        try (DatabaseLocks.Lease lease = locks.read("authenticateUser")) {
+            SQLiteDatabase db = getReadableDatabase();
+            String role = null;
 
-        Cursor cursor = db.rawQuery(
-                "SELECT role FROM users WHERE username = ? AND password = ?",
-                new String[]{username, password});
+            Cursor cursor = QueryTracer.rawQuery(db, AUTHENTICATE_USER_SQL, new String[]{username, password});
 
-        if (cursor.moveToFirst()) {
-            role = cursor.getString(0);
-        }
+            if (cursor.moveToFirst()) {
+                role = cursor.getString(0);
+            }
 
-        cursor.close();
-        db.close();
-        return role;
+            cursor.close();
+            return role;
+        }
     }
 
     public boolean registerUser(String username, String password, String role) {
-        SQLiteDatabase db = getWritableDatabase();
+        try (DatabaseLocks.Lease lease = writeLease("registerUser", TABLE_USERS)) {
+            SQLiteDatabase db = getWritableDatabase();
 
-        ContentValues values = new ContentValues();
-        values.put("username", username);
-        values.put("password", password);
-        values.put("role", role);
+            ContentValues values = new ContentValues();
+            values.put("username", username);
+            values.put("password", password);
+            values.put("role", role);
 
-        long result = db.insert("users", null, values);
-        db.close();
+            long result = db.insert("users", null, values);
 
-        return result != -1;
+            return result != -1;
+        }
     }
 
     public boolean checkUserExists(String username) {
-        SQLiteDatabase db = getReadableDatabase();
+        try (DatabaseLocks.Lease lease = locks.read("checkUserExists")) {
+            SQLiteDatabase db = getReadableDatabase();
 
-        Cursor cursor = db.rawQuery(
-                "SELECT id FROM users WHERE username = ?",
-                new String[]{username});
+            Cursor cursor = QueryTracer.rawQuery(db, USER_ID_BY_USERNAME_SQL, new String[]{username});
 
-        boolean exists = cursor.getCount() > 0;
+            boolean exists = cursor.getCount() > 0;
 
-        cursor.close();
-        db.close();
-        return exists;
+            cursor.close();
+            return exists;
+        }
     }
 
     public int getUserIdByUsername(String username) {
-        SQLiteDatabase db = getReadableDatabase();
-        int userId = -1;
+        try (DatabaseLocks.Lease lease = locks.read("getUserIdByUsername")) {
+            SQLiteDatabase db = getReadableDatabase();
+            int userId = -1;
 
-        Cursor cursor = db.rawQuery(
-                "SELECT id FROM users WHERE username = ?",
-                new String[]{username});
+            Cursor cursor = QueryTracer.rawQuery(db, USER_ID_BY_USERNAME_SQL, new String[]{username});
 
-        if (cursor.moveToFirst()) {
-            userId = cursor.getInt(0);
-        }
+            if (cursor.moveToFirst()) {
+                userId = cursor.getInt(0);
+            }
 
-        cursor.close();
-        db.close();
-        return userId;
+            cursor.close();
+            return userId;
+        }
     }
 
-    // COURSE OPERATIONS
-
-    // IMPORT METHODS FOR COURSES
-    public boolean importCoursesFromCSV(String[] csvLines) {
-        boolean success = true;
-        int insertCount = 0;
+    // REFERENCE DATA
 
-        synchronized (dbLock) {
+    /**
+     * Copies each reference table that is still empty from the prebuilt reference database,
+     * in one transaction. Tables that already have rows are left alone, so admin edits and
+     * earlier CSV imports survive.
+     * @return rows copied
+     */
+    public int seedReferenceData(File referenceFile) {
+        SQLiteDatabase reference = SQLiteDatabase.openDatabase(referenceFile.getPath(), null,
+                SQLiteDatabase.OPEN_READONLY);
+        String[] tables = Arrays.copyOf(ReferenceData.TABLES, ReferenceData.TABLES.length + 1);
+        tables[ReferenceData.TABLES.length] = TABLE_CAREER_FIELDS;
+        try (DatabaseLocks.Lease lease = writeLease("seedReferenceData", tables)) {
             SQLiteDatabase db = getWritableDatabase();
+            int copied = 0;
+            boolean careersCopied = false;
+            db.beginTransaction();
             try {
-                db.beginTransaction();
+                for (String table : ReferenceData.TABLES) {
+                    if (DatabaseUtils.queryNumEntries(db, table) == 0) {
+                        int rows = copyRows(reference, db, table);
+                        careersCopied |= rows > 0 && TABLE_CAREERS.equals(table);
+                        copied += rows;
+                    }
+                }
+                classifyCourses(db);
+                if (careersCopied) {
+                    classifyCareers(db);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            if (copied > 0) {
+                rebuildCourseCatalog(db);
+            }
+            return copied;
+        } finally {
+            reference.close();
+        }
+    }
 
-                // Make sure major column exists
-                ensureCoursesTableColumns();
+    // Served by idx_courses_major_course
+    private static final String UNCLASSIFIED_COURSES_SQL =
+            "SELECT id, course, reference FROM " + TABLE_COURSES + " WHERE major IS NULL";
+    private static final String SET_COURSE_MAJOR_SQL = "UPDATE " + TABLE_COURSES + " SET major = ? WHERE id = ?";
 
-                // Check if courses already exist
-                Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_COURSES, null);
-                int courseCount = 0;
-                if (cursor.moveToFirst()) {
-                    courseCount = cursor.getInt(0);
+    // The reference database leaves major empty unless the CSV names one, so the rules live only in courseMajor
+    private static void classifyCourses(SQLiteDatabase db) {
+        Cursor cursor = QueryTracer.rawQuery(db, UNCLASSIFIED_COURSES_SQL, null);
+        SQLiteStatement update = db.compileStatement(SET_COURSE_MAJOR_SQL);
+        try {
+            while (cursor.moveToNext()) {
+                update.bindString(1, courseMajor(cursor.getString(1), cursor.getString(2)));
+                update.bindLong(2, cursor.getLong(0));
+                update.executeUpdateDelete();
+            }
+        } finally {
+            update.close();
+            cursor.close();
+        }
+    }
+
+    private static final String INSERT_CAREER_FIELD_SQL =
+            "INSERT INTO " + TABLE_CAREER_FIELDS + " (field, career_id, weight) VALUES (?, ?, ?)";
+
+    /**
+     * Files every career under the fields its title matches, replacing what career_fields held.
+     * Runs when careers are written in bulk, so opening the recommendation screen never has to.
+     */
+    static void classifyCareers(SQLiteDatabase db) {
+        db.beginTransaction();
+        try {
+            db.execSQL("DELETE FROM " + TABLE_CAREER_FIELDS);
+            Cursor cursor = QueryTracer.rawQuery(db, CAREER_ID_TITLE_PAIRS_SQL, null);
+            SQLiteStatement insert = db.compileStatement(INSERT_CAREER_FIELD_SQL);
+            try {
+                while (cursor.moveToNext()) {
+                    classifyCareer(insert, cursor.getLong(0), cursor.getString(1));
                 }
+            } finally {
+                insert.close();
                 cursor.close();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
 
-                // Only proceed with import if no courses exist
-                if (courseCount == 0) {
-                    // First line is header, so start from index 1
-                    for (int i = 1; i < csvLines.length; i++) {
-                        // Assuming tab-delimited format like your other CSVs
-                        String[] values = csvLines[i].trim().split("\t");
-
-                        if (values.length >= 8) { // Ensure we have all columns
-                            ContentValues contentValues = new ContentValues();
-                            contentValues.put("course", values[0].trim());
-                            contentValues.put("reference", values[1].trim());
-                            contentValues.put("credits", values[2].trim());
-                            contentValues.put("session", values[3].trim());
-                            contentValues.put("description", values[4].trim());
-                            contentValues.put("start_date", values[5].trim());
-                            contentValues.put("end_date", values[6].trim());
-                            contentValues.put("instructor", values[7].trim());
-
-                            // Add major if it exists in the CSV
-                            if (values.length >= 9) {
-                                contentValues.put("major", values[8].trim());
-                            } else {
-                                // Determine major based on course name or reference code
-                                String course = values[0].trim().toLowerCase();
-                                String ref = values[1].trim().toLowerCase();
-
-                                // Simple major detection (improve this based on your actual course data)
-                                if (course.contains("art") || course.contains("design") ||
-                                        course.contains("music") || ref.startsWith("art")) {
-                                    contentValues.put("major", "Arts");
-                                } else if (course.contains("bio") || course.contains("chem") ||
-                                        course.contains("phys") || course.contains("math") ||
-                                        course.contains("computer") || ref.startsWith("sci")) {
-                                    contentValues.put("major", "STEM");
-                                } else if (course.contains("business") || course.contains("account") ||
-                                        course.contains("finance") || course.contains("market")) {
-                                    contentValues.put("major", "Business");
-                                } else if (course.contains("edu") || course.contains("teach")) {
-                                    contentValues.put("major", "Education");
-                                } else if (course.contains("health") || course.contains("nursing") ||
-                                        course.contains("med")) {
-                                    contentValues.put("major", "Health Science");
-                                } else {
-                                    contentValues.put("major", "STEM"); // Default value
-                                }
-                            }
+    private static void classifyCareer(SQLiteStatement insert, long careerId, String title) {
+        FieldClassifier.Result result = FieldClassifier.CAREERS.classify(title);
+        for (String field : result.fields()) {
+            insert.bindString(1, field);
+            insert.bindLong(2, careerId);
+            insert.bindLong(3, result.weight(field));
+            insert.executeInsert();
+        }
+    }
 
-                            long result = db.insert(TABLE_COURSES, null, contentValues);
-                            if (result != -1) {
-                                insertCount++;
-                            }
-                        } else {
-                            Log.e("CSV Import", "Line " + i + " has insufficient columns: " + csvLines[i]);
+    // Copies every row of table, ids included, through one compiled insert
+    private static int copyRows(SQLiteDatabase from, SQLiteDatabase to, String table) {
+        Cursor cursor = QueryTracer.rawQuery(from, "SELECT * FROM " + table, null);
+        try {
+            String[] columns = cursor.getColumnNames();
+            StringBuilder sql = new StringBuilder("INSERT OR IGNORE INTO ").append(table).append(" (")
+                    .append(TextUtils.join(", ", columns)).append(") VALUES (");
+            for (int i = 0; i < columns.length; i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            SQLiteStatement insert = to.compileStatement(sql.append(")").toString());
+            try {
+                int rows = 0;
+                while (cursor.moveToNext()) {
+                    insert.clearBindings();
+                    for (int i = 0; i < columns.length; i++) {
+                        switch (cursor.getType(i)) {
+                            case Cursor.FIELD_TYPE_NULL:
+                                insert.bindNull(i + 1);
+                                break;
+                            case Cursor.FIELD_TYPE_INTEGER:
+                                insert.bindLong(i + 1, cursor.getLong(i));
+                                break;
+                            case Cursor.FIELD_TYPE_FLOAT:
+                                insert.bindDouble(i + 1, cursor.getDouble(i));
+                                break;
+                            default:
+                                insert.bindString(i + 1, cursor.getString(i));
+                                break;
                         }
                     }
-                }
-
-                db.setTransactionSuccessful();
-                Log.i("CSV Import", "Successfully imported " + insertCount + " courses");
-            } catch (Exception e) {
-                success = false;
-                Log.e("CSV Import", "Error importing courses", e);
-            } finally {
-                if (db.inTransaction()) {
-                    try {
-                        db.endTransaction();
-                    } catch (Exception e) {
-                        Log.e("CSV Import", "Error ending transaction", e);
+                    if (insert.executeInsert() != -1) {
+                        rows++;
                     }
                 }
+                return rows;
+            } finally {
+                insert.close();
             }
+        } finally {
+            cursor.close();
         }
+    }
 
-        return success;
+    // COURSE OPERATIONS
+
+    private static final String COURSE_COUNT_SQL = "SELECT COUNT(*) FROM " + TABLE_COURSES;
+
+    // IMPORT METHODS FOR COURSES
+
+    // Tab-separated: course, reference, credits, session, description, start, end, instructor[, major]
+    static final DeltaImporter.KeyedFormat COURSE_ROWS = new DeltaImporter.KeyedFormat() {
+        @Override
+        public String table() {
+            return TABLE_COURSES;
+        }
+
+        // courses.course is UNIQUE, so a new reference is an update, not a new course
+        @Override
+        public int[] keyColumns() {
+            return new int[]{0};
+        }
+
+        @Override
+        public String updateSql() {
+            return "UPDATE OR IGNORE " + TABLE_COURSES + " SET reference = ?, credits = ?, session = ?, description = ?, "
+                    + "start_date = ?, end_date = ?, instructor = ?, major = ? WHERE course = ?";
+        }
+
+        // Program and career links go with the course
+        @Override
+        public String[] deleteSql() {
+            String courseId = "(SELECT id FROM " + TABLE_COURSES + " WHERE course = ?)";
+            return new String[]{
+                    "DELETE FROM " + TABLE_COURSE_PROGRAMS + " WHERE course_id IN " + courseId,
+                    "DELETE FROM " + TABLE_CAREER_COURSES + " WHERE course_id IN " + courseId,
+                    "DELETE FROM " + TABLE_COURSES + " WHERE course = ?"};
+        }
+
+        @Override
+        public String[] dependentTables() {
+            return new String[]{TABLE_COURSE_PROGRAMS, TABLE_CAREER_COURSES};
+        }
+
+        @Override
+        public String insertSql() {
+            return "INSERT OR IGNORE INTO " + TABLE_COURSES + " (course, reference, credits, session, description, "
+                    + "start_date, end_date, instructor, major) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        }
+
+        @Override
+        public int columns() {
+            return 9;
+        }
+
+        @Override
+        public String parse(String[] values, Object[] row) {
+            if (values.length < 8) {
+                return "expected 8 columns, found " + values.length;
+            }
+            for (int i = 0; i < 8; i++) {
+                row[i] = values[i].trim();
+            }
+            row[8] = values.length >= 9 ? values[8].trim() : courseMajor((String) row[0], (String) row[1]);
+            return null;
+        }
+    };
+
+    // Major for a course that does not name one; imports, addCourse and the reference seed share it
+    static String courseMajor(String course, String reference) {
+        return FieldClassifier.COURSES.classify(course, reference).best(FieldClassifier.STEM);
     }
 
+    // Rejected rows go to the log when the caller has no listener of its own
+    private static final CsvImporter.Listener LOGGED_REJECTS = new CsvImporter.Listener() {
+        @Override
+        public void onProgress(int rowsRead, int rowsImported) {
+        }
+
+        @Override
+        public void onReject(int lineNumber, String line, String reason) {
+            Log.e("CSV Import", "Line " + lineNumber + " rejected (" + reason + "): " + line);
+        }
+    };
+
+    private CsvImporter csvImporter() {
+        return new CsvImporter(this::getWritableDatabase, this::writeLease);
+    }
+
+    private DeltaImporter deltaImporter() {
+        return new DeltaImporter(this::getWritableDatabase, this::writeLease);
+    }
+
+    // Leases for importers that write courses; onCourses runs after each commit, before readers get in
+    private GroupCommitQueue.LeaseFactory courseLeases(Runnable onCourses) {
+        return (operation, tables) -> locks.write(operation, () -> {
+            queryCache.invalidate(tables);
+            if (Arrays.asList(tables).contains(TABLE_COURSES)) {
+                onCourses.run();
+            }
+        });
+    }
+
+    public boolean importCoursesFromCSV(String[] csvLines) {
+        try {
+            importCourses(CsvImporter.lines(csvLines), Integer.MAX_VALUE, LOGGED_REJECTS);
+            return true;
+        } catch (Exception e) {
+            Log.e("CSV Import", "Error importing courses", e);
+            return false;
+        }
+    }
+
+    CsvImporter.Result importCourses(CsvImporter.Lines lines, int batchSize, CsvImporter.Listener listener)
+            throws IOException {
+        return importCourses(lines, batchSize, 1, listener);
+    }
+
+    /**
+     * Streams courses into an empty courses table, committing every batchSize rows and
+     * parsing on parseThreads threads; does nothing if the table already has courses.
+     */
+    CsvImporter.Result importCourses(CsvImporter.Lines lines, int batchSize, int parseThreads,
+                                     CsvImporter.Listener listener) throws IOException {
+        if (getCourseCount() > 0) {
+            Log.i("CSV Import", "Courses already imported; skipping");
+            return new CsvImporter.Result(0, 0, 0, 0);
+        }
+        // Rebuilding per batch would reread the table every batch; instead the first batch drops
+        // the snapshot, reads go to SQLite, which sees every committed batch, and it is reloaded once
+        AtomicBoolean dropped = new AtomicBoolean();
+        CsvImporter importer = new CsvImporter(this::getWritableDatabase, courseLeases(() -> {
+            if (courseCatalog != null) {
+                courseCatalog = null;
+                dropped.set(true);
+            }
+        }));
+        try {
+            CsvImporter.Result result = importer.run(lines, COURSE_ROWS, batchSize, parseThreads, listener);
+            Log.i("CSV Import", "Courses: " + result);
+            return result;
+        } finally {
+            // Batches committed before a failure or cancellation stay, so the catalog must see them
+            if (dropped.get()) {
+                reloadCourseCatalog();
+            }
+        }
+    }
+
+    /**
+     * Brings the courses imported from source in line with input, keyed on course code.
+     * Course ids, and the programs and careers linked to them, survive updates;
+     * an unchanged file costs one hash comparison.
+     */
+    DeltaImporter.Result importCoursesDelta(String source, DeltaImporter.Source input, CsvImporter.Listener listener)
+            throws IOException {
+        // The delta commits under one lease, so the catalog is rebuilt before anyone can read
+        DeltaImporter importer = new DeltaImporter(this::getWritableDatabase,
+                courseLeases(() -> rebuildCourseCatalog(getWritableDatabase())));
+        DeltaImporter.Result result = importer.run(source, input, COURSE_ROWS, listener);
+        Log.i("CSV Import", "Courses from " + source + ": " + result);
+        return result;
+    }
+
+    // Title lookups ignore case and use idx_courses_course_nocase
+    private static final String COURSE_BY_TITLE_SQL =
+            "SELECT id as _id, course, reference, credits, description FROM " + TABLE_COURSES +
+                    " WHERE course = ? COLLATE NOCASE";
+
     public Cursor getCourseByTitle(String courseTitle) {
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = locks.read("getCourseByTitle")) {
             SQLiteDatabase db = getReadableDatabase();
             try {
-                // First try with "course" column (since that's what you use in your schema)
-                Cursor cursor = db.query(
-                        TABLE_COURSES,
-                        new String[]{"id as _id", "course", "reference", "credits", "description"},
-                        "course = ?",
-                        new String[]{courseTitle},
-                        null, null, null);
-
-                if (cursor.getCount() == 0) {
-                    cursor.close();
-                    // Try with "title" column as fallback
-                    cursor = db.query(
-                            TABLE_COURSES,
-                            new String[]{"id as _id", "course as title", "reference", "credits", "description"},
-                            "course = ?",
-                            new String[]{courseTitle},
-                            null, null, null);
-                }
-
-                return cursor;
+                return QueryTracer.rawQuery(db, COURSE_BY_TITLE_SQL, new String[]{courseTitle});
             } catch (Exception e) {
                 Log.e("DatabaseManager", "Error getting course by title", e);
                 return null;
@@ -319,37 +578,35 @@ public class DatabaseManager {
         }
     }
 
+    // Both served by idx_courses_major_course, which also gives the ORDER BY for free
+    private static final String COURSE_COUNT_BY_FIELD_SQL =
+            "SELECT COUNT(*) FROM " + TABLE_COURSES + " WHERE major = ?";
+    private static final String COURSES_BY_FIELD_SQL =
+            "SELECT id as _id, course, reference, description, credits, major FROM " + TABLE_COURSES +
+                    " WHERE major = ? ORDER BY course ASC";
+
     //  Method to get courses by field/major
     public Cursor getCoursesByField(String field) {
-        synchronized (dbLock) {
+        CourseCatalog catalog = courseCatalog;
+        if (catalog != null && field != null && !"All Fields".equals(field)) {
+            return coursesCursor(catalog.getByMajor(field), COURSES_BY_FIELD_COLUMNS);
+        }
+
+        try (DatabaseLocks.Lease lease = locks.read("getCoursesByField")) {
             try {
-                // Safety check - create a fresh connection if needed
-                SQLiteDatabase db;
-                try {
-                    db = getReadableDatabase();
-                } catch (IllegalStateException e) {
-                    // Connection pool closed - recreate the db helper
-                    Log.e("DatabaseManager", "Database connection pool closed, recreating", e);
-                    dbHelper = new DatabaseHelper(context);
-                    db = dbHelper.getReadableDatabase();
-                }
+                SQLiteDatabase db = getReadableDatabase();
 
                 // Safety check
                 if (field == null || "All Fields".equals(field)) {
                     return getAllCourses();
                 }
 
-                Log.d("DatabaseManager", "Querying courses with major = " + field);
-
                 // First check if any courses exist with this major
                 Cursor checkCursor = null;
                 int count = 0;
 
                 try {
-                    checkCursor = db.rawQuery(
-                            "SELECT COUNT(*) FROM " + TABLE_COURSES + " WHERE major = ?",
-                            new String[]{field}
-                    );
+                    checkCursor = QueryTracer.rawQuery(db, COURSE_COUNT_BY_FIELD_SQL, new String[]{field});
 
                     if (checkCursor != null && checkCursor.moveToFirst()) {
                         count = checkCursor.getInt(0);
@@ -363,67 +620,33 @@ public class DatabaseManager {
                 }
 
                 if (count == 0) {
-                    Log.d("DatabaseManager", "No courses found with major = " + field + ", returning empty cursor");
                     // Return empty cursor if no courses with this major
-                    return db.rawQuery(
-                            "SELECT id as _id, course, reference, description, credits, major " +
-                                    "FROM " + TABLE_COURSES + " WHERE 0=1", null);
+                    return new MatrixCursor(new String[]{"_id", "course", "reference", "description", "credits", "major"});
                 }
 
                 // Get courses for the given major
-                Cursor cursor = db.query(
-                        TABLE_COURSES,
-                        new String[]{"id as _id", "course", "reference", "description", "credits", "major"},
-                        "major = ?",
-                        new String[]{field},
-                        null, null,
-                        "course ASC"
-                );
-
-                // Log found courses
-                if (cursor != null) {
-                    Log.d("DatabaseManager", "Found " + cursor.getCount() + " courses with major = " + field);
-                }
-
-                return cursor;
+                return QueryTracer.rawQuery(db, COURSES_BY_FIELD_SQL, new String[]{field});
             } catch (Exception e) {
                 Log.e("DatabaseManager", "Error getting courses by field: " + field, e);
 
-                // Try one more time with a fresh database connection
-                try {
-                    // Force recreate the database connection
-                    closeInternal();
-                    dbHelper = new DatabaseHelper(context);
-                    SQLiteDatabase db = dbHelper.getReadableDatabase();
-
-                    // Return empty cursor as fallback
-                    return db.rawQuery(
-                            "SELECT id as _id, course, reference, description, credits " +
-                                    "FROM " + TABLE_COURSES + " WHERE 0=1", null);
-                } catch (Exception ex) {
-                    Log.e("DatabaseManager", "Critical failure getting courses", ex);
-                    // We have no choice but to return null - the calling code must handle this
-                    return null;
-                }
+                // Return empty cursor as fallback
+                return new MatrixCursor(new String[]{"_id", "course", "reference", "description", "credits"});
             }
         }
     }
 
 
     public Cursor getCoursesForCareer(int careerId, String field) {
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = locks.read("getCoursesForCareer")) {
             SQLiteDatabase db = getReadableDatabase();
 
             try {
-                // Base query for courses related to a specific career
-                String baseQuery = getString(field);
-
-                // Prepare arguments based on whether field is filtered
-                String[] args = (field != null && !"All Fields".equals(field))
-                        ? new String[]{String.valueOf(careerId), field}
-                        : new String[]{String.valueOf(careerId)};
-
-                return db.rawQuery(baseQuery, args);
+                // If a specific field is selected, add field filter
+                if (field != null && !"All Fields".equals(field)) {
+                    return QueryTracer.rawQuery(db, COURSES_FOR_CAREER_IN_FIELD_SQL,
+                            new String[]{String.valueOf(careerId), field});
+                }
+                return QueryTracer.rawQuery(db, COURSES_FOR_CAREER_SQL, new String[]{String.valueOf(careerId)});
             } catch (Exception e) {
                 Log.e("DatabaseManager", "Error getting courses for career", e);
                 return null;
@@ -431,29 +654,24 @@ public class DatabaseManager {
         }
     }
 
-    private static String getString(String field) {
-        String baseQuery =
-                "SELECT DISTINCT c.id as _id, " +
-                        "c.course || ' - ' || c.reference AS full_course_name, " +
-                        "c.credits, c.description " +
-                        "FROM " + TABLE_COURSES + " c " +
-                        "JOIN career_courses cc ON c.id = cc.course_id " +
-                        "WHERE cc.career_id = ?";
-
-        // If a specific field is selected, add field filter
-        if (field != null && !"All Fields".equals(field)) {
-            baseQuery += " AND c.major = ?";
-        }
-
-        baseQuery += " ORDER BY c.course";
-        return baseQuery;
-    }
+    // Base query for courses related to a specific career
+    private static final String COURSES_FOR_CAREER_SELECT =
+            "SELECT DISTINCT c.id as _id, " +
+                    "c.course || ' - ' || c.reference AS full_course_name, " +
+                    "c.credits, c.description " +
+                    "FROM " + TABLE_COURSES + " c " +
+                    "JOIN career_courses cc ON c.id = cc.course_id " +
+                    "WHERE cc.career_id = ?";
+    private static final String COURSES_FOR_CAREER_SQL =
+            COURSES_FOR_CAREER_SELECT + " ORDER BY c.course";
+    private static final String COURSES_FOR_CAREER_IN_FIELD_SQL =
+            COURSES_FOR_CAREER_SELECT + " AND c.major = ? ORDER BY c.course";
 
 
     public int getCourseCount() {
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = locks.read("getCourseCount")) {
             SQLiteDatabase db = getReadableDatabase();
-            Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_COURSES, null);
+            Cursor cursor = QueryTracer.rawQuery(db, COURSE_COUNT_SQL, null);
             int count = 0;
             if (cursor.moveToFirst()) {
                 count = cursor.getInt(0);
@@ -464,63 +682,40 @@ public class DatabaseManager {
     }
 
     public void clearCoursesTable() {
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = writeLease("clearCoursesTable", TABLE_COURSES)) {
             SQLiteDatabase db = getWritableDatabase();
             db.execSQL("DELETE FROM " + TABLE_COURSES);
+            rebuildCourseCatalog(db);
             // Don't close the database here
         }
     }
 
+    // Walks the unique index on course, so no sort step is needed
+    private static final String ALL_COURSES_SQL =
+            "SELECT id as _id, course, reference, credits, description, " +
+                    "session, start_date, end_date, instructor FROM " + TABLE_COURSES +
+                    " ORDER BY course ASC";
+
     public Cursor getAllCourses() {
-        synchronized (dbLock) {
-            Log.d("DatabaseManager", "getAllCourses called");
+        CourseCatalog catalog = courseCatalog;
+        if (catalog != null) {
+            return coursesCursor(catalog.getAll(), ALL_COURSES_COLUMNS);
+        }
+
+        try (DatabaseLocks.Lease lease = locks.read("getAllCourses")) {
             SQLiteDatabase db = null;
             Cursor cursor = null;
 
             try {
-                // Ensure dbHelper exists
-                ensureDbHelperExists();
-
-                // Get database reference with extra logging
                 db = getReadableDatabase();
-                Log.d("DatabaseManager", "Got readable database: " + (db != null ? "valid" : "null"));
 
                 if (db == null || !db.isOpen()) {
                     Log.e("DatabaseManager", "Database not available in getAllCourses");
                     return createEmptyCursor(); // Return empty cursor instead of null
                 }
 
-                // Attempt to execute query with try-catch
-                try {
-                    cursor = db.query(
-                            TABLE_COURSES,
-                            new String[]{"id as _id", "course", "reference", "credits", "description",
-                                    "session", "start_date", "end_date", "instructor"},
-                            null, null, null, null, "course ASC");
-
-                    Log.d("DatabaseManager", "Query executed, cursor: " +
-                            (cursor != null ? "valid with " + cursor.getCount() + " items" : "null"));
-
-                    return cursor;
-                } catch (Exception e) {
-                    Log.e("DatabaseManager", "Error executing query", e);
-
-                    // Try a simpler fallback query
-                    try {
-                        Log.d("DatabaseManager", "Trying fallback query");
-                        cursor = db.rawQuery("SELECT id as _id, course, reference, description FROM " +
-                                TABLE_COURSES + " ORDER BY course ASC", null);
-
-                        if (cursor != null) {
-                            Log.d("DatabaseManager", "Fallback query successful");
-                            return cursor;
-                        }
-                    } catch (Exception ex) {
-                        Log.e("DatabaseManager", "Fallback query failed", ex);
-                    }
-
-                    return createEmptyCursor();
-                }
+                cursor = queryCache.query(db, ALL_COURSES_SQL, null, TABLE_COURSES);
+                return cursor;
             } catch (Exception e) {
                 Log.e("DatabaseManager", "Unexpected error in getAllCourses", e);
 
@@ -540,7 +735,6 @@ public class DatabaseManager {
     // Helper method to create an empty cursor
     private Cursor createEmptyCursor() {
         try {
-            Log.d("DatabaseManager", "Creating empty cursor");
             MatrixCursor emptyCursor = new MatrixCursor(
                     new String[]{"_id", "course", "reference", "credits", "description",
                             "session", "start_date", "end_date", "instructor"});
@@ -551,137 +745,295 @@ public class DatabaseManager {
         }
     }
 
-    public void ensureCoursesTableColumns() {
-        synchronized (dbLock) {
-            SQLiteDatabase db = getWritableDatabase();
+    // COURSE CATALOG SNAPSHOT
+
+    // Replaced, never mutated, and only while the writer lock is held, so concurrent
+    // writes cannot lose each other's changes. Null until the first load finishes;
+    // reads fall back to SQLite until then.
+    private volatile CourseCatalog courseCatalog;
+
+    private static final String CATALOG_COURSES_SQL =
+            "SELECT id, course, reference, credits, description, session, start_date, end_date, " +
+                    "instructor, major FROM " + TABLE_COURSES;
+    private static final String CATALOG_COURSE_BY_ID_SQL = CATALOG_COURSES_SQL + " WHERE id = ?";
+    private static final String CATALOG_MEMBERSHIPS_SQL =
+            "SELECT program_id, course_id FROM " + TABLE_COURSE_PROGRAMS;
+
+    // Column layouts of the SQLite cursors the catalog stands in for
+    private static final String[] ALL_COURSES_COLUMNS = {"_id", "course", "reference", "credits",
+            "description", "session", "start_date", "end_date", "instructor"};
+    private static final String[] COURSES_BY_FIELD_COLUMNS = {"_id", "course", "reference",
+            "description", "credits", "major"};
+    private static final String[] COURSE_ROW_COLUMNS = {"id", "course", "reference", "credits",
+            "session", "description", "start_date", "end_date", "instructor", "major"};
+
+    // Called once at startup; the first load reads every course on a background thread
+    public void loadCourseCatalogAsync() {
+        Thread loader = new Thread(this::reloadCourseCatalog, "course-catalog-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // The current snapshot, or null while it is still loading
+    CourseCatalog getCourseCatalog() {
+        return courseCatalog;
+    }
+
+    void reloadCourseCatalog() {
+        // The writer lock keeps course writes out until the snapshot is published
+        try (DatabaseLocks.Lease lease = locks.write("loadCourseCatalog")) {
+            long start = System.nanoTime();
+            CourseCatalog catalog = readCourseCatalog(getReadableDatabase());
+            courseCatalog = catalog;
+            Log.i("DatabaseManager", "Loaded course catalog: " + catalog.size() + " courses in "
+                    + (System.nanoTime() - start) / 1000000 + " ms");
+        } catch (Exception e) {
+            Log.e("DatabaseManager", "Error loading course catalog", e);
+        }
+    }
 
-            try {
-                // Check if major column exists
-                Cursor cursor = db.rawQuery("PRAGMA table_info(" + TABLE_COURSES + ")", null);
-                boolean majorColumnExists = false;
+    private static CourseCatalog readCourseCatalog(SQLiteDatabase db) {
+        CourseCatalog.Builder builder = new CourseCatalog.Builder();
+        for (Course course : RowMapper.mapAll(QueryTracer.rawQuery(db, CATALOG_COURSES_SQL, null), Course.MAPPER)) {
+            builder.addCourse(course);
+        }
+        Cursor cursor = QueryTracer.rawQuery(db, CATALOG_MEMBERSHIPS_SQL, null);
+        try {
+            while (cursor.moveToNext()) {
+                builder.addProgramCourse(cursor.getInt(0), cursor.getInt(1));
+            }
+        } finally {
+            cursor.close();
+        }
+        return builder.build();
+    }
 
-                if (cursor != null) {
-                    int nameIndex = cursor.getColumnIndex("name");
-                    while (cursor.moveToNext()) {
-                        String columnName = cursor.getString(nameIndex);
-                        if ("major".equals(columnName)) {
-                            majorColumnExists = true;
-                            break;
-                        }
-                    }
-                    cursor.close();
-                }
+    // Bulk writes start over; callers hold the write lease
+    private void rebuildCourseCatalog(SQLiteDatabase db) {
+        if (courseCatalog == null) {
+            return;
+        }
+        try {
+            courseCatalog = readCourseCatalog(db);
+        } catch (Exception e) {
+            // Fall back to SQLite rather than serve a stale snapshot
+            courseCatalog = null;
+            Log.e("DatabaseManager", "Error rebuilding course catalog", e);
+        }
+    }
 
-                // Add major column if it doesn't exist
-                if (!majorColumnExists) {
-                    Log.d("DatabaseManager", "Adding major column to courses table");
-                    db.execSQL("ALTER TABLE " + TABLE_COURSES + " ADD COLUMN major TEXT DEFAULT 'STEM'");
-                    Log.d("DatabaseManager", "Added major column to courses table");
-                } else {
-                    Log.d("DatabaseManager", "Major column already exists in courses table");
-                }
+    // Re-reads one course into the catalog after it was inserted or updated
+    private void refreshCatalogCourse(SQLiteDatabase db, int courseId) {
+        if (courseCatalog == null) {
+            return;
+        }
+        try {
+            Course course = RowMapper.mapFirst(
+                    QueryTracer.rawQuery(db, CATALOG_COURSE_BY_ID_SQL, new String[]{String.valueOf(courseId)}),
+                    Course.MAPPER);
+            updateCourseCatalog(catalog -> course != null ? catalog.withCourse(course) : catalog.withoutCourse(courseId));
+        } catch (Exception e) {
+            courseCatalog = null;
+            Log.e("DatabaseManager", "Error refreshing course " + courseId + " in catalog", e);
+        }
+    }
 
-                // Verify all courses have a major assigned
-                Cursor courseCheck = db.rawQuery(
-                        "SELECT COUNT(*) FROM " + TABLE_COURSES + " WHERE major IS NULL OR major = ''",
-                        null
-                );
+    // Single-row writes copy only what changed; callers hold the write lease
+    private void updateCourseCatalog(UnaryOperator<CourseCatalog> change) {
+        CourseCatalog current = courseCatalog;
+        if (current != null) {
+            courseCatalog = change.apply(current);
+        }
+    }
 
-                if (courseCheck != null && courseCheck.moveToFirst()) {
-                    int nullMajorCount = courseCheck.getInt(0);
-                    if (nullMajorCount > 0) {
-                        Log.d("DatabaseManager", "Found " + nullMajorCount + " courses with null major, setting to STEM");
-                        db.execSQL("UPDATE " + TABLE_COURSES + " SET major = 'STEM' WHERE major IS NULL OR major = ''");
-                    }
-                    courseCheck.close();
-                }
+    private static Cursor coursesCursor(List<Course> courses, String[] columns) {
+        MatrixCursor cursor = new MatrixCursor(columns, courses.size());
+        for (Course course : courses) {
+            Object[] row = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                row[i] = courseValue(course, columns[i]);
+            }
+            cursor.addRow(row);
+        }
+        return cursor;
+    }
 
-                // Get count per major for debugging
-                Cursor majorStats = db.rawQuery(
-                        "SELECT major, COUNT(*) FROM " + TABLE_COURSES + " GROUP BY major",
-                        null
-                );
+    private static Object courseValue(Course course, String column) {
+        switch (column) {
+            case "_id":
+            case "id":
+                return course.getId();
+            case "course":
+                return course.getTitle();
+            case "reference":
+                return course.getReference();
+            case "credits":
+                return course.getCredits();
+            case "description":
+                return course.getDescription();
+            case "session":
+                return course.getSession();
+            case "start_date":
+                return course.getStartDate();
+            case "end_date":
+                return course.getEndDate();
+            case "instructor":
+                return course.getInstructor();
+            case "major":
+                return course.getMajor();
+            default:
+                throw new IllegalArgumentException("Unknown course column " + column);
+        }
+    }
 
-                if (majorStats != null) {
-                    while (majorStats.moveToNext()) {
-                        String major = majorStats.getString(0);
-                        int count = majorStats.getInt(1);
-                        Log.d("DatabaseManager", "Major '" + major + "' has " + count + " courses");
-                    }
-                    majorStats.close();
-                }
+    // FULL-TEXT COURSE SEARCH
 
-            } catch (Exception e) {
-                Log.e("DatabaseManager", "Error ensuring courses table columns", e);
+    // Most rows a search returns; keeps latency flat however large the catalog gets
+    static final int SEARCH_RESULT_LIMIT = 50;
+
+    private static final String[] SEARCH_COLUMNS = {"_id", "course", "reference", "credits", "description",
+            "session", "start_date", "end_date", "instructor", "snippet"};
+
+    private static final String SEARCH_COURSES_SQL = rankedCourseSearchSql(false);
+    private static final String SEARCH_COURSES_IN_PROGRAM_SQL = rankedCourseSearchSql(true);
+
+    /*
+     * Ranks matches in tiers: title hits first, then course-code hits, then description-only
+     * hits. Parameters: ?1 title filter, ?2 reference filter, ?3 any-column filter,
+     * ?4 program id (program search only).
+     */
+    private static String rankedCourseSearchSql(boolean inProgram) {
+        String programJoin = inProgram
+                ? " JOIN " + DatabaseHelper.TABLE_COURSE_PROGRAMS + " cp ON cp.course_id = courses_fts.docid" +
+                  " AND cp.program_id = ?4"
+                : "";
+
+        return "SELECT c.id as _id, c.course, c.reference, c.credits, c.description, " +
+                "c.session, c.start_date, c.end_date, c.instructor, " +
+                "snippet(courses_fts, '<b>', '</b>', '...', 2, 12) AS snippet " +
+                "FROM (" + rankedMatchesSql(DatabaseHelper.TABLE_COURSES_FTS, programJoin, 3) + ") ranked " +
+                "JOIN " + DatabaseHelper.TABLE_COURSES_FTS + " ON courses_fts.docid = ranked.docid " +
+                "JOIN " + TABLE_COURSES + " c ON c.id = ranked.docid " +
+                "WHERE courses_fts MATCH ?3 " +
+                "ORDER BY ranked.tier, c.course";
+    }
+
+    /*
+     * Docids matching an FTS table, tagged with the first tier that matched. Tier n binds
+     * MATCH parameter ?(n + 1). Each tier stops after SEARCH_RESULT_LIMIT rows, so a broad
+     * prefix never joins or snippets the whole table.
+     */
+    private static String rankedMatchesSql(String ftsTable, String join, int tiers) {
+        StringBuilder union = new StringBuilder();
+        for (int tier = 0; tier < tiers; tier++) {
+            if (tier > 0) {
+                union.append(" UNION ALL ");
             }
-            // Don't close the database here
+            union.append("SELECT docid, ").append(tier).append(" AS tier FROM (")
+                    .append("SELECT ").append(ftsTable).append(".docid AS docid FROM ").append(ftsTable).append(join)
+                    .append(" WHERE ").append(ftsTable).append(" MATCH ?").append(tier + 1)
+                    .append(" LIMIT ").append(SEARCH_RESULT_LIMIT).append(")");
         }
+        return "SELECT docid, MIN(tier) AS tier FROM (" + union + ") " +
+                "GROUP BY docid ORDER BY tier, docid LIMIT " + SEARCH_RESULT_LIMIT;
     }
 
-    private SQLiteDatabase getWritableDatabase() {
-        synchronized (dbLock) {
-            try {
-                if (writableDb == null || !writableDb.isOpen()) {
-                    writableDb = dbHelper.getWritableDatabase();
-                }
-                return writableDb;
-            } catch (Exception e) {
-                Log.e("DatabaseManager", "Error getting writable database", e);
-                // Try to recover by recreating the database connection
-                try {
-                    closeInternal(); // Close any existing connections
-                    dbHelper = new DatabaseHelper(context); // Create new helper
-                    writableDb = dbHelper.getWritableDatabase(); // Get fresh connection
-                    return writableDb;
-                } catch (Exception ex) {
-                    Log.e("DatabaseManager", "Failed to recover writable database", ex);
-                    throw ex; // Propagate the exception after logging
-                }
+    /**
+     * Turns free text into an FTS prefix query, e.g. "intro bio" -> "intro* bio*".
+     * With a column name every term is restricted to it ("course:intro* course:bio*").
+     * Returns null when the text has no searchable terms.
+     */
+    static String buildMatchQuery(String query, String column) {
+        List<String> terms = searchTerms(query);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String term : terms) {
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            if (column != null) {
+                match.append(column).append(':');
+            }
+            match.append(term).append('*');
+        }
+        return match.toString();
+    }
+
+    /**
+     * Turns free text into a prefix query on careers_fts.code_key, which holds occupation
+     * codes without the dash: "15-12" -> code_key:1512*. Returns null when the text has
+     * no searchable terms.
+     */
+    static String buildCodeQuery(String query) {
+        List<String> terms = searchTerms(query);
+        return terms.isEmpty() ? null : "code_key:" + TextUtils.join("", terms) + "*";
+    }
+
+    // Lowercased word and number runs; lowercasing also neutralises AND/OR/NOT/NEAR
+    private static List<String> searchTerms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (String term : query.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
             }
         }
+        return terms;
     }
 
+    private static String[] searchArgs(String query, Integer programId) {
+        String any = buildMatchQuery(query, null);
+        if (any == null) {
+            return null;
+        }
+        String title = buildMatchQuery(query, "course");
+        String reference = buildMatchQuery(query, "reference");
+        return programId == null
+                ? new String[]{title, reference, any}
+                : new String[]{title, reference, any, String.valueOf(programId)};
+    }
 
     public Cursor searchCourses(String query) {
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = locks.read("searchCourses")) {
             SQLiteDatabase db = getReadableDatabase();
 
+            String[] args = searchArgs(query, null);
+            if (args == null) {
+                return new MatrixCursor(SEARCH_COLUMNS);
+            }
+
             try {
-                return db.query(
-                        TABLE_COURSES,
-                        new String[]{"id as _id", "course", "reference", "credits", "description", "session", "start_date", "end_date", "instructor"},
-                        "course LIKE ? OR reference LIKE ? OR description LIKE ?",
-                        new String[]{"%" + query + "%", "%" + query + "%", "%" + query + "%"},
-                        null, null, "course ASC");
+                return QueryTracer.rawQuery(db, SEARCH_COURSES_SQL, args);
             } catch (Exception e) {
                 Log.e("DatabaseManager", "Error searching courses", e);
-
-                // Try with fewer columns if that fails
-                return db.query(
-                        TABLE_COURSES,
-                        new String[]{"id as _id", "course", "reference", "description"},
-                        "course LIKE ? OR reference LIKE ? OR description LIKE ?",
-                        new String[]{"%" + query + "%", "%" + query + "%", "%" + query + "%"},
-                        null, null, "course ASC");
+                return new MatrixCursor(SEARCH_COLUMNS);
             }
         }
     }
 
+    private static final String COURSE_BY_ID_SQL = "SELECT * FROM " + TABLE_COURSES + " WHERE id = ?";
+
     public Cursor getCourseById(int courseId) {
-        synchronized (dbLock) {
+        CourseCatalog catalog = courseCatalog;
+        if (catalog != null) {
+            Course course = catalog.get(courseId);
+            return coursesCursor(course != null ? Collections.singletonList(course)
+                    : Collections.<Course>emptyList(), COURSE_ROW_COLUMNS);
+        }
+
+        try (DatabaseLocks.Lease lease = locks.read("getCourseById")) {
             SQLiteDatabase db = getReadableDatabase();
 
-            return db.query(
-                    TABLE_COURSES,
-                    null,
-                    "id = ?",
-                    new String[]{String.valueOf(courseId)},
-                    null, null, null);
+            return QueryTracer.rawQuery(db, COURSE_BY_ID_SQL, new String[]{String.valueOf(courseId)});
         }
     }
 
     public boolean addCourse(String course, String reference, String credits, String description) {
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = writeLease("addCourse", TABLE_COURSES)) {
             SQLiteDatabase db = getWritableDatabase();
 
             ContentValues values = new ContentValues();
@@ -691,45 +1043,19 @@ public class DatabaseManager {
             values.put("credits", credits);
             values.put("description", description);
 
-            // Determine a suitable major based on course name
-            String major = determineMajorFromCourse(course, reference, description);
-            values.put("major", major);
+            values.put("major", courseMajor(course, reference));
 
             long result = db.insert(TABLE_COURSES, null, values);
+            if (result != -1) {
+                refreshCatalogCourse(db, (int) result);
+            }
             // Don't close the database here
             return result != -1;
         }
     }
 
-    // Helper method to determine major from course information
-    private String determineMajorFromCourse(String course, String reference, String description) {
-        String lowerCourse = course.toLowerCase();
-        String lowerRef = reference.toLowerCase();
-        String lowerDesc = description != null ? description.toLowerCase() : "";
-
-        // Simple major detection
-        if (lowerCourse.contains("art") || lowerCourse.contains("design") ||
-                lowerCourse.contains("music") || lowerRef.startsWith("art")) {
-            return "Arts";
-        } else if (lowerCourse.contains("bio") || lowerCourse.contains("chem") ||
-                lowerCourse.contains("phys") || lowerCourse.contains("math") ||
-                lowerCourse.contains("computer") || lowerRef.startsWith("sci")) {
-            return "STEM";
-        } else if (lowerCourse.contains("business") || lowerCourse.contains("account") ||
-                lowerCourse.contains("finance") || lowerCourse.contains("market")) {
-            return "Business";
-        } else if (lowerCourse.contains("edu") || lowerCourse.contains("teach")) {
-            return "Education";
-        } else if (lowerCourse.contains("health") || lowerCourse.contains("nursing") ||
-                lowerCourse.contains("med")) {
-            return "Health Science";
-        } else {
-            return "none"; // Default value
-        }
-    }
-
     public boolean updateCourse(int courseId, String course, String reference, String credits, String description) {
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = writeLease("updateCourse", TABLE_COURSES)) {
             SQLiteDatabase db = getWritableDatabase();
 
             ContentValues values = new ContentValues();
@@ -744,6 +1070,9 @@ public class DatabaseManager {
                     values,
                     "id = ?",
                     new String[]{String.valueOf(courseId)});
+            if (result > 0) {
+                refreshCatalogCourse(db, courseId);
+            }
 
             // Don't close the database here
             return result > 0;
@@ -751,7 +1080,7 @@ public class DatabaseManager {
     }
 
     public boolean deleteCourse(int courseId) {
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = writeLease("deleteCourse", TABLE_COURSES, TABLE_COURSE_PROGRAMS)) {
             SQLiteDatabase db = getWritableDatabase();
 
             // Delete course-program relationships first
@@ -765,6 +1094,7 @@ public class DatabaseManager {
                     TABLE_COURSES,
                     "id = ?",
                     new String[]{String.valueOf(courseId)});
+            updateCourseCatalog(catalog -> catalog.withoutCourse(courseId));
 
             // Don't close the database here
             return result > 0;
@@ -772,18 +1102,21 @@ public class DatabaseManager {
     }
 
     // Academic Programs operations
+    private static final String PROGRAM_COUNT_SQL = "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_ACADEMIC_PROGRAMS;
+
     public boolean importAcademicProgramsFromCSV(String[] csvLines) {
         SQLiteDatabase db = null;
         boolean success = true;
         int insertCount = 0;
 
-        try {
-            synchronized (dbLock) {
+        // Hold the write lease until the transaction has ended
+        try (DatabaseLocks.Lease lease = writeLease("importAcademicProgramsFromCSV", TABLE_ACADEMIC_PROGRAMS)) {
+            try {
                 db = getWritableDatabase();
                 db.beginTransaction();
 
                 // Check if programs already exist
-                Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_ACADEMIC_PROGRAMS, null);
+                Cursor cursor = QueryTracer.rawQuery(db, PROGRAM_COUNT_SQL, null);
                 int programCount = 0;
                 if (cursor.moveToFirst()) {
                     programCount = cursor.getInt(0);
@@ -832,16 +1165,16 @@ public class DatabaseManager {
 
                 db.setTransactionSuccessful();
                 Log.i("CSV Import", "Successfully imported " + insertCount + " academic programs");
-            }
-        } catch (Exception e) {
-            success = false;
-            Log.e("CSV Import", "Error importing academic programs", e);
-        } finally {
-            if (db != null && db.inTransaction()) {
-                try {
-                    db.endTransaction();
-                } catch (Exception e) {
-                    Log.e("CSV Import", "Error ending transaction", e);
+            } catch (Exception e) {
+                success = false;
+                Log.e("CSV Import", "Error importing academic programs", e);
+            } finally {
+                if (db != null && db.inTransaction()) {
+                    try {
+                        db.endTransaction();
+                    } catch (Exception e) {
+                        Log.e("CSV Import", "Error ending transaction", e);
+                    }
                 }
             }
         }
@@ -849,103 +1182,95 @@ public class DatabaseManager {
         return success;
     }
 
+    // Program membership is read through idx_course_programs_program
+    private static final String COURSES_FOR_PROGRAM_SELECT =
+            "SELECT c.id as _id, c.course, c.reference, c.credits, c.description, " +
+                    "c.session, c.start_date, c.end_date, c.instructor " +
+                    "FROM " + TABLE_COURSES + " c " +
+                    "JOIN " + DatabaseHelper.TABLE_COURSE_PROGRAMS + " cp ON c.id = cp.course_id " +
+                    "WHERE cp.program_id = ?";
+    private static final String COURSES_FOR_PROGRAM_SQL =
+            COURSES_FOR_PROGRAM_SELECT + " ORDER BY c.course";
+
     // Get all courses for a specific program
     public Cursor getCoursesForProgram(int programId) {
-        synchronized (dbLock) {
+        CourseCatalog catalog = courseCatalog;
+        if (catalog != null) {
+            return coursesCursor(catalog.getForProgram(programId), ALL_COURSES_COLUMNS);
+        }
+
+        try (DatabaseLocks.Lease lease = locks.read("getCoursesForProgram")) {
             SQLiteDatabase db = getReadableDatabase();
 
             try {
-                return db.rawQuery(
-                        "SELECT c.id as _id, c.course, c.reference, c.credits, c.description, " +
-                                "c.session, c.start_date, c.end_date, c.instructor " +
-                                "FROM " + TABLE_COURSES + " c " +
-                                "JOIN " + DatabaseHelper.TABLE_COURSE_PROGRAMS + " cp ON c.id = cp.course_id " +
-                                "WHERE cp.program_id = ? " +
-                                "ORDER BY c.course",
-                        new String[]{String.valueOf(programId)});
+                return QueryTracer.rawQuery(db, COURSES_FOR_PROGRAM_SQL, new String[]{String.valueOf(programId)});
             } catch (Exception e) {
                 Log.e("DatabaseManager", "Error getting courses for program", e);
                 // Return empty cursor
-                return db.rawQuery(
-                        "SELECT id as _id, course, reference, credits, description, " +
-                                "session, start_date, end_date, instructor " +
-                                "FROM " + TABLE_COURSES + " LIMIT 0",
-                        null);
+                return createEmptyCursor();
             }
         }
     }
 
     // Search courses within a specific program
     public Cursor searchCoursesInProgram(int programId, String query) {
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = locks.read("searchCoursesInProgram")) {
             SQLiteDatabase db = getReadableDatabase();
 
+            String[] args = searchArgs(query, programId);
+            if (args == null) {
+                return new MatrixCursor(SEARCH_COLUMNS);
+            }
+
             try {
-                return db.rawQuery(
-                        "SELECT c.id as _id, c.course, c.reference, c.credits, c.description, " +
-                                "c.session, c.start_date, c.end_date, c.instructor " +
-                                "FROM " + TABLE_COURSES + " c " +
-                                "JOIN " + DatabaseHelper.TABLE_COURSE_PROGRAMS + " cp ON c.id = cp.course_id " +
-                                "WHERE cp.program_id = ? AND " +
-                                "(c.course LIKE ? OR c.reference LIKE ? OR c.description LIKE ?) " +
-                                "ORDER BY c.course",
-                        new String[]{
-                                String.valueOf(programId),
-                                "%" + query + "%",
-                                "%" + query + "%",
-                                "%" + query + "%"
-                        });
+                return QueryTracer.rawQuery(db, SEARCH_COURSES_IN_PROGRAM_SQL, args);
             } catch (Exception e) {
                 Log.e("DatabaseManager", "Error searching courses in program", e);
                 // Return empty cursor
-                return db.rawQuery(
-                        "SELECT id as _id, course, reference, credits, description, " +
-                                "session, start_date, end_date, instructor " +
-                                "FROM " + TABLE_COURSES + " LIMIT 0",
-                        null);
+                return new MatrixCursor(SEARCH_COLUMNS);
             }
         }
     }
 
     public int getAcademicProgramCount() {
-        SQLiteDatabase db = dbHelper.getReadableDatabase();
-        int count = 0;
+        try (DatabaseLocks.Lease lease = locks.read("getAcademicProgramCount")) {
+            SQLiteDatabase db = getReadableDatabase();
+            int count = 0;
 
-        try {
-            Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_ACADEMIC_PROGRAMS, null);
-            if (cursor.moveToFirst()) {
-                count = cursor.getInt(0);
+            try {
+                Cursor cursor = QueryTracer.rawQuery(db, PROGRAM_COUNT_SQL, null);
+                if (cursor.moveToFirst()) {
+                    count = cursor.getInt(0);
+                }
+                cursor.close();
+            } catch (Exception e) {
+                Log.e("DatabaseManager", "Error getting academic program count", e);
             }
-            cursor.close();
-        } catch (Exception e) {
-            Log.e("DatabaseManager", "Error getting academic program count", e);
-            // Table might not exist
-            ensureAcademicProgramsTableExists();
-        }
 
-        db.close();
-        return count;
+            return count;
+        }
     }
+
+    private static final String ALL_PROGRAMS_SQL =
+            "SELECT id as _id, program_name, pathway, description FROM " + DatabaseHelper.TABLE_ACADEMIC_PROGRAMS +
+                    " ORDER BY program_name ASC";
+
     public Cursor getAllAcademicPrograms() {
-        SQLiteDatabase db = getReadableDatabase();
-        return db.query(
-                DatabaseHelper.TABLE_ACADEMIC_PROGRAMS,
-                new String[]{"id as _id", "program_name", "pathway", "description"},
-                null, null, null, null, "program_name ASC");
+        try (DatabaseLocks.Lease lease = locks.read("getAllAcademicPrograms")) {
+            SQLiteDatabase db = getReadableDatabase();
+            return queryCache.query(db, ALL_PROGRAMS_SQL, null, TABLE_ACADEMIC_PROGRAMS);
+        }
     }
 
     // Associate a course with an academic program
     public boolean addCourseToProgram(int courseId, int programId) {
-        synchronized (dbLock) {
-            SQLiteDatabase db = getWritableDatabase();
-
-            ContentValues values = new ContentValues();
-            values.put("course_id", courseId);
-            values.put("program_id", programId);
-
+        try (DatabaseLocks.Lease lease = writeLease("addCourseToProgram", TABLE_COURSE_PROGRAMS)) {
             try {
-                long result = db.insert(DatabaseHelper.TABLE_COURSE_PROGRAMS, null, values);
-                return result != -1;
+                boolean added = insertCourseProgram(getWritableDatabase(), courseId, programId);
+                if (added) {
+                    updateCourseCatalog(catalog -> catalog.withProgramCourse(programId, courseId));
+                }
+                return added;
             } catch (Exception e) {
                 Log.e("DatabaseManager", "Error adding course to program", e);
                 return false;
@@ -953,9 +1278,27 @@ public class DatabaseManager {
         }
     }
 
+    // Same as addCourseToProgram, committed together with other queued writes
+    public CompletableFuture<Boolean> addCourseToProgramQueued(int courseId, int programId) {
+        return getGroupCommitQueue().submit("addCourseToProgram", new String[]{TABLE_COURSE_PROGRAMS},
+                db -> insertCourseProgram(db, courseId, programId),
+                added -> {
+                    if (added) {
+                        updateCourseCatalog(catalog -> catalog.withProgramCourse(programId, courseId));
+                    }
+                });
+    }
+
+    private static boolean insertCourseProgram(SQLiteDatabase db, int courseId, int programId) {
+        ContentValues values = new ContentValues();
+        values.put("course_id", courseId);
+        values.put("program_id", programId);
+        return db.insert(DatabaseHelper.TABLE_COURSE_PROGRAMS, null, values) != -1;
+    }
+
     // REMOVE COURSE FROM PROGRAM
     public boolean removeCourseFromProgram(int courseId, int programId) {
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = writeLease("removeCourseFromProgram", TABLE_COURSE_PROGRAMS)) {
             SQLiteDatabase db = getWritableDatabase();
 
             try {
@@ -964,6 +1307,9 @@ public class DatabaseManager {
                         "course_id = ? AND program_id = ?",
                         new String[]{String.valueOf(courseId), String.valueOf(programId)}
                 );
+                if (result > 0) {
+                    updateCourseCatalog(catalog -> catalog.withoutProgramCourse(programId, courseId));
+                }
                 return result > 0;
             } catch (Exception e) {
                 Log.e("DatabaseManager", "Error removing course from program", e);
@@ -972,32 +1318,105 @@ public class DatabaseManager {
         }
     }
 
+    // One row per course with its program names joined in name order; the inner ORDER BY
+    // fixes the order group_concat sees them in
+    private static final String PROGRAM_LABELS_SQL =
+            "SELECT course_id, group_concat(program_name, ', ') AS programs FROM (" +
+                    "SELECT cp.course_id, p.program_name " +
+                    "FROM " + TABLE_COURSE_PROGRAMS + " cp " +
+                    "JOIN " + TABLE_ACADEMIC_PROGRAMS + " p ON p.id = cp.program_id " +
+                    "ORDER BY cp.course_id, p.program_name) " +
+                    "GROUP BY course_id";
+
+    /**
+     * Program names for every course that has any, keyed by course id, e.g. "Biology, Chemistry".
+     * One aggregated query for the whole list; the result is cached until a membership or
+     * program write drops it.
+     */
+    public Map<Integer, String> getProgramLabelsByCourse() {
+        Map<Integer, String> labels = new HashMap<>();
+        try (DatabaseLocks.Lease lease = locks.read("getProgramLabelsByCourse")) {
+            Cursor cursor = queryCache.query(getReadableDatabase(), PROGRAM_LABELS_SQL, null,
+                    TABLE_COURSE_PROGRAMS, TABLE_ACADEMIC_PROGRAMS);
+            try {
+                while (cursor.moveToNext()) {
+                    labels.put(cursor.getInt(0), cursor.getString(1));
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (Exception e) {
+            Log.e("DatabaseManager", "Error loading program labels", e);
+        }
+        return labels;
+    }
+
+    /**
+     * Program names for just the given courses, e.g. the rows of one list page; courses
+     * without programs are left out. Uses the (course_id, program_id) unique index, so the
+     * cost follows the page, not the catalog.
+     */
+    public Map<Integer, String> getProgramLabelsForCourses(List<Course> courses) {
+        Map<Integer, String> labels = new HashMap<>();
+        if (courses.isEmpty()) {
+            return labels;
+        }
+        StringBuilder sql = new StringBuilder("SELECT course_id, group_concat(program_name, ', ') FROM (")
+                .append("SELECT cp.course_id, p.program_name FROM ").append(TABLE_COURSE_PROGRAMS).append(" cp ")
+                .append("JOIN ").append(TABLE_ACADEMIC_PROGRAMS).append(" p ON p.id = cp.program_id ")
+                .append("WHERE cp.course_id IN (");
+        String[] args = new String[courses.size()];
+        for (int i = 0; i < args.length; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+            args[i] = String.valueOf(courses.get(i).getId());
+        }
+        sql.append(") ORDER BY cp.course_id, p.program_name) GROUP BY course_id");
+        try (DatabaseLocks.Lease lease = locks.read("getProgramLabelsForCourses")) {
+            Cursor cursor = QueryTracer.rawQuery(getReadableDatabase(), sql.toString(), args);
+            try {
+                while (cursor.moveToNext()) {
+                    labels.put(cursor.getInt(0), cursor.getString(1));
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (Exception e) {
+            Log.e("DatabaseManager", "Error loading program labels", e);
+        }
+        return labels;
+    }
+
+    private static final String PROGRAMS_FOR_COURSE_SQL =
+            "SELECT p.id as _id, p.program_name " +
+                    "FROM " + DatabaseHelper.TABLE_ACADEMIC_PROGRAMS + " p " +
+                    "JOIN " + DatabaseHelper.TABLE_COURSE_PROGRAMS + " cp ON p.id = cp.program_id " +
+                    "WHERE cp.course_id = ? " +
+                    "ORDER BY p.program_name";
+    private static final String COURSE_IN_PROGRAM_SQL =
+            "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_COURSE_PROGRAMS +
+                    " WHERE course_id = ? AND program_id = ?";
+
     // Get all programs for a specific course
     public Cursor getProgramsForCourse(int courseId) {
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = locks.read("getProgramsForCourse")) {
             SQLiteDatabase db = getReadableDatabase();
 
-            return db.rawQuery(
-                    "SELECT p.id as _id, p.program_name " +
-                            "FROM " + DatabaseHelper.TABLE_ACADEMIC_PROGRAMS + " p " +
-                            "JOIN " + DatabaseHelper.TABLE_COURSE_PROGRAMS + " cp ON p.id = cp.program_id " +
-                            "WHERE cp.course_id = ? " +
-                            "ORDER BY p.program_name",
-                    new String[]{String.valueOf(courseId)}
-            );
+            return QueryTracer.rawQuery(db, PROGRAMS_FOR_COURSE_SQL, new String[]{String.valueOf(courseId)});
         }
     }
 
     // Check if a course is in a program
     public boolean isCourseInProgram(int courseId, int programId) {
-        synchronized (dbLock) {
+        CourseCatalog catalog = courseCatalog;
+        if (catalog != null) {
+            return catalog.isInProgram(courseId, programId);
+        }
+
+        try (DatabaseLocks.Lease lease = locks.read("isCourseInProgram")) {
             SQLiteDatabase db = getReadableDatabase();
 
-            Cursor cursor = db.rawQuery(
-                    "SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_COURSE_PROGRAMS +
-                            " WHERE course_id = ? AND program_id = ?",
-                    new String[]{String.valueOf(courseId), String.valueOf(programId)}
-            );
+            Cursor cursor = QueryTracer.rawQuery(db, COURSE_IN_PROGRAM_SQL,
+                    new String[]{String.valueOf(courseId), String.valueOf(programId)});
 
             boolean result = false;
             if (cursor != null && cursor.moveToFirst()) {
@@ -1009,339 +1428,424 @@ public class DatabaseManager {
         }
     }
 
-    public void ensureAcademicProgramsTableExists() {
-        SQLiteDatabase db = null;
-        try {
-            db = dbHelper.getWritableDatabase();
+    // Served by the UNIQUE(course_id, program_id) index
+    private static final String PROGRAM_IDS_FOR_COURSE_SQL =
+            "SELECT program_id FROM " + TABLE_COURSE_PROGRAMS + " WHERE course_id = ?";
 
-            // Check if table exists
-            Cursor cursor = db.rawQuery(
-                    "SELECT name FROM sqlite_master WHERE type='table' AND name=?",
-                    new String[]{DatabaseHelper.TABLE_ACADEMIC_PROGRAMS});
+    // Every program the course belongs to, in one query
+    public Set<Integer> getProgramIdsForCourse(int courseId) {
+        try (DatabaseLocks.Lease lease = locks.read("getProgramIdsForCourse")) {
+            return readProgramIds(getReadableDatabase(), courseId);
+        }
+    }
 
-            boolean tableExists = cursor.getCount() > 0;
+    private static Set<Integer> readProgramIds(SQLiteDatabase db, int courseId) {
+        Set<Integer> programIds = new HashSet<>();
+        Cursor cursor = QueryTracer.rawQuery(db, PROGRAM_IDS_FOR_COURSE_SQL, new String[]{String.valueOf(courseId)});
+        try {
+            while (cursor.moveToNext()) {
+                programIds.add(cursor.getInt(0));
+            }
+        } finally {
             cursor.close();
+        }
+        return programIds;
+    }
 
-            if (!tableExists) {
-                // Create academic programs table
-                String CREATE_ACADEMIC_PROGRAMS_TABLE = "CREATE TABLE " + DatabaseHelper.TABLE_ACADEMIC_PROGRAMS + " ("
-                        + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
-                        + "program_name TEXT UNIQUE, "
-                        + "pathway TEXT, "
-                        + "description TEXT)";
-                db.execSQL(CREATE_ACADEMIC_PROGRAMS_TABLE);
-
-                // Create course_programs junction table
-                String CREATE_COURSE_PROGRAMS_TABLE = "CREATE TABLE " + DatabaseHelper.TABLE_COURSE_PROGRAMS + " ("
-                        + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
-                        + "course_id INTEGER, "
-                        + "program_id INTEGER, "
-                        + "FOREIGN KEY(course_id) REFERENCES " + TABLE_COURSES + "(id), "
-                        + "FOREIGN KEY(program_id) REFERENCES " + DatabaseHelper.TABLE_ACADEMIC_PROGRAMS + "(id), "
-                        + "UNIQUE(course_id, program_id))";
-                db.execSQL(CREATE_COURSE_PROGRAMS_TABLE);
-            }
-        } catch (SQLiteDatabaseLockedException e) {
-            Log.e("DatabaseManager", "Database locked: " + e.getMessage());
-            // Don't throw the exception, just log it
-        } catch (Exception e) {
-            Log.e("DatabaseManager", "Error ensuring academic programs table: " + e.getMessage());
+    /**
+     * Makes programIds the complete set of programs for the course. Only the difference
+     * from what is stored gets written, in one transaction, so either every change lands
+     * or none does.
+     */
+    public boolean setCoursePrograms(int courseId, Collection<Integer> programIds) {
+        try (DatabaseLocks.Lease lease = writeLease("setCoursePrograms", TABLE_COURSE_PROGRAMS)) {
+            SQLiteDatabase db = getWritableDatabase();
+            Set<Integer> added = new HashSet<>(programIds);
+            Set<Integer> removed;
+
+            db.beginTransaction();
+            try {
+                Set<Integer> current = readProgramIds(db, courseId);
+                added.removeAll(current);
+                removed = current;
+                removed.removeAll(programIds);
+
+                for (int programId : added) {
+                    ContentValues values = new ContentValues();
+                    values.put("course_id", courseId);
+                    values.put("program_id", programId);
+                    db.insertOrThrow(TABLE_COURSE_PROGRAMS, null, values);
+                }
+                for (int programId : removed) {
+                    db.delete(TABLE_COURSE_PROGRAMS, "course_id = ? AND program_id = ?",
+                            new String[]{String.valueOf(courseId), String.valueOf(programId)});
+                }
+                db.setTransactionSuccessful();
+            } catch (Exception e) {
+                Log.e("DatabaseManager", "Error setting programs for course " + courseId, e);
+                return false;
+            } finally {
+                db.endTransaction();
+            }
+
+            updateCourseCatalog(catalog -> {
+                for (int programId : added) {
+                    catalog = catalog.withProgramCourse(programId, courseId);
+                }
+                for (int programId : removed) {
+                    catalog = catalog.withoutProgramCourse(programId, courseId);
+                }
+                return catalog;
+            });
+            return true;
         }
     }
 
 
     // CAREER OPERATIONS
 
+    private static final String CAREER_COLUMNS =
+            "id AS _id, occupation_title, occupation_code, employment_2023, " +
+                    "employment_percent_change, median_annual_wage, education_work_experience";
+    private static final String[] CAREER_COLUMN_NAMES = {"_id", "occupation_title", "occupation_code",
+            "employment_2023", "employment_percent_change", "median_annual_wage", "education_work_experience"};
+    private static final String ALL_CAREERS_SQL =
+            "SELECT " + CAREER_COLUMNS + " FROM careers ORDER BY occupation_title";
+    /*
+     * Ranked career search over careers_fts: occupation-code hits first (so "15-12" finds
+     * 15-1221 and 15-1299), then title hits, then matches split across title and code.
+     * Parameters: ?1 code filter, ?2 title filter, ?3 any-column filter.
+     */
+    private static final String SEARCH_CAREERS_SQL =
+            "SELECT ca.id AS _id, ca.occupation_title, ca.occupation_code, ca.employment_2023, " +
+                    "ca.employment_percent_change, ca.median_annual_wage, ca.education_work_experience " +
+                    "FROM (" + rankedMatchesSql(DatabaseHelper.TABLE_CAREERS_FTS, "", 3) + ") ranked " +
+                    "JOIN " + TABLE_CAREERS + " ca ON ca.id = ranked.docid " +
+                    "ORDER BY ranked.tier, ca.occupation_title";
+    private static final String CAREER_BY_ID_SQL =
+            "SELECT " + CAREER_COLUMNS + " FROM careers WHERE id = ?";
+    // Exact title lookups ignore case and use idx_careers_title_nocase
+    private static final String CAREER_BY_TITLE_SQL =
+            "SELECT " + CAREER_COLUMNS + " FROM careers WHERE occupation_title = ? COLLATE NOCASE";
+
     public Cursor getAllCareers() {
-        SQLiteDatabase db = getReadableDatabase();
+        try (DatabaseLocks.Lease lease = locks.read("getAllCareers")) {
+            SQLiteDatabase db = getReadableDatabase();
 
-        return db.rawQuery(
-                "SELECT id, occupation_title, occupation_code, employment_2023, " +
-                        "employment_percent_change, median_annual_wage, education_work_experience " +
-                        "FROM careers ORDER BY occupation_title",
-                null);
+            return QueryTracer.rawQuery(db, ALL_CAREERS_SQL, null);
+        }
     }
 
     public Cursor searchCareers(String query) {
-        SQLiteDatabase db = getReadableDatabase();
+        try (DatabaseLocks.Lease lease = locks.read("searchCareers")) {
+            SQLiteDatabase db = getReadableDatabase();
+
+            String any = buildMatchQuery(query, null);
+            if (any == null) {
+                return QueryTracer.rawQuery(db, ALL_CAREERS_SQL, null);
+            }
+            String[] args = {buildCodeQuery(query),
+                    buildMatchQuery(query, "occupation_title"), any};
 
-        return db.rawQuery(
-                "SELECT id, occupation_title, occupation_code, employment_2023, " +
-                        "employment_percent_change, median_annual_wage, education_work_experience " +
-                        "FROM careers WHERE occupation_title LIKE ? OR occupation_code LIKE ?",
-                new String[]{"%" + query + "%", "%" + query + "%"});
+            try {
+                return QueryTracer.rawQuery(db, SEARCH_CAREERS_SQL, args);
+            } catch (Exception e) {
+                Log.e("DatabaseManager", "Error searching careers", e);
+                return new MatrixCursor(CAREER_COLUMN_NAMES);
+            }
+        }
     }
 
     public boolean addCareer(String occupationTitle, String occupationCode,
                              int employment2023, float employmentChange,
                              float medianWage, String education) {
-        SQLiteDatabase db = getWritableDatabase();
-
-        ContentValues values = new ContentValues();
-        values.put("occupation_title", occupationTitle);
-        values.put("occupation_code", occupationCode);
-        values.put("employment_2023", employment2023);
-        values.put("employment_percent_change", employmentChange);
-        values.put("median_annual_wage", medianWage);
-        values.put("education_work_experience", education);
+        try (DatabaseLocks.Lease lease = writeLease("addCareer", TABLE_CAREERS, TABLE_CAREER_FIELDS)) {
+            SQLiteDatabase db = getWritableDatabase();
 
-        long result = db.insert("careers", null, values);
-        db.close();
+            ContentValues values = new ContentValues();
+            values.put("occupation_title", occupationTitle);
+            values.put("occupation_code", occupationCode);
+            values.put("employment_2023", employment2023);
+            values.put("employment_percent_change", employmentChange);
+            values.put("median_annual_wage", medianWage);
+            values.put("education_work_experience", education);
 
-        return result != -1;
+            db.beginTransaction();
+            try {
+                long result = db.insert("careers", null, values);
+                if (result == -1) {
+                    return false;
+                }
+                SQLiteStatement insert = db.compileStatement(INSERT_CAREER_FIELD_SQL);
+                try {
+                    classifyCareer(insert, result, occupationTitle);
+                } finally {
+                    insert.close();
+                }
+                db.setTransactionSuccessful();
+                return true;
+            } finally {
+                db.endTransaction();
+            }
+        }
     }
 
-    // CAREER by title
-    public Cursor getCareerDetailsByTitle(String occupationTitle) {
-        SQLiteDatabase db = getReadableDatabase();
-
-        Log.d("DatabaseManager", "Searching for career title: " + occupationTitle);
-
-        // Remove any trailing details
-        occupationTitle = occupationTitle.split("\t")[0].trim();
-
-        Cursor cursor = db.rawQuery(
-                "SELECT * FROM careers WHERE occupation_title = ?",
-                new String[]{occupationTitle}
-        );
-
-        Log.d("DatabaseManager", "Exact match cursor count: " + cursor.getCount());
-
-        // If no exact match, try partial match
-        if (cursor.getCount() == 0) {
-            cursor.close();
-
-            cursor = db.rawQuery(
-                    "SELECT * FROM careers WHERE occupation_title LIKE ?",
-                    new String[]{"%" + occupationTitle + "%"}
-            );
+    // CAREER by id; the list screens navigate with this
+    public Cursor getCareerById(int careerId) {
+        try (DatabaseLocks.Lease lease = locks.read("getCareerById")) {
+            SQLiteDatabase db = getReadableDatabase();
 
-            Log.d("DatabaseManager", "Partial match cursor count: " + cursor.getCount());
+            return QueryTracer.rawQuery(db, CAREER_BY_ID_SQL, new String[]{String.valueOf(careerId)});
         }
-
-        return cursor;
     }
 
-    // CAREER-COURSE RELATIONSHIP
-
-    // linking occupations with related courses
-    public void createCareerCoursesTable() {
-        SQLiteDatabase db = getWritableDatabase();
-
-        // Check if the table already exists
-        Cursor cursor = db.rawQuery(
-                "SELECT name FROM sqlite_master WHERE type='table' AND name='career_courses'",
-                null);
+    // CAREER by exact title, ignoring case
+    public Cursor getCareerDetailsByTitle(String occupationTitle) {
+        try (DatabaseLocks.Lease lease = locks.read("getCareerDetailsByTitle")) {
+            SQLiteDatabase db = getReadableDatabase();
 
-        boolean tableExists = cursor.getCount() > 0;
-        cursor.close();
+            // Remove any trailing details
+            occupationTitle = occupationTitle.split("\t")[0].trim();
 
-        if (!tableExists) {
-            String CREATE_CAREER_COURSES_TABLE = "CREATE TABLE career_courses ("
-                    + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
-                    + "career_id INTEGER, "
-                    + "course_id INTEGER, "
-                    + "relevance INTEGER, "
-                    + "UNIQUE(career_id, course_id))";
-            db.execSQL(CREATE_CAREER_COURSES_TABLE);
+            return QueryTracer.rawQuery(db, CAREER_BY_TITLE_SQL, new String[]{occupationTitle});
         }
-
-        db.close();
     }
 
-    public boolean addRecommendedCourse(int careerId, int courseId, int relevance) {
-        // First ensure the table exists
-        createCareerCoursesTable();
+    // CAREER-COURSE RELATIONSHIP
 
-        SQLiteDatabase db = getWritableDatabase();
+    public boolean addRecommendedCourse(int careerId, int courseId, int relevance) {
+        try (DatabaseLocks.Lease lease = writeLease("addRecommendedCourse", TABLE_CAREER_COURSES)) {
+            SQLiteDatabase db = getWritableDatabase();
 
-        ContentValues values = new ContentValues();
-        values.put("career_id", careerId);
-        values.put("course_id", courseId);
-        values.put("relevance", relevance);
+            ContentValues values = new ContentValues();
+            values.put("career_id", careerId);
+            values.put("course_id", courseId);
+            values.put("relevance", relevance);
 
-        long result = db.insert("career_courses", null, values);
-        db.close();
+            long result = db.insert("career_courses", null, values);
 
-        return result != -1;
+            return result != -1;
+        }
     }
 
     public boolean removeRecommendedCourse(int careerId, int courseId) {
-        SQLiteDatabase db = getWritableDatabase();
+        try (DatabaseLocks.Lease lease = writeLease("removeRecommendedCourse", TABLE_CAREER_COURSES)) {
+            SQLiteDatabase db = getWritableDatabase();
 
-        int result = db.delete("career_courses",
-                "career_id = ? AND course_id = ?",
-                new String[]{String.valueOf(careerId), String.valueOf(courseId)});
+            int result = db.delete("career_courses",
+                    "career_id = ? AND course_id = ?",
+                    new String[]{String.valueOf(careerId), String.valueOf(courseId)});
 
-        db.close();
-        return result > 0;
+            return result > 0;
+        }
     }
 
+    // idx_career_courses_career_relevance returns rows already in relevance order
+    private static final String RECOMMENDED_COURSES_SQL =
+            "SELECT c.id, c.course AS title, c.description, cc.relevance " +
+                    "FROM courses c " +
+                    "JOIN career_courses cc ON c.id = cc.course_id " +
+                    "WHERE cc.career_id = ? " +
+                    "ORDER BY cc.relevance DESC";
+    private static final String RECOMMENDATION_COUNT_SQL = "SELECT COUNT(*) FROM career_courses";
+
     public Cursor getRecommendedCourses(int careerId) {
-        SQLiteDatabase db = getReadableDatabase();
+        try (DatabaseLocks.Lease lease = locks.read("getRecommendedCourses")) {
+            SQLiteDatabase db = getReadableDatabase();
 
-        return db.rawQuery(
-                "SELECT c.id, c.title, c.description, cc.relevance " +
-                        "FROM courses c " +
-                        "JOIN career_courses cc ON c.id = cc.course_id " +
-                        "WHERE cc.career_id = ? " +
-                        "ORDER BY cc.relevance DESC",
-                new String[]{String.valueOf(careerId)});
+            return QueryTracer.rawQuery(db, RECOMMENDED_COURSES_SQL, new String[]{String.valueOf(careerId)});
+        }
     }
 
     public int getRecommendationCount() {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM career_courses", null);
-        int count = 0;
-        if (cursor.moveToFirst()) {
-            count = cursor.getInt(0);
+        try (DatabaseLocks.Lease lease = locks.read("getRecommendationCount")) {
+            SQLiteDatabase db = getReadableDatabase();
+            Cursor cursor = QueryTracer.rawQuery(db, RECOMMENDATION_COUNT_SQL, null);
+            int count = 0;
+            if (cursor.moveToFirst()) {
+                count = cursor.getInt(0);
+            }
+            cursor.close();
+            return count;
         }
-        cursor.close();
-        db.close();
-        return count;
     }
     // CSV IMPORT METHODS
 
-    public boolean importCareersFromCSV(String[] csvLines) {
-        SQLiteDatabase db = getWritableDatabase();
-        boolean success = true;
-        int insertCount = 0;
-
-        try {
-            db.beginTransaction();
+    // Tab-separated: title, code, employment 2023, percent change, median wage, education
+    static final DeltaImporter.KeyedFormat CAREER_ROWS = new DeltaImporter.KeyedFormat() {
+        @Override
+        public String table() {
+            return TABLE_CAREERS;
+        }
 
-            for (int i = 1; i < csvLines.length; i++) { // Skip header row
-                // Use tab as delimiter and trim each value
-                String[] values = csvLines[i].trim().split("\t");
+        // Titles get reworded between releases; the occupation code does not
+        @Override
+        public int[] keyColumns() {
+            return new int[]{1};
+        }
 
-                if (values.length >= 6) {
-                    ContentValues contentValues = new ContentValues();
-                    contentValues.put("occupation_title", values[0].trim());
-                    contentValues.put("occupation_code", values[1].trim());
+        // Matched through idx_careers_code
+        @Override
+        public String updateSql() {
+            return "UPDATE OR IGNORE " + TABLE_CAREERS + " SET occupation_title = ?, employment_2023 = ?, "
+                    + "employment_percent_change = ?, median_annual_wage = ?, education_work_experience = ? "
+                    + "WHERE occupation_code = ?";
+        }
 
-                    try {
-                        contentValues.put("employment_2023",
-                                Float.parseFloat(values[2].trim()));
-                    } catch (Exception e) {
-                        contentValues.put("employment_2023", 0);
-                    }
+        @Override
+        public String[] deleteSql() {
+            return new String[]{
+                    "DELETE FROM " + TABLE_CAREER_COURSES + " WHERE career_id IN (SELECT id FROM " + TABLE_CAREERS
+                            + " WHERE occupation_code = ?)",
+                    "DELETE FROM " + TABLE_CAREERS + " WHERE occupation_code = ?"};
+        }
 
-                    try {
-                        contentValues.put("employment_percent_change",
-                                Float.parseFloat(values[3].trim()));
-                    } catch (Exception e) {
-                        contentValues.put("employment_percent_change", 0.0f);
-                    }
+        // career_fields loses the deleted careers' rows through its trigger
+        @Override
+        public String[] dependentTables() {
+            return new String[]{TABLE_CAREER_COURSES, TABLE_CAREER_FIELDS};
+        }
 
-                    try {
-                        contentValues.put("median_annual_wage",
-                                Float.parseFloat(values[4].trim()));
-                    } catch (Exception e) {
-                        contentValues.put("median_annual_wage", 0.0f);
-                    }
+        @Override
+        public String insertSql() {
+            return "INSERT OR IGNORE INTO " + TABLE_CAREERS + " (occupation_title, occupation_code, employment_2023, "
+                    + "employment_percent_change, median_annual_wage, education_work_experience) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+        }
 
-                    contentValues.put("education_work_experience", values[5].trim());
+        @Override
+        public int columns() {
+            return 6;
+        }
 
-                    long result = db.insert("careers", null, contentValues);
-                    if (result != -1) {
-                        insertCount++;
-                    }
+        @Override
+        public String parse(String[] values, Object[] row) {
+            if (values.length < 6) {
+                return "expected 6 columns, found " + values.length;
+            }
+            row[0] = values[0].trim();
+            row[1] = values[1].trim();
+            for (int i = 2; i < 5; i++) {
+                // Unparseable figures import as 0, as they always have
+                try {
+                    row[i] = Float.parseFloat(values[i].trim());
+                } catch (NumberFormatException e) {
+                    row[i] = 0f;
                 }
             }
+            row[5] = values[5].trim();
+            return null;
+        }
+    };
 
-            db.setTransactionSuccessful();
+    public boolean importCareersFromCSV(String[] csvLines) {
+        try {
+            importCareers(CsvImporter.lines(csvLines), Integer.MAX_VALUE, LOGGED_REJECTS);
+            return true;
         } catch (Exception e) {
-            success = false;
-            e.printStackTrace();
+            Log.e("CSV Import", "Error importing careers", e);
+            return false;
+        }
+    }
+
+    CsvImporter.Result importCareers(CsvImporter.Lines lines, int batchSize, CsvImporter.Listener listener)
+            throws IOException {
+        return importCareers(lines, batchSize, 1, listener);
+    }
+
+    // Streams careers in, committing every batchSize rows; titles already present are rejected
+    CsvImporter.Result importCareers(CsvImporter.Lines lines, int batchSize, int parseThreads,
+                                     CsvImporter.Listener listener) throws IOException {
+        try {
+            CsvImporter.Result result = csvImporter().run(lines, CAREER_ROWS, batchSize, parseThreads, listener);
+            Log.i("CSV Import", "Careers: " + result);
+            return result;
         } finally {
-            db.endTransaction();
-            db.close();
+            // Committed batches stay even if the import stops early, so classify whatever landed
+            try (DatabaseLocks.Lease lease = writeLease("importCareers", TABLE_CAREER_FIELDS)) {
+                classifyCareers(getWritableDatabase());
+            }
         }
+    }
 
-        return success;
+    // Delta import keyed on occupation code; see importCoursesDelta
+    DeltaImporter.Result importCareersDelta(String source, DeltaImporter.Source input, CsvImporter.Listener listener)
+            throws IOException {
+        DeltaImporter.Result result = deltaImporter().run(source, input, CAREER_ROWS, listener);
+        if (result.changedRows()) {
+            // Updates can retitle a career, which can move it to another field
+            try (DatabaseLocks.Lease lease = writeLease("importCareersDelta", TABLE_CAREER_FIELDS)) {
+                classifyCareers(getWritableDatabase());
+            }
+        }
+        Log.i("CSV Import", "Careers from " + source + ": " + result);
+        return result;
     }
 
     public void clearCareersTable() {
-        SQLiteDatabase db = getWritableDatabase();
-        db.execSQL("DELETE FROM " + TABLE_CAREERS);
-        db.close();
+        try (DatabaseLocks.Lease lease = writeLease("clearCareersTable", TABLE_CAREERS, TABLE_CAREER_FIELDS)) {
+            SQLiteDatabase db = getWritableDatabase();
+            db.execSQL("DELETE FROM " + TABLE_CAREERS);
+        }
     }
 
+    private static final String CAREER_COUNT_SQL = "SELECT COUNT(*) FROM " + TABLE_CAREERS;
+
     public int getCareerCount() {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_CAREERS, null);
-        int count = 0;
-        if (cursor.moveToFirst()) {
-            count = cursor.getInt(0);
+        try (DatabaseLocks.Lease lease = locks.read("getCareerCount")) {
+            SQLiteDatabase db = getReadableDatabase();
+            Cursor cursor = QueryTracer.rawQuery(db, CAREER_COUNT_SQL, null);
+            int count = 0;
+            if (cursor.moveToFirst()) {
+                count = cursor.getInt(0);
+            }
+            cursor.close();
+            return count;
         }
-        cursor.close();
-        db.close();
-        return count;
     }
 
     public static class Recommendation {
         public int id;
         public String recommendationInfo;
         public String relevanceInfo;
+        // Sort key of the paged list; null when loaded through getAllRecommendationsSafe
+        public String occupationTitle;
+        public int relevance;
 
         public Recommendation(int id, String recommendationInfo, String relevanceInfo) {
             this.id = id;
             this.recommendationInfo = recommendationInfo;
             this.relevanceInfo = relevanceInfo;
         }
+
+        public Recommendation(int id, String recommendationInfo, String relevanceInfo,
+                              String occupationTitle, int relevance) {
+            this(id, recommendationInfo, relevanceInfo);
+            this.occupationTitle = occupationTitle;
+            this.relevance = relevance;
+        }
     }
 
+    // Shared by both recommendation list queries; career_courses always exists since the v55 migration
+    private static final String ALL_RECOMMENDATIONS_SQL =
+            "SELECT cc.id AS _id, " +
+                    "ca.occupation_title || ' → ' || co.course AS recommendation_info, " +
+                    "'Relevance: ' || cc.relevance || '/10' AS relevance_info " +
+                    "FROM " + DatabaseHelper.TABLE_CAREER_COURSES + " cc " +
+                    "JOIN " + DatabaseHelper.TABLE_CAREERS + " ca ON cc.career_id = ca.id " +
+                    "JOIN " + TABLE_COURSES + " co ON cc.course_id = co.id " +
+                    "ORDER BY ca.occupation_title, cc.relevance DESC";
+
     public List<Recommendation> getAllRecommendationsSafe() {
         List<Recommendation> list = new ArrayList<>();
-        createCareerCoursesTable(); // Ensure table exists
 
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = locks.read("getAllRecommendationsSafe")) {
             SQLiteDatabase db = getReadableDatabase();
             Cursor cursor = null;
-            Cursor columnCheck = null;
-            Cursor tableCheck = null;
 
             try {
-                // Check if the table exists
-                tableCheck = db.rawQuery(
-                        "SELECT name FROM sqlite_master WHERE type='table' AND name='career_courses'",
-                        null);
-                boolean tableExists = tableCheck.getCount() > 0;
-
-                if (!tableExists) {
-                    Log.w("DatabaseManager", "career_courses table does not exist");
-                    return list;
-                }
-
-                // Check column names in the courses table
-                columnCheck = db.rawQuery("PRAGMA table_info(" + TABLE_COURSES + ")", null);
-                String courseColumnName = "course"; // default
-
-                if (columnCheck.moveToFirst()) {
-                    do {
-                        int nameIndex = columnCheck.getColumnIndex("name");
-                        if (nameIndex != -1) {
-                            String colName = columnCheck.getString(nameIndex);
-                            if ("title".equals(colName)) {
-                                courseColumnName = "title";
-                                break;
-                            } else if ("course".equals(colName)) {
-                                courseColumnName = "course";
-                                break;
-                            }
-                        }
-                    } while (columnCheck.moveToNext());
-                }
-
-                // Construct and run the actual query
-                cursor = db.rawQuery(
-                        "SELECT cc.id AS _id, " +
-                                "ca.occupation_title || ' → ' || co." + courseColumnName + " AS recommendation_info, " +
-                                "'Relevance: ' || cc.relevance || '/10' AS relevance_info " +
-                                "FROM career_courses cc " +
-                                "JOIN " + DatabaseHelper.TABLE_CAREERS + " ca ON cc.career_id = ca.id " +
-                                "JOIN " + TABLE_COURSES + " co ON cc.course_id = co.id " +
-                                "ORDER BY ca.occupation_title, cc.relevance DESC", null);
+                cursor = queryCache.query(db, ALL_RECOMMENDATIONS_SQL, null,
+                        TABLE_CAREER_COURSES, TABLE_CAREERS, TABLE_COURSES);
 
                 if (cursor.moveToFirst()) {
                     do {
@@ -1357,8 +1861,6 @@ public class DatabaseManager {
                 Log.e("DatabaseManager", "Error fetching recommendations", e);
             } finally {
                 if (cursor != null && !cursor.isClosed()) cursor.close();
-                if (tableCheck != null && !tableCheck.isClosed()) tableCheck.close();
-                if (columnCheck != null && !columnCheck.isClosed()) columnCheck.close();
             }
         }
 
@@ -1366,60 +1868,138 @@ public class DatabaseManager {
     }
 
     public Cursor getAllRecommendations() {
-        createCareerCoursesTable(); // Ensure the table exists
-        synchronized (dbLock) {
+        try (DatabaseLocks.Lease lease = locks.read("getAllRecommendations")) {
             try {
                 SQLiteDatabase db = getReadableDatabase();
+                return QueryTracer.rawQuery(db, ALL_RECOMMENDATIONS_SQL, null);
+            } catch (Exception e) {
+                Log.e("DatabaseManager", "Error getting all recommendations", e);
+                return null;
+            }
+        }
+    }
 
-                // First check if the career_courses table exists
-                Cursor tableCheck = db.rawQuery(
-                        "SELECT name FROM sqlite_master WHERE type='table' AND name='career_courses'",
-                        null);
-                boolean tableExists = tableCheck.getCount() > 0;
-                tableCheck.close();
+    // PAGED LISTS
 
-                if (!tableExists) {
-                    Log.w("DatabaseManager", "career_courses table does not exist");
-                    return null;
-                }
+    /*
+     * Keyset pagination: each page starts strictly after the last row of the previous one,
+     * so a page costs an index seek plus pageSize rows however deep the user has scrolled,
+     * and rows inserted or deleted meanwhile never shift later pages. Course titles are
+     * never NULL (every writer sets one), so the key needs no NULL case.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    private static final String COURSE_PAGE_SELECT =
+            "SELECT id as _id, course, reference, credits, description, " +
+                    "session, start_date, end_date, instructor FROM " + TABLE_COURSES;
+    private static final String COURSE_PAGE_ORDER = " ORDER BY course, id LIMIT ?";
+    private static final String FIRST_COURSE_PAGE_SQL = COURSE_PAGE_SELECT + COURSE_PAGE_ORDER;
+    private static final String NEXT_COURSE_PAGE_SQL = COURSE_PAGE_SELECT +
+            " WHERE course >= ?1 AND (course > ?1 OR id > ?2)" + COURSE_PAGE_ORDER;
+
+    private static final String PROGRAM_COURSE_PAGE_SELECT =
+            "SELECT c.id as _id, c.course, c.reference, c.credits, c.description, " +
+                    "c.session, c.start_date, c.end_date, c.instructor " +
+                    "FROM " + TABLE_COURSES + " c " +
+                    "JOIN " + TABLE_COURSE_PROGRAMS + " cp ON c.id = cp.course_id " +
+                    "WHERE cp.program_id = ?1";
+    private static final String PROGRAM_COURSE_PAGE_ORDER = " ORDER BY c.course, c.id LIMIT ?";
+    private static final String FIRST_PROGRAM_COURSE_PAGE_SQL = PROGRAM_COURSE_PAGE_SELECT + PROGRAM_COURSE_PAGE_ORDER;
+    private static final String NEXT_PROGRAM_COURSE_PAGE_SQL = PROGRAM_COURSE_PAGE_SELECT +
+            " AND c.course >= ?2 AND (c.course > ?2 OR c.id > ?3)" + PROGRAM_COURSE_PAGE_ORDER;
+
+    // Titles compare NOCASE so idx_careers_title_nocase gives the seek and the outer order;
+    // idx_career_courses_career_relevance then walks each career's rows by relevance.
+    // CROSS JOIN pins careers as the outer loop, which the planner would not pick on its own
+    // without ANALYZE statistics.
+    private static final String RECOMMENDATION_PAGE_SELECT =
+            "SELECT cc.id AS _id, ca.occupation_title, cc.relevance, " +
+                    "ca.occupation_title || ' → ' || co.course AS recommendation_info, " +
+                    "'Relevance: ' || cc.relevance || '/10' AS relevance_info " +
+                    "FROM " + TABLE_CAREERS + " ca " +
+                    "CROSS JOIN " + TABLE_CAREER_COURSES + " cc ON cc.career_id = ca.id " +
+                    "JOIN " + TABLE_COURSES + " co ON cc.course_id = co.id";
+    private static final String RECOMMENDATION_PAGE_ORDER =
+            " ORDER BY ca.occupation_title COLLATE NOCASE, cc.relevance DESC, cc.id LIMIT ?";
+    private static final String FIRST_RECOMMENDATION_PAGE_SQL = RECOMMENDATION_PAGE_SELECT + RECOMMENDATION_PAGE_ORDER;
+    private static final String NEXT_RECOMMENDATION_PAGE_SQL = RECOMMENDATION_PAGE_SELECT +
+            " WHERE ca.occupation_title >= ?1 COLLATE NOCASE AND (ca.occupation_title > ?1 COLLATE NOCASE" +
+            " OR cc.relevance < ?2 OR (cc.relevance = ?2 AND cc.id > ?3))" + RECOMMENDATION_PAGE_ORDER;
 
-                // Now check column names in the courses table
-                Cursor columnCheck = db.rawQuery("PRAGMA table_info(" + TABLE_COURSES + ")", null);
-                String courseColumnName = "course"; // Default column name
-
-                if (columnCheck != null) {
-                    if (columnCheck.moveToFirst()) {
-                        do {
-                            int nameIndex = columnCheck.getColumnIndex("name");
-                            if (nameIndex != -1) {
-                                String colName = columnCheck.getString(nameIndex);
-                                if ("title".equals(colName)) {
-                                    courseColumnName = "title";
-                                    break;
-                                } else if ("course".equals(colName)) {
-                                    courseColumnName = "course";
-                                    break;
-                                }
-                            }
-                        } while (columnCheck.moveToNext());
-                    }
-                    columnCheck.close();
-                }
+    /**
+     * Up to pageSize courses ordered by (course, id), starting after the given course, or
+     * from the top when after is null. An empty or short page means the end was reached.
+     */
+    public List<Course> getCoursesPage(Course after, int pageSize) {
+        CourseCatalog catalog = courseCatalog;
+        if (catalog != null) {
+            return CourseCatalog.pageAfter(catalog.getAll(), after, pageSize);
+        }
 
-                // Now construct query with the correct column name
-                return db.rawQuery(
-                        "SELECT cc.id AS _id, " +
-                                "ca.occupation_title || ' → ' || co." + courseColumnName + " AS recommendation_info, " +
-                                "'Relevance: ' || cc.relevance || '/10' AS relevance_info " +
-                                "FROM career_courses cc " +
-                                "JOIN " + DatabaseHelper.TABLE_CAREERS + " ca ON cc.career_id = ca.id " +
-                                "JOIN " + TABLE_COURSES + " co ON cc.course_id = co.id " +
-                                "ORDER BY ca.occupation_title, cc.relevance DESC", null);
-            } catch (Exception e) {
-                Log.e("DatabaseManager", "Error getting all recommendations", e);
-                return null;
+        try (DatabaseLocks.Lease lease = locks.read("getCoursesPage")) {
+            String limit = String.valueOf(pageSize);
+            Cursor cursor = after == null
+                    ? QueryTracer.rawQuery(getReadableDatabase(), FIRST_COURSE_PAGE_SQL, new String[]{limit})
+                    : QueryTracer.rawQuery(getReadableDatabase(), NEXT_COURSE_PAGE_SQL,
+                            new String[]{after.getTitle(), String.valueOf(after.getId()), limit});
+            return RowMapper.mapAll(cursor, Course.MAPPER);
+        } catch (Exception e) {
+            Log.e("DatabaseManager", "Error loading course page", e);
+            return Collections.emptyList();
+        }
+    }
+
+    // Same as getCoursesPage, limited to one program
+    public List<Course> getCoursesForProgramPage(int programId, Course after, int pageSize) {
+        CourseCatalog catalog = courseCatalog;
+        if (catalog != null) {
+            return CourseCatalog.pageAfter(catalog.getForProgram(programId), after, pageSize);
+        }
+
+        try (DatabaseLocks.Lease lease = locks.read("getCoursesForProgramPage")) {
+            String program = String.valueOf(programId);
+            String limit = String.valueOf(pageSize);
+            Cursor cursor = after == null
+                    ? QueryTracer.rawQuery(getReadableDatabase(), FIRST_PROGRAM_COURSE_PAGE_SQL,
+                            new String[]{program, limit})
+                    : QueryTracer.rawQuery(getReadableDatabase(), NEXT_PROGRAM_COURSE_PAGE_SQL,
+                            new String[]{program, after.getTitle(), String.valueOf(after.getId()), limit});
+            return RowMapper.mapAll(cursor, Course.MAPPER);
+        } catch (Exception e) {
+            Log.e("DatabaseManager", "Error loading program course page", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Up to pageSize recommendations ordered by career title, then relevance (highest
+     * first), then id, starting after the given one. after must come from an earlier page.
+     */
+    public List<Recommendation> getRecommendationsPage(Recommendation after, int pageSize) {
+        List<Recommendation> page = new ArrayList<>();
+        try (DatabaseLocks.Lease lease = locks.read("getRecommendationsPage")) {
+            String limit = String.valueOf(pageSize);
+            Cursor cursor = after == null
+                    ? QueryTracer.rawQuery(getReadableDatabase(), FIRST_RECOMMENDATION_PAGE_SQL, new String[]{limit})
+                    : QueryTracer.rawQuery(getReadableDatabase(), NEXT_RECOMMENDATION_PAGE_SQL, new String[]{
+                            after.occupationTitle, String.valueOf(after.relevance), String.valueOf(after.id), limit});
+            try {
+                int id = cursor.getColumnIndexOrThrow("_id");
+                int title = cursor.getColumnIndexOrThrow("occupation_title");
+                int relevance = cursor.getColumnIndexOrThrow("relevance");
+                int recommendationInfo = cursor.getColumnIndexOrThrow("recommendation_info");
+                int relevanceInfo = cursor.getColumnIndexOrThrow("relevance_info");
+                while (cursor.moveToNext()) {
+                    page.add(new Recommendation(cursor.getInt(id), cursor.getString(recommendationInfo),
+                            cursor.getString(relevanceInfo), cursor.getString(title), cursor.getInt(relevance)));
+                }
+            } finally {
+                cursor.close();
             }
+        } catch (Exception e) {
+            Log.e("DatabaseManager", "Error loading recommendation page", e);
         }
+        return page;
     }
     public static class CareerIdPair {
         public int id;
@@ -1431,325 +2011,414 @@ public class DatabaseManager {
         }
     }
 
+    private static final String CAREER_ID_TITLE_PAIRS_SQL = "SELECT id, occupation_title FROM careers";
+
     public List<CareerIdPair> getCareerIdTitlePairs() {
-        SQLiteDatabase db = null;
-        Cursor cursor = null;
-        List<CareerIdPair> pairs = new ArrayList<>();
+        try (DatabaseLocks.Lease lease = locks.read("getCareerIdTitlePairs")) {
+            SQLiteDatabase db = null;
+            Cursor cursor = null;
+            List<CareerIdPair> pairs = new ArrayList<>();
 
-        try {
-            db = getReadableDatabase();
-            cursor = db.rawQuery("SELECT id, occupation_title FROM careers", null);
+            try {
+                db = getReadableDatabase();
+                cursor = queryCache.query(db, CAREER_ID_TITLE_PAIRS_SQL, null, TABLE_CAREERS);
 
-            // Safely get column indices with validation
-            int idColumnIndex = cursor.getColumnIndex("id");
-            int titleColumnIndex = cursor.getColumnIndex("occupation_title");
+                // Safely get column indices with validation
+                int idColumnIndex = cursor.getColumnIndex("id");
+                int titleColumnIndex = cursor.getColumnIndex("occupation_title");
 
-            // Validate column indices
-            if (idColumnIndex < 0 || titleColumnIndex < 0) {
-                Log.e("DatabaseManager", "Invalid column indices in getCareerIdTitlePairs()");
-                return pairs;
-            }
+                // Validate column indices
+                if (idColumnIndex < 0 || titleColumnIndex < 0) {
+                    Log.e("DatabaseManager", "Invalid column indices in getCareerIdTitlePairs()");
+                    return pairs;
+                }
 
-            while (cursor.moveToNext()) {
-                try {
-                    // Safely retrieve values
-                    int id = cursor.getInt(idColumnIndex);
-                    String title = cursor.getString(titleColumnIndex);
+                while (cursor.moveToNext()) {
+                    try {
+                        // Safely retrieve values
+                        int id = cursor.getInt(idColumnIndex);
+                        String title = cursor.getString(titleColumnIndex);
 
-                    // Only add if both id and title are valid
-                    if (title != null && !title.trim().isEmpty()) {
-                        pairs.add(new CareerIdPair(id, title));
+                        // Only add if both id and title are valid
+                        if (title != null && !title.trim().isEmpty()) {
+                            pairs.add(new CareerIdPair(id, title));
+                        }
+                    } catch (Exception e) {
+                        Log.e("DatabaseManager", "Error processing individual career pair", e);
                     }
-                } catch (Exception e) {
-                    Log.e("DatabaseManager", "Error processing individual career pair", e);
+                }
+            } catch (Exception e) {
+                Log.e("DatabaseManager", "Error retrieving career ID pairs", e);
+            } finally {
+                // Ensure cursor and database are closed
+                if (cursor != null) {
+                    cursor.close();
                 }
             }
-        } catch (Exception e) {
-            Log.e("DatabaseManager", "Error retrieving career ID pairs", e);
-        } finally {
-            // Ensure cursor and database are closed
-            if (cursor != null) {
-                cursor.close();
-            }
-            if (db != null) {
-                db.close();
+
+            // If no careers found, add a default "All Careers" entry
+            if (pairs.isEmpty()) {
+                pairs.add(new CareerIdPair(-1, "All Careers"));
             }
-        }
 
-        // If no careers found, add a default "All Careers" entry
-        if (pairs.isEmpty()) {
-            pairs.add(new CareerIdPair(-1, "All Careers"));
+            return pairs;
         }
+    }
 
+    // career_fields' primary key finds the field's rows; each career is then a rowid lookup
+    private static final String CAREERS_IN_FIELD_SQL =
+            "SELECT c.id, c.occupation_title FROM " + TABLE_CAREER_FIELDS + " cf " +
+                    "JOIN " + TABLE_CAREERS + " c ON c.id = cf.career_id " +
+                    "WHERE cf.field = ? " +
+                    "ORDER BY c.occupation_title";
+
+    /**
+     * Careers filed under field, by title, as classified when each career was written.
+     */
+    public List<CareerIdPair> getCareersInField(String field) {
+        List<CareerIdPair> pairs = new ArrayList<>();
+        try (DatabaseLocks.Lease lease = locks.read("getCareersInField")) {
+            Cursor cursor = queryCache.query(getReadableDatabase(), CAREERS_IN_FIELD_SQL, new String[]{field},
+                    TABLE_CAREER_FIELDS, TABLE_CAREERS);
+            try {
+                while (cursor.moveToNext()) {
+                    pairs.add(new CareerIdPair(cursor.getInt(0), cursor.getString(1)));
+                }
+            } finally {
+                cursor.close();
+            }
+        } catch (Exception e) {
+            Log.e("DatabaseManager", "Error loading careers for " + field, e);
+        }
         return pairs;
     }
+
+    private static final String COURSE_EXISTS_SQL = "SELECT id FROM courses WHERE id = ?";
+
     public boolean courseExists(int courseId) {
-        SQLiteDatabase db = getReadableDatabase();
+        try (DatabaseLocks.Lease lease = locks.read("courseExists")) {
+            SQLiteDatabase db = getReadableDatabase();
 
-        Cursor cursor = db.rawQuery("SELECT id FROM courses WHERE id = ?",
-                new String[]{String.valueOf(courseId)});
+            Cursor cursor = QueryTracer.rawQuery(db, COURSE_EXISTS_SQL, new String[]{String.valueOf(courseId)});
 
-        boolean exists = cursor.getCount() > 0;
-        cursor.close();
-        db.close();
+            boolean exists = cursor.getCount() > 0;
+            cursor.close();
 
-        return exists;
+            return exists;
+        }
     }
 
+    // Update first, then insert only if nothing matched: UNIQUE(career_id, course_id) makes
+    // the insert a no-op rather than a duplicate if another writer got there in between.
+    private static final String UPDATE_RECOMMENDATION_SQL =
+            "UPDATE " + TABLE_CAREER_COURSES + " SET relevance = ? WHERE career_id = ? AND course_id = ?";
+    private static final String INSERT_RECOMMENDATION_SQL =
+            "INSERT OR IGNORE INTO " + TABLE_CAREER_COURSES + " (relevance, career_id, course_id) VALUES (?, ?, ?)";
+
     public boolean updateOrAddRecommendedCourse(int careerId, int courseId, int relevance) {
-        createCareerCoursesTable(); // Ensure the table exists
-        SQLiteDatabase db = getWritableDatabase();
+        return putRecommendation(careerId, courseId, relevance).isSuccess();
+    }
 
-        // Check if this recommendation already exists
-        Cursor cursor = db.rawQuery(
-                "SELECT id FROM career_courses WHERE career_id = ? AND course_id = ?",
-                new String[]{String.valueOf(careerId), String.valueOf(courseId)});
+    // Adds the recommendation or changes its relevance; ADDED, UPDATED or FAILED
+    public WriteOutcome putRecommendation(int careerId, int courseId, int relevance) {
+        try (DatabaseLocks.Lease lease = writeLease("putRecommendation", TABLE_CAREER_COURSES)) {
+            return putRecommendation(getWritableDatabase(), careerId, courseId, relevance);
+        } catch (Exception e) {
+            Log.e("DatabaseManager", "Error saving recommendation", e);
+            return WriteOutcome.FAILED;
+        }
+    }
 
-        boolean exists = cursor.getCount() > 0;
-        cursor.close();
+    // Same as updateOrAddRecommendedCourse, committed together with other queued writes
+    public CompletableFuture<Boolean> updateOrAddRecommendedCourseQueued(int careerId, int courseId, int relevance) {
+        return putRecommendationQueued(careerId, courseId, relevance).thenApply(WriteOutcome::isSuccess);
+    }
 
-        ContentValues values = new ContentValues();
-        values.put("career_id", careerId);
-        values.put("course_id", courseId);
-        values.put("relevance", relevance);
+    public CompletableFuture<WriteOutcome> putRecommendationQueued(int careerId, int courseId, int relevance) {
+        return getGroupCommitQueue().submit("putRecommendation", new String[]{TABLE_CAREER_COURSES},
+                db -> putRecommendation(db, careerId, courseId, relevance), null);
+    }
 
-        boolean success;
+    private static WriteOutcome putRecommendation(SQLiteDatabase db, int careerId, int courseId, int relevance) {
+        // Both statements bind (relevance, career_id, course_id) in the same order
+        for (int attempt = 0; attempt < 2; attempt++) {
+            if (executeUpdateDelete(db, UPDATE_RECOMMENDATION_SQL, relevance, careerId, courseId) > 0) {
+                return WriteOutcome.UPDATED;
+            }
+            if (executeInsert(db, INSERT_RECOMMENDATION_SQL, relevance, careerId, courseId) != -1) {
+                return WriteOutcome.ADDED;
+            }
+            // Ignored: the row appeared after the update looked, so update it now
+        }
+        return WriteOutcome.FAILED;
+    }
 
-        if (exists) {
-            // Update existing record
-            int result = db.update("career_courses", values,
-                    "career_id = ? AND course_id = ?",
-                    new String[]{String.valueOf(careerId), String.valueOf(courseId)});
-            success = (result > 0);
-        } else {
-            // Insert new record
-            long result = db.insert("career_courses", null, values);
-            success = (result != -1);
+    private static int executeUpdateDelete(SQLiteDatabase db, String sql, Object... args) {
+        try (SQLiteStatement statement = compile(db, sql, args)) {
+            QueryTracer.Span span = QueryTracer.current();
+            long start = span != null ? System.nanoTime() : 0;
+            int changed = statement.executeUpdateDelete();
+            if (span != null) {
+                span.tracer.record(span.operation, sql, args, System.nanoTime() - start, changed);
+            }
+            return changed;
         }
+    }
 
-        db.close();
-        return success;
+    // Row id of the new row, or -1 when the statement inserted nothing
+    private static long executeInsert(SQLiteDatabase db, String sql, Object... args) {
+        try (SQLiteStatement statement = compile(db, sql, args)) {
+            QueryTracer.Span span = QueryTracer.current();
+            long start = span != null ? System.nanoTime() : 0;
+            long rowId = statement.executeInsert();
+            if (span != null) {
+                span.tracer.record(span.operation, sql, args, System.nanoTime() - start, rowId == -1 ? 0 : 1);
+            }
+            return rowId;
+        }
+    }
 
+    private static SQLiteStatement compile(SQLiteDatabase db, String sql, Object[] args) {
+        SQLiteStatement statement = db.compileStatement(sql);
+        for (int i = 0; i < args.length; i++) {
+            Object arg = args[i];
+            if (arg == null) {
+                statement.bindNull(i + 1);
+            } else if (arg instanceof Number) {
+                statement.bindLong(i + 1, ((Number) arg).longValue());
+            } else {
+                statement.bindString(i + 1, arg.toString());
+            }
+        }
+        return statement;
     }
 
     public boolean deleteRecommendation(int recommendationId) {
-        SQLiteDatabase db = getWritableDatabase();
+        try (DatabaseLocks.Lease lease = writeLease("deleteRecommendation", TABLE_CAREER_COURSES)) {
+            return deleteRecommendation(getWritableDatabase(), recommendationId);
+        }
+    }
+
+    // Same as deleteRecommendation, committed together with other queued writes
+    public CompletableFuture<Boolean> deleteRecommendationQueued(int recommendationId) {
+        return getGroupCommitQueue().submit("deleteRecommendation", new String[]{TABLE_CAREER_COURSES},
+                db -> deleteRecommendation(db, recommendationId), null);
+    }
 
+    private static boolean deleteRecommendation(SQLiteDatabase db, int recommendationId) {
         int result = db.delete(
                 "career_courses",
                 "id = ?",
                 new String[]{String.valueOf(recommendationId)});
 
-        db.close();
         return result > 0;
     }
 
     // ADMINISTRATION OPERATIONS
     public static final String TABLE_ADMINISTRATORS = "administrators";
 
-    // Create administrators table
-    public void createAdministratorsTable() {
-        SQLiteDatabase db = getWritableDatabase();
+    private static final String ADMINISTRATOR_COUNT_SQL = "SELECT COUNT(*) FROM " + TABLE_ADMINISTRATORS;
+    private static final String ALL_ADMINISTRATORS_SQL =
+            "SELECT id as _id, name, title, department, email, phone FROM " + TABLE_ADMINISTRATORS +
+                    " ORDER BY name ASC";
+    private static final String ADMINISTRATOR_BY_ID_SQL =
+            "SELECT id as _id, name, title, email, phone, department FROM " + TABLE_ADMINISTRATORS +
+                    " WHERE id = ?";
+
+    // Tab-separated: name, title, email, phone, department
+    static final DeltaImporter.KeyedFormat ADMINISTRATOR_ROWS = new DeltaImporter.KeyedFormat() {
+        @Override
+        public String table() {
+            return TABLE_ADMINISTRATORS;
+        }
 
-        // Check if table already exists
-        Cursor cursor = db.rawQuery(
-                "SELECT name FROM sqlite_master WHERE type='table' AND name=?",
-                new String[]{TABLE_ADMINISTRATORS});
+        @Override
+        public int[] keyColumns() {
+            return new int[]{0};
+        }
 
-        boolean tableExists = cursor.getCount() > 0;
-        cursor.close();
+        @Override
+        public String updateSql() {
+            return "UPDATE OR IGNORE " + TABLE_ADMINISTRATORS + " SET title = ?, email = ?, phone = ?, department = ? "
+                    + "WHERE name = ?";
+        }
 
-        if (!tableExists) {
-            String CREATE_ADMINISTRATORS_TABLE = "CREATE TABLE " + TABLE_ADMINISTRATORS + " ("
-                    + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
-                    + "name TEXT, "
-                    + "title TEXT, "
-                    + "email TEXT, "
-                    + "phone TEXT, "
-                    + "department TEXT)";
-            db.execSQL(CREATE_ADMINISTRATORS_TABLE);
+        // Open slots go with the administrator; booked ones stay with their appointments
+        @Override
+        public String[] deleteSql() {
+            return new String[]{
+                    "DELETE FROM " + TABLE_AVAILABILITY + " WHERE is_available = 1 AND admin_id IN (SELECT id FROM "
+                            + TABLE_ADMINISTRATORS + " WHERE name = ?)",
+                    "DELETE FROM " + TABLE_ADMINISTRATORS + " WHERE name = ?"};
         }
 
-        db.close();
-    }
+        @Override
+        public String[] dependentTables() {
+            return new String[]{TABLE_AVAILABILITY};
+        }
 
-    // Import administrators from CSV
-    public boolean importAdministratorsFromCSV(String[] lines) {
-        SQLiteDatabase db = getWritableDatabase();
-        db.beginTransaction();
+        @Override
+        public String insertSql() {
+            return "INSERT OR IGNORE INTO " + TABLE_ADMINISTRATORS + " (name, title, email, phone, department) "
+                    + "VALUES (?, ?, ?, ?, ?)";
+        }
 
-        try {
-            // Check if administrators already exist
-            Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_ADMINISTRATORS, null);
-            int adminCount = 0;
-            if (cursor.moveToFirst()) {
-                adminCount = cursor.getInt(0);
-            }
-            cursor.close();
+        @Override
+        public int columns() {
+            return 5;
+        }
 
-            // Only import if we have no administrators
-            if (adminCount == 0) {
-                // Skip header row (first line)
-                for (int i = 1; i < lines.length; i++) {
-                    // Split the line carefully to handle names with spaces
-                    String[] values = lines[i].split("\t");
-
-                    // Ensure we have enough values
-                    if (values.length >= 5) {
-                        ContentValues cv = new ContentValues();
-                        cv.put("name", values[0].trim()); // Name (with potential comma)
-                        cv.put("title", values[1].trim()); // Title
-                        cv.put("email", values[2].trim()); // Email
-                        cv.put("phone", values[3].trim()); // Phone
-                        cv.put("department", values[4].trim()); // Department
-
-                        long result = db.insert(TABLE_ADMINISTRATORS, null, cv);
-
-                        if (result == -1) {
-                            Log.e("CSV Import", "Failed to insert line: " + lines[i]);
-                        }
-                    } else {
-                        Log.e("CSV Import", "Insufficient values in line: " + lines[i]);
-                    }
-                }
+        @Override
+        public String parse(String[] values, Object[] row) {
+            if (values.length < 5) {
+                return "expected 5 columns, found " + values.length;
             }
+            for (int i = 0; i < 5; i++) {
+                row[i] = values[i].trim();
+            }
+            return null;
+        }
+    };
 
-            db.setTransactionSuccessful();
+    // Import administrators from CSV
+    public boolean importAdministratorsFromCSV(String[] lines) {
+        try {
+            importAdministrators(CsvImporter.lines(lines), Integer.MAX_VALUE, LOGGED_REJECTS);
             return true;
         } catch (Exception e) {
             Log.e("CSV Import", "Error importing administrators", e);
             return false;
-        } finally {
-            db.endTransaction();
-            db.close();
         }
     }
 
+    // Streams administrators into an empty table; does nothing if there already are some
+    CsvImporter.Result importAdministrators(CsvImporter.Lines lines, int batchSize, CsvImporter.Listener listener)
+            throws IOException {
+        if (getAdministratorCount() > 0) {
+            return new CsvImporter.Result(0, 0, 0, 0);
+        }
+        CsvImporter.Result result = csvImporter().run(lines, ADMINISTRATOR_ROWS, batchSize, listener);
+        Log.i("CSV Import", "Administrators: " + result);
+        return result;
+    }
+
+    // Delta import keyed on administrator name; see importCoursesDelta
+    DeltaImporter.Result importAdministratorsDelta(String source, DeltaImporter.Source input,
+                                                   CsvImporter.Listener listener) throws IOException {
+        DeltaImporter.Result result = deltaImporter().run(source, input, ADMINISTRATOR_ROWS, listener);
+        Log.i("CSV Import", "Administrators from " + source + ": " + result);
+        return result;
+    }
+
     public int getAdministratorCount() {
-        SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + DatabaseHelper.TABLE_ADMINISTRATORS, null);
-        int count = 0;
-        if (cursor.moveToFirst()) {
-            count = cursor.getInt(0);
+        try (DatabaseLocks.Lease lease = locks.read("getAdministratorCount")) {
+            SQLiteDatabase db = getReadableDatabase();
+            Cursor cursor = QueryTracer.rawQuery(db, ADMINISTRATOR_COUNT_SQL, null);
+            int count = 0;
+            if (cursor.moveToFirst()) {
+                count = cursor.getInt(0);
+            }
+            cursor.close();
+            return count;
         }
-        cursor.close();
-        db.close();
-        return count;
     }
 
     // Method to get all administrator names for dropdown
     public Cursor getAllAdministrators() {
-        SQLiteDatabase db = getReadableDatabase();
+        try (DatabaseLocks.Lease lease = locks.read("getAllAdministrators")) {
+            SQLiteDatabase db = getReadableDatabase();
 
-        return db.query(DatabaseHelper.TABLE_ADMINISTRATORS,
-                new String[]{"id as _id", "name", "title", "department", "email", "phone"},
-                null,
-                null,
-                null,
-                null,
-                "name ASC");
+            return queryCache.query(db, ALL_ADMINISTRATORS_SQL, null, TABLE_ADMINISTRATORS);
+        }
     }
 
 
 
     // Get administrator by ID
     public Cursor getAdministratorById(int adminId) {
-        SQLiteDatabase db = getReadableDatabase();
+        try (DatabaseLocks.Lease lease = locks.read("getAdministratorById")) {
+            SQLiteDatabase db = getReadableDatabase();
 
-        return db.rawQuery(
-                "SELECT id as _id, name, title, email, phone, department FROM " + TABLE_ADMINISTRATORS +
-                        " WHERE id = ?",
-                new String[]{String.valueOf(adminId)});
+            return QueryTracer.rawQuery(db, ADMINISTRATOR_BY_ID_SQL, new String[]{String.valueOf(adminId)});
+        }
     }
 
     public static final String TABLE_AVAILABILITY = "availability";
-    // Get all time slots for a specific admin and date
-    public Cursor getAdminTimeSlots(int adminId, String date) {
-        createAvailabilityTable(); // Ensure table exists
-        SQLiteDatabase db = getReadableDatabase();
-
-        return db.rawQuery(
-                "SELECT id as _id, time_slot, " +
-                        "CASE WHEN is_available = 1 THEN 'Available' ELSE 'Booked' END as status " +
-                        "FROM " + TABLE_AVAILABILITY +
-                        " WHERE admin_id = ? AND date = ? " +
-                        "ORDER BY time_slot",
-                new String[]{String.valueOf(adminId), date});
-    }
-    private void createAvailabilityTable() {
-        SQLiteDatabase db = dbHelper.getWritableDatabase();
 
-        // Check if table already exists
-        Cursor cursor = db.rawQuery(
-                "SELECT name FROM sqlite_master WHERE type='table' AND name=?",
-                new String[]{TABLE_AVAILABILITY});
+    // Served by the UNIQUE(admin_id, date, time_slot) index
+    private static final String ADMIN_TIME_SLOTS_SQL =
+            "SELECT id as _id, time_slot, is_available, " +
+                    "CASE WHEN is_available = 1 THEN 'Available' ELSE 'Booked' END as status " +
+                    "FROM " + TABLE_AVAILABILITY +
+                    " WHERE admin_id = ? AND date = ? " +
+                    "ORDER BY time_slot";
+    private static final String EXISTING_TIME_SLOTS_SQL =
+            "SELECT time_slot FROM " + TABLE_AVAILABILITY + " WHERE admin_id = ? AND date = ?";
+    private static final String TIME_SLOT_AVAILABLE_SQL =
+            "SELECT is_available FROM " + TABLE_AVAILABILITY + " WHERE id = ?";
+    // UNIQUE(admin_id, date, time_slot) turns a repeat into a no-op
+    private static final String INSERT_TIME_SLOT_SQL =
+            "INSERT OR IGNORE INTO " + TABLE_AVAILABILITY +
+                    " (admin_id, date, time_slot, is_available) VALUES (?, ?, ?, 1)";
+    // Booked slots never match, so the check and the delete are one statement
+    private static final String DELETE_OPEN_TIME_SLOT_SQL =
+            "DELETE FROM " + TABLE_AVAILABILITY + " WHERE id = ? AND is_available = 1";
+    // Matches the partial index idx_availability_open_slots, which only holds open slots
+    private static final String AVAILABLE_TIME_SLOTS_SQL =
+            "SELECT id as _id, time_slot, 1 as is_available FROM " + TABLE_AVAILABILITY +
+                    " WHERE admin_id = ? AND date = ? AND is_available = 1" +
+                    " ORDER BY time_slot";
 
-        boolean tableExists = cursor.getCount() > 0;
-        cursor.close();
+    // Get all time slots for a specific admin and date
+    public Cursor getAdminTimeSlots(int adminId, String date) {
+        try (DatabaseLocks.Lease lease = locks.read("getAdminTimeSlots")) {
+            SQLiteDatabase db = getReadableDatabase();
 
-        if (!tableExists) {
-            String CREATE_AVAILABILITY_TABLE = "CREATE TABLE " + TABLE_AVAILABILITY + " ("
-                    + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
-                    + "admin_id INTEGER, "
-                    + "date TEXT, "
-                    + "time_slot TEXT, "
-                    + "is_available INTEGER DEFAULT 1, "
-                    + "UNIQUE(admin_id, date, time_slot))";
-            db.execSQL(CREATE_AVAILABILITY_TABLE);
+            return QueryTracer.rawQuery(db, ADMIN_TIME_SLOTS_SQL, new String[]{String.valueOf(adminId), date});
         }
-
-        db.close();
     }
 
         // Get list of existing time slots for an admin on a specific date
     public List<String> getExistingTimeSlots(int adminId, String date) {
-        createAvailabilityTable(); // Ensure table exists
-        SQLiteDatabase db = getReadableDatabase();
-        List<String> timeSlots = new ArrayList<>();
+        try (DatabaseLocks.Lease lease = locks.read("getExistingTimeSlots")) {
+            SQLiteDatabase db = getReadableDatabase();
+            List<String> timeSlots = new ArrayList<>();
 
-        Cursor cursor = db.rawQuery(
-                "SELECT time_slot FROM " + TABLE_AVAILABILITY +
-                        " WHERE admin_id = ? AND date = ?",
-                new String[]{String.valueOf(adminId), date});
+            Cursor cursor = QueryTracer.rawQuery(db, EXISTING_TIME_SLOTS_SQL,
+                    new String[]{String.valueOf(adminId), date});
 
-        if (cursor != null) {
-            while (cursor.moveToNext()) {
-                timeSlots.add(cursor.getString(0));
+            if (cursor != null) {
+                while (cursor.moveToNext()) {
+                    timeSlots.add(cursor.getString(0));
+                }
+                cursor.close();
             }
-            cursor.close();
-        }
 
-        db.close();
-        return timeSlots;
+            return timeSlots;
+        }
     }
 
     // Delete a time slot
     public boolean deleteTimeSlot(int timeSlotId) {
-        SQLiteDatabase db = getWritableDatabase();
-
-        // First check if it's not already booked
-        Cursor cursor = db.rawQuery(
-                "SELECT is_available FROM " + TABLE_AVAILABILITY + " WHERE id = ?",
-                new String[]{String.valueOf(timeSlotId)});
+        return removeTimeSlot(timeSlotId) == WriteOutcome.DELETED;
+    }
 
-        boolean canDelete = false;
-        if (cursor != null && cursor.moveToFirst()) {
-            canDelete = cursor.getInt(0) == 1; // Can only delete if available
-            cursor.close();
-        }
+    // Deletes an open slot; DELETED, BOOKED (left in place) or NOT_FOUND
+    public WriteOutcome removeTimeSlot(int timeSlotId) {
+        try (DatabaseLocks.Lease lease = writeLease("removeTimeSlot", TABLE_AVAILABILITY)) {
+            SQLiteDatabase db = getWritableDatabase();
+            if (executeUpdateDelete(db, DELETE_OPEN_TIME_SLOT_SQL, timeSlotId) > 0) {
+                return WriteOutcome.DELETED;
+            }
 
-        if (!canDelete) {
-            db.close();
-            return false; // Can't delete booked slots
+            // Nothing deleted; still under the writer lock, so this read explains why
+            Cursor cursor = QueryTracer.rawQuery(db, TIME_SLOT_AVAILABLE_SQL, new String[]{String.valueOf(timeSlotId)});
+            try {
+                return cursor.moveToFirst() ? WriteOutcome.BOOKED : WriteOutcome.NOT_FOUND;
+            } finally {
+                cursor.close();
+            }
         }
-
-        int result = db.delete(
-                TABLE_AVAILABILITY,
-                "id = ?",
-                new String[]{String.valueOf(timeSlotId)});
-
-        db.close();
-        return result > 0;
     }
 
     /**
@@ -1761,116 +2430,143 @@ public class DatabaseManager {
      */
 
     public boolean addAdminAvailability(int adminId, String date, String timeSlot) {
-        createAvailabilityTable(); // Ensure table exists
-        SQLiteDatabase db = getWritableDatabase();
+        return addTimeSlot(adminId, date, timeSlot) == WriteOutcome.ADDED;
+    }
 
-        ContentValues values = new ContentValues();
-        values.put("admin_id", adminId);
-        values.put("date", date);
-        values.put("time_slot", timeSlot);
-        values.put("is_available", 1); // 1 = available
+    // Adds an open slot; ADDED, ALREADY_EXISTS or FAILED
+    public WriteOutcome addTimeSlot(int adminId, String date, String timeSlot) {
+        try (DatabaseLocks.Lease lease = writeLease("addTimeSlot", TABLE_AVAILABILITY)) {
+            return insertTimeSlot(getWritableDatabase(), adminId, date, timeSlot);
+        } catch (Exception e) {
+            Log.e("DatabaseManager", "Error adding time slot", e);
+            return WriteOutcome.FAILED;
+        }
+    }
+
+    // Same as addAdminAvailability, committed together with other queued writes
+    public CompletableFuture<Boolean> addAdminAvailabilityQueued(int adminId, String date, String timeSlot) {
+        return addTimeSlotQueued(adminId, date, timeSlot).thenApply(outcome -> outcome == WriteOutcome.ADDED);
+    }
 
-        long result = db.insert(TABLE_AVAILABILITY, null, values);
-        db.close();
+    public CompletableFuture<WriteOutcome> addTimeSlotQueued(int adminId, String date, String timeSlot) {
+        return getGroupCommitQueue().submit("addTimeSlot", new String[]{TABLE_AVAILABILITY},
+                db -> insertTimeSlot(db, adminId, date, timeSlot), null);
+    }
 
-        return result != -1;
+    private static WriteOutcome insertTimeSlot(SQLiteDatabase db, int adminId, String date, String timeSlot) {
+        return executeInsert(db, INSERT_TIME_SLOT_SQL, adminId, date, timeSlot) != -1
+                ? WriteOutcome.ADDED : WriteOutcome.ALREADY_EXISTS;
     }
 
 
     // Get available time slots for administrator on specific date
     public Cursor getAvailableTimeSlots(int adminId, String date) {
-        createAvailabilityTable(); // Ensure table exists
-        SQLiteDatabase db = getReadableDatabase();
+        try (DatabaseLocks.Lease lease = locks.read("getAvailableTimeSlots")) {
+            SQLiteDatabase db = getReadableDatabase();
 
-        return db.rawQuery(
-                "SELECT id as _id, time_slot FROM " + TABLE_AVAILABILITY +
-                        " WHERE admin_id = ? AND date = ? AND is_available = 1" +
-                        " ORDER BY time_slot",
-                new String[]{String.valueOf(adminId), date});
+            return QueryTracer.rawQuery(db, AVAILABLE_TIME_SLOTS_SQL, new String[]{String.valueOf(adminId), date});
+        }
     }
 
 
     // BOOKING OPERATION
     public static final String TABLE_APPOINTMENTS = "appointments";
-    private void createAppointmentsTable() {
-        SQLiteDatabase db = getWritableDatabase();
-        String createTableSQL = "CREATE TABLE IF NOT EXISTS " + TABLE_APPOINTMENTS + " (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                "student_username TEXT NOT NULL, " +
-                "admin_id INTEGER NOT NULL, " +
-                "date TEXT NOT NULL, " +
-                "time_slot TEXT NOT NULL, " +
-                "reason TEXT" +
-                ")";
-        db.execSQL(createTableSQL);
-        db.close();
+    // Served by idx_appointments_slot
+    private static final String APPOINTMENTS_FOR_ADMIN_SQL =
+            "SELECT id as _id, student_username, admin_id, date, time_slot, reason FROM " + TABLE_APPOINTMENTS +
+                    " WHERE admin_id = ? ORDER BY date, time_slot";
+    private static final String TIME_SLOT_ID_SQL =
+            "SELECT id FROM " + TABLE_AVAILABILITY + " WHERE admin_id = ? AND date = ? AND time_slot = ?";
+    // Copies the slot's key into the appointment only while the slot is open; the unique
+    // idx_appointments_slot index ignores a second appointment for the same slot
+    private static final String INSERT_APPOINTMENT_SQL =
+            "INSERT OR IGNORE INTO " + TABLE_APPOINTMENTS +
+                    " (student_username, admin_id, date, time_slot, reason)" +
+                    " SELECT ?, admin_id, date, time_slot, ? FROM " + TABLE_AVAILABILITY +
+                    " WHERE id = ? AND is_available = 1";
+    private static final String CLAIM_TIME_SLOT_SQL =
+            "UPDATE " + TABLE_AVAILABILITY + " SET is_available = 0 WHERE id = ? AND is_available = 1";
+
+    // Get every appointment booked with an administrator
+    public Cursor getAppointmentsForAdmin(int adminId) {
+        try (DatabaseLocks.Lease lease = locks.read("getAppointmentsForAdmin")) {
+            SQLiteDatabase db = getReadableDatabase();
+
+            return QueryTracer.rawQuery(db, APPOINTMENTS_FOR_ADMIN_SQL, new String[]{String.valueOf(adminId)});
+        }
     }
 
+    // Books by the slot's admin, date and time; see bookTimeSlot
     public boolean bookAppointment(String studentUsername, int adminId, String date, String timeSlot, String reason) {
-        createAppointmentsTable(); // Ensure table exists
-        SQLiteDatabase db = getWritableDatabase();
-        boolean success = false;
-
-        try {
-            db.beginTransaction();
-
-            // First, update availability
-            ContentValues availValues = new ContentValues();
-            availValues.put("is_available", 0); // Mark as unavailable
-
-            int updateResult = db.update(
-                    TABLE_AVAILABILITY,
-                    availValues,
-                    "admin_id = ? AND date = ? AND time_slot = ?",
+        int timeSlotId;
+        try (DatabaseLocks.Lease lease = locks.read("bookAppointment")) {
+            Cursor cursor = QueryTracer.rawQuery(getReadableDatabase(), TIME_SLOT_ID_SQL,
                     new String[]{String.valueOf(adminId), date, timeSlot});
-
-            if (updateResult > 0) {
-                // Then create appointment record
-                ContentValues apptValues = new ContentValues();
-                apptValues.put("student_username", studentUsername);
-                apptValues.put("admin_id", adminId);
-                apptValues.put("date", date);
-                apptValues.put("time_slot", timeSlot);
-                apptValues.put("reason", reason);
-
-                long insertResult = db.insert(TABLE_APPOINTMENTS, null, apptValues);
-
-                if (insertResult != -1) {
-                    success = true;
+            try {
+                if (!cursor.moveToFirst()) {
+                    return false;
                 }
+                timeSlotId = cursor.getInt(0);
+            } finally {
+                cursor.close();
             }
-
-            db.setTransactionSuccessful();
-        } finally {
-            db.endTransaction();
-            db.close();
         }
-
-        return success;
+        return bookTimeSlot(studentUsername, timeSlotId, reason) == BookingResult.BOOKED;
     }
 
-
-    public void onLowMemory() {
-        synchronized (dbLock) {
-            // Close readable database if it's open
+    // Books an open slot by id; BOOKED, ALREADY_TAKEN, SLOT_MISSING or FAILED
+    public BookingResult bookTimeSlot(String studentUsername, int timeSlotId, String reason) {
+        try (DatabaseLocks.Lease lease = writeLease("bookTimeSlot", TABLE_AVAILABILITY, TABLE_APPOINTMENTS)) {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
             try {
-                if (readableDb != null && readableDb.isOpen()) {
-                    readableDb.close();
-                    readableDb = null;
-                }
-            } catch (Exception e) {
-                Log.e("DatabaseManager", "Error closing readable database in low memory", e);
+                BookingResult result = bookTimeSlot(db, studentUsername, timeSlotId, reason);
+                db.setTransactionSuccessful();
+                return result;
+            } finally {
+                db.endTransaction();
             }
+        } catch (Exception e) {
+            Log.e("DatabaseManager", "Error booking time slot " + timeSlotId, e);
+            return BookingResult.FAILED;
+        }
+    }
 
-            // We can keep the writable database if needed, or close it as well
-            // depending on your application's needs
+    // Same as bookTimeSlot, committed together with other queued writes
+    public CompletableFuture<BookingResult> bookTimeSlotQueued(String studentUsername, int timeSlotId, String reason) {
+        return getGroupCommitQueue().submit("bookTimeSlot", new String[]{TABLE_AVAILABILITY, TABLE_APPOINTMENTS},
+                db -> bookTimeSlot(db, studentUsername, timeSlotId, reason), null);
+    }
+
+    /**
+     * Inserts the appointment first and only then closes the slot, so neither statement
+     * ever needs undoing: the insert is a no-op unless the slot is open and has no
+     * appointment yet. The update runs either way, which also closes a slot left open
+     * next to an existing appointment. Must run inside a transaction.
+     */
+    private static BookingResult bookTimeSlot(SQLiteDatabase db, String studentUsername, int timeSlotId, String reason) {
+        boolean inserted = executeInsert(db, INSERT_APPOINTMENT_SQL, studentUsername, reason, timeSlotId) != -1;
+        executeUpdateDelete(db, CLAIM_TIME_SLOT_SQL, timeSlotId);
+        if (inserted) {
+            return BookingResult.BOOKED;
+        }
 
-            // Log the event
-            Log.i("DatabaseManager", "onLowMemory called - released database resources");
+        Cursor cursor = QueryTracer.rawQuery(db, TIME_SLOT_AVAILABLE_SQL, new String[]{String.valueOf(timeSlotId)});
+        try {
+            return cursor.moveToFirst() ? BookingResult.ALREADY_TAKEN : BookingResult.SLOT_MISSING;
+        } finally {
+            cursor.close();
         }
     }
 
 
+    public void onLowMemory() {
+        // Keep the connection open; just ask SQLite to drop its page caches
+        SQLiteDatabase.releaseMemory();
+        Log.i("DatabaseManager", "onLowMemory called - released database memory");
+    }
+
+
 
 }
 
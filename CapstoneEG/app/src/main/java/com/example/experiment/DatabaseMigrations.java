@@ -0,0 +1,253 @@
+package com.example.experiment;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ordered, data-preserving schema steps applied by DatabaseHelper.
+ *
+ * Version 53 is the baseline: the schema DatabaseHelper.onCreate has always built.
+ * Every later version adds exactly one step here. Steps run inside the open-helper
+ * transaction, so a failing step leaves the database at its old version.
+ *
+ * Steps must tolerate databases where the old lazy "create if missing" code in
+ * DatabaseManager already added the table or column.
+ */
+final class DatabaseMigrations {
+    private static final String TAG = "DatabaseMigrations";
+
+    // Oldest version we can upgrade in place; anything older is rebuilt
+    static final int BASELINE_VERSION = 53;
+
+    interface Step {
+        void apply(SQLiteDatabase db);
+    }
+
+    static final class Migration {
+        final int fromVersion;
+        final int toVersion;
+        final String description;
+        final Step step;
+
+        Migration(int fromVersion, String description, Step step) {
+            this.fromVersion = fromVersion;
+            this.toVersion = fromVersion + 1;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS;
+
+    static {
+        List<Migration> migrations = new ArrayList<>();
+
+        migrations.add(new Migration(53, "add courses.major", db -> {
+            if (!columnExists(db, DatabaseHelper.TABLE_COURSES, "major")) {
+                db.execSQL("ALTER TABLE " + DatabaseHelper.TABLE_COURSES + " ADD COLUMN major TEXT DEFAULT 'STEM'");
+            }
+            db.execSQL("UPDATE " + DatabaseHelper.TABLE_COURSES + " SET major = 'STEM' WHERE major IS NULL OR major = ''");
+        }));
+
+        migrations.add(new Migration(54, "create career_courses", db ->
+                db.execSQL("CREATE TABLE IF NOT EXISTS " + DatabaseHelper.TABLE_CAREER_COURSES + " ("
+                        + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                        + "career_id INTEGER, "
+                        + "course_id INTEGER, "
+                        + "relevance INTEGER, "
+                        + "UNIQUE(career_id, course_id))")));
+
+        migrations.add(new Migration(55, "create appointments", db ->
+                db.execSQL("CREATE TABLE IF NOT EXISTS " + DatabaseHelper.TABLE_APPOINTMENTS + " ("
+                        + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                        + "student_username TEXT NOT NULL, "
+                        + "admin_id INTEGER NOT NULL, "
+                        + "date TEXT NOT NULL, "
+                        + "time_slot TEXT NOT NULL, "
+                        + "reason TEXT)")));
+
+        // Secondary indexes shaped around the DatabaseManager queries; QueryPlanTest guards them
+        migrations.add(new Migration(56, "add secondary indexes", db -> {
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_courses_major_course ON "
+                    + DatabaseHelper.TABLE_COURSES + "(major, course)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_courses_course_nocase ON "
+                    + DatabaseHelper.TABLE_COURSES + "(course COLLATE NOCASE)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_users_username_nocase ON "
+                    + DatabaseHelper.TABLE_USERS + "(username COLLATE NOCASE)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_careers_title_nocase ON "
+                    + DatabaseHelper.TABLE_CAREERS + "(occupation_title COLLATE NOCASE)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_course_programs_program ON "
+                    + DatabaseHelper.TABLE_COURSE_PROGRAMS + "(program_id, course_id)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_career_courses_career_relevance ON "
+                    + DatabaseHelper.TABLE_CAREER_COURSES + "(career_id, relevance DESC, course_id)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_availability_open_slots ON "
+                    + DatabaseHelper.TABLE_AVAILABILITY + "(admin_id, date, time_slot) WHERE is_available = 1");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_appointments_admin_date ON "
+                    + DatabaseHelper.TABLE_APPOINTMENTS + "(admin_id, date, time_slot)");
+        }));
+
+        // Full-text index over course title, code and description. External content keeps a
+        // single copy of the text; the triggers mirror every insert, update and delete on courses.
+        migrations.add(new Migration(57, "add courses_fts", db -> {
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + DatabaseHelper.TABLE_COURSES_FTS
+                    + " USING fts4(content=\"" + DatabaseHelper.TABLE_COURSES + "\", "
+                    + "course, reference, description, prefix=\"2,3\")");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_fts_before_update BEFORE UPDATE ON "
+                    + DatabaseHelper.TABLE_COURSES + " BEGIN "
+                    + "DELETE FROM " + DatabaseHelper.TABLE_COURSES_FTS + " WHERE docid = old.id; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_fts_before_delete BEFORE DELETE ON "
+                    + DatabaseHelper.TABLE_COURSES + " BEGIN "
+                    + "DELETE FROM " + DatabaseHelper.TABLE_COURSES_FTS + " WHERE docid = old.id; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_fts_after_update AFTER UPDATE ON "
+                    + DatabaseHelper.TABLE_COURSES + " BEGIN "
+                    + "INSERT INTO " + DatabaseHelper.TABLE_COURSES_FTS + "(docid, course, reference, description) "
+                    + "VALUES (new.id, new.course, new.reference, new.description); END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS courses_fts_after_insert AFTER INSERT ON "
+                    + DatabaseHelper.TABLE_COURSES + " BEGIN "
+                    + "INSERT INTO " + DatabaseHelper.TABLE_COURSES_FTS + "(docid, course, reference, description) "
+                    + "VALUES (new.id, new.course, new.reference, new.description); END");
+            // Index the rows that already exist
+            db.execSQL("INSERT INTO " + DatabaseHelper.TABLE_COURSES_FTS + "(" + DatabaseHelper.TABLE_COURSES_FTS
+                    + ") VALUES ('rebuild')");
+        }));
+
+        // Career title and code index. Unlike courses_fts it keeps its own copy of the text,
+        // because it also indexes code_key: the occupation code without its dash ("151252"),
+        // so a partial code like 15-12 matches as a single prefix.
+        migrations.add(new Migration(58, "add careers_fts", db -> {
+            String indexRow = "(docid, occupation_title, occupation_code, code_key) VALUES "
+                    + "(new.id, new.occupation_title, new.occupation_code, replace(new.occupation_code, '-', ''))";
+            db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + DatabaseHelper.TABLE_CAREERS_FTS
+                    + " USING fts4(occupation_title, occupation_code, code_key, prefix=\"2,3\")");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS careers_fts_after_insert AFTER INSERT ON "
+                    + DatabaseHelper.TABLE_CAREERS + " BEGIN "
+                    + "INSERT INTO " + DatabaseHelper.TABLE_CAREERS_FTS + indexRow + "; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS careers_fts_after_update AFTER UPDATE ON "
+                    + DatabaseHelper.TABLE_CAREERS + " BEGIN "
+                    + "DELETE FROM " + DatabaseHelper.TABLE_CAREERS_FTS + " WHERE docid = old.id; "
+                    + "INSERT INTO " + DatabaseHelper.TABLE_CAREERS_FTS + indexRow + "; END");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS careers_fts_after_delete AFTER DELETE ON "
+                    + DatabaseHelper.TABLE_CAREERS + " BEGIN "
+                    + "DELETE FROM " + DatabaseHelper.TABLE_CAREERS_FTS + " WHERE docid = old.id; END");
+            // Index the rows that already exist
+            db.execSQL("DELETE FROM " + DatabaseHelper.TABLE_CAREERS_FTS);
+            db.execSQL("INSERT INTO " + DatabaseHelper.TABLE_CAREERS_FTS
+                    + "(docid, occupation_title, occupation_code, code_key) "
+                    + "SELECT id, occupation_title, occupation_code, replace(occupation_code, '-', '') FROM "
+                    + DatabaseHelper.TABLE_CAREERS);
+        }));
+
+        // One appointment per slot. Older builds could double-book, so keep the first
+        // appointment for each slot, close any slot that has one, then let the unique index
+        // replace the plain one over the same columns.
+        migrations.add(new Migration(59, "make appointments unique per slot", db -> {
+            db.execSQL("DELETE FROM " + DatabaseHelper.TABLE_APPOINTMENTS + " WHERE id NOT IN ("
+                    + "SELECT MIN(id) FROM " + DatabaseHelper.TABLE_APPOINTMENTS
+                    + " GROUP BY admin_id, date, time_slot)");
+            db.execSQL("UPDATE " + DatabaseHelper.TABLE_AVAILABILITY + " SET is_available = 0"
+                    + " WHERE is_available = 1 AND EXISTS (SELECT 1 FROM " + DatabaseHelper.TABLE_APPOINTMENTS + " a"
+                    + " WHERE a.admin_id = " + DatabaseHelper.TABLE_AVAILABILITY + ".admin_id"
+                    + " AND a.date = " + DatabaseHelper.TABLE_AVAILABILITY + ".date"
+                    + " AND a.time_slot = " + DatabaseHelper.TABLE_AVAILABILITY + ".time_slot)");
+            db.execSQL("DROP INDEX IF EXISTS idx_appointments_admin_date");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS idx_appointments_slot ON "
+                    + DatabaseHelper.TABLE_APPOINTMENTS + "(admin_id, date, time_slot)");
+        }));
+
+        // Fingerprints for delta imports: one per source file and one per row, keyed on the
+        // row's natural key. Careers are matched on occupation_code, which had no index.
+        migrations.add(new Migration(60, "add import fingerprints", db -> {
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + DatabaseHelper.TABLE_IMPORT_SOURCES + " ("
+                    + "source TEXT PRIMARY KEY, "
+                    + "file_hash TEXT NOT NULL, "
+                    + "row_count INTEGER NOT NULL, "
+                    + "imported_at INTEGER NOT NULL)");
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + DatabaseHelper.TABLE_IMPORT_ROWS + " ("
+                    + "source TEXT NOT NULL, "
+                    + "row_key TEXT NOT NULL, "
+                    + "row_hash INTEGER NOT NULL, "
+                    + "PRIMARY KEY(source, row_key)) WITHOUT ROWID");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_careers_code ON "
+                    + DatabaseHelper.TABLE_CAREERS + "(occupation_code)");
+        }));
+
+        // Field membership per career, so the recommendation screen reads a field's careers
+        // through the primary key instead of classifying every title on launch. Writers
+        // classify what they insert or update; the trigger covers every way a career is deleted.
+        migrations.add(new Migration(61, "add career_fields", db -> {
+            db.execSQL("CREATE TABLE IF NOT EXISTS " + DatabaseHelper.TABLE_CAREER_FIELDS + " ("
+                    + "field TEXT NOT NULL, "
+                    + "career_id INTEGER NOT NULL, "
+                    + "weight INTEGER NOT NULL, "
+                    + "PRIMARY KEY(field, career_id)) WITHOUT ROWID");
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_career_fields_career ON "
+                    + DatabaseHelper.TABLE_CAREER_FIELDS + "(career_id)");
+            db.execSQL("CREATE TRIGGER IF NOT EXISTS career_fields_after_delete AFTER DELETE ON "
+                    + DatabaseHelper.TABLE_CAREERS + " BEGIN "
+                    + "DELETE FROM " + DatabaseHelper.TABLE_CAREER_FIELDS + " WHERE career_id = old.id; END");
+            // Classify the careers that already exist
+            DatabaseManager.classifyCareers(db);
+        }));
+        migrations.add(new Migration(62, "key course imports on course code", db -> {
+            // Course rows were keyed on code and reference; the only multi-column keys there are
+            db.execSQL("UPDATE OR REPLACE " + DatabaseHelper.TABLE_IMPORT_ROWS
+                    + " SET row_key = substr(row_key, 1, instr(row_key, char(31)) - 1)"
+                    + " WHERE instr(row_key, char(31)) > 0");
+        }));
+
+        MIGRATIONS = Collections.unmodifiableList(migrations);
+    }
+
+    private DatabaseMigrations() {
+    }
+
+    // Highest version reachable through the registered steps
+    static int latestVersion() {
+        return BASELINE_VERSION + MIGRATIONS.size();
+    }
+
+    /**
+     * Applies every step from fromVersion up to toVersion, in order.
+     */
+    static void migrate(SQLiteDatabase db, int fromVersion, int toVersion) {
+        if (fromVersion < BASELINE_VERSION) {
+            throw new IllegalArgumentException("Cannot migrate from version " + fromVersion
+                    + "; oldest supported version is " + BASELINE_VERSION);
+        }
+        if (toVersion > latestVersion()) {
+            throw new IllegalStateException("No migration registered for version " + toVersion);
+        }
+
+        long start = System.nanoTime();
+        for (int version = fromVersion; version < toVersion; version++) {
+            Migration migration = MIGRATIONS.get(version - BASELINE_VERSION);
+            long stepStart = System.nanoTime();
+            migration.step.apply(db);
+            Log.i(TAG, "Migrated " + migration.fromVersion + " -> " + migration.toVersion
+                    + " (" + migration.description + ") in "
+                    + (System.nanoTime() - stepStart) / 1000000 + " ms");
+        }
+        Log.i(TAG, "Schema " + fromVersion + " -> " + toVersion + " took "
+                + (System.nanoTime() - start) / 1000000 + " ms");
+    }
+
+    static boolean columnExists(SQLiteDatabase db, String table, String column) {
+        Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        try {
+            int nameIndex = cursor.getColumnIndex("name");
+            while (cursor.moveToNext()) {
+                if (column.equals(cursor.getString(nameIndex))) {
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.experiment;
+
+import android.os.Process;
+import android.util.Log;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background threads for database work, shared by every screen and owned by
+ * ExperimentApplication.
+ *
+ * READ runs interactive queries on two threads at normal priority. WRITE runs single
+ * row changes on one thread, since SQLite takes one writer at a time anyway. IMPORT runs
+ * bulk loads on one thread at background priority, so a long import never holds up the
+ * reads a screen is waiting on. Each lane has a bounded queue; a full queue drops the
+ * task instead of growing without limit, and the submit returns false rather than throw
+ * into the UI thread. Threads stop after a while idle and come back on the next task.
+ *
+ * Every lane records its queue depth and how long tasks waited before they started.
+ */
+final class DatabaseScheduler {
+    private static final String TAG = "DatabaseScheduler";
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    enum Lane {
+        READ(2, 64, Process.THREAD_PRIORITY_DEFAULT),
+        WRITE(1, 64, Process.THREAD_PRIORITY_DEFAULT),
+        IMPORT(1, 8, Process.THREAD_PRIORITY_BACKGROUND);
+
+        final int threads;
+        final int queueCapacity;
+        final int threadPriority;
+
+        Lane(int threads, int queueCapacity, int threadPriority) {
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+            this.threadPriority = threadPriority;
+        }
+    }
+
+    private final Map<Lane, ThreadPoolExecutor> executors = new EnumMap<>(Lane.class);
+    private final Map<Lane, Stats> stats = new EnumMap<>(Lane.class);
+
+    DatabaseScheduler() {
+        for (Lane lane : Lane.values()) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(lane.threads, lane.threads,
+                    KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>(lane.queueCapacity), threadFactory(lane));
+            executor.allowCoreThreadTimeOut(true);
+            executors.put(lane, executor);
+            stats.put(lane, new Stats(lane));
+        }
+    }
+
+    boolean read(Runnable task) {
+        return submit(Lane.READ, task);
+    }
+
+    boolean write(Runnable task) {
+        return submit(Lane.WRITE, task);
+    }
+
+    boolean bulkImport(Runnable task) {
+        return submit(Lane.IMPORT, task);
+    }
+
+    // Executor views for code that takes one, such as CompletableFuture and PagedListLoader.
+    // Per the Executor contract these throw RejectedExecutionException when the lane is full.
+    Executor reads() {
+        return executor(Lane.READ);
+    }
+
+    Executor writes() {
+        return executor(Lane.WRITE);
+    }
+
+    private Executor executor(final Lane lane) {
+        return task -> {
+            if (!submit(lane, task)) {
+                throw new RejectedExecutionException(lane + " queue full");
+            }
+        };
+    }
+
+    // False when the lane's queue is full; the task is dropped, logged and counted
+    boolean submit(Lane lane, final Runnable task) {
+        final Stats laneStats = stats.get(lane);
+        final long queuedAt = System.nanoTime();
+        ThreadPoolExecutor executor = executors.get(lane);
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    laneStats.recordStart(System.nanoTime() - queuedAt);
+                    task.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            laneStats.rejected.incrementAndGet();
+            Log.e(TAG, lane + " queue full (" + lane.queueCapacity + " waiting), task rejected");
+            return false;
+        }
+        laneStats.recordDepth(executor.getQueue().size());
+        return true;
+    }
+
+    private static ThreadFactory threadFactory(final Lane lane) {
+        return new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable runnable) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(lane.threadPriority);
+                        runnable.run();
+                    }
+                }, "db-" + lane.name().toLowerCase() + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Queue and wait totals for one lane. Wait is the time from submit to start.
+     */
+    static final class Stats {
+        final Lane lane;
+        final AtomicLong started = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+        final AtomicInteger maxDepth = new AtomicInteger();
+
+        Stats(Lane lane) {
+            this.lane = lane;
+        }
+
+        void recordStart(long waitNanos) {
+            started.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            long current = maxWaitNanos.get();
+            while (waitNanos > current && !maxWaitNanos.compareAndSet(current, waitNanos)) {
+                current = maxWaitNanos.get();
+            }
+        }
+
+        void recordDepth(int depth) {
+            int current = maxDepth.get();
+            while (depth > current && !maxDepth.compareAndSet(current, depth)) {
+                current = maxDepth.get();
+            }
+        }
+
+        long getStarted() {
+            return started.get();
+        }
+
+        long getRejected() {
+            return rejected.get();
+        }
+
+        int getMaxDepth() {
+            return maxDepth.get();
+        }
+
+        long getAverageWaitMicros() {
+            long n = started.get();
+            return n == 0 ? 0 : totalWaitNanos.get() / n / 1000;
+        }
+
+        long getMaxWaitMicros() {
+            return maxWaitNanos.get() / 1000;
+        }
+
+        @Override
+        public String toString() {
+            return lane + " started=" + started.get() + " rejected=" + rejected.get()
+                    + " maxDepth=" + maxDepth.get()
+                    + " wait(avg/max us)=" + getAverageWaitMicros() + "/" + getMaxWaitMicros();
+        }
+    }
+
+    Stats getStats(Lane lane) {
+        return stats.get(lane);
+    }
+
+    // Tasks queued right now, not counting the ones running
+    int getQueueDepth(Lane lane) {
+        return executors.get(lane).getQueue().size();
+    }
+
+    void logStats() {
+        for (Lane lane : Lane.values()) {
+            Log.i(TAG, stats.get(lane) + " queued=" + getQueueDepth(lane));
+        }
+    }
+
+    // Lets queued work finish; used when the application goes away
+    void shutdown() {
+        for (ThreadPoolExecutor executor : executors.values()) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.example.experiment;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Brings a table in line with a new version of its source file, touching only the rows
+ * that changed.
+ *
+ * Each source keeps a hash of the whole file in import_sources and a fingerprint per row in
+ * import_rows, keyed on the row's natural key. An unchanged file stops at the file hash.
+ * Otherwise rows whose fingerprint changed are updated in place, so their ids and everything
+ * that points at them survive; new keys are inserted; and keys this source imported before
+ * but no longer lists are deleted together with their dependent rows. A line that no longer
+ * parses counts as removed. Rows that never came from the file, like courses added by hand,
+ * are left alone.
+ *
+ * A delta runs as one transaction, so the fingerprints always describe what is in the table.
+ */
+final class DeltaImporter {
+    private static final char KEY_SEPARATOR = '\u001f';
+
+    private static final String SOURCE_HASH_SQL =
+            "SELECT file_hash FROM " + DatabaseHelper.TABLE_IMPORT_SOURCES + " WHERE source = ?";
+    private static final String SOURCE_ROWS_SQL =
+            "SELECT row_key, row_hash FROM " + DatabaseHelper.TABLE_IMPORT_ROWS + " WHERE source = ?";
+    private static final String PUT_ROW_SQL =
+            "INSERT OR REPLACE INTO " + DatabaseHelper.TABLE_IMPORT_ROWS + " (source, row_key, row_hash) VALUES (?, ?, ?)";
+    private static final String DELETE_ROW_SQL =
+            "DELETE FROM " + DatabaseHelper.TABLE_IMPORT_ROWS + " WHERE source = ? AND row_key = ?";
+    private static final String PUT_SOURCE_SQL =
+            "INSERT OR REPLACE INTO " + DatabaseHelper.TABLE_IMPORT_SOURCES
+                    + " (source, file_hash, row_count, imported_at) VALUES (?, ?, ?, ?)";
+
+    interface Source {
+        // Opened once to hash the file and, when it changed, once more to apply it
+        InputStream open() throws IOException;
+    }
+
+    /**
+     * A row format whose rows can be matched across versions of the file.
+     */
+    interface KeyedFormat extends CsvImporter.RowFormat {
+        // Positions in the parsed row that identify it from one version of the file to the next
+        int[] keyColumns();
+
+        // UPDATE OR IGNORE of every other column, in row order, WHERE the key columns, in
+        // keyColumns order, match; a row that would break another UNIQUE column is retried
+        String updateSql();
+
+        // Run in order with the key as parameters: dependent rows first, the row itself last
+        String[] deleteSql();
+
+        // Tables deleteSql touches besides table()
+        String[] dependentTables();
+    }
+
+    static final class Result {
+        final boolean unchanged;
+        final int inserted;
+        final int updated;
+        final int deleted;
+        final int rejected;
+        final long elapsedNanos;
+
+        Result(boolean unchanged, int inserted, int updated, int deleted, int rejected, long elapsedNanos) {
+            this.unchanged = unchanged;
+            this.inserted = inserted;
+            this.updated = updated;
+            this.deleted = deleted;
+            this.rejected = rejected;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        boolean changedRows() {
+            return inserted + updated + deleted > 0;
+        }
+
+        @Override
+        public String toString() {
+            if (unchanged) {
+                return "unchanged in " + elapsedNanos / 1000000 + " ms";
+            }
+            return inserted + " inserted, " + updated + " updated, " + deleted + " deleted, "
+                    + rejected + " rejected in " + elapsedNanos / 1000000 + " ms";
+        }
+    }
+
+    private final Supplier<SQLiteDatabase> database;
+    private final GroupCommitQueue.LeaseFactory leases;
+
+    DeltaImporter(Supplier<SQLiteDatabase> database, GroupCommitQueue.LeaseFactory leases) {
+        this.database = database;
+        this.leases = leases;
+    }
+
+    /**
+     * Applies the file to format's table, identifying it by source. listener may be null;
+     * only its onReject is called.
+     */
+    Result run(String source, Source input, KeyedFormat format, CsvImporter.Listener listener) throws IOException {
+        long start = System.nanoTime();
+        String fileHash = hash(input);
+
+        // Leasing only the fingerprint table leaves cached queries on the data alone
+        try (DatabaseLocks.Lease lease = leases.writeLease("delta check " + source,
+                DatabaseHelper.TABLE_IMPORT_SOURCES)) {
+            if (fileHash.equals(storedHash(database.get(), source))) {
+                return new Result(true, 0, 0, 0, 0, System.nanoTime() - start);
+            }
+        }
+
+        List<String> tables = new ArrayList<>();
+        tables.add(format.table());
+        for (String table : format.dependentTables()) {
+            tables.add(table);
+        }
+        tables.add(DatabaseHelper.TABLE_IMPORT_ROWS);
+        tables.add(DatabaseHelper.TABLE_IMPORT_SOURCES);
+        try (DatabaseLocks.Lease lease = leases.writeLease("delta " + source, tables.toArray(new String[0]));
+             InputStream in = input.open()) {
+            SQLiteDatabase db = database.get();
+            // Another import may have applied the same file while this one hashed it
+            if (fileHash.equals(storedHash(db, source))) {
+                return new Result(true, 0, 0, 0, 0, System.nanoTime() - start);
+            }
+            Apply apply = new Apply(db, source, format, listener);
+            db.beginTransaction();
+            try {
+                apply.rows(CsvImporter.lines(in));
+                apply.finish(fileHash);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                apply.close();
+            }
+            return new Result(false, apply.inserted, apply.updated, apply.deleted, apply.rejected,
+                    System.nanoTime() - start);
+        }
+    }
+
+    private static String storedHash(SQLiteDatabase db, String source) {
+        Cursor cursor = QueryTracer.rawQuery(db, SOURCE_HASH_SQL, new String[]{source});
+        try {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // One delta inside its transaction
+    private static final class Apply {
+        final SQLiteDatabase db;
+        final String source;
+        final KeyedFormat format;
+        final CsvImporter.Listener listener;
+        final Map<String, Long> stored = new HashMap<>();
+        final Set<String> seen = new HashSet<>();
+        // Rows that collided with a row deleted or changed later in the same delta, e.g. a
+        // career title that moves to another code
+        final List<Pending> retries = new ArrayList<>();
+        final List<SQLiteStatement> statements = new ArrayList<>();
+        final SQLiteStatement insert;
+        final SQLiteStatement update;
+        final SQLiteStatement putRow;
+        final boolean[] isKey;
+        int rows;
+        int inserted;
+        int updated;
+        int deleted;
+        int rejected;
+
+        Apply(SQLiteDatabase db, String source, KeyedFormat format, CsvImporter.Listener listener) {
+            this.db = db;
+            this.source = source;
+            this.format = format;
+            this.listener = listener;
+            isKey = new boolean[format.columns()];
+            for (int column : format.keyColumns()) {
+                isKey[column] = true;
+            }
+            Cursor cursor = QueryTracer.rawQuery(db, SOURCE_ROWS_SQL, new String[]{source});
+            try {
+                while (cursor.moveToNext()) {
+                    stored.put(cursor.getString(0), cursor.getLong(1));
+                }
+            } finally {
+                cursor.close();
+            }
+            insert = compile(format.insertSql());
+            update = compile(format.updateSql());
+            putRow = compile(PUT_ROW_SQL);
+        }
+
+        SQLiteStatement compile(String sql) {
+            SQLiteStatement statement = db.compileStatement(sql);
+            statements.add(statement);
+            return statement;
+        }
+
+        void rows(CsvImporter.Lines lines) throws IOException {
+            if (lines.next() == null) {
+                return;
+            }
+            int lineNumber = 1;
+            String line;
+            while ((line = lines.next()) != null) {
+                lineNumber++;
+                String trimmed = line.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                Object[] row = new Object[format.columns()];
+                String reason = format.parse(trimmed.split("\t"), row);
+                String key = reason == null ? key(row) : null;
+                if (reason == null && key == null) {
+                    reason = "missing key";
+                } else if (reason == null && !seen.add(key)) {
+                    reason = "duplicate";
+                }
+                if (reason != null) {
+                    reject(lineNumber, line, reason);
+                    continue;
+                }
+                rows++;
+
+                long fingerprint = fingerprint(row);
+                Long previous = stored.remove(key);
+                if (previous != null && previous == fingerprint) {
+                    continue;
+                }
+                if (update(row) > 0) {
+                    updated++;
+                } else if (previous == null && insert(row)) {
+                    inserted++;
+                } else {
+                    // A stored key that updated nothing is still there; it gets updated, not inserted, later
+                    retries.add(new Pending(lineNumber, line, row));
+                    continue;
+                }
+                putRow(key, fingerprint);
+            }
+        }
+
+        void finish(String fileHash) {
+            // Whatever is left was imported from an earlier version of the file and is gone now
+            String[] deleteSql = format.deleteSql();
+            SQLiteStatement[] deletes = new SQLiteStatement[deleteSql.length];
+            for (int i = 0; i < deleteSql.length; i++) {
+                deletes[i] = compile(deleteSql[i]);
+            }
+            SQLiteStatement deleteRow = compile(DELETE_ROW_SQL);
+            for (String key : stored.keySet()) {
+                String[] values = splitKey(key);
+                int removed = 0;
+                for (SQLiteStatement delete : deletes) {
+                    delete.clearBindings();
+                    for (int i = 0; i < values.length; i++) {
+                        delete.bindString(i + 1, values[i]);
+                    }
+                    removed = delete.executeUpdateDelete();
+                }
+                deleted += removed;
+                deleteRow.bindString(1, source);
+                deleteRow.bindString(2, key);
+                deleteRow.executeUpdateDelete();
+            }
+
+            // A retry can free a value another retry needs, so go round until a pass changes nothing
+            List<Pending> pending = retries;
+            while (!pending.isEmpty()) {
+                List<Pending> blocked = new ArrayList<>();
+                for (Pending retry : pending) {
+                    if (update(retry.row) > 0) {
+                        updated++;
+                    } else if (insert(retry.row)) {
+                        inserted++;
+                    } else {
+                        blocked.add(retry);
+                        continue;
+                    }
+                    putRow(key(retry.row), fingerprint(retry.row));
+                }
+                if (blocked.size() == pending.size()) {
+                    for (Pending retry : blocked) {
+                        rows--;
+                        reject(retry.lineNumber, retry.line, "duplicate");
+                    }
+                    break;
+                }
+                pending = blocked;
+            }
+
+            SQLiteStatement putSource = compile(PUT_SOURCE_SQL);
+            putSource.bindString(1, source);
+            putSource.bindString(2, fileHash);
+            putSource.bindLong(3, rows);
+            putSource.bindLong(4, System.currentTimeMillis());
+            putSource.executeInsert();
+        }
+
+        int update(Object[] row) {
+            update.clearBindings();
+            int index = 1;
+            for (int i = 0; i < row.length; i++) {
+                if (!isKey[i]) {
+                    bind(update, index++, row[i]);
+                }
+            }
+            for (int column : format.keyColumns()) {
+                bind(update, index++, row[column]);
+            }
+            return update.executeUpdateDelete();
+        }
+
+        boolean insert(Object[] row) {
+            insert.clearBindings();
+            for (int i = 0; i < row.length; i++) {
+                bind(insert, i + 1, row[i]);
+            }
+            return insert.executeInsert() != -1;
+        }
+
+        void putRow(String key, long fingerprint) {
+            putRow.bindString(1, source);
+            putRow.bindString(2, key);
+            putRow.bindLong(3, fingerprint);
+            putRow.executeInsert();
+        }
+
+        void reject(int lineNumber, String line, String reason) {
+            rejected++;
+            if (listener != null) {
+                listener.onReject(lineNumber, line, reason);
+            }
+        }
+
+        // Null when a key column is blank
+        String key(Object[] row) {
+            StringBuilder key = new StringBuilder();
+            for (int column : format.keyColumns()) {
+                Object value = row[column];
+                if (value == null || value.toString().isEmpty()) {
+                    return null;
+                }
+                if (key.length() > 0) {
+                    key.append(KEY_SEPARATOR);
+                }
+                key.append(value);
+            }
+            return key.toString();
+        }
+
+        void close() {
+            for (SQLiteStatement statement : statements) {
+                statement.close();
+            }
+        }
+    }
+
+    private static final class Pending {
+        final int lineNumber;
+        final String line;
+        final Object[] row;
+
+        Pending(int lineNumber, String line, Object[] row) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.row = row;
+        }
+    }
+
+    private static String[] splitKey(String key) {
+        List<String> values = new ArrayList<>();
+        int from = 0;
+        int separator;
+        while ((separator = key.indexOf(KEY_SEPARATOR, from)) >= 0) {
+            values.add(key.substring(from, separator));
+            from = separator + 1;
+        }
+        values.add(key.substring(from));
+        return values.toArray(new String[0]);
+    }
+
+    private static void bind(SQLiteStatement statement, int index, Object value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else if (value instanceof Double || value instanceof Float) {
+            statement.bindDouble(index, ((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            statement.bindLong(index, ((Number) value).longValue());
+        } else {
+            statement.bindString(index, value.toString());
+        }
+    }
+
+    // First 8 bytes of the SHA-256 of the row's values; a collision only costs a missed update
+    static long fingerprint(Object[] row) {
+        MessageDigest digest = sha256();
+        for (Object value : row) {
+            // A marker byte tells null from the text "null" and keeps values from running together
+            digest.update((byte) (value == null ? 0 : 1));
+            if (value != null) {
+                digest.update(value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        byte[] hash = digest.digest();
+        long fingerprint = 0;
+        for (int i = 0; i < 8; i++) {
+            fingerprint = (fingerprint << 8) | (hash[i] & 0xff);
+        }
+        return fingerprint;
+    }
+
+    static String hash(Source input) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = input.open()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Android release ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
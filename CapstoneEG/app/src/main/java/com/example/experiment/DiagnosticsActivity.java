@@ -0,0 +1,97 @@
+package com.example.experiment;
+
+import android.app.Activity;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.ArrayAdapter;
+import android.widget.Button;
+import android.widget.ListView;
+import android.widget.Switch;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows what the query tracer has recorded: latency percentiles, lock wait and rows per
+ * DatabaseManager operation, and the most recent slow queries with their arguments.
+ * Tracing stays off until it is switched on here.
+ */
+public class DiagnosticsActivity extends Activity {
+    private DatabaseManager dbManager;
+    private QueryTracer tracer;
+
+    private Switch switchTracing;
+    private TextView tvSummary;
+    private ListView listViewOperations;
+    private ListView listViewSlowQueries;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+
+        dbManager = DatabaseManager.getInstance(getApplicationContext());
+        tracer = dbManager.getQueryTracer();
+
+        switchTracing = findViewById(R.id.switchTracing);
+        tvSummary = findViewById(R.id.tvSummary);
+        listViewOperations = findViewById(R.id.listViewOperations);
+        listViewSlowQueries = findViewById(R.id.listViewSlowQueries);
+        Button btnRefresh = findViewById(R.id.btnRefresh);
+        Button btnReset = findViewById(R.id.btnReset);
+
+        switchTracing.setChecked(tracer.isEnabled());
+        switchTracing.setOnCheckedChangeListener((button, isChecked) -> {
+            tracer.setEnabled(isChecked);
+            refresh();
+        });
+
+        btnRefresh.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                refresh();
+            }
+        });
+
+        btnReset.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                tracer.reset();
+                refresh();
+            }
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+    }
+
+    // Everything shown is already in memory, so this reads it on the main thread
+    private void refresh() {
+        QueryCache.Stats cache = dbManager.getQueryCacheStats();
+        tvSummary.setText("Tracing " + (tracer.isEnabled() ? "on" : "off")
+                + ", slow query threshold " + tracer.getSlowQueryMillis() + " ms\n"
+                + "Query cache: " + Math.round(cache.getHitRate() * 100) + "% hits, " + cache);
+
+        List<String> operations = new ArrayList<>();
+        for (QueryTracer.OperationStats stats : tracer.getOperations()) {
+            operations.add(stats.toString());
+        }
+        if (operations.isEmpty()) {
+            operations.add(tracer.isEnabled() ? "No operations recorded yet." : "Switch tracing on to record operations.");
+        }
+        listViewOperations.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, operations));
+
+        List<String> slowQueries = new ArrayList<>();
+        for (QueryTracer.SlowQuery query : tracer.getSlowQueries()) {
+            slowQueries.add(query.toString());
+        }
+        if (slowQueries.isEmpty()) {
+            slowQueries.add("No slow queries.");
+        }
+        listViewSlowQueries.setAdapter(new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, slowQueries));
+    }
+}
@@ -1,20 +1,46 @@
 package com.example.experiment;
 
 import android.app.Application;
+import android.content.Context;
 import android.util.Log;
 
 public class ExperimentApplication extends Application {
     private DatabaseManager dbManager;
+    private DatabaseScheduler scheduler;
+
+    // The scheduler every screen runs its database work on
+    public static DatabaseScheduler scheduler(Context context) {
+        return ((ExperimentApplication) context.getApplicationContext()).getScheduler();
+    }
 
     @Override
     public void onCreate() {
         super.onCreate();
         // Initialize shared resources
+        scheduler = new DatabaseScheduler();
         Log.d("ExperimentApplication", "Initializing database manager");
         dbManager = DatabaseManager.getInstance(this);
+        // Course reads are served from memory once this finishes
+        dbManager.loadCourseCatalogAsync();
+        // First launch fills courses, careers, programs and administrators from the prebuilt
+        // reference database instead of waiting for an admin to import the CSVs
+        scheduler.bulkImport(new Runnable() {
+            @Override
+            public void run() {
+                ReferenceData.seed(ExperimentApplication.this, dbManager);
+            }
+        });
         Log.d("ExperimentApplication", "Database manager initialized");
     }
 
+    @Override
+    public void onTerminate() {
+        // The application owns the shared connection, so it is the only place it gets closed
+        scheduler.shutdown();
+        closeDatabase();
+        super.onTerminate();
+    }
+
     @Override
     public void onLowMemory() {
         super.onLowMemory();
@@ -36,10 +62,22 @@ public class ExperimentApplication extends Application {
         }
     }
 
+    DatabaseScheduler getScheduler() {
+        return scheduler;
+    }
+
     public DatabaseManager getDbManager() {
         if (dbManager == null) {
-            dbManager = new DatabaseManager(this);
+            dbManager = DatabaseManager.getInstance(this);
         }
         return dbManager;
     }
+
+    public void closeDatabase() {
+        if (dbManager != null) {
+            dbManager.close();
+            Log.d("ExperimentApplication", "Database closed (opens=" + dbManager.getConnectionOpenCount()
+                    + ", closes=" + dbManager.getConnectionCloseCount() + ")");
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,290 @@
+package com.example.experiment;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Sorts free text into the fields the app browses by, from a table of weighted keywords.
+ *
+ * The table compiles once into an Aho-Corasick automaton, so classifying a title is a single
+ * pass over its characters however many keywords there are. Keywords only match whole words.
+ * A word starts after a space or punctuation, or where letters turn into digits, so "art"
+ * finds "Art history" and "ART1000" but not "department". A keyword ending in '*' also
+ * matches longer words: "teach*" matches "teacher" and "teaching".
+ *
+ * Instances are immutable and safe to share between threads.
+ */
+final class FieldClassifier {
+    static final String STEM = "STEM";
+    static final String HEALTH_SCIENCE = "Health Science";
+    static final String BUSINESS = "Business";
+    static final String EDUCATION = "Education";
+    static final String ARTS = "Arts";
+
+    // Equal weights go to the field listed first, the order the old if-chains checked them in
+    static final String[] FIELDS = {ARTS, STEM, BUSINESS, EDUCATION, HEALTH_SCIENCE};
+
+    // Course titles and codes; a course nothing matches is filed under STEM, the column default
+    static final FieldClassifier COURSES = new Builder()
+            .add(ARTS, 1, "art", "arts", "design*", "music*")
+            .add(STEM, 1, "bio*", "chem*", "phys*", "math*", "comput*", "sci*")
+            .add(BUSINESS, 1, "business*", "account*", "financ*", "market*")
+            .add(EDUCATION, 1, "edu*", "teach*")
+            .add(HEALTH_SCIENCE, 1, "health*", "nursing", "med", "medic*")
+            .build();
+
+    // Career titles. Job nouns weigh more than the subject words around them, and a
+    // title can land in more than one field ("Web and digital interface designers").
+    static final FieldClassifier CAREERS = new Builder()
+            .add(STEM, 2, "engineer*", "developer*", "programmer*", "scientist*", "analyst*", "technician*",
+                    "mathematician*", "statistician*", "actuar*", "architect*")
+            .add(STEM, 1, "math*", "comput*", "science*", "research*", "technolog*", "data", "database*",
+                    "it", "system*", "software", "network*", "web", "information", "security", "administrator*")
+            .add(HEALTH_SCIENCE, 2, "nurse*", "doctor*", "therapist*", "pharmacist*", "physician*")
+            .add(HEALTH_SCIENCE, 1, "health*", "medical", "clinical", "hospital*")
+            .add(BUSINESS, 2, "manager*", "executive*", "accountant*", "consultant*")
+            .add(BUSINESS, 1, "director*", "financ*", "business*", "sales", "account*", "consult*")
+            .add(EDUCATION, 2, "teacher*", "professor*", "educator*", "trainer*", "tutor*")
+            .add(EDUCATION, 1, "education*", "school*")
+            .add(ARTS, 2, "artist*", "designer*", "musician*", "actor*", "illustrator*", "performer*")
+            .add(ARTS, 1, "director*", "media", "perform*")
+            .build();
+
+    private static final int ALPHABET = 36;
+
+    // transitions[state * ALPHABET + symbol], failure links already folded in
+    private final int[] transitions;
+    // Keywords that end in each state, including those reached through failure links
+    private final int[][] outputs;
+    private final int[] keywordField;
+    private final int[] keywordWeight;
+    private final int[] keywordLength;
+    private final boolean[] keywordPrefix;
+
+    private FieldClassifier(Builder builder) {
+        int count = builder.words.size();
+        keywordField = new int[count];
+        keywordWeight = new int[count];
+        keywordLength = new int[count];
+        keywordPrefix = new boolean[count];
+
+        // Trie of every keyword
+        List<int[]> next = new ArrayList<>();
+        List<int[]> ends = new ArrayList<>();
+        next.add(newState());
+        ends.add(new int[0]);
+        for (int k = 0; k < count; k++) {
+            String word = builder.words.get(k);
+            keywordField[k] = builder.fields.get(k);
+            keywordWeight[k] = builder.weights.get(k);
+            keywordPrefix[k] = word.endsWith("*");
+            String letters = keywordPrefix[k] ? word.substring(0, word.length() - 1) : word;
+            keywordLength[k] = letters.length();
+            int state = 0;
+            for (int i = 0; i < letters.length(); i++) {
+                int symbol = symbol(letters.charAt(i));
+                if (next.get(state)[symbol] < 0) {
+                    next.get(state)[symbol] = next.size();
+                    next.add(newState());
+                    ends.add(new int[0]);
+                }
+                state = next.get(state)[symbol];
+            }
+            ends.set(state, append(ends.get(state), k));
+        }
+
+        // Breadth first, so a state's failure target is finished before the state itself
+        int states = next.size();
+        transitions = new int[states * ALPHABET];
+        outputs = new int[states][];
+        int[] failure = new int[states];
+        Queue<Integer> queue = new ArrayDeque<>();
+        outputs[0] = ends.get(0);
+        for (int symbol = 0; symbol < ALPHABET; symbol++) {
+            int child = next.get(0)[symbol];
+            transitions[symbol] = Math.max(child, 0);
+            if (child > 0) {
+                failure[child] = 0;
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            outputs[state] = concat(ends.get(state), outputs[failure[state]]);
+            for (int symbol = 0; symbol < ALPHABET; symbol++) {
+                int child = next.get(state)[symbol];
+                if (child > 0) {
+                    failure[child] = transitions[failure[state] * ALPHABET + symbol];
+                    transitions[state * ALPHABET + symbol] = child;
+                    queue.add(child);
+                } else {
+                    transitions[state * ALPHABET + symbol] = transitions[failure[state] * ALPHABET + symbol];
+                }
+            }
+        }
+    }
+
+    /**
+     * Weighs every field against the given texts together; null texts are skipped.
+     */
+    Result classify(CharSequence... texts) {
+        int[] weights = new int[FIELDS.length];
+        for (CharSequence text : texts) {
+            if (text != null) {
+                scan(text, weights);
+            }
+        }
+        return new Result(weights);
+    }
+
+    private void scan(CharSequence text, int[] weights) {
+        int length = text.length();
+        int state = 0;
+        for (int i = 0; i < length; i++) {
+            int symbol = symbol(text.charAt(i));
+            if (symbol < 0) {
+                state = 0;
+                continue;
+            }
+            state = transitions[state * ALPHABET + symbol];
+            for (int keyword : outputs[state]) {
+                int start = i - keywordLength[keyword] + 1;
+                if (start > 0 && sameWord(text.charAt(start - 1), text.charAt(start))) {
+                    continue;
+                }
+                if (!keywordPrefix[keyword] && i + 1 < length && sameWord(text.charAt(i), text.charAt(i + 1))) {
+                    continue;
+                }
+                weights[keywordField[keyword]] += keywordWeight[keyword];
+            }
+        }
+    }
+
+    // Letters and digits each form words; everything else separates them
+    private static int symbol(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= '0' && c <= '9') {
+            return 26 + c - '0';
+        }
+        return -1;
+    }
+
+    private static boolean sameWord(char a, char b) {
+        int first = symbol(a);
+        int second = symbol(b);
+        return first >= 0 && second >= 0 && (first < 26) == (second < 26);
+    }
+
+    private static int[] newState() {
+        int[] state = new int[ALPHABET];
+        Arrays.fill(state, -1);
+        return state;
+    }
+
+    private static int[] append(int[] values, int value) {
+        int[] appended = Arrays.copyOf(values, values.length + 1);
+        appended[values.length] = value;
+        return appended;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        if (second.length == 0) {
+            return first;
+        }
+        int[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    /**
+     * Summed keyword weight per field.
+     */
+    static final class Result {
+        private final int[] weights;
+
+        Result(int[] weights) {
+            this.weights = weights;
+        }
+
+        int weight(String field) {
+            int index = Arrays.asList(FIELDS).indexOf(field);
+            return index < 0 ? 0 : weights[index];
+        }
+
+        boolean isEmpty() {
+            for (int weight : weights) {
+                if (weight > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Fields with any match, heaviest first
+        List<String> fields() {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < FIELDS.length; i++) {
+                if (weights[i] > 0) {
+                    fields.add(FIELDS[i]);
+                }
+            }
+            // Stable, so equal weights keep FIELDS order
+            fields.sort((a, b) -> weight(b) - weight(a));
+            return fields;
+        }
+
+        String best(String fallback) {
+            int best = -1;
+            for (int i = 0; i < FIELDS.length; i++) {
+                if (weights[i] > 0 && (best < 0 || weights[i] > weights[best])) {
+                    best = i;
+                }
+            }
+            return best < 0 ? fallback : FIELDS[best];
+        }
+    }
+
+    static final class Builder {
+        private final List<String> words = new ArrayList<>();
+        private final List<Integer> fields = new ArrayList<>();
+        private final List<Integer> weights = new ArrayList<>();
+
+        // Keywords are letters and digits, optionally ending in '*'; case does not matter
+        Builder add(String field, int weight, String... keywords) {
+            int index = Arrays.asList(FIELDS).indexOf(field);
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown field " + field);
+            }
+            if (weight < 1) {
+                throw new IllegalArgumentException("Weight must be positive: " + weight);
+            }
+            for (String keyword : keywords) {
+                String letters = keyword.endsWith("*") ? keyword.substring(0, keyword.length() - 1) : keyword;
+                if (letters.isEmpty()) {
+                    throw new IllegalArgumentException("Empty keyword");
+                }
+                for (int i = 0; i < letters.length(); i++) {
+                    if (symbol(letters.charAt(i)) < 0) {
+                        throw new IllegalArgumentException("Keyword " + keyword + " has a character other than a letter or digit");
+                    }
+                }
+                words.add(keyword.toLowerCase());
+                fields.add(index);
+                weights.add(weight);
+            }
+            return this;
+        }
+
+        FieldClassifier build() {
+            return new FieldClassifier(this);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.experiment;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Write-behind queue that commits small writes in groups.
+ *
+ * A single flusher thread takes the first queued write, keeps collecting for up to
+ * windowMillis (or until maxBatch writes), then applies them in submission order inside
+ * one transaction, so a burst of writes costs one commit instead of one each. Each
+ * caller's future completes with its own write's result only after the transaction has
+ * committed; since batches commit one after another, a completed future means every
+ * write submitted before it is durable too.
+ *
+ * Constraint failures such as a duplicate insert only fail their own statement. If a
+ * write throws, the batch is rolled back and every write in it is retried in its own
+ * transaction, so one bad write never fails the others.
+ *
+ * shutdown() commits whatever is already queued, then stops the flusher; writes
+ * submitted after that fail instead of reopening the database.
+ */
+final class GroupCommitQueue {
+    private static final String TAG = "GroupCommitQueue";
+
+    interface Write<T> {
+        // Runs inside the group transaction; must not begin or end transactions itself
+        T apply(SQLiteDatabase db);
+    }
+
+    interface LeaseFactory {
+        DatabaseLocks.Lease writeLease(String operation, String... tables);
+    }
+
+    private final Supplier<SQLiteDatabase> database;
+    private final LeaseFactory leases;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final LinkedBlockingQueue<Pending<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private boolean stopped;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    GroupCommitQueue(Supplier<SQLiteDatabase> database, LeaseFactory leases, long windowMillis, int maxBatch) {
+        this.database = database;
+        this.leases = leases;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatch = maxBatch;
+
+        flusher = new Thread(this::run, "db-group-commit");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Queued after the last write; the flusher stops once it reaches it
+    private static final Pending<Void> STOP = new Pending<>("stop", new String[0], db -> null, null);
+
+    /**
+     * Queues a write. afterCommit, when not null, runs with the result once the batch
+     * has committed and while the writer lock is still held, so in-memory state such
+     * as the course catalog changes in step with the database.
+     */
+    <T> CompletableFuture<T> submit(String operation, String[] tables, Write<T> write, Consumer<T> afterCommit) {
+        Pending<T> pending = new Pending<>(operation, tables, write, afterCommit);
+        synchronized (this) {
+            if (stopped) {
+                pending.future.completeExceptionally(
+                        new IllegalStateException("Group commit queue is shut down; " + operation + " not applied"));
+                return pending.future;
+            }
+            queue.add(pending);
+        }
+        return pending.future;
+    }
+
+    /**
+     * Commits every write queued so far, then stops the flusher thread and waits for it.
+     * Calling it again does nothing.
+     */
+    void shutdown() {
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            queue.add(STOP);
+        }
+        if (Thread.currentThread() == flusher) {
+            // Called from an afterCommit step; the flusher stops when it gets back to the queue
+            return;
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.w(TAG, "Interrupted waiting for the flusher; " + queue.size() + " writes left queued");
+        }
+    }
+
+    private void run() {
+        while (true) {
+            try {
+                Pending<?> first = queue.take();
+                if (first == STOP) {
+                    return;
+                }
+                List<Pending<?>> batch = new ArrayList<>();
+                batch.add(first);
+                boolean stopping = false;
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending<?> next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == STOP) {
+                        stopping = true;
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+                if (stopping) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Log.w(TAG, "Flusher interrupted; " + queue.size() + " writes left queued");
+                return;
+            }
+        }
+    }
+
+    private void flush(List<Pending<?>> batch) {
+        try {
+            commit(batch);
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                Log.e(TAG, batch.get(0).operation + " failed", e);
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            Log.w(TAG, "Batch of " + batch.size() + " rolled back, retrying each write alone", e);
+            retried.addAndGet(batch.size());
+            for (Pending<?> pending : batch) {
+                flush(Collections.<Pending<?>>singletonList(pending));
+            }
+            return;
+        }
+        // Completed in submission order, after the commit and after the lease is released
+        for (Pending<?> pending : batch) {
+            pending.complete();
+        }
+    }
+
+    private void commit(List<Pending<?>> batch) {
+        Set<String> tables = new LinkedHashSet<>();
+        for (Pending<?> pending : batch) {
+            Collections.addAll(tables, pending.tables);
+        }
+        String operation = batch.size() == 1 ? batch.get(0).operation : "groupCommit";
+
+        try (DatabaseLocks.Lease lease = leases.writeLease(operation, tables.toArray(new String[0]))) {
+            SQLiteDatabase db = database.get();
+            db.beginTransaction();
+            try {
+                for (Pending<?> pending : batch) {
+                    pending.apply(db);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            for (Pending<?> pending : batch) {
+                pending.afterCommit();
+            }
+        }
+        batches.incrementAndGet();
+        writes.addAndGet(batch.size());
+    }
+
+    // False once shutdown() has drained the queue
+    boolean isRunning() {
+        return flusher.isAlive();
+    }
+
+    long getBatchCount() {
+        return batches.get();
+    }
+
+    long getWriteCount() {
+        return writes.get();
+    }
+
+    // Writes that had to be re-run alone after their batch rolled back
+    long getRetriedCount() {
+        return retried.get();
+    }
+
+    private static final class Pending<T> {
+        final String operation;
+        final String[] tables;
+        final Write<T> write;
+        final Consumer<T> afterCommit;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+
+        Pending(String operation, String[] tables, Write<T> write, Consumer<T> afterCommit) {
+            this.operation = operation;
+            this.tables = tables;
+            this.write = write;
+            this.afterCommit = afterCommit;
+        }
+
+        void apply(SQLiteDatabase db) {
+            result = write.apply(db);
+        }
+
+        void afterCommit() {
+            if (afterCommit != null) {
+                try {
+                    afterCommit.accept(result);
+                } catch (RuntimeException e) {
+                    // The write is committed either way; only the in-memory follow-up failed
+                    Log.e(TAG, operation + " after-commit step failed", e);
+                }
+            }
+        }
+
+        void complete() {
+            future.complete(result);
+        }
+    }
+}
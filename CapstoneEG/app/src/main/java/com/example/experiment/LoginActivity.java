@@ -19,7 +19,7 @@ public class LoginActivity extends Activity {
         setContentView(R.layout.activity_login);
 
         // Initialize DatabaseManager
-        dbManager = new DatabaseManager(this);
+        dbManager = DatabaseManager.getInstance(this);
 
         // Initialize UI components
         etUsername = (EditText) findViewById(R.id.etUsername);
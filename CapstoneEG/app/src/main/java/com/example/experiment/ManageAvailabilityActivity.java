@@ -4,16 +4,15 @@ import android.app.Activity;
 import android.app.AlertDialog;
 import android.app.DatePickerDialog;
 import android.content.DialogInterface;
-import android.database.Cursor;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.DatePicker;
 import android.widget.ListView;
-import android.widget.SimpleCursorAdapter;
 import android.widget.Spinner;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -26,7 +25,7 @@ import java.util.Locale;
 
 public class ManageAvailabilityActivity extends Activity {
     private static final String TAG = "ManageAvailability";
-    private DatabaseManager dbManager;
+    private DataRepository repository;
     private Spinner spinnerAdmin;
     private Button btnSelectDate;
     private TextView tvSelectedDate;
@@ -38,6 +37,7 @@ public class ManageAvailabilityActivity extends Activity {
     private SimpleDateFormat dateFormat;
     private int selectedAdminId = -1;
     private String selectedDate = null;
+    private List<TimeSlot> currentSlots = new ArrayList<>();
     private String[] timeSlots = new String[]{
             "10:00 AM", "10:30 AM", "11:00 AM", "11:30 AM",
             "12:00 PM", "12:30 PM", "1:00 PM", "1:30 PM",
@@ -51,8 +51,8 @@ public class ManageAvailabilityActivity extends Activity {
 
         Log.d(TAG, "onCreate: Starting ManageAvailabilityActivity");
 
-        // Initialize database manager
-        dbManager = new DatabaseManager(this);
+        // Initialize repository
+        repository = DataRepository.getInstance(this);
 
         // Set up calendar and date format
         calendar = Calendar.getInstance();
@@ -91,8 +91,13 @@ public class ManageAvailabilityActivity extends Activity {
             spinnerAdmin.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
                 @Override
                 public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                    Log.d(TAG, "onItemSelected: Admin selected with ID: " + id);
-                    selectedAdminId = (int) id;
+                    Object item = parent.getItemAtPosition(position);
+                    if (!(item instanceof Administrator)) {
+                        selectedAdminId = -1;
+                        return;
+                    }
+                    selectedAdminId = ((Administrator) item).getId();
+                    Log.d(TAG, "onItemSelected: Admin selected with ID: " + selectedAdminId);
                     updateTimeSlotsList();
                 }
 
@@ -114,7 +119,8 @@ public class ManageAvailabilityActivity extends Activity {
             listViewTimeSlots.setOnItemClickListener(new AdapterView.OnItemClickListener() {
                 @Override
                 public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                    promptDeleteTimeSlot((int) id);
+                    TimeSlot slot = (TimeSlot) parent.getItemAtPosition(position);
+                    promptDeleteTimeSlot(slot.getId());
                 }
             });
 
@@ -145,20 +151,24 @@ public class ManageAvailabilityActivity extends Activity {
     private void loadAdministrators() {
         Log.d(TAG, "loadAdministrators: Loading administrators from database");
 
-        try {
-            Cursor cursor = dbManager.getAllAdministrators();
+        repository.getAllAdministrators().whenCompleteAsync((admins, error) -> {
+            if (isFinishing()) {
+                return;
+            }
+            if (error != null) {
+                Log.e(TAG, "loadAdministrators: Error loading administrators", error);
+                Toast.makeText(this, "Error loading administrators: " + error.getMessage(), Toast.LENGTH_LONG).show();
+                return;
+            }
 
-            if (cursor != null && cursor.getCount() > 0) {
-                Log.d(TAG, "loadAdministrators: Found " + cursor.getCount() + " administrators");
+            if (!admins.isEmpty()) {
+                Log.d(TAG, "loadAdministrators: Found " + admins.size() + " administrators");
 
-                // Create adapter with administrator names
-                SimpleCursorAdapter adapter = new SimpleCursorAdapter(
+                // Administrator.toString() is the name
+                ArrayAdapter<Administrator> adapter = new ArrayAdapter<>(
                         this,
                         android.R.layout.simple_spinner_dropdown_item,
-                        cursor,
-                        new String[]{"name"},
-                        new int[]{android.R.id.text1},
-                        0
+                        admins
                 );
 
                 adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
@@ -180,10 +190,7 @@ public class ManageAvailabilityActivity extends Activity {
                 btnSelectDate.setEnabled(false);
                 btnAddTimeSlot.setEnabled(false);
             }
-        } catch (Exception e) {
-            Log.e(TAG, "loadAdministrators: Error loading administrators", e);
-            Toast.makeText(this, "Error loading administrators: " + e.getMessage(), Toast.LENGTH_LONG).show();
-        }
+        }, repository.mainThread());
     }
 
     private void showDatePickerDialog() {
@@ -227,23 +234,33 @@ public class ManageAvailabilityActivity extends Activity {
         Log.d(TAG, "updateTimeSlotsList: Updating time slots for admin " + selectedAdminId +
                 " on date " + selectedDate);
 
-        try {
-            Cursor cursor = dbManager.getAdminTimeSlots(selectedAdminId, selectedDate);
-
-            if (cursor != null && cursor.getCount() > 0) {
-                Log.d(TAG, "updateTimeSlotsList: Found " + cursor.getCount() + " time slots");
+        repository.getAdminTimeSlots(selectedAdminId, selectedDate).whenCompleteAsync((slots, error) -> {
+            if (isFinishing()) {
+                return;
+            }
+            if (error != null) {
+                Log.e(TAG, "updateTimeSlotsList: Error updating time slots list", error);
+                Toast.makeText(this, "Error loading time slots: " + error.getMessage(), Toast.LENGTH_LONG).show();
+                return;
+            }
 
-                String[] fromColumns = {"time_slot", "status"};
-                int[] toViews = {android.R.id.text1, android.R.id.text2};
+            currentSlots = slots;
+            if (!slots.isEmpty()) {
+                Log.d(TAG, "updateTimeSlotsList: Found " + slots.size() + " time slots");
 
-                SimpleCursorAdapter adapter = new SimpleCursorAdapter(
+                ArrayAdapter<TimeSlot> adapter = new ArrayAdapter<TimeSlot>(
                         this,
                         android.R.layout.simple_list_item_2,
-                        cursor,
-                        fromColumns,
-                        toViews,
-                        0
-                );
+                        android.R.id.text1,
+                        slots
+                ) {
+                    @Override
+                    public View getView(int position, View convertView, ViewGroup parent) {
+                        View view = super.getView(position, convertView, parent);
+                        ((TextView) view.findViewById(android.R.id.text2)).setText(getItem(position).getStatus());
+                        return view;
+                    }
+                };
 
                 listViewTimeSlots.setAdapter(adapter);
             } else {
@@ -253,10 +270,7 @@ public class ManageAvailabilityActivity extends Activity {
                 listViewTimeSlots.setAdapter(null);
                 Toast.makeText(this, "No time slots found for this date", Toast.LENGTH_SHORT).show();
             }
-        } catch (Exception e) {
-            Log.e(TAG, "updateTimeSlotsList: Error updating time slots list", e);
-            Toast.makeText(this, "Error loading time slots: " + e.getMessage(), Toast.LENGTH_LONG).show();
-        }
+        }, repository.mainThread());
     }
 
     private void addTimeSlot() {
@@ -274,22 +288,20 @@ public class ManageAvailabilityActivity extends Activity {
         Log.d(TAG, "addTimeSlot: Adding time slot " + timeSlot + " for admin " + selectedAdminId +
                 " on date " + selectedDate);
 
-        // Check if time slot already exists
-        List<String> existingSlots = dbManager.getExistingTimeSlots(selectedAdminId, selectedDate);
-        if (existingSlots.contains(timeSlot)) {
-            Toast.makeText(this, "This time slot already exists", Toast.LENGTH_SHORT).show();
-            return;
-        }
-
-        // Add the time slot
-        boolean success = dbManager.addAdminAvailability(selectedAdminId, selectedDate, timeSlot);
-
-        if (success) {
-            Toast.makeText(this, "Time slot added successfully", Toast.LENGTH_SHORT).show();
-            updateTimeSlotsList(); // Refresh list
-        } else {
-            Toast.makeText(this, "Failed to add time slot", Toast.LENGTH_SHORT).show();
-        }
+        // The insert itself reports a duplicate, so there is no separate existence check
+        repository.addTimeSlot(selectedAdminId, selectedDate, timeSlot).whenCompleteAsync((outcome, error) -> {
+            if (isFinishing()) {
+                return;
+            }
+            if (error == null && outcome == WriteOutcome.ADDED) {
+                Toast.makeText(this, "Time slot added successfully", Toast.LENGTH_SHORT).show();
+                updateTimeSlotsList(); // Refresh list
+            } else if (error == null && outcome == WriteOutcome.ALREADY_EXISTS) {
+                Toast.makeText(this, "This time slot already exists", Toast.LENGTH_SHORT).show();
+            } else {
+                Toast.makeText(this, "Failed to add time slot", Toast.LENGTH_SHORT).show();
+            }
+        }, repository.mainThread());
     }
 
     private void promptDeleteTimeSlot(final int timeSlotId) {
@@ -314,20 +326,33 @@ public class ManageAvailabilityActivity extends Activity {
     private void deleteTimeSlot(int timeSlotId) {
         Log.d(TAG, "deleteTimeSlot: Deleting time slot with ID: " + timeSlotId);
 
-        boolean deleted = dbManager.deleteTimeSlot(timeSlotId);
-
-        if (deleted) {
-            Toast.makeText(this, "Time slot deleted", Toast.LENGTH_SHORT).show();
+        repository.removeTimeSlot(timeSlotId).whenCompleteAsync((outcome, error) -> {
+            if (isFinishing()) {
+                return;
+            }
+            if (error != null) {
+                Toast.makeText(this, "Failed to delete time slot", Toast.LENGTH_SHORT).show();
+                return;
+            }
+            switch (outcome) {
+                case DELETED:
+                    Toast.makeText(this, "Time slot deleted", Toast.LENGTH_SHORT).show();
+                    break;
+                case BOOKED:
+                    Toast.makeText(this, "Cannot delete booked time slots", Toast.LENGTH_SHORT).show();
+                    break;
+                default:
+                    Toast.makeText(this, "This time slot was already deleted", Toast.LENGTH_SHORT).show();
+                    break;
+            }
             updateTimeSlotsList();
-        } else {
-            Toast.makeText(this, "Cannot delete booked time slots", Toast.LENGTH_SHORT).show();
-        }
+        }, repository.mainThread());
     }
 
     @Override
     protected void onDestroy() {
         // Release references but don't close connections
-        dbManager = null;
+        repository = null;
 
         // Rest of your cleanup code
         super.onDestroy();
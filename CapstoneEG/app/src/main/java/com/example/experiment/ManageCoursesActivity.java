@@ -14,6 +14,7 @@ import android.os.Looper;
 import android.text.TextUtils;
 import android.util.Log;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
@@ -31,9 +32,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ManageCoursesActivity extends Activity {
     private static final String TAG = "ManageCoursesActivity";
@@ -46,11 +50,18 @@ public class ManageCoursesActivity extends Activity {
     private ListView listViewCourses;
     private Button btnImportCourses;
 
-    // Add ExecutorService and Handler for background operations
-    private ExecutorService executorService;
+    // Shared database scheduler and Handler for background operations
+    private DatabaseScheduler scheduler;
     private Handler mainThreadHandler;
 
+    // Search results; without a query the list pages through courseAdapter instead
     private SimpleCursorAdapter adapter;
+    private ArrayAdapter<Course> courseAdapter;
+    private PagedListLoader<Course> coursePager;
+    // Bumped by every loadCourses call so an older load never replaces a newer list
+    private int courseListGeneration;
+    // Program names per course id for the rows in the list; replaced together with its rows
+    private Map<Integer, String> programLabels = Collections.emptyMap();
     private int selectedProgramId = -1;
 
     // Flag to track activity state
@@ -67,10 +78,8 @@ public class ManageCoursesActivity extends Activity {
             isActivityActive = true;
             importInProgress = false;
 
-            // Initialize ExecutorService and Handler
-            if (executorService == null || executorService.isShutdown()) {
-                executorService = Executors.newFixedThreadPool(2);
-            }
+            // Initialize scheduler and Handler
+            scheduler = ExperimentApplication.scheduler(this);
 
             mainThreadHandler = new Handler(Looper.getMainLooper());
 
@@ -95,6 +104,7 @@ public class ManageCoursesActivity extends Activity {
 
             // Set up event handlers
             setupEventHandlers();
+            setupCourseAdapter();
 
             // Add a placeholder adapter for the spinner until academic programs load
             ArrayAdapter<String> placeholderAdapter = new ArrayAdapter<>(
@@ -108,18 +118,12 @@ public class ManageCoursesActivity extends Activity {
 
             // Start background operations
             if (isActivityActive) {
-                executorService.execute(new Runnable() {
+                scheduler.read(new Runnable() {
                     @Override
                     public void run() {
                         if (!isActivityActive) return;
 
                         try {
-                            // Ensure tables exist in background
-                            dbManager.ensureAcademicProgramsTableExists();
-                            dbManager.ensureCoursesTableColumns();
-
-                            if (!isActivityActive) return;
-
                             // Check if we need to import courses
                             final int courseCount = dbManager.getCourseCount();
 
@@ -270,15 +274,12 @@ public class ManageCoursesActivity extends Activity {
     private void loadAcademicPrograms() {
         if (!isActivityActive) return;
 
-        executorService.execute(new Runnable() {
+        scheduler.read(new Runnable() {
             @Override
             public void run() {
                 try {
                     if (!isActivityActive) return;
 
-                    // Ensure academic programs table exists
-                    dbManager.ensureAcademicProgramsTableExists();
-
                     // Ensure academic programs are imported
                     if (dbManager.getAcademicProgramCount() == 0) {
                         importAcademicProgramsFromAssets();
@@ -433,7 +434,16 @@ public class ManageCoursesActivity extends Activity {
     private void loadCourses(final String searchQuery) {
         if (!isActivityActive) return;
 
-        executorService.execute(new Runnable() {
+        final int generation = ++courseListGeneration;
+        if (coursePager != null) {
+            coursePager.stop();
+        }
+        if (TextUtils.isEmpty(searchQuery)) {
+            loadCoursePages();
+            return;
+        }
+
+        scheduler.read(new Runnable() {
             @Override
             public void run() {
                 try {
@@ -443,20 +453,11 @@ public class ManageCoursesActivity extends Activity {
 
                     // First try to get the courses with proper error handling
                     try {
+                        // Search results are capped already, so they are shown in one go
                         if (selectedProgramId == -1) {
-                            // No program filter, just search query if any
-                            if (TextUtils.isEmpty(searchQuery)) {
-                                cursor = dbManager.getAllCourses();
-                            } else {
-                                cursor = dbManager.searchCourses(searchQuery);
-                            }
+                            cursor = dbManager.searchCourses(searchQuery);
                         } else {
-                            // Filter by program and search query
-                            if (TextUtils.isEmpty(searchQuery)) {
-                                cursor = dbManager.getCoursesForProgram(selectedProgramId);
-                            } else {
-                                cursor = dbManager.searchCoursesInProgram(selectedProgramId, searchQuery);
-                            }
+                            cursor = dbManager.searchCoursesInProgram(selectedProgramId, searchQuery);
                         }
 
                         // Check for null cursor
@@ -487,6 +488,9 @@ public class ManageCoursesActivity extends Activity {
                         return;
                     }
 
+                    // Labels for every row come from one query, before any row is bound
+                    final Map<Integer, String> labels = dbManager.getProgramLabelsByCourse();
+
                     if (!isActivityActive) {
                         if (cursor != null && !cursor.isClosed()) {
                             cursor.close();
@@ -497,7 +501,7 @@ public class ManageCoursesActivity extends Activity {
                     mainThreadHandler.post(new Runnable() {
                         @Override
                         public void run() {
-                            if (!isActivityActive) {
+                            if (!isActivityActive || generation != courseListGeneration) {
                                 if (cursor != null && !cursor.isClosed()) {
                                     cursor.close();
                                 }
@@ -505,6 +509,8 @@ public class ManageCoursesActivity extends Activity {
                             }
 
                             try {
+                                programLabels = labels;
+
                                 // Columns from the database to use
                                 String[] fromColumns = {"course", "reference", "description"};
 
@@ -546,9 +552,10 @@ public class ManageCoursesActivity extends Activity {
                                             View parent = (View) view.getParent();
                                             TextView programsView = (TextView) parent.findViewById(R.id.tvCoursePrograms);
 
-                                            if (programsView != null && isActivityActive) {
-                                                // Load program information asynchronously
-                                                updateProgramsForCourse(courseId, programsView);
+                                            if (programsView != null) {
+                                                // Bound synchronously, so a recycled row never shows another course's programs
+                                                String programs = programLabels.get(courseId);
+                                                programsView.setText("Programs: " + (programs != null ? programs : "None"));
                                             }
 
                                             return true;
@@ -588,65 +595,61 @@ public class ManageCoursesActivity extends Activity {
         });
     }
 
-    private void updateProgramsForCourse(final int courseId, final TextView programsView) {
-        if (!isActivityActive) return;
-
-        executorService.execute(new Runnable() {
+    private void setupCourseAdapter() {
+        courseAdapter = new ArrayAdapter<Course>(this, R.layout.item_course) {
             @Override
-            public void run() {
-                if (!isActivityActive) return;
-
-                // Get programs for this course
-                final StringBuilder programsText = new StringBuilder("Programs: ");
-                boolean hasPrograms = false;
-                Cursor programsCursor = null;
-
-                try {
-                    programsCursor = dbManager.getProgramsForCourse(courseId);
-                    if (programsCursor != null && programsCursor.getCount() > 0) {
-                        int programNameIndex = programsCursor.getColumnIndex("program_name");
-                        if (programNameIndex >= 0) {
-                            while (programsCursor.moveToNext()) {
-                                if (hasPrograms) {
-                                    programsText.append(", ");
-                                }
-                                programsText.append(programsCursor.getString(programNameIndex));
-                                hasPrograms = true;
-                            }
-                        } else {
-                            Log.e(TAG, "program_name column not found in cursor");
-                            programsText.append("Unknown programs");
-                            hasPrograms = true;
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.e(TAG, "Error getting programs for course", e);
-                } finally {
-                    if (programsCursor != null) {
-                        programsCursor.close();
-                    }
+            public View getView(int position, View convertView, ViewGroup parent) {
+                View view = convertView;
+                if (view == null) {
+                    view = getLayoutInflater().inflate(R.layout.item_course, parent, false);
                 }
+                Course course = getItem(position);
+                ((TextView) view.findViewById(R.id.tvCourseTitle)).setText(course.getTitle());
+                ((TextView) view.findViewById(R.id.tvCourseReference)).setText(course.getReference());
+                ((TextView) view.findViewById(R.id.tvCourseDetails)).setText(course.getDescription());
+                String programs = programLabels.get(course.getId());
+                ((TextView) view.findViewById(R.id.tvCoursePrograms))
+                        .setText("Programs: " + (programs != null ? programs : "None"));
+                return view;
+            }
 
-                if (!hasPrograms) {
-                    programsText.append("None");
-                }
+            // The click handler reads the course id from the row id, as with the search cursor
+            @Override
+            public long getItemId(int position) {
+                return getItem(position).getId();
+            }
 
-                if (!isActivityActive) return;
+            @Override
+            public boolean hasStableIds() {
+                return true;
+            }
+        };
+    }
 
-                mainThreadHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        if (!isActivityActive) return;
+    // Without a search query the list loads a page at a time as the user scrolls
+    private void loadCoursePages() {
+        final int programId = selectedProgramId;
+        // Filled a page at a time on the loader thread, before that page reaches the adapter
+        final Map<Integer, String> labels = new ConcurrentHashMap<>();
+        programLabels = labels;
+        if (adapter != null) {
+            adapter.changeCursor(null);
+            adapter = null;
+        }
 
-                        try {
-                            programsView.setText(programsText.toString());
-                        } catch (Exception e) {
-                            Log.e(TAG, "Error updating programs view", e);
-                        }
-                    }
-                });
+        coursePager = new PagedListLoader<>(courseAdapter, new PagedListLoader.PageSource<Course>() {
+            @Override
+            public List<Course> loadPage(Course after, int pageSize) {
+                List<Course> page = programId == -1
+                        ? dbManager.getCoursesPage(after, pageSize)
+                        : dbManager.getCoursesForProgramPage(programId, after, pageSize);
+                labels.putAll(dbManager.getProgramLabelsForCourses(page));
+                return page;
             }
-        });
+        }, DatabaseManager.DEFAULT_PAGE_SIZE, scheduler.reads(), mainThreadHandler);
+        listViewCourses.setOnScrollListener(coursePager);
+        listViewCourses.setAdapter(courseAdapter);
+        coursePager.start();
     }
 
     private void importCoursesFromAssets() {
@@ -667,7 +670,7 @@ public class ManageCoursesActivity extends Activity {
         progressDialog.setCancelable(false);
         progressDialog.show();
 
-        executorService.execute(new Runnable() {
+        boolean queued = scheduler.bulkImport(new Runnable() {
             @Override
             public void run() {
                 try {
@@ -675,48 +678,22 @@ public class ManageCoursesActivity extends Activity {
                         return;
                     }
 
-                    // Open CSV file
-                    InputStream is = getAssets().open("mdc_courses.csv");
-                    BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-
-                    // Read all lines
-                    final List<String> lines = new ArrayList<>();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        lines.add(line);
-                    }
-                    reader.close();
-
-                    // Convert to array outside UI thread
-                    final String[] linesArray = lines.toArray(new String[0]);
-
-                    if (!isActivityActive) {
-                        return;
-                    }
-
-                    // Update UI before importing
-                    mainThreadHandler.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            if (!isActivityActive) {
-                                progressDialog.dismiss();
-                                return;
-                            }
-
-                            Toast.makeText(ManageCoursesActivity.this,
-                                    "Read " + lines.size() + " lines from courses CSV",
-                                    Toast.LENGTH_SHORT).show();
-                        }
-                    });
-
-                    if (!isActivityActive) {
-                        progressDialog.dismiss();
-                        return;
-                    }
+                    // Apply only what changed since the asset was last imported
+                    dbManager.importCoursesDelta(AdminDashboardActivity.COURSES_ASSET,
+                            () -> getAssets().open(AdminDashboardActivity.COURSES_ASSET),
+                            new CsvImporter.Listener() {
+                                @Override
+                                public void onProgress(int rowsRead, int rowsImported) {
+                                }
 
-                    // Import data
-                    final boolean success = dbManager.importCoursesFromCSV(linesArray);
+                                @Override
+                                public void onReject(int lineNumber, String line, String reason) {
+                                    Log.w(TAG, "Line " + lineNumber + " rejected (" + reason + "): " + line);
+                                }
+                            });
                     final int recordCount = dbManager.getCourseCount();
+                    // Rejected rows are logged; the import failed only if it left the table empty
+                    final boolean success = recordCount > 0;
 
                     if (!isActivityActive) {
                         progressDialog.dismiss();
@@ -785,12 +762,17 @@ public class ManageCoursesActivity extends Activity {
                 }
             }
         });
+        if (!queued) {
+            progressDialog.dismiss();
+            importInProgress = false;
+            Toast.makeText(ManageCoursesActivity.this, "The database is busy, please try again", Toast.LENGTH_SHORT).show();
+        }
     }
 
     private void importAcademicProgramsFromAssets() {
         if (!isActivityActive) return;
 
-        executorService.execute(new Runnable() {
+        scheduler.bulkImport(new Runnable() {
             @Override
             public void run() {
                 try {
@@ -896,7 +878,7 @@ public class ManageCoursesActivity extends Activity {
             public void onClick(DialogInterface dialog, int which) {
                 if (!isActivityActive) return;
 
-                executorService.execute(new Runnable() {
+                scheduler.write(new Runnable() {
                     @Override
                     public void run() {
                         if (!isActivityActive) return;
@@ -930,65 +912,44 @@ public class ManageCoursesActivity extends Activity {
     private void showAssignProgramsDialog(final int courseId) {
         if (!isActivityActive) return;
 
-        executorService.execute(new Runnable() {
+        scheduler.read(new Runnable() {
             @Override
             public void run() {
                 if (!isActivityActive) return;
 
-                // Get all available programs
-                final Cursor allProgramsCursor = dbManager.getAllAcademicPrograms();
-
-                if (!isActivityActive) {
-                    if (allProgramsCursor != null) {
-                        allProgramsCursor.close();
+                // Two queries no matter how many programs exist: all programs, then this course's
+                final List<String> programNames = new ArrayList<>();
+                final List<Integer> programIds = new ArrayList<>();
+                Cursor allProgramsCursor = dbManager.getAllAcademicPrograms();
+                try {
+                    int idColumnIndex = allProgramsCursor.getColumnIndexOrThrow("_id");
+                    int nameColumnIndex = allProgramsCursor.getColumnIndexOrThrow("program_name");
+                    while (allProgramsCursor.moveToNext()) {
+                        programIds.add(allProgramsCursor.getInt(idColumnIndex));
+                        programNames.add(allProgramsCursor.getString(nameColumnIndex));
                     }
-                    return;
+                } catch (Exception e) {
+                    Log.e(TAG, "Error reading programs", e);
+                } finally {
+                    allProgramsCursor.close();
                 }
+                final Set<Integer> assigned = dbManager.getProgramIdsForCourse(courseId);
+
+                if (!isActivityActive) return;
 
                 mainThreadHandler.post(new Runnable() {
                     @Override
                     public void run() {
-                        if (!isActivityActive) {
-                            if (allProgramsCursor != null) {
-                                allProgramsCursor.close();
-                            }
-                            return;
-                        }
+                        if (!isActivityActive) return;
 
-                        if (allProgramsCursor == null || allProgramsCursor.getCount() == 0) {
+                        if (programIds.isEmpty()) {
                             Toast.makeText(ManageCoursesActivity.this, "No programs available", Toast.LENGTH_SHORT).show();
                             return;
                         }
 
-                        // Create list of program names and IDs
-                        final List<String> programNames = new ArrayList<>();
-                        final List<Integer> programIds = new ArrayList<>();
-                        final boolean[] checkedItems = new boolean[allProgramsCursor.getCount()];
-
-                        int index = 0;
-                        while (allProgramsCursor.moveToNext()) {
-                            try {
-                                int idColumnIndex = allProgramsCursor.getColumnIndex("_id");
-                                int nameColumnIndex = allProgramsCursor.getColumnIndex("program_name");
-
-                                if (idColumnIndex >= 0 && nameColumnIndex >= 0) {
-                                    int programId = allProgramsCursor.getInt(idColumnIndex);
-                                    String programName = allProgramsCursor.getString(nameColumnIndex);
-
-                                    programNames.add(programName);
-                                    programIds.add(programId);
-
-                                    // Check if this course is already in this program
-                                    checkedItems[index] = dbManager.isCourseInProgram(courseId, programId);
-                                    index++;
-                                } else {
-                                    Log.e(TAG, "Column not found in cursor: " +
-                                            (idColumnIndex < 0 ? "_id " : "") +
-                                            (nameColumnIndex < 0 ? "program_name" : ""));
-                                }
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error processing program cursor row", e);
-                            }
+                        final boolean[] checkedItems = new boolean[programIds.size()];
+                        for (int i = 0; i < checkedItems.length; i++) {
+                            checkedItems[i] = assigned.contains(programIds.get(i));
                         }
 
                         // Create dialog with multi-choice items
@@ -1012,25 +973,20 @@ public class ManageCoursesActivity extends Activity {
                             public void onClick(DialogInterface dialog, int which) {
                                 if (!isActivityActive) return;
 
-                                // Update program assignments based on checked items
-                                executorService.execute(new Runnable() {
+                                final Set<Integer> selected = new HashSet<>();
+                                for (int i = 0; i < checkedItems.length; i++) {
+                                    if (checkedItems[i]) {
+                                        selected.add(programIds.get(i));
+                                    }
+                                }
+
+                                // The whole selection is saved in one transaction
+                                scheduler.write(new Runnable() {
                                     @Override
                                     public void run() {
                                         if (!isActivityActive) return;
 
-                                        for (int i = 0; i < programIds.size(); i++) {
-                                            int programId = programIds.get(i);
-                                            boolean isChecked = checkedItems[i];
-                                            boolean wasChecked = dbManager.isCourseInProgram(courseId, programId);
-
-                                            if (isChecked && !wasChecked) {
-                                                // Add course to program
-                                                dbManager.addCourseToProgram(courseId, programId);
-                                            } else if (!isChecked && wasChecked) {
-                                                // Remove course from program
-                                                dbManager.removeCourseFromProgram(courseId, programId);
-                                            }
-                                        }
+                                        final boolean saved = dbManager.setCoursePrograms(courseId, selected);
 
                                         if (!isActivityActive) return;
 
@@ -1039,6 +995,10 @@ public class ManageCoursesActivity extends Activity {
                                             public void run() {
                                                 if (!isActivityActive) return;
 
+                                                if (!saved) {
+                                                    Toast.makeText(ManageCoursesActivity.this, "Could not update program assignments", Toast.LENGTH_SHORT).show();
+                                                    return;
+                                                }
                                                 // Refresh the course list to reflect any changes to filters
                                                 loadCourses(editTextSearch.getText().toString());
                                                 Toast.makeText(ManageCoursesActivity.this, "Program assignments updated", Toast.LENGTH_SHORT).show();
@@ -1051,9 +1011,6 @@ public class ManageCoursesActivity extends Activity {
 
                         builder.setNegativeButton("Cancel", null);
                         builder.show();
-
-                        // Close cursor when dialog is dismissed
-                        allProgramsCursor.close();
                     }
                 });
             }
@@ -1092,7 +1049,7 @@ public class ManageCoursesActivity extends Activity {
                 final String description = editTextDescription.getText().toString().trim();
 
                 if (!TextUtils.isEmpty(course) && !TextUtils.isEmpty(reference)) {
-                    executorService.execute(new Runnable() {
+                    scheduler.write(new Runnable() {
                         @Override
                         public void run() {
                             if (!isActivityActive) return;
@@ -1130,7 +1087,7 @@ public class ManageCoursesActivity extends Activity {
     private void showEditCourseDialog(final int courseId) {
         if (!isActivityActive) return;
 
-        executorService.execute(new Runnable() {
+        scheduler.read(new Runnable() {
             @Override
             public void run() {
                 if (!isActivityActive) return;
@@ -1210,7 +1167,7 @@ public class ManageCoursesActivity extends Activity {
                                     final String description = editTextDescription.getText().toString().trim();
 
                                     if (!TextUtils.isEmpty(course) && !TextUtils.isEmpty(reference)) {
-                                        executorService.execute(new Runnable() {
+                                        scheduler.write(new Runnable() {
                                             @Override
                                             public void run() {
                                                 if (!isActivityActive) return;
@@ -1275,6 +1232,9 @@ public class ManageCoursesActivity extends Activity {
             if (mainThreadHandler != null) {
                 mainThreadHandler.removeCallbacksAndMessages(null);
             }
+            if (coursePager != null) {
+                coursePager.stop();
+            }
 
             // Close any cursor in the adapter
             if (adapter != null) {
@@ -1289,20 +1249,9 @@ public class ManageCoursesActivity extends Activity {
                 }
             }
 
-            // Shutdown executor service immediately
-            if (executorService != null && !executorService.isShutdown()) {
-                try {
-                    List<Runnable> pendingTasks = executorService.shutdownNow();
-                    Log.d(TAG, "Shutdown executor service with " + pendingTasks.size() + " pending tasks");
-                    executorService = null;
-                } catch (Exception e) {
-                    Log.e(TAG, "Error shutting down executor service", e);
-                }
-            }
-
-            // Don't close the database manager, just release the reference
-            // This allows other activities to continue using the singleton instance
-            dbManager = null;
+            // Tasks already on the shared scheduler run to completion; their callbacks
+            // check isActivityActive before touching the UI
+            // Keep dbManager: tasks queued on the shared scheduler may still run after this
 
         } catch (Exception e) {
             Log.e(TAG, "Error in onDestroy", e);
@@ -13,11 +13,12 @@ import android.view.ViewGroup;
 import android.widget.*;
 
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class ManageRecommendationsActivity extends Activity {
     private static final String TAG = "ManageRecommendations";
+    private static final String ALL_FIELDS = "All Fields";
+    private static final String[] FIELDS = {ALL_FIELDS, FieldClassifier.STEM, FieldClassifier.HEALTH_SCIENCE,
+            FieldClassifier.BUSINESS, FieldClassifier.EDUCATION, FieldClassifier.ARTS};
 
     private Spinner spinnerFields, spinnerCareers, spinnerCourses;
     private SeekBar seekBarRelevance;
@@ -27,22 +28,26 @@ public class ManageRecommendationsActivity extends Activity {
     private ProgressBar progressBar;
 
     private DatabaseManager dbManager;
-    private ExecutorService executorService;
+    private DatabaseScheduler scheduler;
     private Handler mainThreadHandler;
 
-    private String selectedField = "All Fields";
+    private String selectedField = ALL_FIELDS;
     private int selectedCareerId = -1;
     private int selectedCourseId = -1;
     private int selectedRelevance = 5;
 
-    private Map<String, List<DatabaseManager.CareerIdPair>> fieldOccupationMap;
+    // Careers in the spinner, in spinner order
+    private List<DatabaseManager.CareerIdPair> careers = new ArrayList<>();
+
+    private RecommendationsAdapter recommendationsAdapter;
+    private PagedListLoader<DatabaseManager.Recommendation> recommendationPager;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_manage_recommendations);
 
-        executorService = Executors.newFixedThreadPool(2);
+        scheduler = ExperimentApplication.scheduler(this);
         mainThreadHandler = new Handler(Looper.getMainLooper());
 
         try {
@@ -63,7 +68,6 @@ public class ManageRecommendationsActivity extends Activity {
         listViewRecommendations = findViewById(R.id.listViewRecommendations);
         progressBar = findViewById(R.id.progressBar);
 
-        initializeFieldOccupationMap();
         setupSpinners();
         setupSeekBar();
         setupAddButton();
@@ -74,9 +78,8 @@ public class ManageRecommendationsActivity extends Activity {
 
     private void verifyTablesAndLoadData() {
         progressBar.setVisibility(View.VISIBLE);
-        executorService.execute(() -> {
+        boolean queued = scheduler.read(() -> {
             try {
-                dbManager.createCareerCoursesTable();
                 mainThreadHandler.post(() -> {
                     progressBar.setVisibility(View.GONE);
                     loadCareers();
@@ -92,11 +95,15 @@ public class ManageRecommendationsActivity extends Activity {
                 });
             }
         });
+        if (!queued) {
+            progressBar.setVisibility(View.GONE);
+            Toast.makeText(this, "The database is busy, please try again", Toast.LENGTH_SHORT).show();
+        }
     }
 
     private void loadCourses() {
         progressBar.setVisibility(View.VISIBLE);
-        executorService.execute(() -> {
+        boolean queued = scheduler.read(() -> {
             List<String> courseNames = new ArrayList<>();
             Map<String, Integer> courseIdMap = new HashMap<>();
             try (Cursor cursor = dbManager.getCoursesByField(selectedField)) {
@@ -146,47 +153,31 @@ public class ManageRecommendationsActivity extends Activity {
                 }
             });
         });
+        if (!queued) {
+            progressBar.setVisibility(View.GONE);
+            Toast.makeText(this, "The database is busy, please try again", Toast.LENGTH_SHORT).show();
+        }
     }
 
+    // Restarts the paged list from the top; later pages load as the user scrolls
     private void loadRecommendations() {
-        executorService.execute(() -> {
-            try {
-                List<DatabaseManager.Recommendation> recommendations = dbManager.getAllRecommendationsSafe();
-                mainThreadHandler.post(() -> {
-                    if (recommendations != null && !recommendations.isEmpty()) {
-                        listViewRecommendations.setAdapter(new ArrayAdapter<>(
-                                this,
-                                android.R.layout.simple_list_item_1,
-                                recommendations.stream().map(r -> r.recommendationInfo).toArray(String[]::new)));
-                    } else {
-                        listViewRecommendations.setAdapter(new ArrayAdapter<>(
-                                this,
-                                android.R.layout.simple_list_item_1,
-                                new String[]{"No recommendations yet."}));
-                    }
-                });
-            } catch (Exception e) {
-                Log.e(TAG, "Failed to load recommendations", e);
-                mainThreadHandler.post(() -> Toast.makeText(this, "Error loading recommendations", Toast.LENGTH_SHORT).show());
-            }
-        });
+        listViewRecommendations.setAdapter(recommendationsAdapter);
+        recommendationPager.start();
     }
 
     @Override
     protected void onDestroy() {
-        if (executorService != null && !executorService.isShutdown()) {
-            executorService.shutdownNow();
+        if (recommendationPager != null) {
+            recommendationPager.stop();
         }
 
-        // Don't close the database manager, just release the reference
-        dbManager = null;
-
+        // Keep dbManager: tasks queued on the shared scheduler may still run after this
         super.onDestroy();
     }
 
     private void setupSpinners() {
         ArrayAdapter<String> fieldsAdapter = new ArrayAdapter<>(
-                this, android.R.layout.simple_spinner_item, new ArrayList<>(fieldOccupationMap.keySet()));
+                this, android.R.layout.simple_spinner_item, FIELDS);
         fieldsAdapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
         spinnerFields.setAdapter(fieldsAdapter);
 
@@ -200,15 +191,14 @@ public class ManageRecommendationsActivity extends Activity {
 
             @Override
             public void onNothingSelected(AdapterView<?> parent) {
-                selectedField = "All Fields";
+                selectedField = ALL_FIELDS;
             }
         });
 
         spinnerCareers.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
             @Override
             public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                List<DatabaseManager.CareerIdPair> careers = fieldOccupationMap.get(selectedField);
-                if (careers != null && position >= 0 && position < careers.size()) {
+                if (position >= 0 && position < careers.size()) {
                     selectedCareerId = careers.get(position).id;
                 } else {
                     selectedCareerId = -1;
@@ -276,53 +266,64 @@ public class ManageRecommendationsActivity extends Activity {
     }
 
     private void setupRecommendationList() {
-        listViewRecommendations.setOnItemClickListener((parent, view, position, id) ->
-                showDeleteConfirmationDialog((int) id));
-    }
+        recommendationsAdapter = new RecommendationsAdapter(this, new ArrayList<>());
+        recommendationPager = new PagedListLoader<>(recommendationsAdapter, dbManager::getRecommendationsPage,
+                DatabaseManager.DEFAULT_PAGE_SIZE, scheduler.reads(), mainThreadHandler);
+        recommendationPager.setOnFirstPageListener(count -> {
+            if (count == 0) {
+                listViewRecommendations.setAdapter(new ArrayAdapter<>(
+                        this,
+                        android.R.layout.simple_list_item_1,
+                        new String[]{"No recommendations yet."}));
+            }
+        });
+        listViewRecommendations.setOnScrollListener(recommendationPager);
 
-    private void initializeFieldOccupationMap() {
-        fieldOccupationMap = new HashMap<>();
-        String[] fields = {"All Fields", "STEM", "Health Science", "Business", "Education", "Arts"};
-        for (String field : fields) fieldOccupationMap.put(field, new ArrayList<>());
-
-        List<DatabaseManager.CareerIdPair> allCareers = dbManager.getCareerIdTitlePairs();
-        fieldOccupationMap.get("All Fields").addAll(allCareers);
-
-        for (DatabaseManager.CareerIdPair career : allCareers) {
-            String title = career.title.toLowerCase();
-            if (title.matches(".*(engineer|developer|programmer|scientist|analyst|technician|math|computer|science|research|technology|data|it|system).*"))
-                fieldOccupationMap.get("STEM").add(career);
-            if (title.matches(".*(health|medical|nurse|doctor|therapist|pharmacist|clinical|hospital|healthcare).*"))
-                fieldOccupationMap.get("Health Science").add(career);
-            if (title.matches(".*(manager|executive|director|finance|business|consult|sales|account).*"))
-                fieldOccupationMap.get("Business").add(career);
-            if (title.matches(".*(teacher|professor|educator|trainer|tutor|education|school).*"))
-                fieldOccupationMap.get("Education").add(career);
-            if (title.matches(".*(artist|designer|musician|actor|director|perform|media|illustrator).*"))
-                fieldOccupationMap.get("Arts").add(career);
-        }
+        listViewRecommendations.setOnItemClickListener((parent, view, position, id) -> {
+            // The placeholder row shown for an empty list has nothing to delete
+            Object item = parent.getItemAtPosition(position);
+            if (item instanceof DatabaseManager.Recommendation) {
+                showDeleteConfirmationDialog(((DatabaseManager.Recommendation) item).id);
+            }
+        });
     }
 
+    // Fields were filed when each career was imported or added; this only reads them back
     private void loadCareers() {
-        List<DatabaseManager.CareerIdPair> careers = fieldOccupationMap.get(selectedField);
-        if (careers == null) careers = new ArrayList<>();
-        List<String> careerTitles = new ArrayList<>();
-        for (DatabaseManager.CareerIdPair c : careers) careerTitles.add(c.title);
-        ArrayAdapter<String> adapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, careerTitles);
-        adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
-        spinnerCareers.setAdapter(adapter);
+        final String field = selectedField;
+        scheduler.read(() -> {
+            List<DatabaseManager.CareerIdPair> loaded = ALL_FIELDS.equals(field)
+                    ? dbManager.getCareerIdTitlePairs()
+                    : dbManager.getCareersInField(field);
+            mainThreadHandler.post(() -> {
+                // A later field selection has already replaced this one
+                if (!field.equals(selectedField)) {
+                    return;
+                }
+                careers = loaded;
+                selectedCareerId = -1;
+                List<String> careerTitles = new ArrayList<>();
+                for (DatabaseManager.CareerIdPair c : careers) careerTitles.add(c.title);
+                ArrayAdapter<String> adapter = new ArrayAdapter<>(this, android.R.layout.simple_spinner_item, careerTitles);
+                adapter.setDropDownViewResource(android.R.layout.simple_spinner_dropdown_item);
+                spinnerCareers.setAdapter(adapter);
+            });
+        });
     }
 
     private void addOrUpdateRecommendation() {
         progressBar.setVisibility(View.VISIBLE);
-        executorService.execute(() -> {
-            boolean success = dbManager.updateOrAddRecommendedCourse(selectedCareerId, selectedCourseId, selectedRelevance);
-            mainThreadHandler.post(() -> {
-                progressBar.setVisibility(View.GONE);
-                Toast.makeText(this, success ? "Recommendation saved" : "Failed to save", Toast.LENGTH_SHORT).show();
-                loadRecommendations();
-            });
-        });
+        // Queued so that several quick saves share one commit
+        dbManager.putRecommendationQueued(selectedCareerId, selectedCourseId, selectedRelevance)
+                .whenComplete((outcome, error) -> {
+                    String message = error != null || outcome == WriteOutcome.FAILED ? "Failed to save"
+                            : outcome == WriteOutcome.ADDED ? "Recommendation added" : "Recommendation updated";
+                    mainThreadHandler.post(() -> {
+                        progressBar.setVisibility(View.GONE);
+                        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+                        loadRecommendations();
+                    });
+                });
     }
 
     private void showDeleteConfirmationDialog(final int recommendationId) {
@@ -335,8 +336,8 @@ public class ManageRecommendationsActivity extends Activity {
     }
 
     private void deleteRecommendation(final int recommendationId) {
-        executorService.execute(() -> {
-            boolean success = dbManager.deleteRecommendation(recommendationId);
+        dbManager.deleteRecommendationQueued(recommendationId).whenComplete((deleted, error) -> {
+            boolean success = error == null && deleted;
             mainThreadHandler.post(() -> {
                 Toast.makeText(this, success ? "Recommendation deleted" : "Failed to delete", Toast.LENGTH_SHORT).show();
                 loadRecommendations();
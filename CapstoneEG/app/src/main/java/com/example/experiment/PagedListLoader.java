@@ -0,0 +1,132 @@
+package com.example.experiment;
+
+import android.os.Handler;
+import android.util.Log;
+import android.widget.AbsListView;
+import android.widget.ArrayAdapter;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Fills an ArrayAdapter one page at a time from a keyset-paged source. The next page is
+ * fetched in the background as soon as the list is scrolled within half a page of its
+ * end, so it is usually in place before the user gets there. All state is touched on the
+ * main thread only; results of a load started before the last start() or stop() are dropped.
+ */
+class PagedListLoader<T> implements AbsListView.OnScrollListener {
+    private static final String TAG = "PagedListLoader";
+
+    interface PageSource<T> {
+        // Up to pageSize items following after, or the first page when after is null
+        List<T> loadPage(T after, int pageSize);
+    }
+
+    interface OnFirstPageListener {
+        void onFirstPage(int count);
+    }
+
+    private final ArrayAdapter<T> adapter;
+    private final PageSource<T> source;
+    private final int pageSize;
+    private final Executor executor;
+    private final Handler mainThreadHandler;
+    private OnFirstPageListener onFirstPageListener;
+
+    private int generation;
+    private boolean loading;
+    private boolean exhausted = true;
+    private T last;
+
+    PagedListLoader(ArrayAdapter<T> adapter, PageSource<T> source, int pageSize,
+                    Executor executor, Handler mainThreadHandler) {
+        this.adapter = adapter;
+        this.source = source;
+        this.pageSize = pageSize;
+        this.executor = executor;
+        this.mainThreadHandler = mainThreadHandler;
+    }
+
+    void setOnFirstPageListener(OnFirstPageListener listener) {
+        this.onFirstPageListener = listener;
+    }
+
+    // Clears the adapter and loads the first page
+    void start() {
+        generation++;
+        loading = false;
+        exhausted = false;
+        last = null;
+        adapter.clear();
+        loadNextPage();
+    }
+
+    // Drops any load in flight and loads nothing more until the next start()
+    void stop() {
+        generation++;
+        loading = false;
+        exhausted = true;
+    }
+
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+        if (totalItemCount > 0 && firstVisibleItem + visibleItemCount >= totalItemCount - pageSize / 2) {
+            loadNextPage();
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) {
+    }
+
+    private void loadNextPage() {
+        if (loading || exhausted) {
+            return;
+        }
+        loading = true;
+        final int loadGeneration = generation;
+        final T after = last;
+
+        Runnable load = new Runnable() {
+            @Override
+            public void run() {
+                List<T> page;
+                try {
+                    page = source.loadPage(after, pageSize);
+                } catch (Exception e) {
+                    Log.e(TAG, "Error loading page", e);
+                    page = Collections.emptyList();
+                }
+                final List<T> loaded = page;
+
+                mainThreadHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (loadGeneration != generation) {
+                            return;
+                        }
+                        loading = false;
+                        // A short page is the last one
+                        exhausted = loaded.size() < pageSize;
+                        if (!loaded.isEmpty()) {
+                            last = loaded.get(loaded.size() - 1);
+                            adapter.addAll(loaded);
+                        }
+                        if (after == null && onFirstPageListener != null) {
+                            onFirstPageListener.onFirstPage(loaded.size());
+                        }
+                    }
+                });
+            }
+        };
+        try {
+            executor.execute(load);
+        } catch (RejectedExecutionException e) {
+            // The lane is full; the next scroll or start() tries again
+            Log.w(TAG, "Page load rejected", e);
+            loading = false;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.experiment;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read-through cache for small, frequently repeated queries.
+ *
+ * Results are copied out of the cursor once and every hit gets its own MatrixCursor
+ * over the shared rows, so callers can close what they get as usual. Entries are keyed
+ * by SQL and arguments, weighed in approximate bytes against an LRU budget, and tagged
+ * with the tables they read. DatabaseManager calls invalidate() after each write, which
+ * drops exactly the entries that read one of the written tables.
+ *
+ * Each table also has a generation counter. A query captures the counters before it
+ * runs and only stores its result if none moved, so a read that raced a write can
+ * never put stale rows back after the write invalidated them.
+ */
+final class QueryCache {
+    private static final String TAG = "QueryCache";
+
+    // Rough per-object costs used to weigh entries; only relative sizes matter
+    private static final int ROW_OVERHEAD_BYTES = 16;
+    private static final int VALUE_OVERHEAD_BYTES = 16;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final LruCache<String, Entry> entries;
+    private final Map<String, Long> generations = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    QueryCache(int maxBytes) {
+        entries = new LruCache<String, Entry>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Entry entry) {
+                return entry.bytes;
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, String key, Entry oldValue, Entry newValue) {
+                if (evicted) {
+                    evictions.incrementAndGet();
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the cached rows for sql/args, or runs the query and caches its rows.
+     * tables must name every table the query reads.
+     */
+    Cursor query(SQLiteDatabase db, String sql, String[] args, String... tables) {
+        String key = keyOf(sql, args);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            hits.incrementAndGet();
+            return entry.newCursor();
+        }
+        misses.incrementAndGet();
+
+        long[] before = generationsOf(tables);
+        entry = Entry.copyOf(QueryTracer.rawQuery(db, sql, args), key, tables);
+
+        synchronized (this) {
+            // An entry larger than half the budget would only push everything else out
+            if (Arrays.equals(before, generationsOf(tables)) && entry.bytes <= entries.maxSize() / 2) {
+                entries.put(key, entry);
+            }
+        }
+        return entry.newCursor();
+    }
+
+    // Drops every entry that read one of the tables
+    synchronized void invalidate(String... tables) {
+        Set<String> written = new HashSet<>(Arrays.asList(tables));
+        for (String table : written) {
+            Long generation = generations.get(table);
+            generations.put(table, generation == null ? 1L : generation + 1);
+        }
+
+        for (Map.Entry<String, Entry> cached : entries.snapshot().entrySet()) {
+            if (!Collections.disjoint(cached.getValue().tables, written)) {
+                entries.remove(cached.getKey());
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    void clear() {
+        entries.evictAll();
+    }
+
+    Stats getStats() {
+        return new Stats(hits.get(), misses.get(), evictions.get(), invalidations.get(),
+                entries.size(), entries.maxSize());
+    }
+
+    void logStats() {
+        Log.i(TAG, getStats().toString());
+    }
+
+    private synchronized long[] generationsOf(String[] tables) {
+        long[] result = new long[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            Long generation = generations.get(tables[i]);
+            result[i] = generation == null ? 0 : generation;
+        }
+        return result;
+    }
+
+    private static String keyOf(String sql, String[] args) {
+        if (args == null || args.length == 0) {
+            return sql;
+        }
+        StringBuilder key = new StringBuilder(sql);
+        for (String arg : args) {
+            // NUL cannot appear in SQL text, so it keeps (a, bc) and (ab, c) apart
+            key.append('\u0000').append(arg);
+        }
+        return key.toString();
+    }
+
+    private static final class Entry {
+        final String[] columns;
+        final List<Object[]> rows;
+        final Set<String> tables;
+        final int bytes;
+
+        private Entry(String[] columns, List<Object[]> rows, Set<String> tables, int bytes) {
+            this.columns = columns;
+            this.rows = rows;
+            this.tables = tables;
+            this.bytes = bytes;
+        }
+
+        // Reads every row out of the cursor and closes it
+        static Entry copyOf(Cursor cursor, String key, String[] tables) {
+            try {
+                String[] columns = cursor.getColumnNames();
+                List<Object[]> rows = new ArrayList<>(cursor.getCount());
+                long bytes = 2L * key.length();
+                while (cursor.moveToNext()) {
+                    Object[] row = new Object[columns.length];
+                    bytes += ROW_OVERHEAD_BYTES;
+                    for (int i = 0; i < columns.length; i++) {
+                        switch (cursor.getType(i)) {
+                            case Cursor.FIELD_TYPE_INTEGER:
+                                row[i] = cursor.getLong(i);
+                                bytes += VALUE_OVERHEAD_BYTES;
+                                break;
+                            case Cursor.FIELD_TYPE_FLOAT:
+                                row[i] = cursor.getDouble(i);
+                                bytes += VALUE_OVERHEAD_BYTES;
+                                break;
+                            case Cursor.FIELD_TYPE_STRING:
+                                String value = cursor.getString(i);
+                                row[i] = value;
+                                bytes += STRING_OVERHEAD_BYTES + 2L * value.length();
+                                break;
+                            case Cursor.FIELD_TYPE_BLOB:
+                                byte[] blob = cursor.getBlob(i);
+                                row[i] = blob;
+                                bytes += VALUE_OVERHEAD_BYTES + blob.length;
+                                break;
+                            default:
+                                row[i] = null;
+                                break;
+                        }
+                    }
+                    rows.add(row);
+                }
+                return new Entry(columns, rows, new HashSet<>(Arrays.asList(tables)),
+                        (int) Math.min(bytes, Integer.MAX_VALUE));
+            } finally {
+                cursor.close();
+            }
+        }
+
+        Cursor newCursor() {
+            MatrixCursor cursor = new MatrixCursor(columns, rows.size());
+            for (Object[] row : rows) {
+                cursor.addRow(row);
+            }
+            return cursor;
+        }
+    }
+
+    /**
+     * Snapshot of the cache counters. Evictions are LRU drops for space; invalidations
+     * are entries removed because a write touched one of their tables.
+     */
+    static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long invalidations;
+        private final int sizeBytes;
+        private final int maxBytes;
+
+        Stats(long hits, long misses, long evictions, long invalidations, int sizeBytes, int maxBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+            this.sizeBytes = sizeBytes;
+            this.maxBytes = maxBytes;
+        }
+
+        long getHits() {
+            return hits;
+        }
+
+        long getMisses() {
+            return misses;
+        }
+
+        long getEvictions() {
+            return evictions;
+        }
+
+        long getInvalidations() {
+            return invalidations;
+        }
+
+        int getSizeBytes() {
+            return sizeBytes;
+        }
+
+        int getMaxBytes() {
+            return maxBytes;
+        }
+
+        double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + " misses=" + misses + " evictions=" + evictions
+                    + " invalidations=" + invalidations + " size=" + sizeBytes + "/" + maxBytes + " bytes";
+        }
+    }
+}
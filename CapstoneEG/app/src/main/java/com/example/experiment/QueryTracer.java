@@ -0,0 +1,376 @@
+package com.example.experiment;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteCursor;
+import android.database.sqlite.SQLiteCursorDriver;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQuery;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Optional tracing for DatabaseManager, shown on DiagnosticsActivity.
+ *
+ * An operation is a DatabaseLocks lease: while tracing is on, every lease records its
+ * latency into a histogram for its operation name, along with how long it waited for
+ * its locks. Queries run through rawQuery() and statements reported with
+ * record() are charged to the innermost lease on the calling thread. A query
+ * is timed while it prepares and while its cursor fills windows, and counted when the
+ * cursor is closed, so row counts never force a full window fill. Queries slower than
+ * the threshold go into a ring buffer with their SQL and bound arguments.
+ *
+ * While tracing is off a lease only checks the enabled flag and a query only finds no
+ * traced operation on its thread, so the cost stays close to zero.
+ */
+final class QueryTracer {
+    static final long DEFAULT_SLOW_QUERY_MILLIS = 16;
+    static final int SLOW_QUERY_CAPACITY = 50;
+
+    // The innermost traced operation on each thread
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private volatile boolean enabled;
+    private volatile long slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_SLOW_QUERY_MILLIS);
+    private final ConcurrentHashMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+    private final SlowQuery[] slowQueries = new SlowQuery[SLOW_QUERY_CAPACITY];
+    private int slowQueryCount;
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    long getSlowQueryMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(slowQueryNanos);
+    }
+
+    void setSlowQueryMillis(long millis) {
+        slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Marks operation as running on this thread; null when tracing is off.
+     * Pass the span to end() when the operation finishes.
+     */
+    Span begin(String operation) {
+        if (!enabled) {
+            return null;
+        }
+        Span span = new Span(this, operation, CURRENT.get());
+        CURRENT.set(span);
+        return span;
+    }
+
+    void end(Span span, long waitNanos, long latencyNanos) {
+        if (span.parent != null) {
+            CURRENT.set(span.parent);
+        } else {
+            CURRENT.remove();
+        }
+        statsFor(span.operation).recordCall(waitNanos, latencyNanos);
+    }
+
+    /**
+     * SQLiteDatabase.rawQuery, traced when the calling thread is inside a traced operation.
+     */
+    static Cursor rawQuery(SQLiteDatabase db, String sql, String[] args) {
+        Span span = CURRENT.get();
+        if (span == null) {
+            return db.rawQuery(sql, args);
+        }
+        long start = System.nanoTime();
+        TracedCursor cursor = (TracedCursor) db.rawQueryWithFactory(
+                new TracingFactory(span.tracer, span.operation, args), sql, args, null);
+        cursor.nanos += System.nanoTime() - start;
+        return cursor;
+    }
+
+    // The traced operation on this thread, if any; statement helpers time themselves against it
+    static Span current() {
+        return CURRENT.get();
+    }
+
+    void record(String operation, String sql, Object[] args, long nanos, long rows) {
+        statsFor(operation).recordQuery(nanos, rows);
+        if (nanos >= slowQueryNanos) {
+            SlowQuery slow = new SlowQuery(System.currentTimeMillis(), operation, sql, format(args), nanos, rows);
+            synchronized (slowQueries) {
+                slowQueries[slowQueryCount % SLOW_QUERY_CAPACITY] = slow;
+                slowQueryCount++;
+            }
+        }
+    }
+
+    private OperationStats statsFor(String operation) {
+        OperationStats existing = operations.get(operation);
+        if (existing != null) {
+            return existing;
+        }
+        OperationStats created = new OperationStats(operation);
+        existing = operations.putIfAbsent(operation, created);
+        return existing != null ? existing : created;
+    }
+
+    // Slowest total first
+    List<OperationStats> getOperations() {
+        List<OperationStats> sorted = new ArrayList<>(operations.values());
+        Collections.sort(sorted, (a, b) -> Long.compare(b.totalNanos.get(), a.totalNanos.get()));
+        return sorted;
+    }
+
+    // Newest first
+    List<SlowQuery> getSlowQueries() {
+        synchronized (slowQueries) {
+            int size = Math.min(slowQueryCount, SLOW_QUERY_CAPACITY);
+            List<SlowQuery> newestFirst = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                newestFirst.add(slowQueries[(slowQueryCount - i) % SLOW_QUERY_CAPACITY]);
+            }
+            return newestFirst;
+        }
+    }
+
+    void reset() {
+        operations.clear();
+        synchronized (slowQueries) {
+            Arrays.fill(slowQueries, null);
+            slowQueryCount = 0;
+        }
+    }
+
+    private static String format(Object[] args) {
+        if (args == null || args.length == 0) {
+            return "";
+        }
+        StringBuilder formatted = new StringBuilder();
+        for (Object arg : args) {
+            if (formatted.length() > 0) {
+                formatted.append(", ");
+            }
+            formatted.append(arg instanceof String ? "'" + arg + "'" : String.valueOf(arg));
+        }
+        return formatted.toString();
+    }
+
+    static final class Span {
+        final QueryTracer tracer;
+        final String operation;
+        private final Span parent;
+
+        private Span(QueryTracer tracer, String operation, Span parent) {
+            this.tracer = tracer;
+            this.operation = operation;
+            this.parent = parent;
+        }
+    }
+
+    /**
+     * Latencies in power-of-two buckets of microseconds: bucket 0 holds everything under
+     * 2 us and bucket i holds [2^i, 2^(i+1)) us, so percentiles are exact to within 2x.
+     */
+    static final class Histogram {
+        static final int BUCKETS = 32;
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final AtomicLong total = new AtomicLong();
+
+        void record(long nanos) {
+            long micros = nanos / 1000;
+            int bucket = micros < 2 ? 0 : Math.min(BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+            counts.incrementAndGet(bucket);
+            total.incrementAndGet();
+        }
+
+        long getCount() {
+            return total.get();
+        }
+
+        // Upper bound of the bucket holding the percentile, in microseconds
+        long percentileMicros(double percent) {
+            long count = total.get();
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percent / 100 * count));
+            long seen = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                seen += counts.get(bucket);
+                if (seen >= rank) {
+                    return 2L << bucket;
+                }
+            }
+            return 2L << (BUCKETS - 1);
+        }
+    }
+
+    /**
+     * Calls, latency, lock wait and query work for one operation name.
+     */
+    static final class OperationStats {
+        final String operation;
+        final Histogram latency = new Histogram();
+        final AtomicLong totalNanos = new AtomicLong();
+        final AtomicLong maxNanos = new AtomicLong();
+        final AtomicLong totalWaitNanos = new AtomicLong();
+        final AtomicLong maxWaitNanos = new AtomicLong();
+        final AtomicLong queries = new AtomicLong();
+        final AtomicLong queryNanos = new AtomicLong();
+        final AtomicLong rows = new AtomicLong();
+
+        OperationStats(String operation) {
+            this.operation = operation;
+        }
+
+        void recordCall(long waitNanos, long latencyNanos) {
+            latency.record(latencyNanos);
+            totalNanos.addAndGet(latencyNanos);
+            updateMax(maxNanos, latencyNanos);
+            totalWaitNanos.addAndGet(waitNanos);
+            updateMax(maxWaitNanos, waitNanos);
+        }
+
+        void recordQuery(long nanos, long rowCount) {
+            queries.incrementAndGet();
+            queryNanos.addAndGet(nanos);
+            rows.addAndGet(rowCount);
+        }
+
+        private static void updateMax(AtomicLong max, long value) {
+            long current = max.get();
+            while (value > current && !max.compareAndSet(current, value)) {
+                current = max.get();
+            }
+        }
+
+        long getCalls() {
+            return latency.getCount();
+        }
+
+        long getMaxMicros() {
+            return maxNanos.get() / 1000;
+        }
+
+        long getAverageWaitMicros() {
+            long calls = getCalls();
+            return calls == 0 ? 0 : totalWaitNanos.get() / calls / 1000;
+        }
+
+        long getMaxWaitMicros() {
+            return maxWaitNanos.get() / 1000;
+        }
+
+        @Override
+        public String toString() {
+            return operation + " n=" + getCalls()
+                    + " p50/p95/p99 <= " + latency.percentileMicros(50) + "/" + latency.percentileMicros(95)
+                    + "/" + latency.percentileMicros(99) + " us, max " + getMaxMicros() + " us"
+                    + ", wait avg/max " + getAverageWaitMicros() + "/" + getMaxWaitMicros() + " us"
+                    + ", " + queries.get() + " queries, " + rows.get() + " rows";
+        }
+    }
+
+    static final class SlowQuery {
+        final long timestamp;
+        final String operation;
+        final String sql;
+        final String args;
+        final long nanos;
+        final long rows;
+
+        SlowQuery(long timestamp, String operation, String sql, String args, long nanos, long rows) {
+            this.timestamp = timestamp;
+            this.operation = operation;
+            this.sql = sql;
+            this.args = args;
+            this.nanos = nanos;
+            this.rows = rows;
+        }
+
+        long getMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(nanos);
+        }
+
+        @Override
+        public String toString() {
+            return operation + " " + getMillis() + " ms, " + rows + " rows: " + sql
+                    + (args.isEmpty() ? "" : " [" + args + "]");
+        }
+    }
+
+    private static final class TracingFactory implements SQLiteDatabase.CursorFactory {
+        private final QueryTracer tracer;
+        private final String operation;
+        private final String[] args;
+
+        TracingFactory(QueryTracer tracer, String operation, String[] args) {
+            this.tracer = tracer;
+            this.operation = operation;
+            this.args = args;
+        }
+
+        @Override
+        public Cursor newCursor(SQLiteDatabase db, SQLiteCursorDriver driver, String editTable, SQLiteQuery query) {
+            return new TracedCursor(driver, editTable, query, this);
+        }
+    }
+
+    /**
+     * Times window fills as the caller moves through the rows, and reports the query,
+     * with the rows actually visited, once it is closed.
+     */
+    private static final class TracedCursor extends SQLiteCursor {
+        private final TracingFactory factory;
+        private final String sql;
+        private long nanos;
+        private int rows;
+        private boolean recorded;
+
+        TracedCursor(SQLiteCursorDriver driver, String editTable, SQLiteQuery query, TracingFactory factory) {
+            super(driver, editTable, query);
+            this.factory = factory;
+            // SQLiteQuery only exposes its SQL through toString(): "SQLiteQuery: <sql>"
+            String description = query.toString();
+            this.sql = description.startsWith("SQLiteQuery: ")
+                    ? description.substring("SQLiteQuery: ".length()) : description;
+        }
+
+        @Override
+        public int getCount() {
+            long start = System.nanoTime();
+            try {
+                return super.getCount();
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public boolean onMove(int oldPosition, int newPosition) {
+            long start = System.nanoTime();
+            try {
+                return super.onMove(oldPosition, newPosition);
+            } finally {
+                nanos += System.nanoTime() - start;
+                rows = Math.max(rows, newPosition + 1);
+            }
+        }
+
+        @Override
+        public void close() {
+            super.close();
+            if (!recorded) {
+                recorded = true;
+                factory.tracer.record(factory.operation, sql, factory.args, nanos, rows);
+            }
+        }
+    }
+}
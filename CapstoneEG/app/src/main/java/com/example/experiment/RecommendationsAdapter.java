@@ -22,7 +22,7 @@ public class RecommendationsAdapter extends ArrayAdapter<DatabaseManager.Recomme
 
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
-        if (position >= recommendations.size()) {
+        if (position >= getCount()) {
             return convertView; // Safety check
         }
 
@@ -34,7 +34,8 @@ public class RecommendationsAdapter extends ArrayAdapter<DatabaseManager.Recomme
         TextView text1 = view.findViewById(android.R.id.text1);
         TextView text2 = view.findViewById(android.R.id.text2);
 
-        DatabaseManager.Recommendation recommendation = recommendations.get(position);
+        // getItem rather than the list, which the paged loader keeps adding to
+        DatabaseManager.Recommendation recommendation = getItem(position);
         if (recommendation != null) {
             text1.setText(recommendation.recommendationInfo);
             text2.setText(recommendation.relevanceInfo);
@@ -0,0 +1,95 @@
+package com.example.experiment;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The reference database compiled from the CSV assets at build time (buildReferenceDatabase
+ * in app/build.gradle).
+ *
+ * Courses, careers, programs and administrators still live in the main database, because
+ * admins edit them and the user tables join against them. The reference file only replaces
+ * parsing the CSVs: it is extracted once per installed build, opened read-only, and copied
+ * into whichever of those tables are empty.
+ */
+final class ReferenceData {
+    private static final String TAG = "ReferenceData";
+    static final String ASSET = "reference.db";
+
+    // Copied in this order, so ids match the order the CSV imports used to insert them
+    static final String[] TABLES = {
+            DatabaseHelper.TABLE_ACADEMIC_PROGRAMS,
+            DatabaseHelper.TABLE_COURSES,
+            DatabaseHelper.TABLE_CAREERS,
+            DatabaseHelper.TABLE_ADMINISTRATORS
+    };
+
+    private ReferenceData() {
+    }
+
+    /**
+     * Fills the empty reference tables; a no-op on every launch after the first.
+     * @return rows copied, or -1 if the reference database could not be used
+     */
+    static int seed(Context context, DatabaseManager dbManager) {
+        long start = System.nanoTime();
+        try {
+            int copied = dbManager.seedReferenceData(extract(context));
+            Log.i(TAG, "Seeded " + copied + " reference rows in " + (System.nanoTime() - start) / 1000000 + " ms");
+            return copied;
+        } catch (Exception e) {
+            // The CSV import buttons still work, so a broken asset only costs the shortcut
+            Log.e(TAG, "Could not seed reference data", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Copies the asset out of the APK, since SQLite cannot open a compressed asset in place.
+     * The file name carries the install time, so an app update brings a fresh copy and the
+     * old one is deleted.
+     */
+    static File extract(Context context) throws IOException {
+        long installed;
+        try {
+            installed = context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            throw new IOException(e);
+        }
+
+        File dir = context.getNoBackupFilesDir();
+        File file = new File(dir, "reference-" + installed + ".db");
+        if (file.exists()) {
+            return file;
+        }
+
+        File[] stale = dir.listFiles((parent, name) -> name.startsWith("reference-") && name.endsWith(".db"));
+        if (stale != null) {
+            for (File old : stale) {
+                old.delete();
+            }
+        }
+
+        File partial = new File(dir, file.getName() + ".tmp");
+        try (InputStream in = context.getAssets().open(ASSET);
+             OutputStream out = new FileOutputStream(partial)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        // Renamed only once complete, so a crash mid-copy never leaves a truncated database
+        if (!partial.renameTo(file)) {
+            throw new IOException("Could not move " + partial + " to " + file);
+        }
+        return file;
+    }
+}
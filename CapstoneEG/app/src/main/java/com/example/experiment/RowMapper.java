@@ -0,0 +1,59 @@
+package com.example.experiment;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads one cursor row into a model object. A mapper is created per cursor by its
+ * Factory, so column indices are looked up once per query instead of once per row.
+ */
+interface RowMapper<T> {
+    T map(Cursor cursor);
+
+    interface Factory<T> {
+        RowMapper<T> forCursor(Cursor cursor);
+    }
+
+    // Reads every row and closes the cursor; the list is unmodifiable
+    static <T> List<T> mapAll(Cursor cursor, Factory<T> factory) {
+        if (cursor == null) {
+            return Collections.emptyList();
+        }
+        try {
+            RowMapper<T> mapper = factory.forCursor(cursor);
+            List<T> rows = new ArrayList<>(cursor.getCount());
+            while (cursor.moveToNext()) {
+                rows.add(mapper.map(cursor));
+            }
+            return Collections.unmodifiableList(rows);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Reads the first row, or returns null when there is none, and closes the cursor
+    static <T> T mapFirst(Cursor cursor, Factory<T> factory) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            return cursor.moveToFirst() ? factory.forCursor(cursor).map(cursor) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Queries alias the key as _id for CursorAdapter; SELECT * still calls it id
+    static int idColumn(Cursor cursor) {
+        int index = cursor.getColumnIndex("_id");
+        return index >= 0 ? index : cursor.getColumnIndexOrThrow("id");
+    }
+
+    // Optional columns map to null when a projection leaves them out
+    static String getString(Cursor cursor, int index) {
+        return index >= 0 ? cursor.getString(index) : null;
+    }
+}
@@ -23,8 +23,6 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class SavedCoursesActivity extends Activity {
     private static final String TAG = "SavedCourses";
@@ -34,7 +32,7 @@ public class SavedCoursesActivity extends Activity {
     private Button btnReturnToCourseSearch;
 
     private DatabaseManager dbManager;
-    private ExecutorService executorService;
+    private DatabaseScheduler scheduler;
     private Handler mainThreadHandler;
 
     @Override
@@ -43,7 +41,7 @@ public class SavedCoursesActivity extends Activity {
         setContentView(R.layout.activity_saved_courses);
 
         // Initialize thread management
-        executorService = Executors.newSingleThreadExecutor();
+        scheduler = ExperimentApplication.scheduler(this);
         mainThreadHandler = new Handler(Looper.getMainLooper());
 
         // Initialize UI components
@@ -139,7 +137,7 @@ public class SavedCoursesActivity extends Activity {
         // Convert to a Set for faster lookups
         final Set<String> savedCourseIds = new HashSet<>(Arrays.asList(courseIdsArray));
 
-        executorService.execute(new Runnable() {
+        scheduler.read(new Runnable() {
             @Override
             public void run() {
                 // Get all courses first
@@ -189,9 +187,6 @@ public class SavedCoursesActivity extends Activity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (executorService != null) {
-            executorService.shutdown();
-        }
         if (adapter != null && adapter.getCursor() != null) {
             adapter.getCursor().close();
         }
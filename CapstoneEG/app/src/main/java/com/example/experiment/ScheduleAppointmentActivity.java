@@ -21,6 +21,7 @@ import java.util.Locale;
 
 public class ScheduleAppointmentActivity extends Activity {
     private DatabaseManager dbManager;
+    private DataRepository repository;
     private int adminId;
     private String adminName;
 
@@ -32,6 +33,7 @@ public class ScheduleAppointmentActivity extends Activity {
 
     private String selectedDate;
     private String selectedTimeSlot;
+    private int selectedTimeSlotId = -1;
     private Calendar calendar;
     private SimpleDateFormat dateFormat;
 
@@ -60,7 +62,8 @@ public class ScheduleAppointmentActivity extends Activity {
         dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
 
         // Initialize database manager
-        dbManager = new DatabaseManager(this);
+        dbManager = DatabaseManager.getInstance(this);
+        repository = DataRepository.getInstance(this);
 
         // Load administrator info
         loadAdministratorInfo();
@@ -79,6 +82,7 @@ public class ScheduleAppointmentActivity extends Activity {
             public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
                 Cursor cursor = (Cursor) parent.getItemAtPosition(position);
                 selectedTimeSlot = cursor.getString(cursor.getColumnIndex("time_slot"));
+                selectedTimeSlotId = (int) id;
                 Toast.makeText(ScheduleAppointmentActivity.this,
                         "Selected: " + selectedTimeSlot, Toast.LENGTH_SHORT).show();
             }
@@ -120,6 +124,8 @@ public class ScheduleAppointmentActivity extends Activity {
                         calendar.set(Calendar.DAY_OF_MONTH, dayOfMonth);
 
                         selectedDate = dateFormat.format(calendar.getTime());
+                        selectedTimeSlot = null;
+                        selectedTimeSlotId = -1;
                         btnSelectDate.setText("Date: " + selectedDate);
 
                         // Load available time slots for this date
@@ -161,7 +167,7 @@ public class ScheduleAppointmentActivity extends Activity {
     }
 
     private void scheduleAppointment() {
-        if (selectedDate == null || selectedTimeSlot == null) {
+        if (selectedDate == null || selectedTimeSlotId == -1) {
             Toast.makeText(this, "Please select a date and time", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -176,14 +182,30 @@ public class ScheduleAppointmentActivity extends Activity {
         SharedPreferences prefs = getSharedPreferences("UserPrefs", MODE_PRIVATE);
         String username = prefs.getString("username", "");
 
-        // Book the appointment
-        boolean success = dbManager.bookAppointment(username, adminId, selectedDate, selectedTimeSlot, reason);
-
-        if (success) {
-            Toast.makeText(this, "Appointment scheduled successfully", Toast.LENGTH_LONG).show();
-            finish();
-        } else {
-            Toast.makeText(this, "Failed to schedule appointment. Please try again.", Toast.LENGTH_SHORT).show();
-        }
+        // Book the slot by id; the database decides who gets it if several students try at once
+        btnSchedule.setEnabled(false);
+        repository.bookTimeSlot(username, selectedTimeSlotId, reason).whenCompleteAsync((result, error) -> {
+            btnSchedule.setEnabled(true);
+            if (error != null) {
+                result = BookingResult.FAILED;
+            }
+            switch (result) {
+                case BOOKED:
+                    Toast.makeText(this, "Appointment scheduled successfully", Toast.LENGTH_LONG).show();
+                    finish();
+                    break;
+                case ALREADY_TAKEN:
+                case SLOT_MISSING:
+                    Toast.makeText(this, "That time slot is no longer available. Please pick another.",
+                            Toast.LENGTH_SHORT).show();
+                    selectedTimeSlot = null;
+                    selectedTimeSlotId = -1;
+                    loadAvailableTimeSlots();
+                    break;
+                default:
+                    Toast.makeText(this, "Failed to schedule appointment. Please try again.", Toast.LENGTH_SHORT).show();
+                    break;
+            }
+        }, repository.mainThread());
     }
-}
\ No newline at end of file
+}
@@ -8,9 +8,13 @@ import android.database.Cursor;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.text.Html;
+import android.text.TextUtils;
 import android.util.Log;
 import android.view.View;
+import android.view.ViewGroup;
 import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.ListView;
@@ -18,15 +22,17 @@ import android.widget.SimpleCursorAdapter;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.List;
 
 public class StudentDashboardActivity extends Activity {
     private EditText searchBar;
     private ListView classListView;
+    // Search results; browsing uses the paged courseAdapter instead
     private SimpleCursorAdapter adapter;
+    private ArrayAdapter<Course> courseAdapter;
+    private PagedListLoader<Course> coursePager;
     private DatabaseManager dbManager;
-    private ExecutorService executorService;
+    private DatabaseScheduler scheduler;
     private Handler mainThreadHandler;
     private Button btnViewSavedCourses;
     private Button btnReturnToStudentDashboard;
@@ -39,7 +45,7 @@ public class StudentDashboardActivity extends Activity {
         setContentView(R.layout.activity_student_dashboard);
 
         // Initialize thread management
-        executorService = Executors.newSingleThreadExecutor();
+        scheduler = ExperimentApplication.scheduler(this);
         mainThreadHandler = new Handler(Looper.getMainLooper());
 
         // Initialize UI elements
@@ -73,10 +79,49 @@ public class StudentDashboardActivity extends Activity {
                 @SuppressLint("Range") String description = cursor.getString(cursor.getColumnIndex("description"));
 
                 TextView text1 = view.findViewById(android.R.id.text1);
-                text1.setText(course + " - " + description);
+
+                // Search results carry a snippet with the matched terms in <b> tags
+                int snippetIndex = cursor.getColumnIndex("snippet");
+                if (snippetIndex >= 0 && cursor.getString(snippetIndex) != null) {
+                    text1.setText(Html.fromHtml(TextUtils.htmlEncode(course) + " - " + cursor.getString(snippetIndex),
+                            Html.FROM_HTML_MODE_LEGACY));
+                } else {
+                    text1.setText(course + " - " + description);
+                }
             }
         };
-        classListView.setAdapter(adapter);
+
+        // Browsing pages through all courses in title order
+        courseAdapter = new ArrayAdapter<Course>(this, android.R.layout.simple_list_item_1) {
+            @Override
+            public View getView(int position, View convertView, ViewGroup parent) {
+                View view = super.getView(position, convertView, parent);
+                Course course = getItem(position);
+                TextView text1 = view.findViewById(android.R.id.text1);
+                text1.setText(course.getTitle() + " - " + course.getDescription());
+                return view;
+            }
+        };
+        coursePager = new PagedListLoader<>(courseAdapter, new PagedListLoader.PageSource<Course>() {
+            @Override
+            public List<Course> loadPage(Course after, int pageSize) {
+                return dbManager.getCoursesPage(after, pageSize);
+            }
+        }, DatabaseManager.DEFAULT_PAGE_SIZE, scheduler.reads(), mainThreadHandler);
+        coursePager.setOnFirstPageListener(new PagedListLoader.OnFirstPageListener() {
+            @Override
+            public void onFirstPage(int count) {
+                // Marks the first screen as complete for the "Fully drawn" startup time in logcat
+                reportFullyDrawn();
+                if (count == 0) {
+                    Log.d(TAG, "No courses found in database");
+                    Toast.makeText(StudentDashboardActivity.this,
+                            "No courses found in database",
+                            Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+        classListView.setOnScrollListener(coursePager);
 
         // Load courses from database
         loadCoursesFromDatabase();
@@ -85,8 +130,14 @@ public class StudentDashboardActivity extends Activity {
         classListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
             public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-                Cursor cursor = (Cursor) adapter.getItem(position);
-                @SuppressLint("Range") int courseId = cursor.getInt(cursor.getColumnIndex("_id"));
+                Object item = parent.getItemAtPosition(position);
+                int courseId;
+                if (item instanceof Course) {
+                    courseId = ((Course) item).getId();
+                } else {
+                    Cursor cursor = (Cursor) item;
+                    courseId = cursor.getInt(cursor.getColumnIndexOrThrow("_id"));
+                }
 
                 // Start CourseDetailsActivity with course ID
                 Intent intent = new Intent(StudentDashboardActivity.this, CourseDetailsActivity.class);
@@ -117,27 +168,10 @@ public class StudentDashboardActivity extends Activity {
     private void loadCoursesFromDatabase() {
         Log.d(TAG, "Loading courses from database");
 
-        executorService.execute(new Runnable() {
-            @Override
-            public void run() {
-                final Cursor cursor = dbManager.getAllCourses();
-
-                mainThreadHandler.post(new Runnable() {
-                    @Override
-                    public void run() {
-                        if (cursor != null && cursor.getCount() > 0) {
-                            Log.d(TAG, "Retrieved " + cursor.getCount() + " courses");
-                            adapter.changeCursor(cursor);
-                        } else {
-                            Log.d(TAG, "No courses found in database");
-                            Toast.makeText(StudentDashboardActivity.this,
-                                    "No courses found in database",
-                                    Toast.LENGTH_SHORT).show();
-                        }
-                    }
-                });
-            }
-        });
+        // Release the last search results; pages load as the list scrolls
+        adapter.changeCursor(null);
+        classListView.setAdapter(courseAdapter);
+        coursePager.start();
     }
 
     // Search Functionality
@@ -150,7 +184,7 @@ public class StudentDashboardActivity extends Activity {
 
         Log.d(TAG, "Searching for: " + query);
 
-        executorService.execute(new Runnable() {
+        scheduler.read(new Runnable() {
             @Override
             public void run() {
                 final Cursor cursor = dbManager.searchCourses(query);
@@ -160,7 +194,10 @@ public class StudentDashboardActivity extends Activity {
                     public void run() {
                         if (cursor != null && cursor.getCount() > 0) {
                             Log.d(TAG, "Found " + cursor.getCount() + " matching courses");
+                            // Search results are capped already, so they are shown in one go
+                            coursePager.stop();
                             adapter.changeCursor(cursor);
+                            classListView.setAdapter(adapter);
                         } else {
                             Log.d(TAG, "No matching courses found");
                             Toast.makeText(StudentDashboardActivity.this,
@@ -190,9 +227,8 @@ public class StudentDashboardActivity extends Activity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (executorService != null) {
-            executorService.shutdown();
-        }
+        // The shared scheduler outlives this screen; drop any page still loading
+        coursePager.stop();
         if (adapter != null && adapter.getCursor() != null) {
             adapter.getCursor().close();
         }
@@ -0,0 +1,58 @@
+package com.example.experiment;
+
+import android.database.Cursor;
+
+/**
+ * Immutable availability slot for one administrator on one date.
+ */
+public final class TimeSlot {
+    private final int id;
+    private final String time;
+    private final boolean available;
+
+    TimeSlot(int id, String time, boolean available) {
+        this.id = id;
+        this.time = time;
+        this.available = available;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public String getStatus() {
+        return available ? "Available" : "Booked";
+    }
+
+    @Override
+    public String toString() {
+        return time;
+    }
+
+    static final RowMapper.Factory<TimeSlot> MAPPER = Mapper::new;
+
+    private static final class Mapper implements RowMapper<TimeSlot> {
+        private final int id;
+        private final int time;
+        private final int available;
+
+        Mapper(Cursor cursor) {
+            id = RowMapper.idColumn(cursor);
+            time = cursor.getColumnIndexOrThrow("time_slot");
+            available = cursor.getColumnIndexOrThrow("is_available");
+        }
+
+        @Override
+        public TimeSlot map(Cursor cursor) {
+            return new TimeSlot(cursor.getInt(id), cursor.getString(time), cursor.getInt(available) == 1);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.experiment;
+
+/**
+ * What a conditional write did, for callers that need more than true/false.
+ *
+ * putRecommendation returns ADDED, UPDATED or FAILED. addTimeSlot returns ADDED,
+ * ALREADY_EXISTS or FAILED. removeTimeSlot returns DELETED, BOOKED or NOT_FOUND.
+ */
+public enum WriteOutcome {
+    ADDED,
+    UPDATED,
+    ALREADY_EXISTS,
+    DELETED,
+    // The slot has an appointment, so it was left in place
+    BOOKED,
+    NOT_FOUND,
+    FAILED;
+
+    public boolean isSuccess() {
+        return this == ADDED || this == UPDATED || this == DELETED;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.experiment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Times an operation over warm-up and measured iterations and keeps one Result per
+ * operation and dataset size. write() saves them as JSON named after the commit, so runs
+ * from two commits can be compared result by result on name and size.
+ *
+ * Settings come from system properties, which the app's Gradle test task passes through:
+ * benchmark.sizes (comma-separated dataset sizes), benchmark.output (directory for the
+ * JSON) and benchmark.commit.
+ */
+final class Benchmark {
+    interface Op {
+        // Rows the iteration read or wrote, for rows per second
+        long run(int iteration) throws Exception;
+    }
+
+    interface Setup {
+        // Runs before each iteration, outside the timed section
+        void prepare(int iteration) throws Exception;
+    }
+
+    private final String suite;
+    private final List<Result> results = new ArrayList<>();
+
+    Benchmark(String suite) {
+        this.suite = suite;
+    }
+
+    // No sizes means benchmarks were not asked for
+    static boolean enabled() {
+        return System.getProperty("benchmark.sizes") != null;
+    }
+
+    static int[] sizes() {
+        String[] values = System.getProperty("benchmark.sizes", "").split(",");
+        int[] sizes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            sizes[i] = Integer.parseInt(values[i].trim());
+        }
+        return sizes;
+    }
+
+    Result measure(String name, int size, int warmups, int iterations, Setup setup, Op op) throws Exception {
+        for (int i = 0; i < warmups; i++) {
+            if (setup != null) {
+                setup.prepare(i);
+            }
+            op.run(i);
+        }
+
+        long[] nanos = new long[iterations];
+        long rows = 0;
+        for (int i = 0; i < iterations; i++) {
+            if (setup != null) {
+                setup.prepare(warmups + i);
+            }
+            long start = System.nanoTime();
+            rows += op.run(warmups + i);
+            nanos[i] = System.nanoTime() - start;
+        }
+
+        Result result = new Result(name, size, nanos, rows);
+        results.add(result);
+        System.out.println(suite + " " + result);
+        return result;
+    }
+
+    File write() throws IOException {
+        String commit = System.getProperty("benchmark.commit", "unknown");
+        File directory = new File(System.getProperty("benchmark.output", "build/benchmarks"));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        File file = new File(directory, suite + "-" + commit + ".json");
+
+        SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+        StringBuilder json = new StringBuilder();
+        json.append("{\n")
+                .append("  \"suite\": ").append(quote(suite)).append(",\n")
+                .append("  \"commit\": ").append(quote(commit)).append(",\n")
+                .append("  \"timestamp\": ").append(quote(iso.format(new Date()))).append(",\n")
+                .append("  \"jvm\": ").append(quote(System.getProperty("java.version"))).append(",\n")
+                .append("  \"os\": ").append(quote(System.getProperty("os.name") + " "
+                        + System.getProperty("os.arch"))).append(",\n")
+                .append("  \"results\": [");
+        for (int i = 0; i < results.size(); i++) {
+            json.append(i == 0 ? "\n" : ",\n").append("    ").append(results.get(i).toJson());
+        }
+        json.append("\n  ]\n}\n");
+
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
+            writer.write(json.toString());
+        }
+        System.out.println(suite + " results written to " + file.getAbsolutePath());
+        return file;
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format(Locale.US, "\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    static final class Result {
+        final String name;
+        final int size;
+        final int iterations;
+        final long rows;
+        // Sorted, so percentiles are plain lookups
+        private final long[] nanos;
+        private final long totalNanos;
+
+        Result(String name, int size, long[] nanos, long rows) {
+            this.name = name;
+            this.size = size;
+            this.iterations = nanos.length;
+            this.rows = rows;
+            this.nanos = nanos.clone();
+            Arrays.sort(this.nanos);
+            long total = 0;
+            for (long n : nanos) {
+                total += n;
+            }
+            this.totalNanos = total;
+        }
+
+        double opsPerSecond() {
+            return totalNanos == 0 ? 0 : iterations * 1e9 / totalNanos;
+        }
+
+        double rowsPerSecond() {
+            return totalNanos == 0 ? 0 : rows * 1e9 / totalNanos;
+        }
+
+        double meanMicros() {
+            return iterations == 0 ? 0 : totalNanos / 1e3 / iterations;
+        }
+
+        // Nearest rank: the smallest sample with at least percent of the samples at or below it
+        double percentileMicros(double percent) {
+            if (iterations == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percent / 100 * iterations);
+            return nanos[Math.max(0, Math.min(iterations, rank) - 1)] / 1e3;
+        }
+
+        String toJson() {
+            return String.format(Locale.US, "{\"name\": %s, \"size\": %d, \"iterations\": %d, \"rows\": %d, "
+                            + "\"opsPerSecond\": %.2f, \"rowsPerSecond\": %.2f, \"meanMicros\": %.1f, "
+                            + "\"p50Micros\": %.1f, \"p90Micros\": %.1f, \"p99Micros\": %.1f, \"maxMicros\": %.1f}",
+                    quote(name), size, iterations, rows, opsPerSecond(), rowsPerSecond(), meanMicros(),
+                    percentileMicros(50), percentileMicros(90), percentileMicros(99), percentileMicros(100));
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%s @%d: %d ops, %.1f ops/s, %.0f rows/s, "
+                            + "p50 %.1f us, p90 %.1f us, p99 %.1f us, max %.1f us",
+                    name, size, iterations, opsPerSecond(), rowsPerSecond(),
+                    percentileMicros(50), percentileMicros(90), percentileMicros(99), percentileMicros(100));
+        }
+    }
+}
@@ -0,0 +1,496 @@
+package com.example.experiment;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A synthetic campus for scale testing. Courses, careers, programs and administrators come
+ * out as lines in the tab-delimited layouts the DatabaseManager CSV importers read, and
+ * populate() loads them together with the program memberships, recommendations, time slots
+ * and appointments that link them.
+ *
+ * Every value is drawn from the seed and the row's own index, so a seed and Scale always
+ * give the same rows, and loading them into an empty database always gives the same ids.
+ * Row i of each table gets id i + 1.
+ */
+final class CampusDataset {
+    static final String COURSE_HEADER =
+            "Course\tReference\tCredits\tSession\tDescription\tStartDate\tEndDate\tInstructor";
+    static final String CAREER_HEADER = "occupation_title\toccupation_code\temployment_2023\t"
+            + "employment_percent_change_23_33\tmedian_annual_wage\teducation_work_experience";
+    static final String ADMINISTRATOR_HEADER = "Name\tTitle\tEmail\tPhone\tDepartment";
+
+    // The slots ManageAvailabilityActivity offers, every weekday from 6 January 2025
+    static final String[] TIME_SLOTS = {"10:00 AM", "10:30 AM", "11:00 AM", "11:30 AM", "12:00 PM", "12:30 PM",
+            "1:00 PM", "1:30 PM", "2:00 PM", "2:30 PM", "3:00 PM", "3:30 PM", "4:00 PM"};
+    static final int RECOMMENDATIONS_PER_CAREER = 10;
+    static final int BOOKED_PERCENT = 30;
+
+    // Rows are submitted in chunks so the pending futures stay bounded at a million slots
+    private static final int WRITE_CHUNK = 10_000;
+
+    // Independent random streams, so growing one table never reshuffles another
+    private static final int COURSES = 1;
+    private static final int CAREERS = 2;
+    private static final int ADMINISTRATORS = 3;
+    private static final int COURSE_PROGRAMS = 4;
+    private static final int CAREER_COURSES = 5;
+    private static final int APPOINTMENTS = 6;
+
+    // Prefix, then the subjects taught under it
+    private static final String[][] SUBJECTS = {
+            {"ACG", "Financial Accounting", "Managerial Accounting", "Cost Accounting"},
+            {"ARH", "Art History", "Art Appreciation", "Modern Art"},
+            {"ART", "Drawing", "Design", "Painting", "Ceramics"},
+            {"BSC", "Biology", "Human Biology", "Marine Biology"},
+            {"CHM", "General Chemistry", "Organic Chemistry"},
+            {"CGS", "Computer Concepts", "Computer Applications", "Computer Technology"},
+            {"COP", "Computer Programming", "Data Structures", "Java Programming"},
+            {"CTS", "Networking", "Network Security", "Database Administration"},
+            {"EDF", "Teaching", "Educational Psychology", "Education Policy"},
+            {"EEC", "Early Childhood Education", "Child Development"},
+            {"ENC", "Composition", "Technical Writing"},
+            {"FIN", "Personal Finance", "Corporate Finance", "Financial Markets"},
+            {"HSC", "Health Science", "Community Health", "Medical Terminology"},
+            {"MAC", "College Algebra", "Calculus", "Precalculus"},
+            {"MAN", "Business Management", "Organizational Behavior", "Human Resources"},
+            {"MAR", "Marketing", "Digital Marketing", "Consumer Behavior"},
+            {"MUT", "Music Theory", "Music Fundamentals"},
+            {"NUR", "Nursing Practice", "Pharmacology", "Adult Nursing"},
+            {"PHY", "General Physics", "Astronomy"},
+            {"PSY", "Psychology", "Developmental Psychology"},
+            {"SPC", "Public Speaking", "Interpersonal Communication"},
+            {"STA", "Statistics", "Applied Statistics"},
+    };
+    private static final String[] LEVELS = {"Intro to ", "Principles of ", "Foundations of ", "", "Applied ",
+            "Advanced ", "Topics in "};
+    private static final int[] CREDITS = {3, 3, 3, 4, 4, 1, 2};
+    // Term code, start and end date for sessions 1 to 3
+    private static final String[][] TERMS = {
+            {"2253", "1/6/2025", "5/2/2025"},
+            {"2255", "5/12/2025", "8/1/2025"},
+            {"2261", "8/25/2025", "12/12/2025"},
+    };
+
+    // SOC major group, then job titles whose words FieldClassifier.CAREERS files under its field
+    private static final String[][] ROLES = {
+            {"11", "managers", "executives", "directors"},
+            {"13", "analysts", "accountants", "consultants", "specialists"},
+            {"15", "developers", "programmers", "engineers", "scientists", "administrators"},
+            {"25", "teachers", "instructors", "educators", "tutors"},
+            {"27", "designers", "artists", "illustrators", "performers"},
+            {"29", "nurses", "therapists", "technicians", "physicians"},
+    };
+    private static final String[] QUALIFIERS = {"", "senior ", "lead ", "assistant ", "associate ", "chief ",
+            "junior ", "principal "};
+    private static final String[] SPECIALTIES = {"software", "data", "network", "clinical", "marketing", "financial",
+            "web", "graphic", "elementary school", "special education", "medical", "industrial", "environmental",
+            "sales", "research", "security", "health", "media", "music", "mathematics", "database", "training",
+            "interior", "respiratory", "payroll", "logistics", "cloud", "hospital", "museum", "sports"};
+    private static final String[] SETTINGS = {"", ", postsecondary", ", public sector", ", private sector",
+            ", nonprofit", ", retail", ", manufacturing", ", all other"};
+    private static final String[] EDUCATION = {"Bachelor's degree", "Master's degree", "Associate's degree",
+            "Doctoral or professional degree", "High school diploma or equivalent", "Postsecondary nondegree award"};
+
+    private static final String[] PROGRAM_AREAS = {"Accounting", "Architecture", "Biology", "Business Administration",
+            "Chemistry", "Computer Science", "Criminal Justice", "Cybersecurity", "Data Analytics",
+            "Early Childhood Education", "Economics", "Engineering", "English", "Film and Media", "Finance",
+            "Fine Arts", "Graphic Design", "Health Information Technology", "Hospitality Management",
+            "Information Technology", "Interior Design", "Marketing", "Mathematics", "Music", "Nursing",
+            "Paralegal Studies", "Physical Therapy", "Physics", "Psychology", "Radiology", "Respiratory Care",
+            "Secondary Education", "Sociology", "Supply Chain Management", "Theatre", "Veterinary Technology"};
+    private static final String[] CREDENTIALS = {"Associate in Arts", "Associate in Science", "Bachelor of Science",
+            "Bachelor of Applied Science", "College Credit Certificate"};
+
+    private static final String[] FIRST_NAMES = {"Ana", "Carlos", "Daloune", "Elena", "Felix", "Gabriela", "Hector",
+            "Isabel", "Jorge", "Karina", "Luis", "Maria", "Nicolas", "Olga", "Pedro", "Rosa", "Sergio", "Teresa",
+            "Victor", "Yolanda", "Anselm", "Beatriz", "Dario", "Marisol", "Sahir"};
+    private static final String[] LAST_NAMES = {"Alvarez", "Bermudez", "Castillo", "Diaz", "Espinosa", "Fernandez",
+            "Garcia", "Hernandez", "Imam", "Jimenez", "Knights", "Lamothe", "Martinez", "Navarro", "Ortega", "Perez",
+            "Quintero", "Rodriguez", "Santos", "Torres", "Urbina", "Vargas", "Williams", "Cobo", "Zamora"};
+    private static final String[] ADMIN_TITLES = {"Academic Advisor", "Academic Advisor", "Counselor", "Chairperson",
+            "Assistant to the Chair", "Program Manager", "Dean"};
+    private static final String[] CAMPUSES = {"North", "Kendall", "Wolfson", "Hialeah", "Homestead", "Padron",
+            "West", "Medical"};
+    private static final String[] REASONS = {"Advising", "Course selection", "Career planning", "Transfer credits",
+            "Financial aid", "Graduation check"};
+
+    /**
+     * Table sizes. of() scales everything from the course count the way a large campus
+     * does; of(100_000) is 10k careers, 100 programs, 500 administrators and 1M time slots.
+     */
+    static final class Scale {
+        // Slots one administrator offers before the dates run past a year of weekdays
+        static final int SLOTS_PER_ADMINISTRATOR = 2_000;
+
+        final int courses;
+        final int careers;
+        final int programs;
+        final int administrators;
+        final int timeSlots;
+
+        Scale(int courses, int careers, int programs, int administrators, int timeSlots) {
+            if (courses < 1 || careers < 1 || programs < 2 || administrators < 1 || timeSlots < 0) {
+                throw new IllegalArgumentException("Need courses, careers, administrators and at least 2 programs");
+            }
+            this.courses = courses;
+            this.careers = careers;
+            this.programs = programs;
+            this.administrators = administrators;
+            this.timeSlots = timeSlots;
+        }
+
+        static Scale of(int courses) {
+            int timeSlots = courses * 10;
+            return new Scale(courses, Math.max(1, courses / 10), Math.max(7, courses / 1000),
+                    Math.max(5, timeSlots / SLOTS_PER_ADMINISTRATOR), timeSlots);
+        }
+
+        @Override
+        public String toString() {
+            return courses + " courses, " + careers + " careers, " + programs + " programs, "
+                    + administrators + " administrators, " + timeSlots + " time slots";
+        }
+    }
+
+    final long seed;
+    final Scale scale;
+    // Weekday dates in yyyy-MM-dd, as the availability screens store them
+    private final String[] dates;
+
+    CampusDataset(long seed, Scale scale) {
+        this.seed = seed;
+        this.scale = scale;
+        int perDay = scale.administrators * TIME_SLOTS.length;
+        this.dates = weekdays((scale.timeSlots + perDay - 1) / perDay);
+    }
+
+    // Courses CSV, header first; courses.course is UNIQUE, so every row gets its own code
+    String[] courseLines() {
+        String[] lines = new String[scale.courses + 1];
+        lines[0] = COURSE_HEADER;
+        for (int i = 0; i < scale.courses; i++) {
+            lines[i + 1] = courseLine(i);
+        }
+        return lines;
+    }
+
+    private String courseLine(int row) {
+        // Prefixes take turns and each numbers its courses from 1000, past 9999 if it must
+        String[] subject = SUBJECTS[row % SUBJECTS.length];
+        SplittableRandom random = random(COURSES, row);
+        String code = subject[0] + (1000 + row / SUBJECTS.length) + (random.nextInt(5) == 0 ? "C" : "");
+        String description = LEVELS[random.nextInt(LEVELS.length)]
+                + subject[1 + random.nextInt(subject.length - 1)];
+
+        int session = 1 + random.nextInt(TERMS.length);
+        String[] term = TERMS[session - 1];
+        return String.format(Locale.US, "%s\t%s-%05d\t%d\t%d\t%s\t%s\t%s\t%s %s",
+                code, term[0], row + 1, CREDITS[random.nextInt(CREDITS.length)], session, description,
+                term[1], term[2], pick(random, FIRST_NAMES), pick(random, LAST_NAMES));
+    }
+
+    // Careers CSV, header first; titles are unique and each SOC major group numbers its own codes
+    String[] careerLines() {
+        String[] lines = new String[scale.careers + 1];
+        lines[0] = CAREER_HEADER;
+        int[] codes = new int[ROLES.length];
+        for (int j = 0; j < scale.careers; j++) {
+            int[] role = role(j);
+            String[] group = ROLES[role[0]];
+            int code = 1000 + codes[role[0]]++;
+            if (code > 9999) {
+                throw new IllegalStateException("More careers than SOC group " + group[0] + " can number");
+            }
+            SplittableRandom random = random(CAREERS, j);
+            lines[j + 1] = String.format(Locale.US, "%s\t%s-%04d\t%.1f\t%.1f\t%d\t%s",
+                    careerTitle(j, group[role[1]]), group[0], code, 0.5 + random.nextDouble() * 500,
+                    -10 + random.nextDouble() * 40, 25_000 + random.nextInt(17_500) * 10,
+                    pick(random, EDUCATION));
+        }
+        return lines;
+    }
+
+    // Group and title index of career j, stepping through every combination before repeating one
+    private static int[] role(int j) {
+        int roles = 0;
+        for (String[] group : ROLES) {
+            roles += group.length - 1;
+        }
+        int r = j % roles;
+        for (int g = 0; g < ROLES.length; g++) {
+            if (r < ROLES[g].length - 1) {
+                return new int[]{g, r + 1};
+            }
+            r -= ROLES[g].length - 1;
+        }
+        throw new AssertionError();
+    }
+
+    private static String careerTitle(int j, String role) {
+        int roles = 0;
+        for (String[] group : ROLES) {
+            roles += group.length - 1;
+        }
+        int combination = j / roles;
+        int combinations = SPECIALTIES.length * QUALIFIERS.length * SETTINGS.length;
+        String specialty = SPECIALTIES[combination % SPECIALTIES.length];
+        String qualifier = QUALIFIERS[combination / SPECIALTIES.length % QUALIFIERS.length];
+        String setting = SETTINGS[combination / SPECIALTIES.length / QUALIFIERS.length % SETTINGS.length];
+        String title = qualifier + specialty + " " + role + setting;
+        if (combination >= combinations) {
+            title += " " + (combination / combinations + 1);
+        }
+        return Character.toUpperCase(title.charAt(0)) + title.substring(1);
+    }
+
+    // One program name per line, no header, as in academic_programs.csv
+    String[] programLines() {
+        String[] lines = new String[scale.programs];
+        int names = PROGRAM_AREAS.length * CREDENTIALS.length;
+        for (int p = 0; p < scale.programs; p++) {
+            int name = p % names;
+            lines[p] = PROGRAM_AREAS[name % PROGRAM_AREAS.length] + " ("
+                    + CREDENTIALS[name / PROGRAM_AREAS.length] + ")" + (p >= names ? " " + (p / names + 1) : "");
+        }
+        return lines;
+    }
+
+    // Administrators CSV, header first; names are the import key, so they never repeat
+    String[] administratorLines() {
+        String[] lines = new String[scale.administrators + 1];
+        lines[0] = ADMINISTRATOR_HEADER;
+        int names = FIRST_NAMES.length * LAST_NAMES.length;
+        for (int a = 0; a < scale.administrators; a++) {
+            String first = FIRST_NAMES[a % names / LAST_NAMES.length];
+            String last = LAST_NAMES[a % LAST_NAMES.length];
+            String name = last + ", " + first + (a >= names ? " " + (char) ('A' + a / names % 26) + "." : "");
+            SplittableRandom random = random(ADMINISTRATORS, a);
+            lines[a + 1] = String.format(Locale.US, "%s\t%s\t%s%s%d@mdc.edu\t305-237-%04d\t%s",
+                    name, pick(random, ADMIN_TITLES), first.substring(0, 1).toLowerCase(Locale.US),
+                    last.toLowerCase(Locale.US), a + 1, 1000 + a % 9000, pick(random, CAMPUSES));
+        }
+        return lines;
+    }
+
+    // Program ids of course id courseId: one, and a second for a quarter of the courses
+    int[] programsOf(int courseId) {
+        SplittableRandom random = random(COURSE_PROGRAMS, courseId);
+        int first = 1 + random.nextInt(scale.programs);
+        if (random.nextInt(4) != 0) {
+            return new int[]{first};
+        }
+        int second = 1 + random.nextInt(scale.programs - 1);
+        return new int[]{first, second >= first ? second + 1 : second};
+    }
+
+    // RECOMMENDATIONS_PER_CAREER (course id, relevance) pairs for career id careerId, no course twice
+    int[][] recommendationsOf(int careerId) {
+        SplittableRandom random = random(CAREER_COURSES, careerId);
+        int[][] recommendations = new int[Math.min(RECOMMENDATIONS_PER_CAREER, scale.courses)][];
+        for (int r = 0; r < recommendations.length; r++) {
+            int courseId;
+            do {
+                courseId = 1 + random.nextInt(scale.courses);
+            } while (recommends(recommendations, r, courseId));
+            recommendations[r] = new int[]{courseId, 1 + random.nextInt(10)};
+        }
+        return recommendations;
+    }
+
+    private static boolean recommends(int[][] recommendations, int count, int courseId) {
+        for (int r = 0; r < count; r++) {
+            if (recommendations[r][0] == courseId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Slot i: administrators take turns, each offering every TIME_SLOTS entry once a weekday
+    int adminOf(int slot) {
+        return 1 + slot % scale.administrators;
+    }
+
+    String dateOf(int slot) {
+        return dates[slot / scale.administrators / TIME_SLOTS.length];
+    }
+
+    String timeSlotOf(int slot) {
+        return TIME_SLOTS[slot / scale.administrators % TIME_SLOTS.length];
+    }
+
+    // The slot's stream draws whether it is booked, then the student, then the reason
+    boolean isBooked(int slot) {
+        return random(APPOINTMENTS, slot).nextInt(100) < BOOKED_PERCENT;
+    }
+
+    String studentOf(int slot) {
+        SplittableRandom random = random(APPOINTMENTS, slot);
+        random.nextInt(100);
+        return "student" + (1 + random.nextInt(scale.courses));
+    }
+
+    String reasonOf(int slot) {
+        SplittableRandom random = random(APPOINTMENTS, slot);
+        random.nextInt(100);
+        random.nextInt(scale.courses);
+        return pick(random, REASONS);
+    }
+
+    /**
+     * Imports the CSV tables into an empty database, then queues the memberships,
+     * recommendations, time slots and appointments that refer to their ids.
+     */
+    void populate(DatabaseManager dbManager) {
+        check(dbManager.importCoursesFromCSV(courseLines()), "courses");
+        check(dbManager.importAcademicProgramsFromCSV(programLines()), "programs");
+        check(dbManager.importCareersFromCSV(careerLines()), "careers");
+        check(dbManager.importAdministratorsFromCSV(administratorLines()), "administrators");
+        check(dbManager.getCourseCount() == scale.courses && dbManager.getCareerCount() == scale.careers
+                && dbManager.getAcademicProgramCount() == scale.programs
+                && dbManager.getAdministratorCount() == scale.administrators, "into empty tables");
+
+        List<CompletableFuture<?>> writes = new ArrayList<>();
+        for (int courseId = 1; courseId <= scale.courses; courseId++) {
+            for (int programId : programsOf(courseId)) {
+                writes.add(dbManager.addCourseToProgramQueued(courseId, programId));
+            }
+            writes = flush(writes);
+        }
+        for (int careerId = 1; careerId <= scale.careers; careerId++) {
+            for (int[] recommendation : recommendationsOf(careerId)) {
+                writes.add(dbManager.putRecommendationQueued(careerId, recommendation[0], recommendation[1]));
+            }
+            writes = flush(writes);
+        }
+        // The queue commits in order, so each booking follows its slot
+        List<CompletableFuture<BookingResult>> bookings = new ArrayList<>();
+        for (int slot = 0; slot < scale.timeSlots; slot++) {
+            writes.add(dbManager.addTimeSlotQueued(adminOf(slot), dateOf(slot), timeSlotOf(slot)));
+            if (isBooked(slot)) {
+                bookings.add(dbManager.bookTimeSlotQueued(studentOf(slot), slot + 1, reasonOf(slot)));
+            }
+            if (bookings.size() >= WRITE_CHUNK) {
+                checkBooked(bookings);
+            }
+            writes = flush(writes);
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+        checkBooked(bookings);
+    }
+
+    /**
+     * Writes the importer CSVs, plus the linking tables as tab-delimited id columns, to
+     * directory for loading outside the app.
+     */
+    void write(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory);
+        }
+        write(new File(directory, "courses.csv"), courseLines());
+        write(new File(directory, "careers.csv"), careerLines());
+        write(new File(directory, "academic_programs.csv"), programLines());
+        write(new File(directory, "administrators.csv"), administratorLines());
+
+        try (Writer writer = writer(new File(directory, "course_programs.csv"))) {
+            writer.write("course_id\tprogram_id\n");
+            for (int courseId = 1; courseId <= scale.courses; courseId++) {
+                for (int programId : programsOf(courseId)) {
+                    writer.write(courseId + "\t" + programId + "\n");
+                }
+            }
+        }
+        try (Writer writer = writer(new File(directory, "career_courses.csv"))) {
+            writer.write("career_id\tcourse_id\trelevance\n");
+            for (int careerId = 1; careerId <= scale.careers; careerId++) {
+                for (int[] recommendation : recommendationsOf(careerId)) {
+                    writer.write(careerId + "\t" + recommendation[0] + "\t" + recommendation[1] + "\n");
+                }
+            }
+        }
+        try (Writer availability = writer(new File(directory, "availability.csv"));
+             Writer appointments = writer(new File(directory, "appointments.csv"))) {
+            availability.write("id\tadmin_id\tdate\ttime_slot\tis_available\n");
+            appointments.write("student_username\tadmin_id\tdate\ttime_slot\treason\n");
+            for (int slot = 0; slot < scale.timeSlots; slot++) {
+                boolean booked = isBooked(slot);
+                String key = adminOf(slot) + "\t" + dateOf(slot) + "\t" + timeSlotOf(slot);
+                availability.write((slot + 1) + "\t" + key + "\t" + (booked ? 0 : 1) + "\n");
+                if (booked) {
+                    appointments.write(studentOf(slot) + "\t" + key + "\t" + reasonOf(slot) + "\n");
+                }
+            }
+        }
+    }
+
+    private static void write(File file, String[] lines) throws IOException {
+        try (Writer writer = writer(file)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static Writer writer(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8));
+    }
+
+    private static List<CompletableFuture<?>> flush(List<CompletableFuture<?>> writes) {
+        if (writes.size() < WRITE_CHUNK) {
+            return writes;
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+        return new ArrayList<>();
+    }
+
+    private static void checkBooked(List<CompletableFuture<BookingResult>> bookings) {
+        for (CompletableFuture<BookingResult> booking : bookings) {
+            check(booking.join() == BookingResult.BOOKED, "appointments");
+        }
+        bookings.clear();
+    }
+
+    private static void check(boolean loaded, String what) {
+        if (!loaded) {
+            throw new IllegalStateException("Could not load " + what);
+        }
+    }
+
+    // Monday 6 January 2025 onwards, weekends skipped
+    private static String[] weekdays(int count) {
+        String[] dates = new String[count];
+        Calendar calendar = new GregorianCalendar(2025, Calendar.JANUARY, 6);
+        for (int d = 0; d < count; d++) {
+            dates[d] = String.format(Locale.US, "%04d-%02d-%02d", calendar.get(Calendar.YEAR),
+                    calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+            calendar.add(Calendar.DAY_OF_MONTH, calendar.get(Calendar.DAY_OF_WEEK) == Calendar.FRIDAY ? 3 : 1);
+        }
+        return dates;
+    }
+
+    // The stream for one row of one table, mixed from the seed (SplitMix64's finalizer)
+    private SplittableRandom random(int table, long row) {
+        long z = seed + table * 0x9E3779B97F4A7C15L + row * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.experiment;
+
+import android.app.Application;
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * The generated campus is the same for the same seed, keeps the keys the importers and
+ * tables need unique, and loads into DatabaseManager with the ids populate() assumes.
+ *
+ * export() writes a dataset for use outside the tests when given an output directory:
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests '*CampusDatasetTest.export' -PcampusCourses=100000 -PcampusSeed=7
+ *
+ * The files go to app/build/campus.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28, application = Application.class)
+public class CampusDatasetTest {
+    private static final String TEST_DB = "campus-test.db";
+
+    @Test
+    public void sameSeed_givesTheSameCampus() {
+        CampusDataset first = new CampusDataset(42, CampusDataset.Scale.of(2_000));
+        CampusDataset second = new CampusDataset(42, CampusDataset.Scale.of(2_000));
+        CampusDataset other = new CampusDataset(43, CampusDataset.Scale.of(2_000));
+
+        assertArrayEquals(first.courseLines(), second.courseLines());
+        assertArrayEquals(first.careerLines(), second.careerLines());
+        assertArrayEquals(first.administratorLines(), second.administratorLines());
+        assertArrayEquals(first.recommendationsOf(17), second.recommendationsOf(17));
+        assertFalse(Arrays.equals(first.courseLines(), other.courseLines()));
+    }
+
+    @Test
+    public void growingOneTable_leavesTheOthersAlone() {
+        CampusDataset small = new CampusDataset(42, new CampusDataset.Scale(1_000, 100, 10, 5, 10_000));
+        CampusDataset large = new CampusDataset(42, new CampusDataset.Scale(5_000, 100, 10, 5, 10_000));
+
+        assertArrayEquals(small.careerLines(), large.careerLines());
+        assertArrayEquals(Arrays.copyOf(small.courseLines(), 1_001), Arrays.copyOf(large.courseLines(), 1_001));
+    }
+
+    @Test
+    public void largeScale_keepsImportKeysUnique() {
+        CampusDataset.Scale scale = CampusDataset.Scale.of(100_000);
+        assertEquals(10_000, scale.careers);
+        assertEquals(1_000_000, scale.timeSlots);
+        CampusDataset dataset = new CampusDataset(1, scale);
+
+        String[] courses = dataset.courseLines();
+        assertEquals(CampusDataset.COURSE_HEADER, courses[0]);
+        // courses.course is UNIQUE and the delta import key
+        assertUniqueColumns(courses, 8, 0);
+        String[] careers = dataset.careerLines();
+        assertEquals(CampusDataset.CAREER_HEADER, careers[0]);
+        // occupation_title is UNIQUE and occupation_code is the delta import key
+        assertUniqueColumns(careers, 6, 0);
+        assertUniqueColumns(careers, 6, 1);
+        assertUniqueColumns(dataset.administratorLines(), 5, 0);
+        assertEquals(scale.programs, new HashSet<>(Arrays.asList(dataset.programLines())).size());
+
+        // availability is UNIQUE(admin_id, date, time_slot)
+        Set<String> slots = new HashSet<>();
+        for (int slot = 0; slot < scale.timeSlots; slot++) {
+            assertTrue(slots.add(dataset.adminOf(slot) + " " + dataset.dateOf(slot) + " " + dataset.timeSlotOf(slot)));
+        }
+    }
+
+    @Test
+    public void populate_loadsEveryTableWithPredictableIds() {
+        Context context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(TEST_DB);
+        DatabaseManager dbManager = new DatabaseManager(context, TEST_DB);
+        try {
+            CampusDataset dataset = new CampusDataset(42, CampusDataset.Scale.of(500));
+            dataset.populate(dbManager);
+
+            assertEquals(500, dbManager.getCourseCount());
+            assertEquals(50 * CampusDataset.RECOMMENDATIONS_PER_CAREER, dbManager.getRecommendationCount());
+
+            int admin = dataset.adminOf(0);
+            String date = dataset.dateOf(0);
+            int open = 0;
+            int booked = 0;
+            for (int slot = 0; slot < dataset.scale.timeSlots; slot++) {
+                if (dataset.adminOf(slot) == admin) {
+                    if (dataset.isBooked(slot)) {
+                        booked++;
+                    } else if (dataset.dateOf(slot).equals(date)) {
+                        open++;
+                    }
+                }
+            }
+            try (Cursor cursor = dbManager.getAvailableTimeSlots(admin, date)) {
+                assertEquals(open, cursor.getCount());
+            }
+            try (Cursor cursor = dbManager.getAppointmentsForAdmin(admin)) {
+                assertEquals(booked, cursor.getCount());
+            }
+        } finally {
+            dbManager.close();
+            context.deleteDatabase(TEST_DB);
+        }
+    }
+
+    @Test
+    public void export() throws Exception {
+        String output = System.getProperty("campus.output");
+        Assume.assumeTrue("campus.output not set", output != null);
+        CampusDataset.Scale scale = CampusDataset.Scale.of(Integer.parseInt(System.getProperty("campus.courses")));
+        CampusDataset dataset = new CampusDataset(Long.parseLong(System.getProperty("campus.seed", "1")), scale);
+
+        dataset.write(new File(output));
+        System.out.println("Campus of " + scale + " written to " + new File(output).getAbsolutePath());
+    }
+
+    private static void assertUniqueColumns(String[] lines, int columns, int... key) {
+        Set<String> keys = new HashSet<>();
+        for (int i = 1; i < lines.length; i++) {
+            String[] values = lines[i].split("\t", -1);
+            assertEquals(lines[i], columns, values.length);
+            StringBuilder value = new StringBuilder();
+            for (int column : key) {
+                value.append(values[column].trim()).append('\t');
+            }
+            assertTrue("repeated " + value, keys.add(value.toString()));
+        }
+    }
+}
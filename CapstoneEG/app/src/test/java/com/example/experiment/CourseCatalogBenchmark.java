@@ -0,0 +1,100 @@
+package com.example.experiment;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Build time, retained heap, lookup latency and copy cost of CourseCatalog at each
+ * catalog size in benchmark.sizes. Skipped unless sizes are given:
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests '*CourseCatalogBenchmark' -PbenchmarkSizes=10000,100000
+ *
+ * Results go to app/build/benchmarks/CourseCatalog-(commit).json.
+ */
+public class CourseCatalogBenchmark {
+    private static final String[] MAJORS = {"STEM", "Arts", "Business", "Education", "Health Science"};
+    private static final int LOOKUPS = 100000;
+    private static final int PROGRAMS = 50;
+
+    // Keeps the JIT from dropping lookups whose results are otherwise unused
+    private long checksum;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("benchmark.sizes not set", Benchmark.enabled());
+    }
+
+    @Test
+    public void readsAndCopies() throws Exception {
+        Benchmark benchmark = new Benchmark("CourseCatalog");
+        for (int size : Benchmark.sizes()) {
+            benchmark.measure("build", size, 1, 5, null, i -> generate(size).size());
+
+            long heapBefore = usedHeap();
+            CourseCatalog catalog = generate(size);
+            long retainedBytes = usedHeap() - heapBefore;
+            System.out.println("CourseCatalog @" + size + ": ~" + retainedBytes / 1024 + " KB retained");
+            assertEquals(size, catalog.getAll().size());
+
+            Random random = new Random(42);
+            int[] ids = new int[LOOKUPS];
+            for (int i = 0; i < LOOKUPS; i++) {
+                ids[i] = 1 + random.nextInt(size);
+            }
+            Benchmark.Result get = benchmark.measure("get", size, 3, 10, null, i -> {
+                for (int id : ids) {
+                    checksum += catalog.get(id).getId();
+                }
+                return LOOKUPS;
+            });
+            // Generous bound; only catches a regression to something like a linear scan
+            double getNanos = 1e9 / get.rowsPerSecond();
+            assertTrue("get(id) took " + getNanos + " ns", getNanos < 20000);
+
+            benchmark.measure("getByMajor+getForProgram", size, 3, 10, null, i -> {
+                for (int n = 0; n < LOOKUPS; n++) {
+                    checksum += catalog.getByMajor(MAJORS[n % MAJORS.length]).size();
+                    checksum += catalog.getForProgram(n % PROGRAMS).size();
+                }
+                return 2L * LOOKUPS;
+            });
+
+            benchmark.measure("withCourse", size, 2, 10, null, i -> {
+                CourseCatalog updated = catalog.withCourse(new Course(size / 2, "Renamed course " + i,
+                        "REF" + size / 2, "3", null, null, null, null, null, "Arts"));
+                checksum += updated.size();
+                return 1;
+            });
+        }
+        System.out.println("CourseCatalog checksum " + checksum);
+        benchmark.write();
+    }
+
+    private static CourseCatalog generate(int courseCount) {
+        Random random = new Random(courseCount);
+        CourseCatalog.Builder builder = new CourseCatalog.Builder();
+        for (int id = 1; id <= courseCount; id++) {
+            builder.addCourse(new Course(id, "Course " + Integer.toString(random.nextInt(), 36) + " " + id,
+                    "REF" + id, "3", "Description of course " + id, "Fall", "2025-01-01", "2025-05-01",
+                    "Instructor " + (id % 500), MAJORS[id % MAJORS.length]));
+            builder.addProgramCourse(id % PROGRAMS, id);
+            if (id % 3 == 0) {
+                builder.addProgramCourse((id / 3) % PROGRAMS, id);
+            }
+        }
+        return builder.build();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
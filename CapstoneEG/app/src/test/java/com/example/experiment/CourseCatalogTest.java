@@ -0,0 +1,133 @@
+package com.example.experiment;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * CourseCatalog snapshots answer id, major and program lookups in title order, and every
+ * change produces a new snapshot while the old one stays as it was. Timings at scale are
+ * in CourseCatalogBenchmark.
+ */
+public class CourseCatalogTest {
+    @Test
+    public void build_indexesByIdMajorAndProgram() {
+        CourseCatalog catalog = new CourseCatalog.Builder()
+                .addCourse(course(3, "Statistics", "STEM"))
+                .addCourse(course(1, "Painting", "Arts"))
+                .addCourse(course(2, "Biology", "STEM"))
+                .addProgramCourse(10, 3)
+                .addProgramCourse(10, 2)
+                .addProgramCourse(10, 2)
+                .addProgramCourse(10, 99)
+                .build();
+
+        assertEquals(3, catalog.size());
+        assertEquals("Painting", catalog.get(1).getTitle());
+        assertNull(catalog.get(4));
+        assertTitles(catalog.getAll(), "Biology", "Painting", "Statistics");
+        assertTitles(catalog.getByMajor("STEM"), "Biology", "Statistics");
+        assertTrue(catalog.getByMajor("Business").isEmpty());
+        // Duplicates and unknown courses are dropped from memberships
+        assertTitles(catalog.getForProgram(10), "Biology", "Statistics");
+        assertTrue(catalog.getForProgram(11).isEmpty());
+        assertTrue(catalog.isInProgram(3, 10));
+        assertFalse(catalog.isInProgram(1, 10));
+    }
+
+    @Test
+    public void withCourse_leavesPreviousSnapshotUntouched() {
+        CourseCatalog before = new CourseCatalog.Builder()
+                .addCourse(course(1, "Biology", "STEM"))
+                .addCourse(course(2, "Chemistry", "STEM"))
+                .addProgramCourse(10, 1)
+                .build();
+
+        CourseCatalog renamed = before.withCourse(course(1, "Zoology", "Arts"));
+        CourseCatalog added = renamed.withCourse(course(5, "Anatomy", "STEM"));
+
+        assertTitles(before.getAll(), "Biology", "Chemistry");
+        assertTitles(before.getForProgram(10), "Biology");
+        assertTitles(renamed.getAll(), "Chemistry", "Zoology");
+        assertTitles(renamed.getByMajor("STEM"), "Chemistry");
+        assertTitles(renamed.getByMajor("Arts"), "Zoology");
+        assertTitles(renamed.getForProgram(10), "Zoology");
+        assertTitles(added.getAll(), "Anatomy", "Chemistry", "Zoology");
+        assertEquals("Anatomy", added.get(5).getTitle());
+        assertNull(renamed.get(5));
+    }
+
+    @Test
+    public void withoutCourse_dropsItsMemberships() {
+        CourseCatalog before = new CourseCatalog.Builder()
+                .addCourse(course(1, "Biology", "STEM"))
+                .addCourse(course(2, "Chemistry", "STEM"))
+                .addProgramCourse(10, 1)
+                .addProgramCourse(10, 2)
+                .build();
+
+        CourseCatalog after = before.withoutCourse(1);
+
+        assertNull(after.get(1));
+        assertTitles(after.getByMajor("STEM"), "Chemistry");
+        assertTitles(after.getForProgram(10), "Chemistry");
+        assertFalse(after.isInProgram(1, 10));
+        assertTitles(before.getForProgram(10), "Biology", "Chemistry");
+        assertSame(after, after.withoutCourse(1));
+    }
+
+    @Test
+    public void programCourses_addAndRemove() {
+        CourseCatalog catalog = new CourseCatalog.Builder()
+                .addCourse(course(1, "Biology", "STEM"))
+                .addCourse(course(2, "Chemistry", "STEM"))
+                .build();
+
+        CourseCatalog linked = catalog.withProgramCourse(7, 2).withProgramCourse(7, 1).withProgramCourse(3, 1);
+        assertTitles(linked.getForProgram(7), "Biology", "Chemistry");
+        assertTitles(linked.getForProgram(3), "Biology");
+        assertTrue(catalog.getForProgram(7).isEmpty());
+        // Unknown courses and repeated links change nothing
+        assertSame(linked, linked.withProgramCourse(7, 42));
+        assertSame(linked, linked.withProgramCourse(7, 1));
+
+        CourseCatalog unlinked = linked.withoutProgramCourse(7, 1);
+        assertTitles(unlinked.getForProgram(7), "Chemistry");
+        assertTitles(linked.getForProgram(7), "Biology", "Chemistry");
+        assertSame(unlinked, unlinked.withoutProgramCourse(7, 1));
+    }
+
+    @Test
+    public void pageAfter_continuesFromTheLastCourseSeen() {
+        CourseCatalog catalog = new CourseCatalog.Builder()
+                .addCourse(course(4, "Algebra", "STEM"))
+                .addCourse(course(2, "Algebra", "STEM"))
+                .addCourse(course(3, "Biology", "STEM"))
+                .addCourse(course(1, "Chemistry", "STEM"))
+                .addCourse(course(5, "Drawing", "Arts"))
+                .build();
+        List<Course> all = catalog.getAll();
+
+        List<Course> first = CourseCatalog.pageAfter(all, null, 2);
+        assertEquals(2, first.get(0).getId());
+        assertEquals(4, first.get(1).getId());
+        assertTitles(CourseCatalog.pageAfter(all, first.get(1), 2), "Biology", "Chemistry");
+        assertTitles(CourseCatalog.pageAfter(all, all.get(3), 2), "Drawing");
+        assertTrue(CourseCatalog.pageAfter(all, all.get(4), 2).isEmpty());
+        // A course deleted since the last page still marks where the next one starts
+        assertTitles(CourseCatalog.pageAfter(all, course(9, "Bridge", "Arts"), 2), "Chemistry", "Drawing");
+    }
+
+    private static Course course(int id, String title, String major) {
+        return new Course(id, title, "REF" + id, "3", null, null, null, null, null, major);
+    }
+
+    private static void assertTitles(List<Course> courses, String... titles) {
+        assertEquals(titles.length, courses.size());
+        for (int i = 0; i < titles.length; i++) {
+            assertEquals(titles[i], courses.get(i).getTitle());
+        }
+    }
+}
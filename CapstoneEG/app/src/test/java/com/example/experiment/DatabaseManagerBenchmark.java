@@ -0,0 +1,140 @@
+package com.example.experiment;
+
+import android.app.Application;
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Throughput and latency of the DatabaseManager hot paths on the JVM, against Robolectric's
+ * SQLite, at each dataset size in benchmark.sizes: the number of courses in a CampusDataset,
+ * whose other tables scale with it. Skipped unless sizes are given:
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests '*DatabaseManagerBenchmark' -PbenchmarkSizes=1000,10000,100000
+ *
+ * Results go to app/build/benchmarks/DatabaseManager-(commit).json.
+ */
+@RunWith(RobolectricTestRunner.class)
+// A plain Application, so ExperimentApplication does not open and seed the real database
+@Config(sdk = 28, application = Application.class)
+public class DatabaseManagerBenchmark {
+    private static final String TEST_DB = "benchmark.db";
+    private static final String IMPORT_DB = "benchmark-import.db";
+    private static final String[] SEARCHES = {"cgs", "cgs10", "networking", "intro biology", "nur1034"};
+    private static final long SEED = 1;
+
+    private Context context;
+    private final List<DatabaseManager> managers = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("benchmark.sizes not set", Benchmark.enabled());
+        context = ApplicationProvider.getApplicationContext();
+    }
+
+    @After
+    public void tearDown() {
+        for (DatabaseManager manager : managers) {
+            manager.close();
+        }
+        if (context != null) {
+            context.deleteDatabase(TEST_DB);
+            context.deleteDatabase(IMPORT_DB);
+        }
+    }
+
+    @Test
+    public void hotPaths() throws Exception {
+        Benchmark benchmark = new Benchmark("DatabaseManager");
+        for (int size : Benchmark.sizes()) {
+            // The booking run needs a fresh slot for each of its warm-up and measured calls
+            assertTrue("benchmark sizes start at 100", size >= 100);
+            CampusDataset campus = new CampusDataset(SEED, CampusDataset.Scale.of(size));
+            DatabaseManager dbManager = open(TEST_DB);
+            campus.populate(dbManager);
+            // The app loads the catalog on launch, so program listings come from memory
+            dbManager.reloadCourseCatalog();
+
+            benchmark.measure("searchCourses", size, 50, 500, null, i -> {
+                try (Cursor cursor = dbManager.searchCourses(SEARCHES[i % SEARCHES.length])) {
+                    return drain(cursor);
+                }
+            });
+
+            benchmark.measure("getCoursesForProgram", size, 50, 500, null, i -> {
+                try (Cursor cursor = dbManager.getCoursesForProgram(1 + i % campus.scale.programs)) {
+                    return drain(cursor);
+                }
+            });
+
+            // Each write drops the cached result, so every call runs the query
+            benchmark.measure("getAllRecommendationsSafe", size, 3, 20,
+                    i -> dbManager.putRecommendation(1, 1, 1 + i % 10),
+                    i -> dbManager.getAllRecommendationsSafe().size());
+            benchmark.measure("getAllRecommendationsSafe.cached", size, 3, 50, null,
+                    i -> dbManager.getAllRecommendationsSafe().size());
+
+            // One slot the campus left open per iteration
+            List<Integer> open = new ArrayList<>();
+            for (int slot = 0; open.size() < 550 && slot < campus.scale.timeSlots; slot++) {
+                if (!campus.isBooked(slot)) {
+                    open.add(slot);
+                }
+            }
+            benchmark.measure("bookAppointment", size, 50, open.size() - 50, null, i -> {
+                int slot = open.get(i);
+                assertTrue(dbManager.bookAppointment("benchmark" + i, campus.adminOf(slot), campus.dateOf(slot),
+                        campus.timeSlotOf(slot), "Advising"));
+                return 1;
+            });
+            close(dbManager);
+            context.deleteDatabase(TEST_DB);
+
+            // Imports need an empty courses table, so they get a database of their own
+            DatabaseManager importer = open(IMPORT_DB);
+            String[] csv = campus.courseLines();
+            benchmark.measure("importCoursesFromCSV", size, 2, 5, i -> importer.clearCoursesTable(), i -> {
+                assertTrue(importer.importCoursesFromCSV(csv));
+                return size;
+            });
+            assertEquals(size, importer.getCourseCount());
+            close(importer);
+            context.deleteDatabase(IMPORT_DB);
+        }
+        benchmark.write();
+    }
+
+    private DatabaseManager open(String name) {
+        context.deleteDatabase(name);
+        DatabaseManager dbManager = new DatabaseManager(context, name);
+        managers.add(dbManager);
+        return dbManager;
+    }
+
+    private void close(DatabaseManager dbManager) {
+        dbManager.close();
+        managers.remove(dbManager);
+    }
+
+    private static long drain(Cursor cursor) {
+        long rows = 0;
+        while (cursor.moveToNext()) {
+            rows++;
+        }
+        return rows;
+    }
+}
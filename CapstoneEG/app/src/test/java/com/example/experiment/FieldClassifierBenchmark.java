@@ -0,0 +1,99 @@
+package com.example.experiment;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * FieldClassifier against the regex chain ManageRecommendationsActivity used to run over
+ * every career title, classifying as many generated titles as each size in benchmark.sizes.
+ * Skipped unless sizes are given:
+ *
+ *   ./gradlew :app:testDebugUnitTest --tests '*FieldClassifierBenchmark' -PbenchmarkSizes=200000
+ *
+ * Results go to app/build/benchmarks/FieldClassifier-(commit).json.
+ */
+public class FieldClassifierBenchmark {
+    private static final String[] WORDS = {
+            "computer", "network", "software", "digital", "marketing", "managers", "registered", "nurses",
+            "art", "directors", "teachers", "postsecondary", "health", "services", "information", "security",
+            "analysts", "financial", "special", "education", "media", "workers", "and", "all", "other",
+            "construction", "laborers", "food", "preparation", "transit", "drivers", "legal", "assistants"};
+
+    // Field matches per run, so the JIT cannot drop either matcher's work
+    private long matches;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue("benchmark.sizes not set", Benchmark.enabled());
+    }
+
+    @Test
+    public void careerTitles() throws Exception {
+        Benchmark benchmark = new Benchmark("FieldClassifier");
+        for (int size : Benchmark.sizes()) {
+            List<String> titles = generate(size);
+            benchmark.measure("regexChain", size, 1, 3, null, i -> {
+                matches += regexChain(titles);
+                return titles.size();
+            });
+            benchmark.measure("automaton", size, 1, 3, null, i -> {
+                long found = automaton(titles);
+                assertTrue(found > 0);
+                matches += found;
+                return titles.size();
+            });
+        }
+        System.out.println("FieldClassifier field matches " + matches);
+        benchmark.write();
+    }
+
+    // The matching ManageRecommendationsActivity.initializeFieldOccupationMap used to do
+    private static long regexChain(List<String> titles) {
+        long matches = 0;
+        for (String career : titles) {
+            String title = career.toLowerCase();
+            if (title.matches(".*(engineer|developer|programmer|scientist|analyst|technician|math|computer|science|research|technology|data|it|system).*"))
+                matches++;
+            if (title.matches(".*(health|medical|nurse|doctor|therapist|pharmacist|clinical|hospital|healthcare).*"))
+                matches++;
+            if (title.matches(".*(manager|executive|director|finance|business|consult|sales|account).*"))
+                matches++;
+            if (title.matches(".*(teacher|professor|educator|trainer|tutor|education|school).*"))
+                matches++;
+            if (title.matches(".*(artist|designer|musician|actor|director|perform|media|illustrator).*"))
+                matches++;
+        }
+        return matches;
+    }
+
+    private static long automaton(List<String> titles) {
+        long matches = 0;
+        for (String title : titles) {
+            matches += FieldClassifier.CAREERS.classify(title).fields().size();
+        }
+        return matches;
+    }
+
+    private static List<String> generate(int count) {
+        Random random = new Random(count);
+        List<String> titles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder title = new StringBuilder();
+            int words = 2 + random.nextInt(5);
+            for (int w = 0; w < words; w++) {
+                String word = WORDS[random.nextInt(WORDS.length)];
+                title.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+                title.append(w + 1 < words ? " " : "");
+            }
+            titles.add(title.toString());
+        }
+        return titles;
+    }
+}
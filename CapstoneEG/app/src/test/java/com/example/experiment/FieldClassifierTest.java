@@ -0,0 +1,75 @@
+package com.example.experiment;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * FieldClassifier matches whole words and word prefixes, sums keyword weights per field and
+ * falls back when nothing matches. FieldClassifierBenchmark compares it with the regex chain
+ * ManageRecommendationsActivity used to run over every career title.
+ */
+public class FieldClassifierTest {
+    @Test
+    public void matchesWholeWordsOnly() {
+        FieldClassifier classifier = new FieldClassifier.Builder()
+                .add(FieldClassifier.ARTS, 1, "art")
+                .add(FieldClassifier.STEM, 1, "it")
+                .build();
+
+        assertEquals(1, classifier.classify("Art history").weight(FieldClassifier.ARTS));
+        assertEquals(1, classifier.classify("ART1000").weight(FieldClassifier.ARTS));
+        assertTrue(classifier.classify("Department of smart starts").isEmpty());
+        assertTrue(classifier.classify("Digital editing").isEmpty());
+        assertEquals(1, classifier.classify("IT support").weight(FieldClassifier.STEM));
+    }
+
+    @Test
+    public void starMatchesLongerWords() {
+        FieldClassifier classifier = new FieldClassifier.Builder()
+                .add(FieldClassifier.EDUCATION, 1, "teach*")
+                .add(FieldClassifier.EDUCATION, 2, "teacher")
+                .build();
+
+        assertEquals(1, classifier.classify("Teaching assistants").weight(FieldClassifier.EDUCATION));
+        // Overlapping keywords both count
+        assertEquals(3, classifier.classify("Teacher").weight(FieldClassifier.EDUCATION));
+        assertTrue(classifier.classify("Reteach").isEmpty());
+    }
+
+    @Test
+    public void weightsDecideTheBestField() {
+        FieldClassifier.Result designers = FieldClassifier.CAREERS.classify("Web and digital interface designers");
+        assertEquals(Arrays.asList(FieldClassifier.ARTS, FieldClassifier.STEM), designers.fields());
+        assertEquals(FieldClassifier.ARTS, designers.best(null));
+
+        FieldClassifier.Result artDirectors = FieldClassifier.CAREERS.classify("Art directors");
+        assertEquals(Arrays.asList(FieldClassifier.ARTS, FieldClassifier.BUSINESS), artDirectors.fields());
+
+        assertEquals(Collections.singletonList(FieldClassifier.STEM),
+                FieldClassifier.CAREERS.classify("Computer and information research scientists").fields());
+        assertEquals(Collections.singletonList(FieldClassifier.HEALTH_SCIENCE),
+                FieldClassifier.CAREERS.classify("Registered nurses").fields());
+        assertTrue(FieldClassifier.CAREERS.classify("Construction laborers").fields().isEmpty());
+    }
+
+    @Test
+    public void courseMajors_fallBackToStem() {
+        assertEquals(FieldClassifier.ARTS, DatabaseManager.courseMajor("ART1000", "2253-1"));
+        assertEquals(FieldClassifier.STEM, DatabaseManager.courseMajor("Intro to Biology", "BIO101"));
+        assertEquals(FieldClassifier.BUSINESS, DatabaseManager.courseMajor("Principles of Accounting", "ACG2021"));
+        assertEquals(FieldClassifier.EDUCATION, DatabaseManager.courseMajor("Teaching reading", "EDF1005"));
+        assertEquals(FieldClassifier.HEALTH_SCIENCE, DatabaseManager.courseMajor("Nursing process", "NUR1020"));
+        assertEquals(FieldClassifier.STEM, DatabaseManager.courseMajor("CGS1060C", "2253-1591"));
+        // "art" inside another word no longer files a course under Arts
+        assertEquals(FieldClassifier.STEM, DatabaseManager.courseMajor("Department seminar", "2253-2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void builder_rejectsKeywordsWithSpaces() {
+        new FieldClassifier.Builder().add(FieldClassifier.ARTS, 1, "fine art");
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.experiment;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * QueryTracer bookkeeping without a database: spans nest per thread, operations collect
+ * calls and query work, and slow queries keep only the newest SLOW_QUERY_CAPACITY.
+ */
+public class QueryTracerTest {
+
+    @Test
+    public void begin_returnsNullWhileDisabled() {
+        QueryTracer tracer = new QueryTracer();
+
+        assertNull(tracer.begin("getCourseCount"));
+        assertNull(QueryTracer.current());
+        assertTrue(tracer.getOperations().isEmpty());
+    }
+
+    @Test
+    public void spans_nestAndRestoreTheOuterOperation() {
+        QueryTracer tracer = new QueryTracer();
+        tracer.setEnabled(true);
+
+        QueryTracer.Span outer = tracer.begin("importCourses");
+        QueryTracer.Span inner = tracer.begin("getCourseCount");
+        assertSame(inner, QueryTracer.current());
+
+        tracer.end(inner, 0, 1000);
+        assertSame(outer, QueryTracer.current());
+        tracer.end(outer, 0, 2000);
+        assertNull(QueryTracer.current());
+
+        assertEquals(2, tracer.getOperations().size());
+    }
+
+    @Test
+    public void operations_sortBySlowestTotal() {
+        QueryTracer tracer = new QueryTracer();
+        tracer.setEnabled(true);
+
+        for (int i = 0; i < 3; i++) {
+            tracer.end(tracer.begin("fast"), 0, TimeUnit.MICROSECONDS.toNanos(10));
+        }
+        tracer.end(tracer.begin("slow"), TimeUnit.MICROSECONDS.toNanos(300), TimeUnit.MILLISECONDS.toNanos(5));
+        tracer.record("slow", "SELECT 1", null, TimeUnit.MILLISECONDS.toNanos(4), 7);
+
+        List<QueryTracer.OperationStats> operations = tracer.getOperations();
+        assertEquals("slow", operations.get(0).operation);
+        assertEquals(1, operations.get(0).getCalls());
+        assertEquals(300, operations.get(0).getMaxWaitMicros());
+        assertEquals(1, operations.get(0).queries.get());
+        assertEquals(7, operations.get(0).rows.get());
+        assertEquals("fast", operations.get(1).operation);
+        assertEquals(3, operations.get(1).getCalls());
+    }
+
+    @Test
+    public void histogram_percentilesAreBucketUpperBounds() {
+        QueryTracer.Histogram histogram = new QueryTracer.Histogram();
+        assertEquals(0, histogram.percentileMicros(50));
+
+        for (int i = 0; i < 90; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(100));
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        // 100 us falls in [64, 128) and 10 ms in [8192, 16384)
+        assertEquals(128, histogram.percentileMicros(50));
+        assertEquals(128, histogram.percentileMicros(90));
+        assertEquals(16384, histogram.percentileMicros(95));
+        assertEquals(16384, histogram.percentileMicros(100));
+    }
+
+    @Test
+    public void slowQueries_keepTheNewestWithTheirArguments() {
+        QueryTracer tracer = new QueryTracer();
+        tracer.setSlowQueryMillis(1);
+
+        tracer.record("searchCourses", "SELECT fast", null, TimeUnit.MICROSECONDS.toNanos(500), 1);
+        for (int i = 0; i < QueryTracer.SLOW_QUERY_CAPACITY + 5; i++) {
+            tracer.record("searchCourses", "SELECT " + i, new Object[]{"cgs", i},
+                    TimeUnit.MILLISECONDS.toNanos(2), i);
+        }
+
+        List<QueryTracer.SlowQuery> slow = tracer.getSlowQueries();
+        assertEquals(QueryTracer.SLOW_QUERY_CAPACITY, slow.size());
+        int newest = QueryTracer.SLOW_QUERY_CAPACITY + 4;
+        assertEquals("SELECT " + newest, slow.get(0).sql);
+        assertEquals("'cgs', " + newest, slow.get(0).args);
+        assertEquals("SELECT 5", slow.get(slow.size() - 1).sql);
+
+        tracer.reset();
+        assertTrue(tracer.getSlowQueries().isEmpty());
+        assertTrue(tracer.getOperations().isEmpty());
+    }
+}